@@ -12,7 +12,6 @@ package io.usethesource.vallang.impl.persistent;
 
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
@@ -31,6 +30,7 @@ import io.usethesource.vallang.IWithKeywordParameters;
 import io.usethesource.vallang.impl.fields.AbstractDefaultWithKeywordParameters;
 import io.usethesource.vallang.impl.fields.ConstructorWithKeywordParametersFacade;
 import io.usethesource.vallang.type.Type;
+import io.usethesource.vallang.type.TypeBindings;
 import io.usethesource.vallang.type.TypeFactory;
 import io.usethesource.vallang.visitors.IValueVisitor;
 
@@ -803,7 +803,7 @@ import io.usethesource.vallang.visitors.IValueVisitor;
                 actualTypes[i++] = child.getType();
             }
 
-            Map<Type,Type> bindings = new HashMap<Type,Type>();
+            Map<Type,Type> bindings = new TypeBindings();
             constructorType.getFieldTypes().match(TypeFactory.getInstance().tupleType(actualTypes), bindings);
 
             for (Type field : constructorType.getAbstractDataType().getTypeParameters()) {
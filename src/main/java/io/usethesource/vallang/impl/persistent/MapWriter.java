@@ -29,8 +29,8 @@ import io.usethesource.vallang.util.AbstractTypeBag;
 
 final class MapWriter implements IMapWriter {
 
-	private AbstractTypeBag keyTypeBag = AbstractTypeBag.of();
-	private AbstractTypeBag valTypeBag = AbstractTypeBag.of();
+	private final AbstractTypeBag.Transient keyTypeBag = AbstractTypeBag.Transient.of();
+	private final AbstractTypeBag.Transient valTypeBag = AbstractTypeBag.Transient.of();
 	private final Map.Transient<IValue, IValue> mapContent = Map.Transient.of();
 
 	private @MonotonicNonNull IMap constructedMap;
@@ -51,12 +51,15 @@ final class MapWriter implements IMapWriter {
 		}
 		else if (replaced != null) {
 		    // only update the val since the key was already there
-		    valTypeBag = valTypeBag.decrease(replaced.getType()).increase(valType);
+		    if (replaced.getType() != valType) {
+		        valTypeBag.increase(valType);
+		        valTypeBag.decrease(replaced.getType());
+		    }
 		} 
 		else {
 		    // add the new entry for both bags since its entirely new
-		    keyTypeBag = keyTypeBag.increase(keyType); 
-		    valTypeBag = valTypeBag.increase(valType);
+		    keyTypeBag.increase(keyType); 
+		    valTypeBag.increase(valType);
 		}
 
 		assert mapContent.size() == keyTypeBag.sum();
@@ -120,7 +123,7 @@ final class MapWriter implements IMapWriter {
 	@Override
 	public IMap done() {
 		if (constructedMap == null) {
-			constructedMap = new PersistentHashMap(keyTypeBag, valTypeBag, mapContent.freeze());
+			constructedMap = new PersistentHashMap(keyTypeBag.freeze(), valTypeBag.freeze(), mapContent.freeze());
 		}
 
 		return constructedMap;
@@ -246,21 +246,21 @@ public final class PersistentHashIndexedBinaryRelation implements ISet, IRelatio
 
       final SetMultimap.Immutable<IValue, IValue> one;
       final SetMultimap.Immutable<IValue, IValue> two;
-      AbstractTypeBag keyTypeBagNew;
-      AbstractTypeBag valTypeBagNew;
+      final AbstractTypeBag.Transient keyTypeBagNew;
+      final AbstractTypeBag.Transient valTypeBagNew;
       final ISet def;
 
       if (that.size() >= this.size()) {
         def = that;
         one = that.content;
-        keyTypeBagNew = that.keyTypeBag;
-        valTypeBagNew = that.valTypeBag;
+        keyTypeBagNew = that.keyTypeBag.asTransient();
+        valTypeBagNew = that.valTypeBag.asTransient();
         two = this.content;
       } else {
         def = this;
         one = this.content;
-        keyTypeBagNew = this.keyTypeBag;
-        valTypeBagNew = this.valTypeBag;
+        keyTypeBagNew = this.keyTypeBag.asTransient();
+        valTypeBagNew = this.valTypeBag.asTransient();
         two = that.content;
       }
 
@@ -273,13 +273,13 @@ public final class PersistentHashIndexedBinaryRelation implements ISet, IRelatio
 
         if (tmp.__insert(key, val)) {
           modified = true;
-          keyTypeBagNew = keyTypeBagNew.increase(key.getType());
-          valTypeBagNew = valTypeBagNew.increase(val.getType());
+          keyTypeBagNew.increase(key.getType());
+          valTypeBagNew.increase(val.getType());
         }
       }
 
       if (modified) {
-        return PersistentSetFactory.from(keyTypeBagNew, valTypeBagNew, tmp.freeze());
+        return PersistentSetFactory.from(keyTypeBagNew.freeze(), valTypeBagNew.freeze(), tmp.freeze());
       }
       return def;
     } else {
@@ -301,21 +301,21 @@ public final class PersistentHashIndexedBinaryRelation implements ISet, IRelatio
 
       final SetMultimap.Immutable<IValue, IValue> one;
       final SetMultimap.Immutable<IValue, IValue> two;
-      AbstractTypeBag keyTypeBagNew;
-      AbstractTypeBag valTypeBagNew;
+      final AbstractTypeBag.Transient keyTypeBagNew;
+      final AbstractTypeBag.Transient valTypeBagNew;
       final ISet def;
 
       if (that.size() >= this.size()) {
         def = this;
         one = this.content;
-        keyTypeBagNew = this.keyTypeBag;
-        valTypeBagNew = this.valTypeBag;
+        keyTypeBagNew = this.keyTypeBag.asTransient();
+        valTypeBagNew = this.valTypeBag.asTransient();
         two = that.content;
       } else {
         def = that;
         one = that.content;
-        keyTypeBagNew = that.keyTypeBag;
-        valTypeBagNew = that.valTypeBag;
+        keyTypeBagNew = that.keyTypeBag.asTransient();
+        valTypeBagNew = that.valTypeBag.asTransient();
         two = this.content;
       }
 
@@ -330,13 +330,13 @@ public final class PersistentHashIndexedBinaryRelation implements ISet, IRelatio
         if (!two.containsEntry(key, val)) {
           it.remove();
           modified = true;
-          keyTypeBagNew = keyTypeBagNew.decrease(key.getType());
-          valTypeBagNew = valTypeBagNew.decrease(val.getType());
+          keyTypeBagNew.decrease(key.getType());
+          valTypeBagNew.decrease(val.getType());
         }
       }
 
       if (modified) {
-        return PersistentSetFactory.from(keyTypeBagNew, valTypeBagNew, tmp.freeze());
+        return PersistentSetFactory.from(keyTypeBagNew.freeze(), valTypeBagNew.freeze(), tmp.freeze());
       }
       return def;
     } else {
@@ -358,14 +358,14 @@ public final class PersistentHashIndexedBinaryRelation implements ISet, IRelatio
 
       final SetMultimap.Immutable<IValue, IValue> one;
       final SetMultimap.Immutable<IValue, IValue> two;
-      AbstractTypeBag keyTypeBagNew;
-      AbstractTypeBag valTypeBagNew;
+      final AbstractTypeBag.Transient keyTypeBagNew;
+      final AbstractTypeBag.Transient valTypeBagNew;
       final ISet def;
 
       def = this;
       one = this.content;
-      keyTypeBagNew = this.keyTypeBag;
-      valTypeBagNew = this.valTypeBag;
+      keyTypeBagNew = this.keyTypeBag.asTransient();
+      valTypeBagNew = this.valTypeBag.asTransient();
       two = that.content;
 
       final SetMultimap.Transient<IValue, IValue> tmp = one.asTransient();
@@ -377,13 +377,13 @@ public final class PersistentHashIndexedBinaryRelation implements ISet, IRelatio
 
         if (tmp.__remove(key, val)) {
           modified = true;
-          keyTypeBagNew = keyTypeBagNew.decrease(key.getType());
-          valTypeBagNew = valTypeBagNew.decrease(val.getType());
+          keyTypeBagNew.decrease(key.getType());
+          valTypeBagNew.decrease(val.getType());
         }
       }
 
       if (modified) {
-        return PersistentSetFactory.from(keyTypeBagNew, valTypeBagNew, tmp.freeze());
+        return PersistentSetFactory.from(keyTypeBagNew.freeze(), valTypeBagNew.freeze(), tmp.freeze());
       }
       return def;
     } else {
@@ -190,8 +190,8 @@ public final class PersistentHashMap implements IMap {
 			boolean isModified = false;
 			int previousSize = size();
 
-			AbstractTypeBag keyBagNew = keyTypeBag;
-			AbstractTypeBag valBagNew = valTypeBag;
+			final AbstractTypeBag.Transient keyBagNew = keyTypeBag.asTransient();
+			final AbstractTypeBag.Transient valBagNew = valTypeBag.asTransient();
 
 			for (Iterator<Entry<IValue, IValue>> it = that.entryIterator(); it.hasNext();) {
 				Entry<IValue, IValue> tuple = it.next();
@@ -202,13 +202,16 @@ public final class PersistentHashMap implements IMap {
 
 				if (replaced != null) {
 					// value replaced
-					valBagNew = valBagNew.decrease(replaced.getType()).increase(value.getType());
+					if (replaced.getType() != value.getType()) {
+						valBagNew.increase(value.getType());
+						valBagNew.decrease(replaced.getType());
+					}
 
 					isModified = true;
 				} else if (previousSize != transientContent.size()) {
 					// pair added
-					keyBagNew = keyBagNew.increase(key.getType());
-					valBagNew = valBagNew.increase(value.getType());
+					keyBagNew.increase(key.getType());
+					valBagNew.increase(value.getType());
 
 					isModified = true;
 					previousSize++;
@@ -216,7 +219,7 @@ public final class PersistentHashMap implements IMap {
 			}
 
 			if (isModified) {
-				return new PersistentHashMap(keyBagNew, valBagNew, transientContent.freeze());
+				return new PersistentHashMap(keyBagNew.freeze(), valBagNew.freeze(), transientContent.freeze());
 			} else {
 				return this;
 			}
@@ -168,18 +168,18 @@ public final class PersistentHashSet implements ISet {
 
       final Set.Immutable<IValue> one;
       final Set.Immutable<IValue> two;
-      AbstractTypeBag bag;
+      final AbstractTypeBag.Transient bag;
       final ISet def;
 
       if (that.size() >= this.size()) {
         def = that;
         one = that.content;
-        bag = that.elementTypeBag;
+        bag = that.elementTypeBag.asTransient();
         two = this.content;
       } else {
         def = this;
         one = this.content;
-        bag = this.elementTypeBag;
+        bag = this.elementTypeBag.asTransient();
         two = that.content;
       }
 
@@ -189,12 +189,12 @@ public final class PersistentHashSet implements ISet {
       for (IValue key : two) {
         if (tmp.__insert(key)) {
           modified = true;
-          bag = bag.increase(key.getType());
+          bag.increase(key.getType());
         }
       }
 
       if (modified) {
-        return PersistentSetFactory.from(bag, tmp.freeze());
+        return PersistentSetFactory.from(bag.freeze(), tmp.freeze());
       }
       return def;
     } else {
@@ -213,18 +213,18 @@ public final class PersistentHashSet implements ISet {
 
       final Set.Immutable<IValue> one;
       final Set.Immutable<IValue> two;
-      AbstractTypeBag bag;
+      final AbstractTypeBag.Transient bag;
       final ISet def;
 
       if (that.size() >= this.size()) {
         def = this;
         one = this.content;
-        bag = this.elementTypeBag;
+        bag = this.elementTypeBag.asTransient();
         two = that.content;
       } else {
         def = that;
         one = that.content;
-        bag = that.elementTypeBag;
+        bag = that.elementTypeBag.asTransient();
         two = this.content;
       }
 
@@ -236,12 +236,12 @@ public final class PersistentHashSet implements ISet {
         if (!two.contains(key)) {
           it.remove();
           modified = true;
-          bag = bag.decrease(key.getType());
+          bag.decrease(key.getType());
         }
       }
 
       if (modified) {
-        return PersistentSetFactory.from(bag, tmp.freeze());
+        return PersistentSetFactory.from(bag.freeze(), tmp.freeze());
       }
       return def;
     } else {
@@ -264,12 +264,12 @@ public final class PersistentHashSet implements ISet {
 
       final Set.Immutable<IValue> one;
       final Set.Immutable<IValue> two;
-      AbstractTypeBag bag;
+      final AbstractTypeBag.Transient bag;
       final ISet def;
 
       def = this;
       one = this.content;
-      bag = this.elementTypeBag;
+      bag = this.elementTypeBag.asTransient();
       two = that.content;
 
       final Set.Transient<IValue> tmp = one.asTransient();
@@ -278,12 +278,12 @@ public final class PersistentHashSet implements ISet {
       for (IValue key : two) {
         if (tmp.__remove(key)) {
           modified = true;
-          bag = bag.decrease(key.getType());
+          bag.decrease(key.getType());
         }
       }
 
       if (modified) {
-        return PersistentSetFactory.from(bag, tmp.freeze());
+        return PersistentSetFactory.from(bag.freeze(), tmp.freeze());
       }
       return def;
     } else {
@@ -64,18 +64,18 @@ public class SetWriter implements ISetWriter {
 
     private final static class SetBuilder implements Builder {
         private final Set.Transient<IValue> set = Set.Transient.of();
-        private AbstractTypeBag elementTypeBag = AbstractTypeBag.of();
+        private final AbstractTypeBag.Transient elementTypeBag = AbstractTypeBag.Transient.of();
 
         @Override
         public void put(IValue element, Type elementType) {
             if (set.__insert(element)) {
-                elementTypeBag = elementTypeBag.increase(elementType);
+                elementTypeBag.increase(elementType);
             }
         }
 
         @Override
         public ISet done() {
-            return PersistentSetFactory.from(elementTypeBag, set.freeze());
+            return PersistentSetFactory.from(elementTypeBag.freeze(), set.freeze());
         }
 
         @Override
@@ -98,8 +98,8 @@ public class SetWriter implements ISetWriter {
     }
 
     private final static class MultiMapBuilder implements Builder {
-        AbstractTypeBag keyTypeBag = AbstractTypeBag.of();
-        AbstractTypeBag valTypeBag = AbstractTypeBag.of();
+        final AbstractTypeBag.Transient keyTypeBag = AbstractTypeBag.Transient.of();
+        final AbstractTypeBag.Transient valTypeBag = AbstractTypeBag.Transient.of();
         SetMultimap.Transient<IValue, IValue> map = SetMultimap.Transient.of();
 
         @Override
@@ -107,14 +107,14 @@ public class SetWriter implements ISetWriter {
             IValue key = ((ITuple)element).get(0);
             IValue value = ((ITuple)element).get(1);
             if (map.__insert(key, value)) {
-                keyTypeBag = keyTypeBag.increase(elementType.getFieldType(0));
-                valTypeBag = valTypeBag.increase(elementType.getFieldType(1));
+                keyTypeBag.increase(elementType.getFieldType(0));
+                valTypeBag.increase(elementType.getFieldType(1));
             }
         }
 
         @Override
         public ISet done() {
-            return PersistentSetFactory.from(keyTypeBag, valTypeBag, map.freeze());
+            return PersistentSetFactory.from(keyTypeBag.freeze(), valTypeBag.freeze(), map.freeze());
         }
 
         @Override
@@ -23,19 +23,19 @@ import io.usethesource.vallang.util.AbstractTypeBag;
     public static <T extends IValue> Collector<T, ?, ISet> toSet() {
 
         class SetStruct {
-            AbstractTypeBag elementTypeBag = AbstractTypeBag.of();
+            final AbstractTypeBag.Transient elementTypeBag = AbstractTypeBag.Transient.of();
             Set.Transient<T> set = Set.Transient.of();
         }
 
         /** extract key/value from type {@code T} and insert into multimap */
         final BiConsumer<SetStruct, T> accumulator = (struct, element) -> {
             if (struct.set.__insert(element)) {
-                struct.elementTypeBag = struct.elementTypeBag.increase(element.getType());
+                struct.elementTypeBag.increase(element.getType());
             }
         };
 
         return new DefaultCollector<>(SetStruct::new, accumulator, unsupportedCombiner(),
-                struct -> PersistentSetFactory.from(struct.elementTypeBag,
+                struct -> PersistentSetFactory.from(struct.elementTypeBag.freeze(),
                         (Set.Immutable<IValue>) struct.set.freeze()),
                 UNORDERED);
     }
@@ -56,8 +56,8 @@ import io.usethesource.vallang.util.AbstractTypeBag;
             Function<? super T, ? extends V> valueMapper) {
 
         class SetMultimapStruct {
-            AbstractTypeBag keyTypeBag = AbstractTypeBag.of();
-            AbstractTypeBag valTypeBag = AbstractTypeBag.of();
+            final AbstractTypeBag.Transient keyTypeBag = AbstractTypeBag.Transient.of();
+            final AbstractTypeBag.Transient valTypeBag = AbstractTypeBag.Transient.of();
             SetMultimap.Transient<K, V> map = SetMultimap.Transient.of();
         }
 
@@ -67,14 +67,14 @@ import io.usethesource.vallang.util.AbstractTypeBag;
             final V val = valueMapper.apply(element);
 
             if (struct.map.__insert(key, val)) {
-                struct.keyTypeBag = struct.keyTypeBag.increase(key.getType());
-                struct.valTypeBag = struct.valTypeBag.increase(val.getType());
+                struct.keyTypeBag.increase(key.getType());
+                struct.valTypeBag.increase(val.getType());
             }
         };
 
         return new DefaultCollector<>(SetMultimapStruct::new, accumulator,
-                unsupportedCombiner(), struct -> PersistentSetFactory.from(struct.keyTypeBag,
-                        struct.valTypeBag, (SetMultimap.Immutable<IValue, IValue>) struct.map.freeze()),
+                unsupportedCombiner(), struct -> PersistentSetFactory.from(struct.keyTypeBag.freeze(),
+                        struct.valTypeBag.freeze(), (SetMultimap.Immutable<IValue, IValue>) struct.map.freeze()),
                 UNORDERED);
     }
 
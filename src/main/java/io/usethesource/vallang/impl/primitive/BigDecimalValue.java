@@ -329,13 +329,11 @@ import io.usethesource.vallang.type.TypeFactory;
 	
 	@Override
 	public String getStringRepresentation(){
-		StringBuilder sb = new StringBuilder();
 		String decimalString = value.toString();
-		sb.append(decimalString);
-		if (!decimalString.matches(".*[\\.Ee].*")) {
-		  sb.append(".");
+		if (decimalString.indexOf('.') == -1 && decimalString.indexOf('E') == -1 && decimalString.indexOf('e') == -1) {
+		  return decimalString + ".";
 		}
-		return sb.toString();
+		return decimalString;
 	}
 	
 	@Override
@@ -1,7 +1,6 @@
 package io.usethesource.vallang.impl.reference;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -15,6 +14,7 @@ import io.usethesource.vallang.exceptions.UnexpectedChildTypeException;
 import io.usethesource.vallang.impl.fields.AbstractDefaultWithKeywordParameters;
 import io.usethesource.vallang.impl.fields.ConstructorWithKeywordParametersFacade;
 import io.usethesource.vallang.type.Type;
+import io.usethesource.vallang.type.TypeBindings;
 import io.usethesource.vallang.type.TypeFactory;
 import io.usethesource.vallang.visitors.IValueVisitor;
 
@@ -55,7 +55,7 @@ public class Constructor extends Node implements IConstructor {
                 actualTypes[i] = fChildren[i].getType();
             }
 
-            Map<Type,Type> bindings = new HashMap<Type,Type>();
+            Map<Type,Type> bindings = new TypeBindings();
             fType.getFieldTypes().match(TypeFactory.getInstance().tupleType(actualTypes), bindings);
 
             for (Type field : fType.getAbstractDataType().getTypeParameters()) {
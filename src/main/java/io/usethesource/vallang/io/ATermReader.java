@@ -13,15 +13,16 @@ package io.usethesource.vallang.io;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Set;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
-import io.usethesource.vallang.IConstructor;
 import io.usethesource.vallang.IListWriter;
 import io.usethesource.vallang.IMapWriter;
 import io.usethesource.vallang.ISetWriter;
@@ -56,298 +57,422 @@ public class ATermReader extends AbstractBinaryReader {
         }
 
         private IValue read(Type type, InputStream stream) throws FactParseError, IOException  {
-            int firstToken;
-            do {
-                firstToken = stream.read();
-                if (firstToken == -1) {
-                    throw new IOException("Premature EOF.");
-                }
-            } while (Character.isWhitespace((char) firstToken));
+            SharingStream reader = new SharingStream(stream);
 
-            char typeByte = (char) firstToken;
+            if (reader.readSkippingWS() == -1) {
+                throw new IOException("Premature EOF.");
+            }
 
-            if (typeByte == '!') {
-                SharingStream sreader = new SharingStream(stream);
-                sreader.readSkippingWS();
-                return parse(sreader, type);
-            } else if (typeByte == '?') {
+            if (reader.getLastChar() == '!') {
+                reader.readSkippingWS();
+            } else if (reader.getLastChar() == '?') {
                 throw new UnsupportedOperationException("nyi");
-            } else if (Character.isLetterOrDigit(typeByte) || typeByte == '_'
-                    || typeByte == '[' || typeByte == '-') {
-                SharingStream sreader = new SharingStream(stream);
-                sreader.last_char = typeByte;
-                return parse(sreader, type);
-            } else {
-                throw new RuntimeException("nyi");
             }
-        }
 
-        // TODO add support for anonymous constructors (is already done for the parseNumber case)
-        private IValue parse(SharingStream reader, Type expected)
-                throws IOException {
-            IValue result;
-            int start, end;
-
-            start = reader.getPosition();
-            switch (reader.getLastChar()) {
-            case -1:
-                throw new FactParseError("premature EOF encountered.", start);
-            case '#':
-                return parseAbbrev(reader);
-            case '[':
-                result = parseList(reader, expected);
-                break;
-            case '<':
-                throw new FactParseError("Placeholders are not supported", start);
-            case '"':
-                result = parseString(reader, expected);
-                break;
-            case '(':
-                result = parseTuple(reader, expected);
-                break;
-            case '-':
-            case '0':
-            case '1':
-            case '2':
-            case '3':
-            case '4':
-            case '5':
-            case '6':
-            case '7':
-            case '8':
-            case '9':
-                result = parseNumber(reader, expected);
-                break;
-            default:
-                result = parseAppl(reader, expected);
-            }
-
-            if (reader.getLastChar() == '{') {
-                result = parseAnnotations(reader, result);
-            }
-
-            end = reader.getPosition();
-            reader.storeNextTerm(result, end - start);
-
-            return result;
+            return parse(reader, type);
         }
 
+        /**
+         * A composite term of which the children are being parsed
+         */
+        private abstract class Frame {
+            final int start;
 
-        private IValue parseAnnotations(SharingStream reader, IValue result)
-                throws IOException {
-            if (reader.readSkippingWS() == '}') {
-                reader.readSkippingWS();
-            } else {
-                result = parseAnnos(reader, result);
-                if (reader.getLastChar() != '}') {
-                    throw new FactParseError("'}' expected", reader.getPosition());
-                }
+            Frame(int start) {
+                this.start = start;
             }
-            return result;
-        }
 
+            /**
+             * @return the type of the next child
+             */
+            abstract Type expected();
 
-        private IValue parseAppl(SharingStream reader, Type expected)
-                throws IOException {
-            int c;
-            IValue result;
-            c = reader.getLastChar();
-            if (Character.isLetter(c)) {
-
-                String funname = parseId(reader);
-
-                Type node;
-                if (expected.isAbstractData()) {
-                    Set<Type> nodes = ts.lookupConstructor(expected, funname);
-                    // TODO deal with overloading
-                    Iterator<Type> iterator = nodes.iterator();
-                    if (!iterator.hasNext()) {
-                        throw new UndeclaredAbstractDataTypeException(expected);
-                    }
-                    node = iterator.next(); 
+            abstract void add(IValue value);
+
+            /**
+             * Consumes the separator after a child
+             * @return true if another child follows, false if the closing character was consumed
+             */
+            abstract boolean next(SharingStream reader) throws IOException;
+
+            abstract IValue done(SharingStream reader);
+
+            protected boolean next(SharingStream reader, char close) throws IOException {
+                int c = reader.getLastChar();
+                if (c == ',') {
+                    reader.readSkippingWS();
+                    return true;
+                }
+                if (c == close) {
+                    reader.readSkippingWS();
+                    return false;
                 }
-                else {
-                    node = expected;
+                if (c == -1) {
+                    throw new FactParseError("premature EOF encountered.", reader.getPosition());
                 }
+                throw new FactParseError("expected '" + close + "' but got '" + (char) c + "'", reader.getPosition());
+            }
+        }
 
-                c = reader.skipWS();
-                if (reader.getLastChar() == '(') {
-                    c = reader.readSkippingWS();
-                    if (c == -1) {
-                        throw new FactParseError("premature EOF encountered.", reader.getPosition());
-                    }
-                    if (reader.getLastChar() == ')') {
+        private class ListFrame extends Frame {
+            private final Type type;
+            private final Type elementType;
+            private final List<IValue> elements = new ArrayList<>();
 
-                        // result = node.make(vf, ts, funname, new IValue[0]);
-                        if(node.isTop()) {
-                            Type constr = ts.lookupFirstConstructor(funname, tf.tupleType(new Type[0]));
-                            if(constr != null) node = constr;
-                        }
-                        if(node.isConstructor())
-                            result = vf.constructor(node, new IValue[0]);
-                        else
-                            result = vf.node(funname, new IValue[0]); 
+            ListFrame(Type type, int start) {
+                super(start);
+                this.type = type;
+                this.elementType = getElementType(type);
+            }
 
-                    } else {
-                        IValue[] list;
-                        if (expected.isAbstractData()) {
-                            list = parseFixedSizeATermsArray(reader, node.getFieldTypes());
-                        }
-                        else {
-                            list = parseATermsArray(reader, TypeFactory.getInstance().valueType());
-                        }
+            @Override
+            Type expected() {
+                return elementType;
+            }
 
-                        if (reader.getLastChar() != ')') {
-                            throw new FactParseError("expected ')' but got '"
-                                    + (char) reader.getLastChar() + "'", reader.getPosition());
-                        }
+            @Override
+            void add(IValue value) {
+                elements.add(value);
+            }
 
-                        if(node.isTop()) {
-                            Type constr = ts.lookupFirstConstructor(funname, tf.tupleType(list));
-                            if(constr != null) node = constr;
-                        }
-                        if (node.isConstructor())
-                            result = vf.constructor(node, list);
-                        else
-                            result = vf.node(funname, list);
-                    }
-                    c = reader.readSkippingWS();
-                } else {
-                    if (node.isConstructor()) {
-                        result = vf.constructor(node);
-                    }
-                    else {
-                        result = vf.node(funname);
+            @Override
+            boolean next(SharingStream reader) throws IOException {
+                return next(reader, ']');
+            }
+
+            @Override
+            IValue done(SharingStream reader) {
+                if (type.isList() || type.isTop()) {
+                    IListWriter w = vf.listWriter();
+                    w.appendAll(elements);
+                    return w.done();
+                } else if (type.isSet()) {
+                    ISetWriter w = vf.setWriter();
+                    w.insertAll(elements);
+                    return w.done();
+                } else if (type.isMap()) {
+                    IMapWriter w = vf.mapWriter();
+                    for (IValue elem : elements) {
+                        ITuple tuple = (ITuple) elem;
+                        w.put(tuple.get(0), tuple.get(1));
                     }
+                    return w.done();
                 }
-            } else {
-                throw new FactParseError("illegal character: "
-                        + (char) reader.getLastChar(), reader.getPosition());
+
+                throw new FactParseError("Unexpected type " + type, reader.getPosition());
             }
-            return result;
         }
 
+        private class TupleFrame extends Frame {
+            private final Type type;
+            private final List<IValue> elements = new ArrayList<>();
 
-        private IValue parseTuple(SharingStream reader, Type expected)
-                throws IOException {
-            int c;
-            IValue result;
-            c = reader.readSkippingWS();
-            if (c == -1) {
-                throw new FactParseError("premature EOF encountered.", reader.getPosition());
+            TupleFrame(Type type, int start) {
+                super(start);
+                this.type = type;
             }
-            if (reader.getLastChar() == ')') {
-                result = vf.tuple();
-            } else {
-                IValue[] list = parseFixedSizeATermsArray(reader, expected);
 
-                if (reader.getLastChar() != ')') {
-                    throw new FactParseError("expected ')' but got '"
-                            + (char) reader.getLastChar() + "'", reader.getPosition());
-                }
+            @Override
+            Type expected() {
+                return fieldType(type, elements.size());
+            }
 
-                result = vf.tuple(list);
+            @Override
+            void add(IValue value) {
+                elements.add(value);
             }
-            c = reader.readSkippingWS();
 
-            return result;
+            @Override
+            boolean next(SharingStream reader) throws IOException {
+                return next(reader, ')');
+            }
+
+            @Override
+            IValue done(SharingStream reader) {
+                return vf.tuple(elements.toArray(new IValue[elements.size()]));
+            }
         }
 
+        private class ApplFrame extends Frame {
+            private final String name;
+            private final Type node;
+            private final boolean typedChildren;
+            private final List<IValue> children = new ArrayList<>();
+
+            ApplFrame(String name, Type node, boolean typedChildren, int start) {
+                super(start);
+                this.name = name;
+                this.node = node;
+                this.typedChildren = typedChildren;
+            }
 
-        private IValue parseString(SharingStream reader, Type expected) throws IOException {
-            int c;
-            IValue result;
-            String str = parseStringLiteral(reader);
+            @Override
+            Type expected() {
+                return typedChildren ? fieldType(node.getFieldTypes(), children.size()) : tf.valueType();
+            }
 
-            // note that we interpret all strings as strings, not possible function names.
-            // this deviates from the ATerm library.
+            @Override
+            void add(IValue value) {
+                children.add(value);
+            }
 
-            result = vf.string(str);
+            @Override
+            boolean next(SharingStream reader) throws IOException {
+                return next(reader, ')');
+            }
 
-            c = reader.readSkippingWS();
-            if (c == -1) {
-                throw new FactParseError("premature EOF encountered.", reader.getPosition());
+            @Override
+            IValue done(SharingStream reader) {
+                return appl(name, node, children.toArray(new IValue[children.size()]));
             }
-            return result;
         }
 
-
-        private IValue parseList(SharingStream reader, Type expected)
-                throws IOException {
-            IValue result;
-            int c;
-            c = reader.readSkippingWS();
-            if (c == -1) {
-                throw new FactParseError("premature EOF encountered.", reader.getPosition());
+        /**
+         * The keyword parameters of a term, written as <code>{["name",value],...}</code>
+         */
+        private class KeywordParametersFrame extends Frame {
+            private IValue result;
+            private @Nullable String key;
+            private Type keyType = tf.valueType();
+
+            KeywordParametersFrame(IValue result, int start) {
+                super(start);
+                this.result = result;
             }
 
-            if (c == ']') {
-                c = reader.readSkippingWS();
+            /**
+             * Consumes the <code>["name",</code> before a keyword parameter
+             */
+            Type readKey(SharingStream reader) throws IOException {
+                if (reader.getLastChar() != '[') {
+                    throw new FactParseError("expected a [ before a keyword field", reader.getPosition());
+                }
+                if (reader.readSkippingWS() != '"') {
+                    throw new FactParseError("expected a label for a keyword field", reader.getPosition());
+                }
+                String key = parseStringLiteral(reader);
+                Type kwType = ts.getKeywordParameterType(result.getType(), key);
+                this.key = key;
+                this.keyType = kwType == null ? tf.valueType() : kwType;
 
-                if (expected.isList()) {
-                    result = vf.list();
-                } else if (expected.equivalent(TypeFactory.getInstance().valueType())) {
-                    result = vf.list();
+                if (reader.readSkippingWS() != ',') {
+                    throw new FactParseError("expected a comma before the value of the keyword field", reader.getPosition());
                 }
-                else {
-                    throw new FactParseError("Did not expect a list, rather a "
-                            + expected, reader.getPosition());
+                reader.readSkippingWS();
+                return keyType;
+            }
+
+            @Override
+            Type expected() {
+                return keyType;
+            }
+
+            @Override
+            void add(IValue value) {
+                String key = this.key;
+                assert key != null : "@AssumeAssertion(nullness)";
+                if (result.mayHaveKeywordParameters()) {
+                    result = result.asWithKeywordParameters().setParameter(key, value);
                 }
-            } else {
-                result = parseATerms(reader, expected);
+            }
+
+            @Override
+            boolean next(SharingStream reader) throws IOException {
                 if (reader.getLastChar() != ']') {
-                    throw new FactParseError("expected ']' but got '"
-                            + (char) reader.getLastChar() + "'", reader.getPosition());
+                    throw new FactParseError("expected a ] but got a " + (char) reader.getLastChar(), reader.getPosition());
+                }
+                if (reader.readSkippingWS() == ',') {
+                    reader.readSkippingWS();
+                    readKey(reader);
+                    return true;
+                }
+                if (reader.getLastChar() != '}') {
+                    throw new FactParseError("'}' expected", reader.getPosition());
                 }
-                c = reader.readSkippingWS();
+                reader.readSkippingWS();
+                return false;
             }
-            return result;
-        }
 
-        private IValue parseAnnos(SharingStream reader, IValue result) throws IOException {
-            result = parseAnno(reader, result);
-            while (reader.getLastChar() == ',') {
-                reader.readSkippingWS();
-                result = parseAnno(reader, result);
+            @Override
+            IValue done(SharingStream reader) {
+                return result;
             }
+        }
 
-            return result;
+        private Type fieldType(Type fieldTypes, int i) {
+            return fieldTypes.isTuple() && i < fieldTypes.getArity() ? fieldTypes.getFieldType(i) : tf.valueType();
         }
 
-        private IValue parseAnno(SharingStream reader, IValue result) throws IOException {
-            if (reader.getLastChar() == '[') {
-                int c = reader.readSkippingWS();
+        private IValue appl(String name, Type node, IValue[] children) {
+            if (node.isTop()) {
+                Type constr = ts.lookupFirstConstructor(name, tf.tupleType(children));
+                if (constr != null) {
+                    node = constr;
+                }
+            }
+            if (node.isConstructor()) {
+                return vf.constructor(node, children);
+            }
+            return vf.node(name, children);
+        }
 
-                if (c == '"') {
-                    String key = parseStringLiteral(reader);
-                    Type kwType = ts.getKeywordParameterType(result.getType(), key);
+        /**
+         * Parses a term, using an explicit stack of the composite terms that are being parsed instead of recursion,
+         * such that arbitrarily deep terms can be read. Every complete term (after its keyword parameters) is stored in
+         * the table for the back references of shared ATerms, in the order in which the terms are completed.
+         */
+        // TODO add support for anonymous constructors (is already done for the parseNumber case)
+        private IValue parse(SharingStream reader, Type expected) throws IOException {
+            Deque<Frame> stack = new ArrayDeque<>();
+            Type type = expected;
+
+            parse:
+            while (true) {
+                int start = reader.getPosition();
+                boolean stored = true;
+                boolean annotatable = true;
+                IValue result;
+
+                switch (reader.getLastChar()) {
+                case -1:
+                    throw new FactParseError("premature EOF encountered.", start);
+                case '#':
+                    result = parseAbbrev(reader);
+                    stored = false;
+                    annotatable = false;
+                    break;
+                case '[':
+                    if (reader.readSkippingWS() != ']') {
+                        ListFrame list = new ListFrame(type, start);
+                        stack.push(list);
+                        type = list.expected();
+                        continue parse;
+                    }
+                    reader.readSkippingWS();
+                    result = emptyCollection(reader, type);
+                    break;
+                case '<':
+                    throw new FactParseError("Placeholders are not supported", start);
+                case '"':
+                    result = parseString(reader, type);
+                    break;
+                case '(':
+                    if (reader.readSkippingWS() != ')') {
+                        TupleFrame tuple = new TupleFrame(type, start);
+                        stack.push(tuple);
+                        type = tuple.expected();
+                        continue parse;
+                    }
+                    reader.readSkippingWS();
+                    result = vf.tuple();
+                    break;
+                case '-':
+                case '0':
+                case '1':
+                case '2':
+                case '3':
+                case '4':
+                case '5':
+                case '6':
+                case '7':
+                case '8':
+                case '9':
+                    result = parseNumber(reader, type);
+                    break;
+                default:
+                    if (!Character.isLetter(reader.getLastChar())) {
+                        throw new FactParseError("illegal character: " + (char) reader.getLastChar(), start);
+                    }
+                    String funname = parseId(reader);
+                    Type node = type;
+                    if (type.isAbstractData()) {
+                        Set<Type> nodes = ts.lookupConstructor(type, funname);
+                        // TODO deal with overloading
+                        Iterator<Type> iterator = nodes.iterator();
+                        if (!iterator.hasNext()) {
+                            throw new UndeclaredAbstractDataTypeException(type);
+                        }
+                        node = iterator.next();
+                    }
 
-                    if (kwType == null) {
-                        kwType = tf.valueType();
+                    if (reader.skipWS() != '(') {
+                        result = node.isConstructor() ? vf.constructor(node) : vf.node(funname);
+                        break;
                     }
 
-                    if (reader.readSkippingWS() == ',') {
-                        reader.readSkippingWS();
-                        IValue value = parse(reader, kwType);
+                    int c = reader.readSkippingWS();
+                    if (c == -1) {
+                        throw new FactParseError("premature EOF encountered.", reader.getPosition());
+                    }
+                    if (c != ')') {
+                        ApplFrame appl = new ApplFrame(funname, node, type.isAbstractData(), start);
+                        stack.push(appl);
+                        type = appl.expected();
+                        continue parse;
+                    }
+                    reader.readSkippingWS();
+                    result = appl(funname, node, new IValue[0]);
+                }
 
-                        if (result.getType().isAbstractData()) {
-                            result = ((IConstructor) result).asWithKeywordParameters().setParameter(key, value);
+                // the term is complete, which may complete the terms around it as well
+                while (true) {
+                    if (annotatable && reader.getLastChar() == '{') {
+                        if (reader.readSkippingWS() == '}') {
+                            reader.readSkippingWS();
                         }
-
-                        if (reader.getLastChar() != ']') {
-                            throw new FactParseError("expected a ] but got a " + reader.getLastChar(), reader.getPosition());
+                        else {
+                            KeywordParametersFrame kws = new KeywordParametersFrame(result, start);
+                            stack.push(kws);
+                            type = kws.readKey(reader);
+                            continue parse;
                         }
+                    }
 
-                        reader.readSkippingWS();
+                    if (stored) {
+                        reader.storeNextTerm(result, reader.getPosition() - start);
+                    }
+
+                    Frame top = stack.peek();
+                    if (top == null) {
                         return result;
                     }
 
-                    throw new FactParseError("expected a comma before the value of the keyword field", reader.getPosition());
+                    top.add(result);
+                    if (top.next(reader)) {
+                        type = top.expected();
+                        continue parse;
+                    }
+
+                    stack.pop();
+                    result = top.done(reader);
+                    start = top.start;
+                    stored = true;
+                    annotatable = !(top instanceof KeywordParametersFrame);
                 }
+            }
+        }
 
-                throw new FactParseError("expected a label for a keyword field", reader.getPosition());
+        private IValue emptyCollection(SharingStream reader, Type expected) {
+            if (expected.isList() || expected.isTop()) {
+                return vf.list();
+            } else if (expected.isSet()) {
+                return vf.set();
+            } else if (expected.isMap()) {
+                return vf.map();
             }
+            throw new FactParseError("Did not expect a list, rather a " + expected, reader.getPosition());
+        }
 
+        private IValue parseString(SharingStream reader, Type expected) throws IOException {
+            IValue result;
+            String str = parseStringLiteral(reader);
+
+            // note that we interpret all strings as strings, not possible function names.
+            // this deviates from the ATerm library.
+
+            result = vf.string(str);
+
+            reader.readSkippingWS();
             return result;
         }
 
@@ -382,6 +507,7 @@ public class ATermReader extends AbstractBinaryReader {
             }
 
             result = reader.getTerm(abbrev);
+            reader.skipWS();
 
             return result;
         }
@@ -397,23 +523,17 @@ public class ATermReader extends AbstractBinaryReader {
             if (reader.getLastChar() != '.' && reader.getLastChar() != 'e'
                     && reader.getLastChar() != 'E' && reader.getLastChar() != 'l'
                     && reader.getLastChar() != 'L') {
-                int val;
                 try {
-                    val = Integer.parseInt(str.toString());
+                    result = str.length() < 10 ? vf.integer(Integer.parseInt(str.toString())) : vf.integer(str.toString());
                 } catch (NumberFormatException e) {
                     throw new FactParseError("malformed int:" + str, reader.getPosition());
                 }
-
-                result = vf.integer(val);
             } else if (reader.getLastChar() == 'l' || reader.getLastChar() == 'L') {
                 reader.read();
                 throw new FactParseError("No support for longs", reader.getPosition());
             } else {
                 if (reader.getLastChar() == '.') {
-                    str.append('.');
-                    reader.read();
-                    if (!Character.isDigit(reader.getLastChar()))
-                        throw new FactParseError("digit expected", reader.getPosition());
+                    // the digits after the dot are optional, as in the output of IReal.getStringRepresentation
                     do {
                         str.append((char) reader.getLastChar());
                     } while (Character.isDigit(reader.read()));
@@ -431,10 +551,8 @@ public class ATermReader extends AbstractBinaryReader {
                         str.append((char) reader.getLastChar());
                     } while (Character.isDigit(reader.read()));
                 }
-                double val;
                 try {
-                    val = Double.valueOf(str.toString());
-                    result = vf.real(val);
+                    result = vf.real(str.toString());
                 } catch (NumberFormatException e) {
                     throw new FactParseError("malformed real", reader.getPosition(), e);
                 }
@@ -519,42 +637,6 @@ public class ATermReader extends AbstractBinaryReader {
             return str.toString();
         }
 
-        private IValue parseATerms(SharingStream reader, Type expected)
-                throws IOException {
-            Type base = expected;
-            Type elementType = getElementType(expected);
-            IValue[] terms = parseATermsArray(reader, elementType);
-
-            if (base.isList() || base.equivalent(tf.valueType())) {
-                IListWriter w = vf.listWriter();
-
-                for (int i = terms.length - 1; i >= 0; i--) {
-                    w.insert(terms[i]);
-                }
-
-                return w.done();
-            } else if (base.isSet()) {
-                ISetWriter w = vf.setWriter();
-                w.insert(terms);
-                return w.done();
-            } else if (base.isMap()) {
-                IMapWriter w = vf.mapWriter();
-
-                for (IValue elem : terms) {
-                    ITuple tuple = (ITuple) elem;
-                    w.put(tuple.get(0), tuple.get(1));
-                }
-
-                return w.done();
-            } else if (base.isRelation()) {
-                ISetWriter w = vf.setWriter();
-                w.insert(terms);
-                return w.done();
-            }
-
-            throw new FactParseError("Unexpected type " + expected, reader.getPosition());
-        }
-
         private Type getElementType(Type expected) {
             Type base = expected;
 
@@ -574,100 +656,44 @@ public class ATermReader extends AbstractBinaryReader {
             }
         }
 
-        private IValue[] parseATermsArray(SharingStream reader,
-                Type elementType) throws IOException {
-            List<IValue> list = new ArrayList<>(2);
-
-            IValue term = parse(reader, elementType);
-            list.add(term);
-            while (reader.getLastChar() == ',') {
-                reader.readSkippingWS();
-                term = parse(reader, elementType);
-                list.add(term);
-            }
-
-            IValue[] array = new IValue[list.size()];
-            ListIterator<IValue> iter = list.listIterator();
-            int index = 0;
-            while (iter.hasNext()) {
-                array[index++] = iter.next();
-            }
-            return array;
-        }
-
-        private IValue[] parseFixedSizeATermsArray(SharingStream reader,
-                Type elementTypes) throws IOException {
-            List<IValue> list = new ArrayList<>(elementTypes.getArity());
-            int i = 0;
-            Type elementType = elementTypes.getFieldType(i++);
-
-            IValue term = parse(reader, elementType);
-            list.add(term);
-            while (reader.getLastChar() == ',') {
-                elementType = elementTypes.getFieldType(i++);
-                reader.readSkippingWS();
-                term = parse(reader, elementType);
-                list.add(term);
-            }
-
-            IValue[] array = new IValue[list.size()];
-            ListIterator<IValue> iter = list.listIterator();
-            int index = 0;
-            while (iter.hasNext()) {
-                array[index++] = iter.next();
-            }
-            return array;
-        }
-
-
+        /**
+         * Reads UTF-8 encoded characters from a buffered stream, and keeps the table of terms for the back references.
+         */
         private static class SharingStream {
             private static final int INITIAL_TABLE_SIZE = 2048;
-            private static final int TABLE_INCREMENT = 4096;
-
-            private static final int INITIAL_BUFFER_SIZE = 1024;
+            private static final int BUFFER_SIZE = 64 * 1024;
 
-            private InputStream reader;
+            private final InputStream reader;
 
             int last_char;
             private int pos;
+            private int pendingLowSurrogate = -1;
 
             private int nr_terms;
-            private @Nullable IValue [] table;
+            private @Nullable IValue[] table;
 
-            private byte[] buffer;
+            private final byte[] buffer;
             private int limit;
             private int bufferPos;
 
             public SharingStream(InputStream reader) {
-                this(reader, INITIAL_BUFFER_SIZE);
+                this(reader, BUFFER_SIZE);
             }
 
             public SharingStream(InputStream stream, int bufferSize) {
                 this.reader = stream;
                 last_char = -1;
                 pos = 0;
-
-                if (bufferSize < INITIAL_BUFFER_SIZE) {
-                    buffer = new byte[bufferSize];
-                }
-                else {
-                    buffer = new byte[INITIAL_BUFFER_SIZE];
-                }
-                limit = -1;
-                bufferPos = -1;
+                buffer = new byte[bufferSize];
+                limit = 0;
+                bufferPos = 0;
                 table = new IValue[INITIAL_TABLE_SIZE];
                 nr_terms = 0;
             }
 
             public void storeNextTerm(IValue t, int size) {
-                if (table == null) {
-                    return;
-                }
-
                 if (nr_terms == table.length) {
-                    IValue[] new_table = new IValue[table.length + TABLE_INCREMENT];
-                    System.arraycopy(table, 0, new_table, 0, table.length);
-                    table = new_table;
+                    table = Arrays.copyOf(table, table.length * 2);
                 }
 
                 table[nr_terms++] = t;
@@ -675,28 +701,71 @@ public class ATermReader extends AbstractBinaryReader {
 
             private IValue getTerm(int index) {
                 if (index < 0 || index >= nr_terms) {
-                    throw new RuntimeException("illegal index");
+                    throw new FactParseError("illegal index: " + index, pos);
                 }
 
                 IValue result = table[index];
-
-                if (result == null) {
-                    throw new RuntimeException("illegal index");
-                }
-
+                assert result != null : "@AssumeAssertion(nullness)";
                 return result;
             }
 
-            public int read() throws IOException {
+            private int readByte() throws IOException {
                 if (bufferPos == limit) {
                     limit = reader.read(buffer);
                     bufferPos = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return -1;
+                    }
                 }
+                return buffer[bufferPos++] & 0xFF;
+            }
 
-                if (limit == -1) {
-                    last_char = -1;
+            public int read() throws IOException {
+                if (pendingLowSurrogate != -1) {
+                    last_char = pendingLowSurrogate;
+                    pendingLowSurrogate = -1;
+                    pos++;
+                    return last_char;
+                }
+
+                int b = readByte();
+                if (b < 0x80) {
+                    // ASCII or EOF
+                    last_char = b;
                 } else {
-                    last_char = buffer[bufferPos++];
+                    int codePoint;
+                    int continuations;
+                    if ((b & 0xE0) == 0xC0) {
+                        codePoint = b & 0x1F;
+                        continuations = 1;
+                    } else if ((b & 0xF0) == 0xE0) {
+                        codePoint = b & 0x0F;
+                        continuations = 2;
+                    } else if ((b & 0xF8) == 0xF0) {
+                        codePoint = b & 0x07;
+                        continuations = 3;
+                    } else {
+                        throw new FactParseError("malformed UTF-8", pos);
+                    }
+
+                    while (continuations-- > 0) {
+                        int next = readByte();
+                        if ((next & 0xC0) != 0x80) {
+                            throw new FactParseError("malformed UTF-8", pos);
+                        }
+                        codePoint = (codePoint << 6) | (next & 0x3F);
+                    }
+
+                    if (Character.isSupplementaryCodePoint(codePoint)) {
+                        last_char = Character.highSurrogate(codePoint);
+                        pendingLowSurrogate = Character.lowSurrogate(codePoint);
+                    } else {
+                        last_char = codePoint;
+                    }
+                }
+
+                if (last_char != -1) {
                     pos++;
                 }
 
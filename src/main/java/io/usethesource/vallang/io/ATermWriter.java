@@ -12,11 +12,15 @@ package io.usethesource.vallang.io;
 
 import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Deque;
 import java.util.Iterator;
-import java.util.Map;
 import java.util.Map.Entry;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
 import io.usethesource.vallang.IBool;
 import io.usethesource.vallang.IConstructor;
 import io.usethesource.vallang.IDateTime;
@@ -32,35 +36,303 @@ import io.usethesource.vallang.ISourceLocation;
 import io.usethesource.vallang.IString;
 import io.usethesource.vallang.ITuple;
 import io.usethesource.vallang.IValue;
+import io.usethesource.vallang.IWithKeywordParameters;
+import io.usethesource.vallang.io.binary.util.OpenAddressingLastWritten;
+import io.usethesource.vallang.io.binary.util.TrackLastWritten;
 import io.usethesource.vallang.type.TypeStore;
 import io.usethesource.vallang.visitors.IValueVisitor;
 
 /**
  * This class implements the ATerm readable syntax for {@link IValue}'s.
- * See also {@link ATermReader}
+ * See also {@link ATermReader} <br />
+ * <br />
+ * With sharing enabled the writer produces shared textual ATerms (TAF): the output starts with <code>!</code>, and a subterm
+ * that was written before is replaced by <code>#</code> followed by the base-64 encoded index of its first occurrence, where
+ * every term that is written in full gets the next index after its children. Subterms are recognized in a window of the most
+ * recently written terms, such that values with a lot of sharing (DAGs) do not blow up.
+ * The writer does not recurse on the Java stack, so arbitrarily deep values can be written.
  */
 public class ATermWriter implements IValueTextWriter {
+	public static final int DEFAULT_WINDOW_SIZE = 1 << 16;
+
+	private final boolean sharing;
+	private final int windowSize;
+
+	public ATermWriter() {
+		this(false);
+	}
+
+	/**
+	 * @param sharing write shared textual ATerms (TAF)
+	 */
+	public ATermWriter(boolean sharing) {
+		this(sharing, DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * @param sharing write shared textual ATerms (TAF)
+	 * @param windowSize the amount of written terms to remember for sharing
+	 */
+	public ATermWriter(boolean sharing, int windowSize) {
+		this.sharing = sharing;
+		this.windowSize = windowSize;
+	}
+
 	public void write(IValue value, java.io.Writer stream) throws IOException {
-	  value.accept(new Writer(stream));
+		try {
+			new Writer(stream, sharing ? new SharingWindow(windowSize) : null).write(value);
+		}
+		finally {
+			stream.flush();
+		}
 	}
 	
 	public void write(IValue value, java.io.Writer stream, TypeStore typeStore) throws IOException {
 		write(value, stream);
 	}
-	
+
+	/**
+	 * Remembers the index of the terms that were written in full. The reader stores every term it parses in full,
+	 * so the indexes are counted for every term; only terms which are longer than a back reference are remembered.
+	 * Like the binary writer, strings and source locations are recognized by equality, other values by reference,
+	 * which avoids computing the hash code of large values over and over again.
+	 */
+	private static final class SharingWindow {
+		private final Window byReference;
+		private final Window byEquality;
+		private int terms = 0;
+
+		SharingWindow(int size) {
+			byReference = new Window(OpenAddressingLastWritten.referenceEquality(size), size);
+			byEquality = new Window(OpenAddressingLastWritten.objectEquality(size), size);
+		}
+
+		int lookup(IValue value) {
+			if (!worthSharing(value)) {
+				return -1;
+			}
+			return windowFor(value).lookup(value);
+		}
+
+		/**
+		 * Counts terms that are not values on their own, like the arguments of a rational
+		 */
+		void skip(int count) {
+			terms += count;
+		}
+
+		void written(IValue value) {
+			int index = terms++;
+			if (worthSharing(value)) {
+				windowFor(value).write(value, index);
+			}
+		}
+
+		private Window windowFor(IValue value) {
+			return value instanceof IString || value instanceof ISourceLocation ? byEquality : byReference;
+		}
+
+		private static boolean worthSharing(IValue value) {
+			if (value instanceof INode) {
+				INode node = (INode) value;
+				return node.arity() > 0 || node.getName().length() > 3;
+			}
+			if (value instanceof IString) {
+				return ((IString) value).length() > 2;
+			}
+			if (value instanceof IList) {
+				return !((IList) value).isEmpty();
+			}
+			if (value instanceof ISet) {
+				return !((ISet) value).isEmpty();
+			}
+			if (value instanceof IMap) {
+				return !((IMap) value).isEmpty();
+			}
+			if (value instanceof IInteger) {
+				return ((IInteger) value).getStringRepresentation().length() > 3;
+			}
+			return !(value instanceof IBool);
+		}
+	}
+
+	/**
+	 * A window of written values, which translates the position in the window back to the index of the term
+	 */
+	private static final class Window {
+		private final TrackLastWritten<IValue> written;
+		private final int[] indexes;
+		private long writes = 0;
+
+		Window(TrackLastWritten<IValue> written, int size) {
+			this.written = written;
+			this.indexes = new int[size];
+		}
+
+		int lookup(IValue value) {
+			int ago = written.howLongAgo(value);
+			if (ago == -1) {
+				return -1;
+			}
+			return indexes[(int) ((writes - 1 - ago) % indexes.length)];
+		}
+
+		void write(IValue value, int index) {
+			if (written.howLongAgo(value) != -1) {
+				// only values that were shared by equality can be written twice, the first index stays valid
+				return;
+			}
+			written.write(value);
+			indexes[(int) (writes++ % indexes.length)] = index;
+		}
+	}
+
 	private static class Writer implements IValueVisitor<IValue, IOException> {
-		private java.io.Writer stream;
+		private static final int BUFFER_SIZE = 8192;
+		private static final char[] BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
 
-		public Writer(java.io.Writer stream) {
+		private final java.io.Writer stream;
+		private final @Nullable SharingWindow window;
+		private final char[] buffer = new char[BUFFER_SIZE];
+		private int pos = 0;
+		private final Deque<Frame> stack = new ArrayDeque<>();
+
+		public Writer(java.io.Writer stream, @Nullable SharingWindow window) {
 			this.stream = stream;
+			this.window = window;
 		}
-		
+
+		/**
+		 * A composite value that is being written
+		 */
+		private abstract class Frame {
+			final IValue value;
+
+			Frame(IValue value) {
+				this.value = value;
+			}
+
+			/**
+			 * Writes what comes before the next child
+			 * @return the next child, or null after writing the end of the value
+			 */
+			abstract @Nullable IValue next() throws IOException;
+		}
+
+		public void write(IValue value) throws IOException {
+			if (window != null) {
+				append('!');
+			}
+			start(value);
+
+			Frame top;
+			while ((top = stack.peek()) != null) {
+				IValue child = top.next();
+				if (child == null) {
+					stack.pop();
+					written(top.value);
+				}
+				else {
+					start(child);
+				}
+			}
+
+			if (pos > 0) {
+				stream.write(buffer, 0, pos);
+				pos = 0;
+			}
+		}
+
+		/**
+		 * Writes a back reference, a complete atomic value, or the opening of a composite value
+		 */
+		private void start(IValue value) throws IOException {
+			SharingWindow window = this.window;
+			if (window != null) {
+				int index = window.lookup(value);
+				if (index != -1) {
+					append('#');
+					appendBase64(index);
+					return;
+				}
+			}
+
+			int depth = stack.size();
+			value.accept(this);
+			if (stack.size() == depth) {
+				written(value);
+			}
+		}
+
+		private void written(IValue value) {
+			if (window != null) {
+				window.written(value);
+			}
+		}
+
+		private void skip(int terms) {
+			if (window != null) {
+				window.skip(terms);
+			}
+		}
+
+		private void appendBase64(int index) throws IOException {
+			int digits = 1;
+			for (int rest = index >>> 6; rest != 0; rest >>>= 6) {
+				digits++;
+			}
+			ensure(digits);
+			for (int i = digits - 1; i >= 0; i--) {
+				buffer[pos + i] = BASE64[index & 63];
+				index >>>= 6;
+			}
+			pos += digits;
+		}
+
+		private void ensure(int length) throws IOException {
+			if (pos + length > BUFFER_SIZE) {
+				stream.write(buffer, 0, pos);
+				pos = 0;
+			}
+		}
+
 		private void append(String string) throws IOException {
-		  stream.write(string);
+			int length = string.length();
+			if (length > BUFFER_SIZE) {
+				ensure(BUFFER_SIZE);
+				stream.write(string);
+				return;
+			}
+			ensure(length);
+			string.getChars(0, length, buffer, pos);
+			pos += length;
 		}
 		
 		private void append(char c) throws IOException {
-		  stream.write(c);
+			ensure(1);
+			buffer[pos++] = c;
+		}
+
+		/**
+		 * Writes the elements of a list, a set or a tuple, separated by commas, followed by <code>close</code>
+		 */
+		private void pushElements(IValue value, Iterator<IValue> elements, char close) {
+			stack.push(new Frame(value) {
+				boolean first = true;
+
+				@Override
+				@Nullable IValue next() throws IOException {
+					if (elements.hasNext()) {
+						if (!first) {
+							append(',');
+						}
+						first = false;
+						return elements.next();
+					}
+					append(close);
+					return null;
+				}
+			});
 		}
 		
 		@Override
@@ -96,108 +368,124 @@ public class ATermWriter implements IValueTextWriter {
 			append(',');
 			append(o.denominator().getStringRepresentation());
 			append(')');
+			skip(2); // the reader stores the numerator and the denominator as terms of their own
 			return o;
 		}
 		
 		@Override
 		public IValue visitList(IList o) throws IOException {
 			append('[');
-			
-			Iterator<IValue> listIterator = o.iterator();
-			if(listIterator.hasNext()){
-				append(listIterator.next().toString());
-				
-				while(listIterator.hasNext()){
-					append(',');
-					listIterator.next().accept(this);
-				}
-			}
-			
-			append(']');
-			
+			pushElements(o, o.iterator(), ']');
 			return o;
 		}
 
 		@Override
 		public IValue visitMap(IMap o) throws IOException {
 			append('[');
-		
 			Iterator<Entry<IValue,IValue>> mapIterator = o.entryIterator();
-			if (mapIterator.hasNext()) {
-			    Entry<IValue, IValue> entry = mapIterator.next();
-				append('(');
-				IValue key = entry.getKey();
-				key.accept(this);
-				append(',');
-				entry.getValue().accept(this);
-				append(')');
-				
-				while(mapIterator.hasNext()) {
-				    entry = mapIterator.next();
-					append(',');
-					append('(');
-					key = entry.getKey();
-					append(',');
-					entry.getValue().accept(this);
-					append(')');
+
+			stack.push(new Frame(o) {
+				boolean first = true;
+				@Nullable IValue value = null;
+
+				@Override
+				@Nullable IValue next() throws IOException {
+					IValue pending = value;
+					if (pending != null) {
+						append(',');
+						value = null;
+						return pending;
+					}
+					if (!first) {
+						append(')');
+						skip(1); // the reader stores the (key,value) tuple as a term
+					}
+					if (mapIterator.hasNext()) {
+						if (!first) {
+							append(',');
+						}
+						first = false;
+						Entry<IValue, IValue> entry = mapIterator.next();
+						append('(');
+						value = entry.getValue();
+						return entry.getKey();
+					}
+					append(']');
+					return null;
 				}
-			}
-			
-			append(']');
+			});
 			
 			return o;
 		}
 
 		@Override
         public IValue visitNode(INode o) throws IOException {
-			String name = o.getName();
-			
-			append(name);
+			append(o.getName());
 			append('(');
 
 			Iterator<IValue> it = o.iterator();
-			while (it.hasNext()) {
-				it.next().accept(this);
-				if (it.hasNext()) {
-					append(',');
-				}
-			}
-			append(')');
-			
-			if (o.asWithKeywordParameters().hasParameters()) {
-				append("{[");
-				int i = 0;
-				Map<String, IValue> kwFields = o.asWithKeywordParameters().getParameters();
-				for (Entry<String, IValue> entry : kwFields.entrySet()) {
-					append("[" + entry.getKey() + ",");
-					entry.getValue().accept(this);
-					append("]");
-					
-					if (++i < kwFields.size()) {
-						append(",");
+			Iterator<Entry<String, IValue>> kwIt = keywordParameters(o);
+
+			stack.push(new Frame(o) {
+				boolean first = true;
+				boolean inKeywordParameters = false;
+				boolean firstKeywordParameter = true;
+
+				@Override
+				@Nullable IValue next() throws IOException {
+					if (it.hasNext()) {
+						if (!first) {
+							append(',');
+						}
+						first = false;
+						return it.next();
+					}
+					if (!inKeywordParameters) {
+						append(')');
+						if (!kwIt.hasNext()) {
+							return null;
+						}
+						inKeywordParameters = true;
+						append('{');
+					}
+					else {
+						append(']');
+					}
+					if (kwIt.hasNext()) {
+						Entry<String, IValue> entry = kwIt.next();
+						if (firstKeywordParameter) {
+							firstKeywordParameter = false;
+						}
+						else {
+							append(',');
+						}
+						append('[');
+						appendString(entry.getKey());
+						append(',');
+						return entry.getValue();
 					}
+					append('}');
+					return null;
 				}
-				append("]}");
-			}
+			});
 			
 			return o;
 		}
 
+		private Iterator<Entry<String, IValue>> keywordParameters(INode o) {
+			if (o.mayHaveKeywordParameters()) {
+				IWithKeywordParameters<? extends INode> wkw = o.asWithKeywordParameters();
+				if (wkw.hasParameters()) {
+					return wkw.getParameters().entrySet().iterator();
+				}
+			}
+			return Collections.emptyIterator();
+		}
+
         @Override
 		public IValue visitSet(ISet o) throws IOException {
 			append('[');
-			
-			Iterator<IValue> setIterator = o.iterator();
-			if(setIterator.hasNext()){
-				setIterator.next().accept(this);
-				
-				while(setIterator.hasNext()){
-					append(",");
-					setIterator.next().accept(this);
-				}
-			}
-			
-			append(']');
+			pushElements(o, o.iterator(), ']');
 			return o;
 		}
 
@@ -205,9 +493,7 @@ public class ATermWriter implements IValueTextWriter {
 		public IValue visitSourceLocation(ISourceLocation o)
 				throws IOException {
 			append("loc(");
-			append('\"');
-			append(o.getURI().toString());
-			append('\"');
+			appendString(o.getURI().toString());
 			append("," + o.getOffset());
 			append("," + o.getLength());
 			append("," + o.getBeginLine());
@@ -215,35 +501,40 @@ public class ATermWriter implements IValueTextWriter {
 			append("," + o.getEndLine());
 			append("," + o.getEndColumn());
 			append(')');
+			skip(7); // the reader stores the arguments as terms of their own
 			return o;
 		}
 
         @Override
 		public IValue visitString(IString o) throws IOException {
-			// TODO optimize this implementation and finish all escapes
-			append('\"');
-		    append(o.getValue().replaceAll("\"", "\\\"").replaceAll("\n","\\\\n"));
-		    append('\"');
+			appendString(o.getValue());
 		    return o;
 		}
 
+		private void appendString(String string) throws IOException {
+			append('\"');
+			for (int i = 0; i < string.length(); i++) {
+				char c = string.charAt(i);
+				ensure(2);
+				switch (c) {
+					case '\"': buffer[pos++] = '\\'; buffer[pos++] = '\"'; break;
+					case '\\': buffer[pos++] = '\\'; buffer[pos++] = '\\'; break;
+					case '\n': buffer[pos++] = '\\'; buffer[pos++] = 'n'; break;
+					case '\r': buffer[pos++] = '\\'; buffer[pos++] = 'r'; break;
+					case '\t': buffer[pos++] = '\\'; buffer[pos++] = 't'; break;
+					case '\b': buffer[pos++] = '\\'; buffer[pos++] = 'b'; break;
+					case '\f': buffer[pos++] = '\\'; buffer[pos++] = 'f'; break;
+					default: buffer[pos++] = c;
+				}
+			}
+			append('\"');
+		}
+
         @Override
 		public IValue visitTuple(ITuple o) throws IOException {
-			 append('(');
-			 
-			 Iterator<IValue> it = o.iterator();
-			 
-			 if (it.hasNext()) {
-				 it.next().accept(this);
-			 }
-			 
-			 while (it.hasNext()) {
-				 append(',');
-				 it.next().accept(this);
-			 }
-			 append(')');
-			 
-			 return o;
+			append('(');
+			pushElements(o, o.iterator(), ')');
+			return o;
 		}
 
         @Override
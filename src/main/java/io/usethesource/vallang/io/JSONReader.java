@@ -0,0 +1,853 @@
+package io.usethesource.vallang.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URISyntaxException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import io.usethesource.vallang.IDateTime;
+import io.usethesource.vallang.IInteger;
+import io.usethesource.vallang.IList;
+import io.usethesource.vallang.IMapWriter;
+import io.usethesource.vallang.ISourceLocation;
+import io.usethesource.vallang.ITuple;
+import io.usethesource.vallang.IValue;
+import io.usethesource.vallang.IValueFactory;
+import io.usethesource.vallang.IWriter;
+import io.usethesource.vallang.exceptions.FactParseError;
+import io.usethesource.vallang.exceptions.FactTypeUseException;
+import io.usethesource.vallang.exceptions.OverloadingNotSupportedException;
+import io.usethesource.vallang.exceptions.UnexpectedTypeException;
+import io.usethesource.vallang.type.ExternalType;
+import io.usethesource.vallang.type.Type;
+import io.usethesource.vallang.type.TypeFactory;
+import io.usethesource.vallang.type.TypeStore;
+
+/**
+ * Reads the JSON written by the {@link JSONWriter}. <br />
+ * <br />
+ * The parser pulls tokens from the input as the expected type requires them: the type decides how a JSON value
+ * is mapped (for example whether an array is a list, a set, a tuple or a map), and the declarations in the {@link TypeStore} give the
+ * types of the fields and keyword parameters of constructors. With <code>value</code> as expected type, arrays become lists, objects
+ * become maps from strings to values (unless they are constructors or nodes), and numbers become integers or reals depending on their syntax. <br />
+ * <br />
+ * Like the {@link StandardTextReader}, the reader does not recurse on the Java stack, and source locations are interned
+ * via the shared {@link SourceLocationCache}.
+ */
+public class JSONReader extends AbstractTextReader {
+
+    @Override
+    public IValue read(IValueFactory factory, TypeStore store, Type type, Reader stream) throws FactTypeUseException, IOException {
+        JSONParser parser = new JSONParser(factory, store, stream);
+        IValue result = parser.read(type);
+        if (parser.input.peek() != -1) {
+            throw new FactParseError("expected end of input", parser.input.offset);
+        }
+        return result;
+    }
+
+    private static class JSONParser {
+        private static final TypeFactory TF = TypeFactory.getInstance();
+        private static final Type genericListType = TF.listType(TF.valueType());
+        private static final Type genericMapType = TF.mapType(TF.stringType(), TF.valueType());
+
+        private final IValueFactory factory;
+        private final TypeStore store;
+        private final Input input;
+
+        public JSONParser(IValueFactory factory, TypeStore store, Reader stream) {
+            this.factory = factory;
+            this.store = store;
+            this.input = new Input(stream);
+        }
+
+        public IValue read(Type expected) throws IOException {
+            Deque<Frame> stack = new ArrayDeque<>();
+            Type next = expected;
+
+            while (true) {
+                IValue value = startValue(next, stack);
+                if (value != null) {
+                    value = checkValue(next, value);
+                }
+
+                // offer the completed value to the open frames, until one of them expects another element
+                while (value != null) {
+                    Frame top = stack.peek();
+                    if (top == null) {
+                        return value;
+                    }
+                    if (top.add(value)) {
+                        value = null;
+                    }
+                    else {
+                        stack.pop();
+                        value = checkValue(top.expected, top.done());
+                    }
+                }
+
+                Frame top = stack.peek();
+                assert top != null : "@AssumeAssertion(nullness)";
+                next = top.next;
+            }
+        }
+
+        private static IValue checkValue(Type expected, IValue result) {
+            if (!result.getType().isSubtypeOf(expected)) {
+                throw new UnexpectedTypeException(expected, result.getType());
+            }
+            return result;
+        }
+
+        private static Type resolve(Type type) {
+            while (true) {
+                if (type.isAliased()) {
+                    type = type.getAliased();
+                }
+                else if (type.isParameter()) {
+                    type = type.getBound();
+                }
+                else if (type.isExternalType()) {
+                    return ((ExternalType) type).asAbstractDataType();
+                }
+                else {
+                    return type;
+                }
+            }
+        }
+
+        /**
+         * Reads an atomic value, or opens a frame for a composite value.
+         * @return the value, or null if a frame was pushed
+         */
+        private @Nullable IValue startValue(Type expected, Deque<Frame> stack) throws IOException {
+            Type type = resolve(expected);
+            int c = input.peek();
+
+            switch (c) {
+                case '"':
+                    return readString(type);
+                case '[':
+                    input.skip();
+                    return open(arrayFrame(expected, type), stack);
+                case '{':
+                    input.skip();
+                    return readObject(expected, type, stack);
+                case 't':
+                    input.expectLiteral("true");
+                    return factory.bool(true);
+                case 'f':
+                    input.expectLiteral("false");
+                    return factory.bool(false);
+                case 'n':
+                    throw new FactParseError("null is not a value", input.offset);
+                default:
+                    if (c == '-' || (c >= '0' && c <= '9')) {
+                        return readNumber(type);
+                    }
+                    throw input.unexpected();
+            }
+        }
+
+        private @Nullable IValue open(Frame frame, Deque<Frame> stack) throws IOException {
+            if (frame.begin()) {
+                stack.push(frame);
+                return null;
+            }
+            return frame.done();
+        }
+
+        private IValue readNumber(Type type) throws IOException {
+            String number = input.readNumber();
+            boolean integral = number.indexOf('.') == -1 && number.indexOf('e') == -1 && number.indexOf('E') == -1;
+
+            try {
+                if (integral && !type.isReal()) {
+                    return factory.integer(number);
+                }
+                return factory.real(number);
+            }
+            catch (NumberFormatException e) {
+                throw new FactParseError("invalid number " + number, input.offset, e);
+            }
+        }
+
+        private IValue readString(Type type) throws IOException {
+            String string = input.readString();
+
+            if (type.isSourceLocation()) {
+                return location(string);
+            }
+            else if (type.isDateTime()) {
+                return dateTime(string);
+            }
+            else if (!type.isTop() && TF.rationalType().isSubtypeOf(type)) {
+                try {
+                    return factory.rational(string);
+                }
+                catch (NumberFormatException e) {
+                    throw new FactParseError("invalid rational " + string, input.offset, e);
+                }
+            }
+            return factory.string(string);
+        }
+
+        private ISourceLocation location(String uri) {
+            try {
+                return SourceLocationCache.getShared().get(factory, uri);
+            }
+            catch (URISyntaxException e) {
+                throw new FactParseError(e.getMessage(), input.offset, e);
+            }
+        }
+
+        private IDateTime dateTime(String text) {
+            try {
+                if (text.startsWith("T")) {
+                    OffsetTime time = OffsetTime.parse(text.substring(1));
+                    int offset = time.getOffset().getTotalSeconds();
+                    return factory.time(time.getHour(), time.getMinute(), time.getSecond(), time.getNano() / 1_000_000, offset / 3600, (offset % 3600) / 60);
+                }
+                else if (text.indexOf('T') == -1) {
+                    LocalDate date = LocalDate.parse(text);
+                    return factory.date(date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+                }
+                else {
+                    OffsetDateTime dateTime = OffsetDateTime.parse(text);
+                    int offset = dateTime.getOffset().getTotalSeconds();
+                    return factory.datetime(dateTime.getYear(), dateTime.getMonthValue(), dateTime.getDayOfMonth(), dateTime.getHour(),
+                        dateTime.getMinute(), dateTime.getSecond(), dateTime.getNano() / 1_000_000, offset / 3600, (offset % 3600) / 60);
+                }
+            }
+            catch (DateTimeParseException e) {
+                throw new FactParseError("invalid datetime " + text, input.offset, e);
+            }
+        }
+
+        private Frame arrayFrame(Type expected, Type type) {
+            if (type.isSet()) {
+                return new ContainerFrame(expected, type.getElementType(), factory.setWriter());
+            }
+            else if (type.isTuple()) {
+                return new TupleFrame(expected, type);
+            }
+            else if (type.isMap()) {
+                return new PairsFrame(expected, type);
+            }
+            else if (type.isList()) {
+                return new ContainerFrame(expected, type.getElementType(), factory.listWriter());
+            }
+            // the check of the completed list will report the mismatch, if any
+            return new ContainerFrame(expected, TF.valueType(), factory.listWriter());
+        }
+
+        /**
+         * Reads the first key of an object (after the opening brace), which decides what kind of value it is.
+         */
+        private @Nullable IValue readObject(Type expected, Type type, Deque<Frame> stack) throws IOException {
+            if (input.peek() == '}') {
+                input.skip();
+                if (type.isAbstractData() || type.isNode() || type.isSourceLocation()) {
+                    throw new FactParseError("empty object can not be a " + type, input.offset);
+                }
+                return factory.mapWriter().done();
+            }
+
+            String key = input.readKey();
+
+            if (key.equals(JSONWriter.CONSTRUCTOR_KEY) && (type.isAbstractData() || type.isNode() || type.isTop())) {
+                return open(new ConstructorFrame(expected, constructor(type, input.readString())), stack);
+            }
+            else if (key.equals(JSONWriter.NODE_KEY) && (type.isNode() || type.isTop())) {
+                return open(new NodeFrame(expected, input.readString()), stack);
+            }
+            else if (type.isSourceLocation()) {
+                return open(new LocationFrame(expected, key), stack);
+            }
+            else if (type.isMap() || type.isTop()) {
+                return open(new MapFrame(expected, type.isMap() ? type : genericMapType, key), stack);
+            }
+            throw new FactParseError("unexpected object for " + expected, input.offset);
+        }
+
+        private Type constructor(Type type, String name) {
+            if (type.isAbstractData()) {
+                Set<Type> alternatives = store.lookupConstructor(type, name);
+                if (alternatives.size() > 1) {
+                    throw new OverloadingNotSupportedException(type, name);
+                }
+                else if (!alternatives.isEmpty()) {
+                    return alternatives.iterator().next();
+                }
+            }
+            else {
+                Set<Type> alternatives = store.lookupConstructors(name);
+                if (alternatives.size() == 1) {
+                    return alternatives.iterator().next();
+                }
+            }
+            throw new FactParseError("undeclared or overloaded constructor " + name + " for " + type, input.offset);
+        }
+
+        private abstract class Frame {
+            /** the type the completed value is checked against */
+            final Type expected;
+            /** the expected type of the next element */
+            Type next = TF.valueType();
+
+            Frame(Type expected) {
+                this.expected = expected;
+            }
+
+            /**
+             * Reads up to the first element
+             * @return true if an element follows, false if the value was closed already
+             */
+            abstract boolean begin() throws IOException;
+
+            /**
+             * Receives a completed element and reads what follows it
+             * @return true if another element follows, false if the value was closed
+             */
+            abstract boolean add(IValue element) throws IOException;
+
+            abstract IValue done();
+        }
+
+        /**
+         * The elements of an array, after the opening bracket
+         */
+        private abstract class ArrayFrame extends Frame {
+            int index = 0;
+
+            ArrayFrame(Type expected) {
+                super(expected);
+            }
+
+            abstract Type elementType(int index);
+
+            abstract void element(int index, IValue element);
+
+            @Override
+            boolean begin() throws IOException {
+                if (input.peek() == ']') {
+                    input.skip();
+                    return false;
+                }
+                next = elementType(0);
+                return true;
+            }
+
+            @Override
+            boolean add(IValue element) throws IOException {
+                element(index++, element);
+                if (input.separator(']')) {
+                    next = elementType(index);
+                    return true;
+                }
+                return false;
+            }
+        }
+
+        private class ContainerFrame extends ArrayFrame {
+            private final Type elementType;
+            private final IWriter<?> writer;
+
+            ContainerFrame(Type expected, Type elementType, IWriter<?> writer) {
+                super(expected);
+                this.elementType = elementType;
+                this.writer = writer;
+            }
+
+            @Override
+            Type elementType(int index) {
+                return elementType;
+            }
+
+            @Override
+            void element(int index, IValue element) {
+                writer.append(element);
+            }
+
+            @Override
+            IValue done() {
+                return writer.done();
+            }
+        }
+
+        private class TupleFrame extends ArrayFrame {
+            private final Type fields;
+            private final List<IValue> elements = new ArrayList<>();
+
+            TupleFrame(Type expected, Type fields) {
+                super(expected);
+                this.fields = fields;
+            }
+
+            @Override
+            Type elementType(int index) {
+                if (index >= fields.getArity()) {
+                    throw new FactParseError("too many elements for " + fields, input.offset);
+                }
+                return fields.getFieldType(index);
+            }
+
+            @Override
+            void element(int index, IValue element) {
+                elements.add(element);
+            }
+
+            @Override
+            IValue done() {
+                return factory.tuple(elements.toArray(new IValue[0]));
+            }
+        }
+
+        /**
+         * A map that is written as an array of <code>[key, value]</code> arrays
+         */
+        private class PairsFrame extends ArrayFrame {
+            private final Type pairType;
+            private final IMapWriter writer = factory.mapWriter();
+
+            PairsFrame(Type expected, Type mapType) {
+                super(expected);
+                this.pairType = TF.tupleType(mapType.getKeyType(), mapType.getValueType());
+            }
+
+            @Override
+            Type elementType(int index) {
+                return pairType;
+            }
+
+            @Override
+            void element(int index, IValue element) {
+                ITuple pair = (ITuple) element;
+                writer.put(pair.get(0), pair.get(1));
+            }
+
+            @Override
+            IValue done() {
+                return writer.done();
+            }
+        }
+
+        /**
+         * The members of an object, after the first key
+         */
+        private abstract class ObjectFrame extends Frame {
+            private final @Nullable String firstKey;
+            String key = "";
+
+            /**
+             * @param firstKey the key that was read already, or null if its member was read already as well
+             */
+            ObjectFrame(Type expected, @Nullable String firstKey) {
+                super(expected);
+                this.firstKey = firstKey;
+            }
+
+            abstract Type memberType(String key);
+
+            abstract void member(String key, IValue value);
+
+            @Override
+            boolean begin() throws IOException {
+                String first = firstKey;
+                if (first == null) {
+                    return nextKey();
+                }
+                key = first;
+                next = memberType(first);
+                return true;
+            }
+
+            @Override
+            boolean add(IValue value) throws IOException {
+                member(key, value);
+                return nextKey();
+            }
+
+            private boolean nextKey() throws IOException {
+                if (input.separator('}')) {
+                    key = input.readKey();
+                    next = memberType(key);
+                    return true;
+                }
+                return false;
+            }
+        }
+
+        private class MapFrame extends ObjectFrame {
+            private final Type valueType;
+            private final IMapWriter writer = factory.mapWriter();
+
+            MapFrame(Type expected, Type mapType, String firstKey) {
+                super(expected, firstKey);
+                this.valueType = mapType.getValueType();
+                if (!TF.stringType().isSubtypeOf(mapType.getKeyType())) {
+                    throw new UnexpectedTypeException(mapType.getKeyType(), TF.stringType());
+                }
+            }
+
+            @Override
+            Type memberType(String key) {
+                return valueType;
+            }
+
+            @Override
+            void member(String key, IValue value) {
+                writer.put(factory.string(key), value);
+            }
+
+            @Override
+            IValue done() {
+                return writer.done();
+            }
+        }
+
+        private class ConstructorFrame extends ObjectFrame {
+            private final Type constructor;
+            private final @Nullable IValue[] arguments;
+            private final Map<String, IValue> keywordParameters = new HashMap<>();
+
+            ConstructorFrame(Type expected, Type constructor) {
+                super(expected, null);
+                this.constructor = constructor;
+                this.arguments = new IValue[constructor.getArity()];
+            }
+
+            private int fieldIndex(String key) {
+                if (constructor.hasFieldNames()) {
+                    return constructor.hasField(key) ? constructor.getFieldIndex(key) : -1;
+                }
+                for (int i = 0; i < arguments.length; i++) {
+                    if (JSONWriter.positionalKey(i).equals(key)) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+
+            @Override
+            Type memberType(String key) {
+                int index = fieldIndex(key);
+                if (index != -1) {
+                    return constructor.getFieldType(index);
+                }
+                Type kwType = store.getKeywordParameterType(constructor, key);
+                if (kwType == null) {
+                    throw new FactParseError("unknown field or keyword parameter " + key + " of " + constructor, input.offset);
+                }
+                return kwType;
+            }
+
+            @Override
+            void member(String key, IValue value) {
+                int index = fieldIndex(key);
+                if (index != -1) {
+                    arguments[index] = value;
+                }
+                else {
+                    keywordParameters.put(key, value);
+                }
+            }
+
+            @Override
+            IValue done() {
+                for (int i = 0; i < arguments.length; i++) {
+                    if (arguments[i] == null) {
+                        throw new FactParseError("missing field " + i + " of " + constructor, input.offset);
+                    }
+                }
+                @NonNull IValue[] children = (@NonNull IValue[]) arguments;
+                return factory.constructor(constructor, children, keywordParameters);
+            }
+        }
+
+        private class NodeFrame extends ObjectFrame {
+            private final String name;
+            private @Nullable IList arguments = null;
+            private final Map<String, IValue> keywordParameters = new HashMap<>();
+
+            NodeFrame(Type expected, String name) {
+                super(expected, null);
+                this.name = name;
+            }
+
+            @Override
+            Type memberType(String key) {
+                return key.equals(JSONWriter.ARGUMENTS_KEY) ? genericListType : TF.valueType();
+            }
+
+            @Override
+            void member(String key, IValue value) {
+                if (key.equals(JSONWriter.ARGUMENTS_KEY)) {
+                    arguments = (IList) value;
+                }
+                else {
+                    keywordParameters.put(key, value);
+                }
+            }
+
+            @Override
+            IValue done() {
+                IList args = arguments;
+                IValue[] children = new IValue[args == null ? 0 : args.length()];
+                for (int i = 0; i < children.length; i++) {
+                    assert args != null : "@AssumeAssertion(nullness)";
+                    children[i] = args.get(i);
+                }
+                return factory.node(name, children, keywordParameters);
+            }
+        }
+
+        private class LocationFrame extends ObjectFrame {
+            private final Type positionType = TF.tupleType(TF.integerType(), TF.integerType());
+            private @Nullable ISourceLocation uri = null;
+            private int offset = -1;
+            private int length = -1;
+            private @Nullable ITuple begin = null;
+            private @Nullable ITuple end = null;
+
+            LocationFrame(Type expected, String firstKey) {
+                super(expected, firstKey);
+            }
+
+            @Override
+            Type memberType(String key) {
+                switch (key) {
+                    case JSONWriter.URI_KEY: return TF.sourceLocationType();
+                    case JSONWriter.OFFSET_KEY:
+                    case JSONWriter.LENGTH_KEY: return TF.integerType();
+                    case JSONWriter.BEGIN_KEY:
+                    case JSONWriter.END_KEY: return positionType;
+                    default: throw new FactParseError("unknown member " + key + " of a location", input.offset);
+                }
+            }
+
+            @Override
+            void member(String key, IValue value) {
+                switch (key) {
+                    case JSONWriter.URI_KEY: uri = (ISourceLocation) value; break;
+                    case JSONWriter.OFFSET_KEY: offset = ((IInteger) value).intValue(); break;
+                    case JSONWriter.LENGTH_KEY: length = ((IInteger) value).intValue(); break;
+                    case JSONWriter.BEGIN_KEY: begin = (ITuple) value; break;
+                    default: end = (ITuple) value; break;
+                }
+            }
+
+            private int get(ITuple position, int index) {
+                return ((IInteger) position.get(index)).intValue();
+            }
+
+            @Override
+            IValue done() {
+                ISourceLocation root = uri;
+                if (root == null) {
+                    throw new FactParseError("location without uri", input.offset);
+                }
+                if (offset < 0 || length < 0) {
+                    return root;
+                }
+                ITuple b = begin;
+                ITuple e = end;
+                if (b != null && e != null) {
+                    return factory.sourceLocation(root, offset, length, get(b, 0), get(e, 0), get(b, 1), get(e, 1));
+                }
+                return factory.sourceLocation(root, offset, length);
+            }
+        }
+    }
+
+    /**
+     * The tokens of JSON, read from a buffer
+     */
+    private static final class Input {
+        private static final int BUFFER_SIZE = 64 * 1024;
+
+        private final Reader wrapped;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int position = 0;
+        private int limit = 0;
+        private int offset = 0;
+        private final StringBuilder token = new StringBuilder();
+
+        Input(Reader wrapped) {
+            this.wrapped = wrapped;
+        }
+
+        private boolean fill() throws IOException {
+            if (position < limit) {
+                return true;
+            }
+            int read = wrapped.read(buffer, 0, BUFFER_SIZE);
+            position = 0;
+            limit = Math.max(0, read);
+            return read > 0;
+        }
+
+        /**
+         * @return the next character that is not whitespace, without consuming it, or -1 at the end of the input
+         */
+        int peek() throws IOException {
+            while (fill()) {
+                char c = buffer[position];
+                if (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                    position++;
+                    offset++;
+                }
+                else {
+                    return c;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Consumes the character that was peeked
+         */
+        void skip() {
+            position++;
+            offset++;
+        }
+
+        private int next() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            offset++;
+            return buffer[position++];
+        }
+
+        void expect(char c) throws IOException {
+            if (peek() != c) {
+                throw unexpected();
+            }
+            skip();
+        }
+
+        /**
+         * Reads a comma, or the given closing character
+         * @return true after a comma, false after the closing character
+         */
+        boolean separator(char close) throws IOException {
+            int c = peek();
+            if (c == ',') {
+                skip();
+                return true;
+            }
+            if (c == close) {
+                skip();
+                return false;
+            }
+            throw unexpected();
+        }
+
+        void expectLiteral(String literal) throws IOException {
+            for (int i = 0; i < literal.length(); i++) {
+                if (next() != literal.charAt(i)) {
+                    throw new FactParseError("expected " + literal, offset);
+                }
+            }
+        }
+
+        String readKey() throws IOException {
+            String key = readString();
+            expect(':');
+            return key;
+        }
+
+        String readNumber() throws IOException {
+            token.setLength(0);
+            while (fill()) {
+                char c = buffer[position];
+                if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                    token.append(c);
+                    position++;
+                    offset++;
+                }
+                else {
+                    break;
+                }
+            }
+            return token.toString();
+        }
+
+        String readString() throws IOException {
+            expect('"');
+            token.setLength(0);
+
+            while (true) {
+                // copy the characters up to the next quote or escape in bulk
+                int start = position;
+                while (position < limit && buffer[position] != '"' && buffer[position] != '\\') {
+                    position++;
+                }
+                token.append(buffer, start, position - start);
+                offset += position - start;
+
+                int c = next();
+                switch (c) {
+                    case -1:
+                        throw new FactParseError("unterminated string", offset);
+                    case '"':
+                        return token.toString();
+                    case '\\':
+                        token.append(escape());
+                        break;
+                    default:
+                        // the buffer ran out, next() refilled it
+                        token.append((char) c);
+                }
+            }
+        }
+
+        private char escape() throws IOException {
+            int c = next();
+            switch (c) {
+                case '"': return '"';
+                case '\\': return '\\';
+                case '/': return '/';
+                case 'b': return '\b';
+                case 'f': return '\f';
+                case 'n': return '\n';
+                case 'r': return '\r';
+                case 't': return '\t';
+                case 'u':
+                    int result = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(next(), 16);
+                        if (digit == -1) {
+                            throw new FactParseError("invalid unicode escape", offset);
+                        }
+                        result = result * 16 + digit;
+                    }
+                    return (char) result;
+                default:
+                    throw new FactParseError("invalid escape", offset);
+            }
+        }
+
+        FactParseError unexpected() throws IOException {
+            int c = peek();
+            if (c == -1) {
+                return new FactParseError("unexpected end of input", offset);
+            }
+            return new FactParseError("unexpected " + (char) c, offset);
+        }
+    }
+}
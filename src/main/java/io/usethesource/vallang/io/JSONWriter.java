@@ -0,0 +1,510 @@
+package io.usethesource.vallang.io;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.PrimitiveIterator.OfInt;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import io.usethesource.vallang.IBool;
+import io.usethesource.vallang.IConstructor;
+import io.usethesource.vallang.IDateTime;
+import io.usethesource.vallang.IExternalValue;
+import io.usethesource.vallang.IInteger;
+import io.usethesource.vallang.IList;
+import io.usethesource.vallang.IMap;
+import io.usethesource.vallang.INode;
+import io.usethesource.vallang.IRational;
+import io.usethesource.vallang.IReal;
+import io.usethesource.vallang.ISet;
+import io.usethesource.vallang.ISourceLocation;
+import io.usethesource.vallang.IString;
+import io.usethesource.vallang.ITuple;
+import io.usethesource.vallang.IValue;
+import io.usethesource.vallang.IWithKeywordParameters;
+import io.usethesource.vallang.type.Type;
+import io.usethesource.vallang.type.TypeFactory;
+import io.usethesource.vallang.type.TypeStore;
+import io.usethesource.vallang.visitors.IValueVisitor;
+
+/**
+ * Serializes values to JSON, such that the {@link JSONReader} can read them back given the (declared) type of the value. <br />
+ * <br />
+ * The mapping is:
+ * <ul>
+ * <li>bool, int and real are JSON booleans and numbers, rationals are strings like <code>"1r3"</code></li>
+ * <li>str is a JSON string</li>
+ * <li>datetime is a string in ISO 8601 format, <code>"2017-01-02"</code>, <code>"T03:04:05.006+01:00"</code> or <code>"2017-01-02T03:04:05.006+01:00"</code></li>
+ * <li>loc is a string with the URI, or an object <code>{"uri": ..., "offset": ..., "length": ..., "begin": [line, column], "end": [line, column]}</code> if it has positions</li>
+ * <li>list, set and tuple are arrays</li>
+ * <li>map is an object if its keys are strings, and otherwise an array of <code>[key, value]</code> arrays</li>
+ * <li>a constructor is an object <code>{"_constructor": name, field: value, ..., keyword parameter: value, ...}</code>,
+ * where a field is named by its label, or <code>_0</code>, <code>_1</code>, ... if the constructor has no field names</li>
+ * <li>a node is an object <code>{"_node": name, "_args": [...], keyword parameter: value, ...}</code></li>
+ * </ul>
+ * The writer does not recurse on the Java stack, so arbitrarily deep values can be written.
+ */
+public class JSONWriter implements IValueTextWriter {
+    /*package*/ static final String CONSTRUCTOR_KEY = "_constructor";
+    /*package*/ static final String NODE_KEY = "_node";
+    /*package*/ static final String ARGUMENTS_KEY = "_args";
+    /*package*/ static final String URI_KEY = "uri";
+    /*package*/ static final String OFFSET_KEY = "offset";
+    /*package*/ static final String LENGTH_KEY = "length";
+    /*package*/ static final String BEGIN_KEY = "begin";
+    /*package*/ static final String END_KEY = "end";
+
+    @Override
+    public void write(IValue value, java.io.Writer stream) throws IOException {
+        try {
+            new Writer(stream).write(value);
+        }
+        finally {
+            stream.flush();
+        }
+    }
+
+    @Override
+    public void write(IValue value, java.io.Writer stream, TypeStore typeStore) throws IOException {
+        write(value, stream);
+    }
+
+    /*package*/ static String positionalKey(int index) {
+        return "_" + index;
+    }
+
+    /**
+     * Writes a single value: a visit of a composite value writes its opening and pushes a {@link Frame} that
+     * produces its children one by one, the loop in {@link #write(IValue)} visits these children.
+     */
+    private static class Writer implements IValueVisitor<IValue, IOException> {
+        private static final int BUFFER_SIZE = 8192;
+        private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+        private static final Type STRING_TYPE = TypeFactory.getInstance().stringType();
+
+        private final java.io.Writer stream;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int pos = 0;
+        private final Deque<Frame> stack = new ArrayDeque<>();
+
+        public Writer(java.io.Writer stream) {
+            this.stream = stream;
+        }
+
+        /**
+         * A composite value that is being written
+         */
+        private interface Frame {
+            /**
+             * Writes what comes before the next child
+             * @return the next child, or null after writing the end of the value
+             */
+            @Nullable IValue next() throws IOException;
+        }
+
+        public void write(IValue value) throws IOException {
+            value.accept(this);
+
+            Frame top;
+            while ((top = stack.peek()) != null) {
+                IValue child = top.next();
+                if (child == null) {
+                    stack.pop();
+                }
+                else {
+                    child.accept(this);
+                }
+            }
+
+            if (pos > 0) {
+                stream.write(buffer, 0, pos);
+                pos = 0;
+            }
+        }
+
+        private void ensure(int length) throws IOException {
+            if (pos + length > BUFFER_SIZE) {
+                stream.write(buffer, 0, pos);
+                pos = 0;
+            }
+        }
+
+        private void append(char c) throws IOException {
+            ensure(1);
+            buffer[pos++] = c;
+        }
+
+        private void append(String string) throws IOException {
+            int length = string.length();
+            if (length > BUFFER_SIZE) {
+                ensure(BUFFER_SIZE);
+                stream.write(string);
+                return;
+            }
+            ensure(length);
+            string.getChars(0, length, buffer, pos);
+            pos += length;
+        }
+
+        private void appendInt(int value) throws IOException {
+            append(Integer.toString(value));
+        }
+
+        private void appendPadded(int value, int width) throws IOException {
+            String digits = Integer.toString(Math.abs(value));
+            if (value < 0) {
+                append('-');
+            }
+            for (int i = digits.length(); i < width; i++) {
+                append('0');
+            }
+            append(digits);
+        }
+
+        private void appendKey(String key) throws IOException {
+            appendString(key);
+            append(':');
+        }
+
+        private void appendString(String string) throws IOException {
+            append('"');
+            for (int i = 0; i < string.length(); i++) {
+                appendChar(string.charAt(i));
+            }
+            append('"');
+        }
+
+        private void appendChar(int ch) throws IOException {
+            ensure(12);
+            switch (ch) {
+                case '"': buffer[pos++] = '\\'; buffer[pos++] = '"'; break;
+                case '\\': buffer[pos++] = '\\'; buffer[pos++] = '\\'; break;
+                case '\n': buffer[pos++] = '\\'; buffer[pos++] = 'n'; break;
+                case '\r': buffer[pos++] = '\\'; buffer[pos++] = 'r'; break;
+                case '\t': buffer[pos++] = '\\'; buffer[pos++] = 't'; break;
+                case '\b': buffer[pos++] = '\\'; buffer[pos++] = 'b'; break;
+                case '\f': buffer[pos++] = '\\'; buffer[pos++] = 'f'; break;
+                default:
+                    if (ch < ' ') {
+                        buffer[pos++] = '\\';
+                        buffer[pos++] = 'u';
+                        buffer[pos++] = '0';
+                        buffer[pos++] = '0';
+                        buffer[pos++] = HEX_DIGITS[ch >> 4];
+                        buffer[pos++] = HEX_DIGITS[ch & 0xF];
+                    }
+                    else if (Character.isBmpCodePoint(ch)) {
+                        buffer[pos++] = (char) ch;
+                    }
+                    else {
+                        buffer[pos++] = Character.highSurrogate(ch);
+                        buffer[pos++] = Character.lowSurrogate(ch);
+                    }
+            }
+        }
+
+        /**
+         * Writes the elements of an array, and the closing bracket after the last one
+         */
+        private void pushElements(Iterator<? extends IValue> elements) throws IOException {
+            append('[');
+            stack.push(new Frame() {
+                boolean first = true;
+
+                @Override
+                public @Nullable IValue next() throws IOException {
+                    if (elements.hasNext()) {
+                        if (!first) {
+                            append(',');
+                        }
+                        first = false;
+                        return elements.next();
+                    }
+                    append(']');
+                    return null;
+                }
+            });
+        }
+
+        /**
+         * Writes the remaining members of an object (after the ones written by the visit), and the closing brace
+         */
+        private void pushMembers(boolean first, Iterator<? extends Entry<String, ? extends IValue>> members) throws IOException {
+            stack.push(new Frame() {
+                boolean isFirst = first;
+
+                @Override
+                public @Nullable IValue next() throws IOException {
+                    if (members.hasNext()) {
+                        if (!isFirst) {
+                            append(',');
+                        }
+                        isFirst = false;
+                        Entry<String, ? extends IValue> member = members.next();
+                        appendKey(member.getKey());
+                        return member.getValue();
+                    }
+                    append('}');
+                    return null;
+                }
+            });
+        }
+
+        private static Iterator<Entry<String, IValue>> keywordParameters(INode o) {
+            if (o.mayHaveKeywordParameters()) {
+                IWithKeywordParameters<? extends INode> wkw = o.asWithKeywordParameters();
+                if (wkw.hasParameters()) {
+                    return wkw.getParameters().entrySet().iterator();
+                }
+            }
+            return Collections.emptyIterator();
+        }
+
+        @Override
+        public IValue visitString(IString o) throws IOException {
+            append('"');
+            OfInt it = o.iterator();
+            while (it.hasNext()) {
+                appendChar(it.nextInt());
+            }
+            append('"');
+            return o;
+        }
+
+        @Override
+        public IValue visitReal(IReal o) throws IOException {
+            String real = o.getStringRepresentation();
+            if (real.endsWith(".")) {
+                // JSON does not allow a trailing dot, an exponent keeps the scale of the number
+                append(real.substring(0, real.length() - 1));
+                append("E0");
+            }
+            else {
+                append(real);
+            }
+            return o;
+        }
+
+        @Override
+        public IValue visitInteger(IInteger o) throws IOException {
+            append(o.getStringRepresentation());
+            return o;
+        }
+
+        @Override
+        public IValue visitRational(IRational o) throws IOException {
+            appendString(o.getStringRepresentation());
+            return o;
+        }
+
+        @Override
+        public IValue visitBoolean(IBool boolValue) throws IOException {
+            append(boolValue.getValue() ? "true" : "false");
+            return boolValue;
+        }
+
+        @Override
+        public IValue visitList(IList o) throws IOException {
+            pushElements(o.iterator());
+            return o;
+        }
+
+        @Override
+        public IValue visitSet(ISet o) throws IOException {
+            pushElements(o.iterator());
+            return o;
+        }
+
+        @Override
+        public IValue visitTuple(ITuple o) throws IOException {
+            pushElements(o.iterator());
+            return o;
+        }
+
+        @Override
+        public IValue visitMap(IMap o) throws IOException {
+            Iterator<Entry<IValue, IValue>> entries = o.entryIterator();
+
+            if (o.getType().getKeyType().isSubtypeOf(STRING_TYPE)) {
+                append('{');
+                stack.push(new Frame() {
+                    boolean first = true;
+
+                    @Override
+                    public @Nullable IValue next() throws IOException {
+                        if (entries.hasNext()) {
+                            if (!first) {
+                                append(',');
+                            }
+                            first = false;
+                            Entry<IValue, IValue> entry = entries.next();
+                            appendKey(((IString) entry.getKey()).getValue());
+                            return entry.getValue();
+                        }
+                        append('}');
+                        return null;
+                    }
+                });
+            }
+            else {
+                append('[');
+                stack.push(new Frame() {
+                    boolean first = true;
+                    @Nullable IValue value = null;
+
+                    @Override
+                    public @Nullable IValue next() throws IOException {
+                        IValue pending = value;
+                        if (pending != null) {
+                            append(',');
+                            value = null;
+                            return pending;
+                        }
+                        if (!first) {
+                            append(']'); // of the previous pair
+                        }
+                        if (entries.hasNext()) {
+                            if (!first) {
+                                append(',');
+                            }
+                            first = false;
+                            Entry<IValue, IValue> entry = entries.next();
+                            append('[');
+                            value = entry.getValue();
+                            return entry.getKey();
+                        }
+                        append(']');
+                        return null;
+                    }
+                });
+            }
+            return o;
+        }
+
+        @Override
+        public IValue visitSourceLocation(ISourceLocation o) throws IOException {
+            if (!o.hasOffsetLength()) {
+                appendString(o.getURI().toString());
+                return o;
+            }
+
+            append('{');
+            appendKey(URI_KEY);
+            appendString(o.top().getURI().toString());
+            append(',');
+            appendKey(OFFSET_KEY);
+            appendInt(o.getOffset());
+            append(',');
+            appendKey(LENGTH_KEY);
+            appendInt(o.getLength());
+
+            if (o.hasLineColumn()) {
+                append(',');
+                appendKey(BEGIN_KEY);
+                append('[');
+                appendInt(o.getBeginLine());
+                append(',');
+                appendInt(o.getBeginColumn());
+                append(']');
+                append(',');
+                appendKey(END_KEY);
+                append('[');
+                appendInt(o.getEndLine());
+                append(',');
+                appendInt(o.getEndColumn());
+                append(']');
+            }
+            append('}');
+            return o;
+        }
+
+        @Override
+        public IValue visitDateTime(IDateTime o) throws IOException {
+            append('"');
+            if (!o.isTime()) {
+                appendPadded(o.getYear(), 4);
+                append('-');
+                appendPadded(o.getMonthOfYear(), 2);
+                append('-');
+                appendPadded(o.getDayOfMonth(), 2);
+            }
+            if (!o.isDate()) {
+                append('T');
+                appendPadded(o.getHourOfDay(), 2);
+                append(':');
+                appendPadded(o.getMinuteOfHour(), 2);
+                append(':');
+                appendPadded(o.getSecondOfMinute(), 2);
+                append('.');
+                appendPadded(o.getMillisecondsOfSecond(), 3);
+                if (o.getTimezoneOffsetHours() < 0 || (o.getTimezoneOffsetHours() == 0 && o.getTimezoneOffsetMinutes() < 0)) {
+                    append('-');
+                }
+                else {
+                    append('+');
+                }
+                appendPadded(Math.abs(o.getTimezoneOffsetHours()), 2);
+                append(':');
+                appendPadded(Math.abs(o.getTimezoneOffsetMinutes()), 2);
+            }
+            append('"');
+            return o;
+        }
+
+        @Override
+        public IValue visitConstructor(IConstructor o) throws IOException {
+            Type type = o.getConstructorType();
+            boolean labeled = type.hasFieldNames();
+
+            append('{');
+            appendKey(CONSTRUCTOR_KEY);
+            appendString(o.getName());
+
+            Iterator<IValue> children = o.iterator();
+            Iterator<Entry<String, IValue>> kwParams = keywordParameters(o);
+            pushMembers(false, new Iterator<Entry<String, IValue>>() {
+                int index = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return children.hasNext() || kwParams.hasNext();
+                }
+
+                @Override
+                public Entry<String, IValue> next() {
+                    if (children.hasNext()) {
+                        int i = index++;
+                        String key = labeled ? type.getFieldName(i) : positionalKey(i);
+                        return new AbstractMap.SimpleImmutableEntry<>(key, children.next());
+                    }
+                    return kwParams.next();
+                }
+            });
+            return o;
+        }
+
+        @Override
+        public IValue visitNode(INode o) throws IOException {
+            append('{');
+            appendKey(NODE_KEY);
+            appendString(o.getName());
+            append(',');
+            appendKey(ARGUMENTS_KEY);
+
+            // the closing brace and the keyword parameters come after the arguments, so their frame goes first
+            pushMembers(false, keywordParameters(o));
+            pushElements(o.iterator());
+            return o;
+        }
+
+        @Override
+        public IValue visitExternal(IExternalValue externalValue) throws IOException {
+            return visitConstructor(externalValue.encodeAsConstructor());
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package io.usethesource.vallang.io;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Objects;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.usethesource.vallang.ISourceLocation;
+import io.usethesource.vallang.IValueFactory;
+
+/**
+ * A bounded cache that interns the roots of source locations (the location without offset, length and line/column information),
+ * such that readers do not rebuild the same roots over and over, and values read from different streams share the root instances. <br />
+ * <br />
+ * The {@link StandardTextReader} and the binary {@link io.usethesource.vallang.io.binary.message.IValueReader} use the {@link #getShared() shared} cache,
+ * its maximum size can be configured with the system property <code>vallang.locationCache.size</code>.
+ * A text reader can be given a cache of its own. The cache is thread safe, its hit rate can be monitored via JMX by registering it with an MBeanServer. <br />
+ * <br />
+ * The value factory is part of the key, so a reader always gets the source locations of its own factory, even from the shared cache.
+ */
+public final class SourceLocationCache implements SourceLocationCacheMXBean {
+    public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+    private static final SourceLocationCache SHARED = new SourceLocationCache(Integer.getInteger("vallang.locationCache.size", DEFAULT_MAXIMUM_SIZE));
+
+    private final Cache<Object, ISourceLocation> cache;
+
+    public SourceLocationCache(int maximumSize) {
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .recordStats()
+            .build();
+    }
+
+    public static SourceLocationCache getShared() {
+        return SHARED;
+    }
+
+    /**
+     * @param uri the textual form of the URI (as between the bars of a location literal)
+     */
+    public ISourceLocation get(IValueFactory vf, String uri) throws URISyntaxException {
+        return lookup(new Text(vf, uri), () -> vf.sourceLocation(new URI(uri)));
+    }
+
+    public ISourceLocation get(IValueFactory vf, String scheme, String authority, String path, @Nullable String query, @Nullable String fragment) throws URISyntaxException {
+        return lookup(new Root(vf, scheme, authority, path, query, fragment), () -> vf.sourceLocation(scheme, authority, path, query, fragment));
+    }
+
+    @FunctionalInterface
+    private interface LocationBuilder {
+        ISourceLocation build() throws URISyntaxException;
+    }
+
+    private ISourceLocation lookup(Object key, LocationBuilder builder) throws URISyntaxException {
+        try {
+            return Objects.requireNonNull(cache.get(key, k -> {
+                try {
+                    return builder.build();
+                } catch (URISyntaxException e) {
+                    throw new InvalidLocation(e);
+                }
+            }));
+        }
+        catch (InvalidLocation e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public long getSize() {
+        return cache.estimatedSize();
+    }
+
+    @Override
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    @Override
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    @Override
+    public double getHitRate() {
+        return cache.stats().hitRate();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    @Override
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public String toString() {
+        CacheStats stats = cache.stats();
+        return "SourceLocationCache(size: " + cache.estimatedSize() + ", hits: " + stats.hitCount() + ", misses: " + stats.missCount() 
+            + ", hit rate: " + String.format("%.2f", stats.hitRate()) + ")";
+    }
+
+    /**
+     * Used to get a {@link URISyntaxException} out of the cache loader
+     */
+    private static final class InvalidLocation extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        InvalidLocation(URISyntaxException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized URISyntaxException getCause() {
+            return (URISyntaxException) super.getCause();
+        }
+    }
+
+    /**
+     * The key for locations that are given by their textual form
+     */
+    private static final class Text {
+        private final IValueFactory factory;
+        private final String uri;
+
+        Text(IValueFactory factory, String uri) {
+            this.factory = factory;
+            this.uri = uri;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(factory) + uri.hashCode();
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (!(obj instanceof Text)) {
+                return false;
+            }
+            Text other = (Text) obj;
+            return factory == other.factory && uri.equals(other.uri);
+        }
+    }
+
+    /**
+     * The key for locations that are given by their parts
+     */
+    private static final class Root {
+        private final IValueFactory factory;
+        private final String scheme;
+        private final String authority;
+        private final String path;
+        private final @Nullable String query;
+        private final @Nullable String fragment;
+
+        Root(IValueFactory factory, String scheme, String authority, String path, @Nullable String query, @Nullable String fragment) {
+            this.factory = factory;
+            this.scheme = scheme;
+            this.authority = authority;
+            this.path = path;
+            this.query = query;
+            this.fragment = fragment;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(factory);
+            result = 31 * result + scheme.hashCode();
+            result = 31 * result + authority.hashCode();
+            result = 31 * result + path.hashCode();
+            result = 31 * result + Objects.hashCode(query);
+            return 31 * result + Objects.hashCode(fragment);
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (!(obj instanceof Root)) {
+                return false;
+            }
+            Root other = (Root) obj;
+            return factory == other.factory && scheme.equals(other.scheme) && authority.equals(other.authority) && path.equals(other.path)
+                && Objects.equals(query, other.query) && Objects.equals(fragment, other.fragment);
+        }
+    }
+}
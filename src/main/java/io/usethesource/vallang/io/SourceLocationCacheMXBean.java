@@ -0,0 +1,14 @@
+package io.usethesource.vallang.io;
+
+/**
+ * The JMX view on the {@link SourceLocationCache}
+ */
+public interface SourceLocationCacheMXBean {
+    long getSize();
+    long getHitCount();
+    long getMissCount();
+    double getHitRate();
+    long getEvictionCount();
+
+    void clear();
+}
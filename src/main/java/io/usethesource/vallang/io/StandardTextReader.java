@@ -12,23 +12,37 @@
 
 package io.usethesource.vallang.io;
 
+import java.io.CharArrayReader;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.Reader;
-import java.net.URI;
+import java.io.UncheckedIOException;
 import java.net.URISyntaxException;
+import java.nio.CharBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
-
-import io.usethesource.vallang.IListWriter;
 import io.usethesource.vallang.IMapWriter;
 import io.usethesource.vallang.INode;
 import io.usethesource.vallang.ISourceLocation;
@@ -56,8 +70,251 @@ import io.usethesource.vallang.type.TypeStore;
  */
 public class StandardTextReader extends AbstractTextReader {
 
+    private static final int MIN_PARALLEL_INPUT = 1 << 20; // characters, for smaller inputs parsing in parallel does not pay off
+    private static final int MIN_CHUNK = 1 << 16; // characters
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final SourceLocationCache locations;
+
+    public StandardTextReader() {
+        this(SourceLocationCache.getShared());
+    }
+
+    /**
+     * @param locations the cache used to intern the roots of the source locations that are read
+     */
+    public StandardTextReader(SourceLocationCache locations) {
+        this.locations = locations;
+    }
+
     public IValue read(IValueFactory factory, TypeStore store, Type type, Reader stream) throws FactTypeUseException, IOException {
-        return new TextReader(factory, store, stream).read(type);
+        return new TextReader(factory, store, locations, stream).read(type);
+    }
+
+    /**
+     * Reads the elements of a list, set or map one by one, as the iterator is advanced. The elements of a map are returned as &lt;key, value&gt; tuples. <br />
+     * <br />
+     * Only the current element is kept in memory, so this can process inputs that are too large to be read as a single value.
+     * The elements are validated against the element type of <code>type</code>, which should be a list, set or map type or <code>value</code>.
+     * Parse errors surface as {@link FactParseError} (or {@link UncheckedIOException} for errors of the reader) while iterating.
+     * The reader is not closed.
+     */
+    public Iterator<IValue> readElements(IValueFactory factory, TypeStore store, Type type, Reader stream) throws FactTypeUseException, IOException {
+        return new TextReader(factory, store, locations, stream).elements(type);
+    }
+
+    /**
+     * A stream of the elements of a list, set or map, which parses lazily.
+     * @see #readElements(IValueFactory, TypeStore, Type, Reader)
+     */
+    public Stream<IValue> streamElements(IValueFactory factory, TypeStore store, Type type, Reader stream) throws FactTypeUseException, IOException {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(readElements(factory, store, type, stream), Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Reads a value that is a large list or set, parsing its elements in parallel on the common {@link ForkJoinPool}.
+     * @see #readParallel(IValueFactory, TypeStore, Type, Reader, ForkJoinPool)
+     */
+    public IValue readParallel(IValueFactory factory, TypeStore store, Type type, Reader stream) throws FactTypeUseException, IOException {
+        return readParallel(factory, store, type, stream, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Reads a value that is a large list or set, parsing its elements in parallel. <br />
+     * <br />
+     * The input is read into memory and pre-scanned for the commas between the top-level elements (skipping strings, locations and nested values),
+     * after which chunks of elements are parsed as separate tasks on the pool. The results are assembled in order, so lists keep their ordering.
+     * Inputs that are small, or that are not a list or a set, are read sequentially. <br />
+     * <br />
+     * The result and the errors are the same as for {@link #read(IValueFactory, TypeStore, Type, Reader)}: if parsing a chunk fails,
+     * the input is read again sequentially to report the error at the right offset.
+     */
+    public IValue readParallel(IValueFactory factory, TypeStore store, Type type, Reader stream, ForkJoinPool pool) throws FactTypeUseException, IOException {
+        CharBuffer input = readFully(stream);
+
+        if (input.limit() >= MIN_PARALLEL_INPUT) {
+            IValue result = readElementsInParallel(factory, store, type, input, pool);
+            if (result != null) {
+                return result;
+            }
+        }
+
+        return new TextReader(factory, store, locations, new CharArrayReader(input.array(), 0, input.limit())).read(type);
+    }
+
+    private static CharBuffer readFully(Reader stream) throws IOException {
+        char[] buffer = new char[64 * 1024];
+        int length = 0;
+        int read;
+        while ((read = stream.read(buffer, length, buffer.length - length)) != -1) {
+            length += read;
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+        }
+        return CharBuffer.wrap(buffer, 0, length);
+    }
+
+    /**
+     * @return the value, or null if the input could not be split (it should be read sequentially instead)
+     */
+    private @Nullable IValue readElementsInParallel(IValueFactory factory, TypeStore store, Type type, CharBuffer input, ForkJoinPool pool) throws IOException {
+        char[] chars = input.array();
+        int length = input.limit();
+
+        int start = 0;
+        while (start < length && Character.isWhitespace(chars[start])) {
+            start++;
+        }
+        if (start == length) {
+            return null;
+        }
+
+        IWriter<?> writer;
+        Type elemType;
+        char close;
+        TypeFactory tf = TypeFactory.getInstance();
+        if (chars[start] == '[') {
+            writer = factory.listWriter();
+            elemType = type.isSubtypeOf(tf.listType(tf.valueType())) ? type.getElementType() : tf.valueType();
+            close = ']';
+        }
+        else if (chars[start] == '{') {
+            writer = factory.setWriter();
+            elemType = type.isSubtypeOf(tf.setType(tf.valueType())) ? type.getElementType() : tf.valueType();
+            close = '}';
+        }
+        else {
+            return null;
+        }
+
+        int[] commas = topLevelCommas(chars, start + 1, length, close);
+        if (commas == null) {
+            return null;
+        }
+
+        // split the elements in chunks, such that every thread gets a couple of them
+        int end = commas[commas.length - 1];
+        int chunkSize = Math.max(MIN_CHUNK, (end - start) / (pool.getParallelism() * CHUNKS_PER_THREAD));
+        List<ForkJoinTask<List<IValue>>> tasks = new ArrayList<>();
+        int from = start + 1;
+        for (int i = 0; i < commas.length; i++) {
+            int to = commas[i];
+            boolean last = i == commas.length - 1;
+            if (last || to - from >= chunkSize) {
+                int offset = from;
+                tasks.add(pool.submit(() -> new TextReader(factory, store, locations, new CharArrayReader(chars, offset, to - offset)).readElements(elemType, last)));
+                from = to + 1;
+            }
+        }
+
+        if (tasks.size() < 2) {
+            tasks.forEach(t -> t.cancel(false));
+            return null;
+        }
+
+        try {
+            for (ForkJoinTask<List<IValue>> task : tasks) {
+                for (IValue elem : task.get()) {
+                    writer.append(elem);
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            tasks.forEach(t -> t.cancel(false));
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        catch (ExecutionException e) {
+            // the sequential reader reports the error at the right offset
+            tasks.forEach(t -> t.cancel(false));
+            return null;
+        }
+
+        IValue result = writer.done();
+        if (!result.getType().isSubtypeOf(type)) {
+            throw new UnexpectedTypeException(type, result.getType());
+        }
+        return result;
+    }
+
+    /**
+     * Finds the commas between the elements of a list or set, skipping the contents of strings, locations and nested values.
+     * 
+     * @return the positions of the commas followed by the position of the closing bracket,
+     *         or null if the input is not a single list or set (it should be read sequentially instead)
+     */
+    private static int @Nullable [] topLevelCommas(char[] chars, int start, int length, char close) {
+        int[] result = new int[1024];
+        int count = 0;
+        int depth = 0;
+        boolean inString = false;
+        boolean escaping = false;
+        boolean inLocation = false;
+
+        int i = start;
+        for (; i < length; i++) {
+            char c = chars[i];
+            if (inString) {
+                if (escaping) {
+                    escaping = false;
+                }
+                else if (c == '\\') {
+                    escaping = true;
+                }
+                else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+            if (inLocation) {
+                if (c == '|') {
+                    inLocation = false;
+                }
+                else if (c == '"') {
+                    // the sequential reader treats this quote as the start of a string, we do not try to mimic that here 
+                    return null;
+                }
+                continue;
+            }
+
+            if (c == '"') {
+                inString = true;
+            }
+            else if (c == '|') {
+                inLocation = true;
+            }
+            else if (c == '(' || c == '[' || c == '{' || c == '<') {
+                depth++;
+            }
+            else if (c == ')' || c == ']' || c == '}' || c == '>') {
+                if (depth == 0) {
+                    break;
+                }
+                depth--;
+            }
+            else if (c == ',' && depth == 0) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                }
+                result[count++] = i;
+            }
+        }
+
+        if (i == length || chars[i] != close) {
+            return null;
+        }
+
+        // nothing but white space may follow the list or set
+        for (int j = i + 1; j < length; j++) {
+            if (!Character.isWhitespace(chars[j])) {
+                return null;
+            }
+        }
+
+        result = Arrays.copyOf(result, count + 1);
+        result[count] = i;
+        return result;
     }
 
     /**
@@ -91,14 +348,22 @@ public class StandardTextReader extends AbstractTextReader {
         private final NoWhiteSpaceReader stream;
         private final IValueFactory factory;
 
+        private final SourceLocationCache locations;
+
+        /** constructors by abstract data type and name, resolved during this read */
+        private final Map<Type, Map<String, Optional<Type>>> constructors = new IdentityHashMap<>();
+        /** constructors of untyped values by name and argument types, resolved during this read */
+        private final Map<Signature, Optional<Type>> untypedConstructors = new HashMap<>();
+        /** for each type of a value that was read, the expected type it was last found to be a subtype of */
+        private final Map<Type, Type> checkedSubtypes = new IdentityHashMap<>();
+
         private int current;
-        private Cache<String, ISourceLocation> sourceLocationCache;
 
-        public TextReader(IValueFactory factory, TypeStore store, Reader stream) {
+        public TextReader(IValueFactory factory, TypeStore store, SourceLocationCache locations, Reader stream) {
             this.store = store;
             this.stream = new NoWhiteSpaceReader(stream);
             this.factory = factory;
-            this.sourceLocationCache = Caffeine.newBuilder().maximumSize(1000).build();
+            this.locations = locations;
         }
 
         public IValue read(Type expected) throws IOException {
@@ -112,11 +377,162 @@ public class StandardTextReader extends AbstractTextReader {
             return result;   
         }
         
+        /**
+         * Reads the opening bracket of a top-level list, set or map, and returns an iterator that reads its elements one at a time.
+         * The elements of a map are returned as (key, value) tuples, and the closing bracket is checked when the last element has been read.
+         */
+        public Iterator<IValue> elements(Type expected) throws IOException {
+            current = stream.read();
+
+            Type generic;
+            char end;
+            switch (current) {
+                case START_OF_LIST:
+                    generic = genericListType;
+                    end = END_OF_LIST;
+                    break;
+                case START_OF_SET:
+                    generic = genericSetType;
+                    end = END_OF_SET;
+                    break;
+                case START_OF_MAP:
+                    generic = generalMapType;
+                    end = END_OF_MAP;
+                    break;
+                default:
+                    throw unexpectedException();
+            }
+
+            if (!expected.isTop() && !expected.isSubtypeOf(generic)) {
+                throw new UnexpectedTypeException(expected, generic);
+            }
+
+            boolean isMap = end == END_OF_MAP;
+            Type elemType = expected.isTop() ? types.valueType() : isMap ? expected.getKeyType() : expected.getElementType();
+            Type valueType = isMap && !expected.isTop() ? expected.getValueType() : types.valueType();
+            current = stream.read();
+
+            return new Iterator<IValue>() {
+                private boolean done = false;
+
+                @Override
+                public boolean hasNext() {
+                    if (done) {
+                        return false;
+                    }
+                    if (current == end) {
+                        try {
+                            checkAndRead(end);
+                            if (current != -1) {
+                                throw unexpectedException();
+                            }
+                        }
+                        catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        done = true;
+                        return false;
+                    }
+                    return true;
+                }
+
+                @Override
+                public IValue next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+
+                    try {
+                        IValue result = readValue(elemType);
+                        if (isMap) {
+                            checkAndRead(':');
+                            result = factory.tuple(result, readValue(valueType));
+                        }
+
+                        if (current == COMMA_SEPARATOR) {
+                            current = stream.read();
+                        }
+                        else if (current != end) {
+                            throw unexpectedException((int) end);
+                        }
+                        return result;
+                    }
+                    catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            };
+        }
+
+        /**
+         * Reads the comma separated elements of a part of a list or set that is read in parallel.
+         * Only the last part may be empty (it is what follows a trailing comma).
+         */
+        public List<IValue> readElements(Type elemType, boolean last) throws IOException {
+            List<IValue> result = new ArrayList<>();
+            current = stream.read();
+
+            if (current == -1) {
+                if (last) {
+                    return result;
+                }
+                throw unexpectedException();
+            }
+
+            while (true) {
+                result.add(readValue(elemType));
+                if (current == -1) {
+                    return result;
+                }
+                checkAndRead(COMMA_SEPARATOR);
+            }
+        }
+
+        /**
+         * Reads a value without recursion on the Java stack: the values that are still open (lists, constructors, etc.)
+         * are kept on an explicit stack of {@link Frame}s, such that arbitrarily deep values can be read.
+         */
         private IValue readValue(Type expected) throws IOException {
-            IValue result = null;
+            Deque<Frame> stack = new ArrayDeque<>();
+            Type next = expected;
+
+            while (true) {
+                IValue value = startValue(next, stack);
+                if (value != null) {
+                    value = checkValue(next, value, stack);
+                }
+
+                // offer the completed value to the open frames, until one of them expects another element
+                while (value != null) {
+                    Frame top = stack.peek();
+                    if (top == null) {
+                        return value;
+                    }
+                    if (top.add(value)) {
+                        value = null;
+                    }
+                    else {
+                        stack.pop();
+                        value = top.done();
+                        if (top.isChecked()) {
+                            value = checkValue(top.expected, value, stack);
+                        }
+                    }
+                }
 
+                Frame top = stack.peek();
+                assert top != null : "@AssumeAssertion(nullness)";
+                next = top.next;
+            }
+        }
+
+        /**
+         * Reads an atomic value, or opens a frame for a composite value.
+         * @return the value, or null if a frame was pushed
+         */
+        private @Nullable IValue startValue(Type expected, Deque<Frame> stack) throws IOException {
             if (Character.isDigit(current) || current == DOUBLE_DOT || current == NEGATIVE_SIGN) {
-                result = readNumber(expected);
+                return readNumber(expected);
             } 
             else if ((Character.isJavaIdentifierStart(current) && '$' != current)
                     || current == '\\') {
@@ -133,7 +549,7 @@ public class StandardTextReader extends AbstractTextReader {
                     return factory.string(id);
                 } 
                 else if (current == START_OF_ARGUMENTS) {
-                    result = readConstructor(id, expected);
+                    return open(readConstructor(id, expected), stack);
                 }
                 else {
                     throw new FactParseError("expected = or (", stream.offset);
@@ -142,40 +558,42 @@ public class StandardTextReader extends AbstractTextReader {
             else {
                 switch (current) {
                 case START_OF_STRING:
-                    result = readString(expected);
-                    break;
+                    return readString(expected, stack);
                 case START_OF_LIST:
-                    result = readList(expected);
-                    break;
+                    return open(readList(expected), stack);
                 case START_OF_SET:
-                    result = readSet(expected);
-                    break;
+                    return open(readSet(expected), stack);
                 case START_OF_TUPLE:
-                    result = readTuple(expected);
-                    break;
+                    return open(readTuple(expected), stack);
                 case START_OF_MAP:
-                    result = readMap(expected);
-                    break;
+                    return open(readMap(expected), stack);
                 case START_OF_LOC:
-                    result = readLocation(expected);
-                    break;
+                    return readLocation(expected, stack);
                 case START_OF_DATETIME:
-                    result = readDateTime(expected);
-                    break;
+                    return readDateTime(expected);
                 default:
                     throw unexpectedException();
                 }
             }
+        }
 
-            assert result != null : "@AssumeAssertion(nullness)";
-
-            if (!result.getType().isSubtypeOf(expected)) {
-                throw new UnexpectedTypeException(expected, result.getType());
+        /**
+         * Checks a completed value against its expected type, and opens a frame for its (legacy) annotations if they follow.
+         * @return the value, or null if a frame was pushed
+         */
+        private @Nullable IValue checkValue(Type expected, IValue result, Deque<Frame> stack) throws IOException {
+            Type actual = result.getType();
+            if (checkedSubtypes.get(actual) != expected) {
+                // types are hash-consed, so the last successful check of each type can be remembered by identity
+                if (!actual.isSubtypeOf(expected)) {
+                    throw new UnexpectedTypeException(expected, actual);
+                }
+                checkedSubtypes.put(actual, expected);
             }
 
             if (current == '[') {
                 if (result.getType().isSubtypeOf(types.nodeType())) {
-                    result = readAnnos(expected, (INode) result);
+                    return open(new AnnotationsFrame(expected, (INode) result), stack);
                 }
                 else {
                     throw unexpectedException((int) ']');
@@ -185,79 +603,68 @@ public class StandardTextReader extends AbstractTextReader {
             return result;
         }
 
+        private @Nullable IValue open(Frame frame, Deque<Frame> stack) throws IOException {
+            if (frame.begin()) {
+                stack.push(frame);
+                return null;
+            }
+            return frame.done();
+        }
 
-        private IValue readLocation(Type expected) throws IOException {
+        private @Nullable IValue readLocation(Type expected, Deque<Frame> stack) throws IOException {
+            ISourceLocation loc;
             try {
+                loc = locations.get(factory, parseURL());
+            } catch (URISyntaxException e) {
+                throw new FactParseError(e.getMessage(), stream.offset, e);
+            }
 
-                String url = parseURL();
-                ISourceLocation loc = getCachedLocation(url);
-
-                if (current == START_OF_ARGUMENTS) {
-                    ArrayList<IValue> args = new ArrayList<>(4);
-                    readFixed(types.valueType(), ')', args, Collections.emptyMap());
-
-                    if (args.size() >= 2) {
-                        if (!args.get(0).getType().isSubtypeOf(types.integerType())) {
-                            throw new UnexpectedTypeException(types.integerType(), args.get(0).getType());
-                        }
-                        if (!args.get(1).getType().isSubtypeOf(types.integerType())) {
-                            throw new UnexpectedTypeException(types.integerType(), args.get(1).getType());
-                        }
-
-                        Type posType = types.tupleType(types.integerType(), types.integerType());
-
-                        if (args.size() == 4) {
-                            if (!args.get(2).getType().isSubtypeOf(posType)) {
-                                throw new UnexpectedTypeException(posType, args.get(2).getType());
-                            }
-                            if (!args.get(3).getType().isSubtypeOf(posType)) {
-                                throw new UnexpectedTypeException(posType, args.get(3).getType());
-                            }
-                        }
-
-                        int offset = Integer.parseInt(args.get(0).toString());
-                        int length = Integer.parseInt(args.get(1).toString());
+            if (current == START_OF_ARGUMENTS) {
+                return open(new LocationFrame(expected, loc), stack);
+            }
 
-                        if (args.size() == 4) {
-                            int beginLine = Integer.parseInt(((ITuple) args.get(2)).get(0).toString());
-                            int beginColumn = Integer.parseInt(((ITuple) args.get(2)).get(1).toString());
-                            int endLine = Integer.parseInt(((ITuple) args.get(3)).get(0).toString());
-                            int endColumn = Integer.parseInt(((ITuple) args.get(3)).get(1).toString());
+            return loc;
+        }
 
-                            return factory.sourceLocation(loc, offset, length, beginLine, endLine, beginColumn, endColumn);
-                        }
+        private IValue withPositions(ISourceLocation loc, List<IValue> args) {
+            if (args.size() >= 2) {
+                if (!args.get(0).getType().isSubtypeOf(types.integerType())) {
+                    throw new UnexpectedTypeException(types.integerType(), args.get(0).getType());
+                }
+                if (!args.get(1).getType().isSubtypeOf(types.integerType())) {
+                    throw new UnexpectedTypeException(types.integerType(), args.get(1).getType());
+                }
 
-                        if (args.size() != 2) {
-                            throw new FactParseError("source locations should have either 2 or 4 arguments", offset);
-                        }
+                Type posType = types.tupleType(types.integerType(), types.integerType());
 
-                        return factory.sourceLocation(loc, offset, length);
+                if (args.size() == 4) {
+                    if (!args.get(2).getType().isSubtypeOf(posType)) {
+                        throw new UnexpectedTypeException(posType, args.get(2).getType());
+                    }
+                    if (!args.get(3).getType().isSubtypeOf(posType)) {
+                        throw new UnexpectedTypeException(posType, args.get(3).getType());
                     }
                 }
 
-                return loc;
+                int offset = Integer.parseInt(args.get(0).toString());
+                int length = Integer.parseInt(args.get(1).toString());
 
-            } catch (RuntimeException e) {
-                if (e.getCause() instanceof URISyntaxException) {
-                    URISyntaxException actual = (URISyntaxException) e.getCause();
-                    throw new FactParseError(actual.getMessage(), stream.offset, actual);
-                }
-                throw e;
-            }
-        }
+                if (args.size() == 4) {
+                    int beginLine = Integer.parseInt(((ITuple) args.get(2)).get(0).toString());
+                    int beginColumn = Integer.parseInt(((ITuple) args.get(2)).get(1).toString());
+                    int endLine = Integer.parseInt(((ITuple) args.get(3)).get(0).toString());
+                    int endColumn = Integer.parseInt(((ITuple) args.get(3)).get(1).toString());
 
-        private ISourceLocation getCachedLocation(String url) {
-            assert sourceLocationCache != null : "@AssumeAssertion(nullness)";
+                    return factory.sourceLocation(loc, offset, length, beginLine, endLine, beginColumn, endColumn);
+                }
 
-            ISourceLocation loc = sourceLocationCache.get(url, u -> {
-                try {
-                    return factory.sourceLocation(new URI(u));
-                } catch (URISyntaxException e) {
-                    throw new RuntimeException(e);
+                if (args.size() != 2) {
+                    throw new FactParseError("source locations should have either 2 or 4 arguments", offset);
                 }
-            });
 
-            assert loc != null : "@AssumeAssertion(nullness)";
+                return factory.sourceLocation(loc, offset, length);
+            }
+
             return loc;
         }
 
@@ -281,51 +688,33 @@ public class StandardTextReader extends AbstractTextReader {
         private static final TypeFactory TF = TypeFactory.getInstance();
         private static final Type generalMapType = TF.mapType(TF.valueType(), TF.valueType());
 
-        private IValue readMap(Type expected) throws IOException {
+        private Frame readMap(Type expected) {
             Type keyType = expected.isSubtypeOf(generalMapType) ? expected.getKeyType() : types.valueType();
             Type valueType = expected.isSubtypeOf(generalMapType) ? expected.getValueType() : types.valueType();
-            IMapWriter w = factory.mapWriter();
-
-            checkAndRead(START_OF_MAP);
-
-            while (current != END_OF_MAP) {
-                IValue key = readValue(keyType);
-                checkAndRead(':');
-                IValue value = readValue(valueType);
-                w.put(key, value);
-
-                if (current != COMMA_SEPARATOR || current == END_OF_MAP) {
-                    break; // no more elements, so expecting a ')'
-                }
-                else {
-                    checkAndRead(COMMA_SEPARATOR);
-                }
-            }
-
-            checkAndRead(END_OF_MAP);
-
-            return w.done();
+            return new MapFrame(expected, keyType, valueType);
         }
 
-        private IValue readTuple(Type expected) throws IOException {
-            ArrayList<IValue> arr = new ArrayList<>();
-            readFixed(expected, END_OF_TUPLE, arr, Collections.emptyMap());
-            IValue[] result = arr.toArray(new IValue[0]);
-            return factory.tuple(result);
+        private Frame readTuple(Type expected) {
+            return new FixedFrame(expected, expected, END_OF_TUPLE, Collections.emptyMap()) {
+                @Override
+                IValue done() {
+                    return factory.tuple(elements.toArray(new IValue[0]));
+                }
+            };
         }
 
         private static final Type genericSetType = TF.setType(TF.valueType());
 
-        private IValue readSet(Type expected) throws FactTypeUseException, IOException {
+        private Frame readSet(Type expected) {
             Type elemType = expected.isSubtypeOf(genericSetType) ? expected.getElementType() : types.valueType();
-            return readContainer(elemType, factory.setWriter(), END_OF_SET);
+            return new ContainerFrame(expected, elemType, factory.setWriter(), END_OF_SET);
         }
 
         private static final Type genericListType = TF.listType(TF.valueType());
 
-        private IValue readList(Type expected) throws FactTypeUseException, IOException {
+        private Frame readList(Type expected) {
             Type elemType = expected.isSubtypeOf(genericListType) ? expected.getElementType() : types.valueType();
-            return readList(elemType, factory.listWriter(), END_OF_LIST);
+            return new ContainerFrame(expected, elemType, factory.listWriter(), END_OF_LIST);
         }
 
         private void checkMoreThanOnce(String input, char needle) {
@@ -350,6 +739,7 @@ public class StandardTextReader extends AbstractTextReader {
 
             do{
                 builder.append((char) current);
+                stream.appendNumberChars(builder);
                 current = stream.read();
             } while(Character.isDigit(current) || current == RATIONAL_SEP || current == DOUBLE_DOT || current == 'E' || current == 'e' || current == '+' || current == '-');
 
@@ -387,42 +777,85 @@ public class StandardTextReader extends AbstractTextReader {
             throw unexpectedException(current);
         }
 
-        private IValue readConstructor(String id, Type expected) throws IOException {
-            ArrayList<IValue> arr = new ArrayList<IValue>();
+        private Frame readConstructor(String id, Type expected) {
+            Type checked = expected;
             Type args = expected;
             Type constr = null;
             if (expected.isExternalType()) {
                 expected = ((ExternalType) expected).asAbstractDataType();
             }
             if (expected.isAbstractData() ) {
-                Set<Type> alternatives = store.lookupConstructor(expected, id);
-                if (alternatives.size() > 1) {
-                    throw new OverloadingNotSupportedException(expected, id);
-                }
-                else if (alternatives.size() == 0) {
+                constr = lookupConstructor(expected, id);
+                if (constr == null) {
                     args = types.valueType(); 
                     // TODO: Should not it be an undeclared abstract data/constructor exception?!
                 }
                 else {
-                    constr = alternatives.iterator().next();
                     args = constr.getFieldTypes();
                 }
             }
 
-            Map<String, IValue> kwParams = new HashMap<>();
-            readFixed(args, END_OF_ARGUMENTS, arr, kwParams);
+            boolean top = expected.isTop();
+            Type declared = constr;
+
+            return new FixedFrame(checked, args, END_OF_ARGUMENTS, new HashMap<>()) {
+                @Override
+                IValue done() {
+                    @NonNull IValue[] result = elements.toArray(new IValue[0]);
+                    Type cons = declared;
+
+                    if (top) {
+                        cons = lookupFirstConstructor(id, result);
+                    }
 
-            @NonNull IValue[] result = arr.toArray(new IValue[0]);
+                    if (cons != null) {
+                        return factory.constructor(cons, result, keywordParameters);
+                    } else {
+                        return factory.node(id, result, keywordParameters);
+                    }
+                }
+            };
+        }
+
+        /**
+         * Resolves a constructor by its name and abstract data type, memoized for the rest of this read
+         * @return the constructor, or null if the data type has no constructor with this name
+         */
+        private @Nullable Type lookupConstructor(Type adt, String id) {
+            Map<String, Optional<Type>> byName = constructors.computeIfAbsent(adt, t -> new HashMap<>());
+            Optional<Type> result = byName.get(id);
 
-            if (expected.isTop()) {
-                constr = store.lookupFirstConstructor(id, TF.tupleType(result));
+            if (result == null) {
+                Set<Type> alternatives = store.lookupConstructor(adt, id);
+                if (alternatives.size() > 1) {
+                    throw new OverloadingNotSupportedException(adt, id);
+                }
+                result = alternatives.isEmpty() ? Optional.empty() : Optional.of(alternatives.iterator().next());
+                byName.put(id, result);
             }
 
-            if (constr != null) {
-                return factory.constructor(constr, result, kwParams);
-            } else {
-                return factory.node(id, result, kwParams);
+            return result.orElse(null);
+        }
+
+        /**
+         * Resolves the constructor of an untyped value by its name and the types of its arguments, memoized for the rest of this read
+         * @return the first matching constructor of the type store, or null to make a node
+         */
+        private @Nullable Type lookupFirstConstructor(String id, IValue[] args) {
+            Type[] argTypes = new Type[args.length];
+            for (int i = 0; i < args.length; i++) {
+                argTypes[i] = args[i].getType();
             }
+
+            Signature signature = new Signature(id, argTypes);
+            Optional<Type> result = untypedConstructors.get(signature);
+
+            if (result == null) {
+                result = Optional.ofNullable(store.lookupFirstConstructor(id, types.tupleType(argTypes)));
+                untypedConstructors.put(signature, result);
+            }
+
+            return result.orElse(null);
         }
 
         /**
@@ -668,13 +1101,14 @@ public class StandardTextReader extends AbstractTextReader {
                     || Character.isJavaIdentifierPart(current)
                     || (escaped && current == '-')) {
                 builder.append((char) current);
+                stream.appendIdentifierChars(builder, escaped);
                 current = stream.read();
             }
 
             return builder.toString();
         }
 
-        private IValue readString(Type expected) throws IOException {
+        private @Nullable IValue readString(Type expected, Deque<Frame> stack) throws IOException {
             StringBuilder builder = new StringBuilder();
             current = stream.read();
 
@@ -751,6 +1185,7 @@ public class StandardTextReader extends AbstractTextReader {
                 }
                 else {
                     builder.appendCodePoint(current);
+                    stream.appendStringChars(builder);
                     current = stream.read();
                 }
             }
@@ -760,56 +1195,17 @@ public class StandardTextReader extends AbstractTextReader {
 
 
             if (current == START_OF_ARGUMENTS) {
-                ArrayList<IValue> arr = new ArrayList<>();
-                Map<String,IValue> kwParams = new HashMap<>();
-
-                readFixed(expected, END_OF_ARGUMENTS, arr, kwParams);
-
-                IValue[] result = arr.toArray(new IValue[0]);
-                return factory.node(str, result, kwParams);
+                return open(new FixedFrame(expected, expected, END_OF_ARGUMENTS, new HashMap<>()) {
+                    @Override
+                    IValue done() {
+                        return factory.node(str, elements.toArray(new IValue[0]), keywordParameters);
+                    }
+                }, stack);
             }
 
             return factory.string(str);
         }
 
-        @Deprecated
-        /**
-         * The reader still supports the old annotation format for bootstrapping reasons and backward compatibility
-         * (for a while). The annotations are read as annotations but stored as keyword parameters. For the
-         * parse tree type Tree, the `@\loc` annotation is also rewritten to the `.src` keyword field.
-         * 
-         * @param expected
-         * @param result
-         * @return
-         * @throws IOException
-         */
-        private IValue readAnnos(Type expected, INode result) throws IOException {
-            current = stream.read();
-
-            while (current != ']') {
-                checkAndRead('@');
-                String key = readIdentifier();
-                
-                if (isLegacyParseTreeSourceAnnotation(key, result.getType())) {
-                    key = "src";
-                }
-                
-                checkAndRead('=');
-
-                Type annoType = getAnnoType(expected, key);
-                IValue value = readValue(annoType);
-
-                result = result.asWithKeywordParameters().setParameter(key, value);
-                if (current == ']') {
-                    current = stream.read();
-                    break;
-                }
-                checkAndRead(',');
-            }
-
-            return result;
-        }
-
         private boolean isLegacyParseTreeSourceAnnotation(String key, Type type) {
             return key.equals("loc") && type.isAbstractData() && type.getName().equals("Tree");
         }
@@ -826,66 +1222,312 @@ public class StandardTextReader extends AbstractTextReader {
             return annoType != null ? annoType : types.valueType();
         }
 
-        private void readFixed(Type expected, char end, List<@NonNull IValue> arr, Map<String,IValue> kwParams) throws IOException {
-            current = stream.read();
+        /**
+         * The name and argument types of a constructor application
+         */
+        private static final class Signature {
+            private final String name;
+            private final Type[] argTypes;
+            private final int hash;
+
+            Signature(String name, Type[] argTypes) {
+                this.name = name;
+                this.argTypes = argTypes;
+                this.hash = 31 * name.hashCode() + Arrays.hashCode(argTypes);
+            }
 
-            for (int i = 0; current != end; i++) {
-                Type exp = expected.isFixedWidth() && i < expected.getArity() ? expected.getFieldType(i) : types.valueType();
-                IValue elem = readValue(exp);
+            @Override
+            public int hashCode() {
+                return hash;
+            }
 
-                if (current == '=') {
-                    String label = ((IString) elem).getValue();
+            @Override
+            public boolean equals(@Nullable Object obj) {
+                if (!(obj instanceof Signature)) {
+                    return false;
+                }
+                Signature other = (Signature) obj;
+                return hash == other.hash && name.equals(other.name) && Arrays.equals(argTypes, other.argTypes);
+            }
+        }
+
+        /**
+         * The state of a composite value that is being read: it receives its elements one by one 
+         * and reads the separators between them, while the elements themselves are read by {@link #readValue(Type)}.
+         */
+        private abstract class Frame {
+            /** the type the completed value is checked against */
+            final Type expected;
+            /** the expected type of the next element */
+            Type next;
+
+            Frame(Type expected, Type next) {
+                this.expected = expected;
+                this.next = next;
+            }
+
+            /**
+             * Reads the opening of the value
+             * @return true if an element follows, false if the value was closed already
+             */
+            abstract boolean begin() throws IOException;
+
+            /**
+             * Receives a completed element and reads what follows it
+             * @return true if another element follows, false if the value was closed
+             */
+            abstract boolean add(IValue element) throws IOException;
+
+            abstract IValue done();
+
+            boolean isChecked() {
+                return true;
+            }
+        }
+
+        /**
+         * The elements of a tuple, the arguments of a constructor or a node, or the positions of a location,
+         * which may be followed by keyword parameters (label=value).
+         */
+        private abstract class FixedFrame extends Frame {
+            private final Type fields;
+            private final char end;
+            final List<@NonNull IValue> elements = new ArrayList<>();
+            final Map<String, IValue> keywordParameters;
+            private @Nullable String label = null;
+            private int index = 0;
+
+            FixedFrame(Type expected, Type fields, char end, Map<String, IValue> keywordParameters) {
+                super(expected, types.valueType());
+                this.fields = fields;
+                this.end = end;
+                this.keywordParameters = keywordParameters;
+            }
+
+            private Type fieldType(int i) {
+                return fields.isFixedWidth() && i < fields.getArity() ? fields.getFieldType(i) : types.valueType();
+            }
+
+            @Override
+            boolean begin() throws IOException {
+                current = stream.read();
+                if (current == end) {
+                    checkAndRead(end);
+                    return false;
+                }
+                next = fieldType(index);
+                return true;
+            }
+
+            @Override
+            boolean add(IValue element) throws IOException {
+                if (label != null) {
+                    keywordParameters.put(label, element);
+                    label = null;
+                }
+                else if (current == '=') {
+                    label = ((IString) element).getValue();
                     current = stream.read();
-                    if (expected.isConstructor() && expected.hasField(label)) {
-                        kwParams.put(label, readValue(expected.getFieldType(label)));
-                    }
-                    else {
-                        kwParams.put(label, readValue(types.valueType()));
-                    }
+                    next = fields.isConstructor() && fields.hasField(label) ? fields.getFieldType(label) : types.valueType();
+                    return true;
                 }
                 else {
-                    arr.add(elem);
+                    elements.add(element);
                 }
 
                 if (current != ',' || current == end) {
-                    break; // no more elements, so expecting a 'end', or '='
+                    // no more elements, so expecting a 'end', or '='
+                    checkAndRead(end);
+                    return false;
                 }
                 current = stream.read();
+                index++;
+
+                if (current == end) {
+                    checkAndRead(end);
+                    return false;
+                }
+                next = fieldType(index);
+                return true;
+            }
+        }
+
+        private class LocationFrame extends FixedFrame {
+            private final ISourceLocation loc;
+
+            LocationFrame(Type expected, ISourceLocation loc) {
+                super(expected, types.valueType(), ')', Collections.emptyMap());
+                this.loc = loc;
             }
 
-            checkAndRead(end);
+            @Override
+            IValue done() {
+                return withPositions(loc, elements);
+            }
         }
 
-        private IValue readContainer(Type elemType, IWriter<?> w, char end) throws FactTypeUseException, IOException {
-            current = stream.read();
-            while(current != end) {
-                w.insert(readValue(elemType));
+        /**
+         * The elements of a list or a set
+         */
+        private class ContainerFrame extends Frame {
+            private final IWriter<?> writer;
+            private final char end;
+
+            ContainerFrame(Type expected, Type elemType, IWriter<?> writer, char end) {
+                super(expected, elemType);
+                this.writer = writer;
+                this.end = end;
+            }
+
+            @Override
+            boolean begin() throws IOException {
+                current = stream.read();
+                if (current == end) {
+                    checkAndRead(end);
+                    return false;
+                }
+                return true;
+            }
+
+            @Override
+            boolean add(IValue element) throws IOException {
+                writer.append(element);
 
                 if (current != ',' || current == end) {
-                    break; // no more elements, so expecting a '}'
+                    // no more elements, so expecting the end
+                    checkAndRead(end);
+                    return false;
                 }
                 current = stream.read();
-            }
 
-            checkAndRead(end);
+                if (current == end) {
+                    checkAndRead(end);
+                    return false;
+                }
+                return true;
+            }
 
-            return w.done();
+            @Override
+            IValue done() {
+                return writer.done();
+            }
         }
 
-        private IValue readList(Type elemType, IListWriter w, char end) throws FactTypeUseException, IOException {
-            current = stream.read();
-            while (current != end) {
-                w.append(readValue(elemType));
+        private class MapFrame extends Frame {
+            private final Type keyType;
+            private final Type valueType;
+            private final IMapWriter writer = factory.mapWriter();
+            private @Nullable IValue key = null;
 
-                if (current != ',' || current == end) {
-                    break; // no more elements, so expecting a '}'
+            MapFrame(Type expected, Type keyType, Type valueType) {
+                super(expected, keyType);
+                this.keyType = keyType;
+                this.valueType = valueType;
+            }
+
+            @Override
+            boolean begin() throws IOException {
+                checkAndRead(START_OF_MAP);
+                if (current == END_OF_MAP) {
+                    checkAndRead(END_OF_MAP);
+                    return false;
+                }
+                return true;
+            }
+
+            @Override
+            boolean add(IValue element) throws IOException {
+                IValue key = this.key;
+                if (key == null) {
+                    this.key = element;
+                    checkAndRead(':');
+                    next = valueType;
+                    return true;
+                }
+
+                writer.put(key, element);
+                this.key = null;
+
+                if (current != COMMA_SEPARATOR || current == END_OF_MAP) {
+                    // no more elements, so expecting a ')'
+                    checkAndRead(END_OF_MAP);
+                    return false;
                 }
+                checkAndRead(COMMA_SEPARATOR);
+
+                if (current == END_OF_MAP) {
+                    checkAndRead(END_OF_MAP);
+                    return false;
+                }
+                next = keyType;
+                return true;
+            }
+
+            @Override
+            IValue done() {
+                return writer.done();
+            }
+        }
+
+        /**
+         * The reader still supports the old annotation format for bootstrapping reasons and backward compatibility
+         * (for a while). The annotations are read as annotations but stored as keyword parameters. For the
+         * parse tree type Tree, the `@\\loc` annotation is also rewritten to the `.src` keyword field.
+         */
+        @Deprecated
+        private class AnnotationsFrame extends Frame {
+            private INode result;
+            private String key = "";
+
+            AnnotationsFrame(Type expected, INode result) {
+                super(expected, types.valueType());
+                this.result = result;
+            }
+
+            @Override
+            boolean begin() throws IOException {
                 current = stream.read();
+                return readKey();
+            }
+
+            private boolean readKey() throws IOException {
+                if (current == ']') {
+                    return false;
+                }
+
+                checkAndRead('@');
+                key = readIdentifier();
+
+                if (isLegacyParseTreeSourceAnnotation(key, result.getType())) {
+                    key = "src";
+                }
+
+                checkAndRead('=');
+                next = getAnnoType(expected, key);
+                return true;
             }
 
-            checkAndRead(end);
+            @Override
+            boolean add(IValue element) throws IOException {
+                result = result.asWithKeywordParameters().setParameter(key, element);
+                if (current == ']') {
+                    current = stream.read();
+                    return false;
+                }
+                checkAndRead(',');
+                return readKey();
+            }
+
+            @Override
+            IValue done() {
+                return result;
+            }
 
-            return w.done();
+            @Override
+            boolean isChecked() {
+                // the node was checked before its annotations were read
+                return false;
+            }
         }
 
         private void checkAndRead(char c) throws IOException {
@@ -903,8 +1545,21 @@ public class StandardTextReader extends AbstractTextReader {
             return new FactParseError("Unexpected " + ((char) current), stream.getOffset());
         }
 
-        private static class NoWhiteSpaceReader extends Reader {
-            private Reader wrapped;
+        /**
+         * Buffers the input in a char array and skips white space outside of string literals. <br />
+         * <br />
+         * Next to reading character by character, it offers bulk scanning of the common tokens (identifiers, numbers
+         * and the plain parts of string literals) directly from the buffer. These stop at the first character that
+         * would need special treatment (white space, escapes, the end of the buffer) and leave that to {@link #read()},
+         * such that the accepted language and the offsets are exactly the same as reading character by character.
+         */
+        private static final class NoWhiteSpaceReader {
+            private static final int BUFFER_SIZE = 64 * 1024;
+
+            private final Reader wrapped;
+            private final char[] buffer = new char[BUFFER_SIZE];
+            private int position = 0;
+            private int limit = 0;
             int offset;
             boolean inString = false;
             boolean escaping = false;
@@ -913,20 +1568,36 @@ public class StandardTextReader extends AbstractTextReader {
                 this.wrapped = wrapped;
             }
 
-            @Override
-            public int read(char[] cbuf, int off, int len) throws IOException {
-                throw new UnsupportedOperationException();
+            private boolean fill() throws IOException {
+                int read;
+                do {
+                    read = wrapped.read(buffer, 0, buffer.length);
+                } while (read == 0);
+
+                position = 0;
+                limit = Math.max(read, 0);
+                return read > 0;
+            }
+
+            private int next() throws IOException {
+                if (position == limit && !fill()) {
+                    return -1;
+                }
+                return buffer[position++];
+            }
+
+            private static boolean isWhitespace(int c) {
+                return (c <= ' ' || c >= 128) && Character.isWhitespace(c);
             }
 
-            @Override
             public int read() throws IOException {
-                int r = wrapped.read();
+                int r = next();
                 offset++;
 
                 if (!inString) {
-                    while (Character.isWhitespace(r)) {
+                    while (isWhitespace(r)) {
                         offset++;
-                        r = wrapped.read();
+                        r = next();
                     }
                 }
 
@@ -950,11 +1621,80 @@ public class StandardTextReader extends AbstractTextReader {
                 return r;
             }
 
+            private static boolean isAsciiIdentifierPart(char c) {
+                return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '$';
+            }
+
+            /**
+             * Appends the ASCII identifier characters that directly follow in the buffer, 
+             * anything else is left for the character by character loop.
+             */
+            void appendIdentifierChars(StringBuilder target, boolean allowDash) {
+                if (escaping) {
+                    return;
+                }
+                int start = position;
+                int end = position;
+                while (end < limit) {
+                    char c = buffer[end];
+                    if (!isAsciiIdentifierPart(c) && !(allowDash && c == '-')) {
+                        break;
+                    }
+                    end++;
+                }
+                consume(target, start, end);
+            }
+
+            /**
+             * Appends the number characters that directly follow in the buffer
+             */
+            void appendNumberChars(StringBuilder target) {
+                if (escaping) {
+                    return;
+                }
+                int start = position;
+                int end = position;
+                while (end < limit) {
+                    char c = buffer[end];
+                    if (!((c >= '0' && c <= '9') || c == 'r' || c == '.' || c == 'E' || c == 'e' || c == '+' || c == '-')) {
+                        break;
+                    }
+                    end++;
+                }
+                consume(target, start, end);
+            }
+
+            /**
+             * Appends the characters of a string literal that directly follow in the buffer, up to the next escape or end of the string
+             */
+            void appendStringChars(StringBuilder target) {
+                if (!inString || escaping) {
+                    return;
+                }
+                int start = position;
+                int end = position;
+                while (end < limit) {
+                    char c = buffer[end];
+                    if (c == '"' || c == '\\') {
+                        break;
+                    }
+                    end++;
+                }
+                consume(target, start, end);
+            }
+
+            private void consume(StringBuilder target, int start, int end) {
+                if (end > start) {
+                    target.append(buffer, start, end - start);
+                    offset += end - start;
+                    position = end;
+                }
+            }
+
             int getOffset() {
                 return offset;
             }
 
-            @Override
             public void close() throws IOException {
                 wrapped.close();
             }
@@ -11,11 +11,19 @@
 package io.usethesource.vallang.io;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.Map.Entry;
 import java.util.PrimitiveIterator.OfInt;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
 import io.usethesource.vallang.IBool;
 import io.usethesource.vallang.IConstructor;
 import io.usethesource.vallang.IDateTime;
@@ -81,34 +89,309 @@ public class StandardTextWriter implements IValueTextWriter {
         write(value, stream);
     }
 
+    /**
+     * Writes the value UTF-8 encoded, without an intermediate {@link java.io.Writer}.
+     */
+    public void write(IValue value, OutputStream stream) throws IOException {
+        try {
+            value.accept(new Writer(new Utf8Output() {
+                @Override
+                protected void write(byte[] bytes, int length) throws IOException {
+                    stream.write(bytes, 0, length);
+                }
+            }, indent, tabSize));
+        }
+        finally {
+            stream.flush();
+        }
+    }
+
+    /**
+     * Writes the value UTF-8 encoded to a channel, for example a {@link java.nio.channels.FileChannel}.
+     */
+    public void write(IValue value, WritableByteChannel channel) throws IOException {
+        value.accept(new Writer(new Utf8Output() {
+            @Override
+            protected void write(byte[] bytes, int length) throws IOException {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }, indent, tabSize));
+    }
+
+    /**
+     * Where a {@link Writer} sends the characters it collected in its buffer
+     */
+    private interface Output {
+        void write(char[] chars, int length) throws IOException;
+    }
+
+    /**
+     * Encodes characters to UTF-8 in a reused byte array. A high surrogate at the end of the characters is kept until the next write,
+     * unpaired surrogates are encoded as '?', like the UTF-8 encoder of the JDK does.
+     */
+    private abstract static class Utf8Output implements Output {
+        private final byte[] bytes = new byte[Writer.BUFFER_SIZE * 3 + 4];
+        private char pendingHighSurrogate = 0;
+
+        protected abstract void write(byte[] bytes, int length) throws IOException;
+
+        @Override
+        public void write(char[] chars, int length) throws IOException {
+            byte[] bytes = this.bytes;
+            int pos = 0;
+            int i = 0;
+
+            if (pendingHighSurrogate != 0 && length > 0) {
+                char low = chars[0];
+                if (Character.isLowSurrogate(low)) {
+                    pos = encodeSupplementary(Character.toCodePoint(pendingHighSurrogate, low), bytes, pos);
+                    i = 1;
+                }
+                else {
+                    bytes[pos++] = '?';
+                }
+                pendingHighSurrogate = 0;
+            }
+
+            for (; i < length; i++) {
+                char c = chars[i];
+                if (c < 0x80) {
+                    bytes[pos++] = (byte) c;
+                }
+                else if (c < 0x800) {
+                    bytes[pos++] = (byte) (0xC0 | (c >> 6));
+                    bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+                }
+                else if (Character.isHighSurrogate(c)) {
+                    if (i + 1 == length) {
+                        pendingHighSurrogate = c;
+                    }
+                    else if (Character.isLowSurrogate(chars[i + 1])) {
+                        pos = encodeSupplementary(Character.toCodePoint(c, chars[++i]), bytes, pos);
+                    }
+                    else {
+                        bytes[pos++] = '?';
+                    }
+                }
+                else if (Character.isLowSurrogate(c)) {
+                    bytes[pos++] = '?';
+                }
+                else {
+                    bytes[pos++] = (byte) (0xE0 | (c >> 12));
+                    bytes[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+
+            if (pos > 0) {
+                write(bytes, pos);
+            }
+        }
+
+        private static int encodeSupplementary(int cp, byte[] bytes, int pos) {
+            bytes[pos++] = (byte) (0xF0 | (cp >> 18));
+            bytes[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+            bytes[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+            bytes[pos++] = (byte) (0x80 | (cp & 0x3F));
+            return pos;
+        }
+    }
+
+    /**
+     * Writes values without recursion on the Java stack: a visit of a composite value writes its opening and pushes a {@link Frame}
+     * that produces its children one by one, such that arbitrarily deep values can be written. A visit that starts
+     * outside of the loop runs the loop itself, so <code>value.accept(writer)</code> always writes the complete value. <br />
+     * <br />
+     * Characters are collected in a buffer which is handed to the output when it is full and when the outermost visit is done.
+     */
     protected static class Writer implements IValueVisitor<IValue, IOException> {
-        private final java.io.Writer stream;
+        /*package*/ static final int BUFFER_SIZE = 8192;
+        private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+        private static final char[] ESCAPES = new char[128]; // the character after the backslash for ASCII characters that are escaped by their own name
+
+        static {
+            ESCAPES['\"'] = '\"';
+            ESCAPES['>'] = '>';
+            ESCAPES['<'] = '<';
+            ESCAPES['\''] = '\'';
+            ESCAPES['\\'] = '\\';
+            ESCAPES['\n'] = 'n';
+            ESCAPES['\r'] = 'r';
+            ESCAPES['\t'] = 't';
+        }
+
+        private final Output output;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int pos = 0;
         private final int tabSize;
         private final boolean indent;
         private int tab = 0;
+        private final Deque<Frame> stack = new ArrayDeque<>();
+        private boolean running = false;
 
         public Writer(java.io.Writer stream, boolean indent, int tabSize) {
-            this.stream = stream;
+            this((chars, length) -> stream.write(chars, 0, length), indent, tabSize);
+        }
+
+        private Writer(Output output, boolean indent, int tabSize) {
+            this.output = output;
             this.indent = indent;
             this.tabSize = tabSize;
         }
 
+        /**
+         * Makes room in the buffer for at least <code>length</code> characters (at most {@link #BUFFER_SIZE}).
+         */
+        private void ensure(int length) throws IOException {
+            if (pos + length > BUFFER_SIZE) {
+                flushBuffer();
+            }
+        }
+
+        private void flushBuffer() throws IOException {
+            if (pos > 0) {
+                output.write(buffer, pos);
+                pos = 0;
+            }
+        }
+
+        /**
+         * Leaf values that are visited directly, so outside of the loop in {@link #push(Frame)}, are written out immediately.
+         */
+        private IValue done(IValue value) throws IOException {
+            if (!running) {
+                flushBuffer();
+            }
+            return value;
+        }
+
         private void append(String string) throws IOException {
-            stream.write(string);
+            int length = string.length();
+            if (length <= BUFFER_SIZE) {
+                ensure(length);
+                string.getChars(0, length, buffer, pos);
+                pos += length;
+            }
+            else {
+                for (int start = 0; start < length; start += BUFFER_SIZE) {
+                    int end = Math.min(length, start + BUFFER_SIZE);
+                    ensure(end - start);
+                    string.getChars(start, end, buffer, pos);
+                    pos += end - start;
+                }
+            }
         }
 
         private void append(int cp) throws IOException {
+            ensure(2);
             if (Character.isBmpCodePoint(cp)) {
-                stream.write(cp);
+                buffer[pos++] = (char) cp;
             }
             else {
-                stream.write(Character.highSurrogate(cp));
-                stream.write(Character.lowSurrogate(cp));
+                buffer[pos++] = Character.highSurrogate(cp);
+                buffer[pos++] = Character.lowSurrogate(cp);
             }
         }
 
         private void append(char c) throws IOException {
-            stream.write(c);
+            if (pos == BUFFER_SIZE) {
+                flushBuffer();
+            }
+            buffer[pos++] = c;
+        }
+
+        /**
+         * Formats an int in the buffer, without going through a String
+         */
+        private void appendInt(int value) throws IOException {
+            if (value == Integer.MIN_VALUE) {
+                append("-2147483648");
+                return;
+            }
+            ensure(11);
+            if (value < 0) {
+                buffer[pos++] = '-';
+                value = -value;
+            }
+            int end = pos + digits(value);
+            for (int i = end - 1; i >= pos; i--) {
+                buffer[i] = (char) ('0' + value % 10);
+                value /= 10;
+            }
+            pos = end;
+        }
+
+        /**
+         * Formats an int with leading zeros up to the given width
+         */
+        private void appendPadded(int value, int width) throws IOException {
+            if (value < 0) {
+                append(String.format("%0" + width + "d", value));
+                return;
+            }
+            int digits = digits(value);
+            ensure(Math.max(digits, width));
+            for (int i = digits; i < width; i++) {
+                buffer[pos++] = '0';
+            }
+            appendInt(value);
+        }
+
+        private static int digits(int nonNegative) {
+            int result = 1;
+            while (nonNegative >= 10) {
+                nonNegative /= 10;
+                result++;
+            }
+            return result;
+        }
+
+        private void appendHex(char prefix, int value, int width) throws IOException {
+            ensure(width + 2);
+            buffer[pos++] = '\\';
+            buffer[pos++] = prefix;
+            for (int shift = (width - 1) * 4; shift >= 0; shift -= 4) {
+                buffer[pos++] = HEX_DIGITS[(value >> shift) & 0xF];
+            }
+        }
+
+        /**
+         * A composite value that is being written
+         */
+        private interface Frame {
+            /**
+             * Writes what comes before the next child
+             * @return the next child, or null after writing the end of the value
+             */
+            @Nullable IValue next() throws IOException;
+        }
+
+        private void push(Frame frame) throws IOException {
+            stack.push(frame);
+
+            if (!running) {
+                running = true;
+                try {
+                    Frame top;
+                    while ((top = stack.peek()) != null) {
+                        IValue child = top.next();
+                        if (child == null) {
+                            stack.pop();
+                        }
+                        else {
+                            child.accept(this);
+                        }
+                    }
+                }
+                finally {
+                    running = false;
+                    stack.clear();
+                }
+                flushBuffer();
+            }
         }
 
         private void tab() {
@@ -123,25 +406,31 @@ public class StandardTextWriter implements IValueTextWriter {
         public IValue visitBoolean(IBool boolValue)
                 throws IOException {
             append(boolValue.getValue() ? "true" : "false");
-            return boolValue;
+            return done(boolValue);
         }
 
         @Override
         public IValue visitReal(IReal o) throws IOException {
             append(o.getStringRepresentation());
-            return o;
+            return done(o);
         }
 
         @Override
         public IValue visitInteger(IInteger o) throws IOException {
-            append(o.getStringRepresentation());
-            return o;
+            double approximation = o.doubleValue(); // exact for ints, and never rounds a larger integer into the int range
+            if (approximation >= Integer.MIN_VALUE && approximation <= Integer.MAX_VALUE) {
+                appendInt(o.intValue());
+            }
+            else {
+                append(o.getStringRepresentation());
+            }
+            return done(o);
         }
 
         @Override
         public IValue visitRational(IRational o) throws IOException {
             append(o.getStringRepresentation());
-            return o;
+            return done(o);
         }
 
         @Override
@@ -152,18 +441,25 @@ public class StandardTextWriter implements IValueTextWriter {
             Iterator<IValue> listIterator = o.iterator();
             tab();
             indent(indent);
-            if(listIterator.hasNext()){
-                listIterator.next().accept(this);
+            push(new Frame() {
+                boolean first = true;
 
-                while(listIterator.hasNext()){
-                    append(',');
-                    if (indent) indent();
-                    listIterator.next().accept(this);
+                @Override
+                public @Nullable IValue next() throws IOException {
+                    if (listIterator.hasNext()) {
+                        if (!first) {
+                            append(',');
+                            if (indent) indent();
+                        }
+                        first = false;
+                        return listIterator.next();
+                    }
+                    untab();
+                    indent(indent);
+                    append(']');
+                    return null;
                 }
-            }
-            untab();
-            indent(indent);
-            append(']');
+            });
 
             return o;
         }
@@ -175,26 +471,34 @@ public class StandardTextWriter implements IValueTextWriter {
             boolean indent = checkIndent(o);
             indent(indent);
             Iterator<Entry<IValue,IValue>> mapIterator = o.entryIterator();
-            if(mapIterator.hasNext()){
-                Entry<IValue, IValue> entry = mapIterator.next();
-                IValue key = entry.getKey();
-                key.accept(this);
-                append(':');
-                entry.getValue().accept(this);
-
-                while(mapIterator.hasNext()){
-                    append(',');
+            push(new Frame() {
+                boolean first = true;
+                @Nullable IValue value = null;
+
+                @Override
+                public @Nullable IValue next() throws IOException {
+                    IValue pending = value;
+                    if (pending != null) {
+                        append(':');
+                        value = null;
+                        return pending;
+                    }
+                    if (mapIterator.hasNext()) {
+                        if (!first) {
+                            append(',');
+                            indent(indent);
+                        }
+                        first = false;
+                        Entry<IValue, IValue> entry = mapIterator.next();
+                        value = entry.getValue();
+                        return entry.getKey();
+                    }
+                    untab();
                     indent(indent);
-                    entry = mapIterator.next();
-                    key = entry.getKey();
-                    key.accept(this);
-                    append(':');
-                    entry.getValue().accept(this);
+                    append(')');
+                    return null;
                 }
-            }
-            untab();
-            indent(indent);
-            append(')');
+            });
 
             return o;
         }
@@ -218,51 +522,50 @@ public class StandardTextWriter implements IValueTextWriter {
             tab();
             indent(indent);
             Iterator<IValue> it = o.iterator();
-            int k = 0;
-            while (it.hasNext()) {
-                it.next().accept(this);
-                if (it.hasNext()) {
-                    append(',');
-                    indent(indent);
-                }
-                k++;
-            }
-
-            if (o.mayHaveKeywordParameters()) {
-                IWithKeywordParameters<? extends IConstructor> wkw = o.asWithKeywordParameters();
-                if (wkw.hasParameters()) {
-                    if (k > 0) {
-                        append(',');
-                        indent(indent);
-                    }
+            Iterator<Entry<String, IValue>> iterator = keywordParameters(o);
 
-                    Iterator<Entry<String, IValue>> iterator = wkw.getParameters().entrySet().iterator();
-                    while (iterator.hasNext()) {
-                        Entry<String,IValue> e = iterator.next();
+            push(new Frame() {
+                boolean first = true;
 
-                        append(e.getKey());
-                        append('=');
-                        e.getValue().accept(this);
-
-                        if (iterator.hasNext()) {
+                @Override
+                public @Nullable IValue next() throws IOException {
+                    if (it.hasNext()) {
+                        if (!first) {
                             append(',');
                             indent(indent);
                         }
+                        first = false;
+                        return it.next();
+                    }
+                    if (iterator.hasNext()) {
+                        if (!first) {
+                            append(',');
+                            indent(indent);
+                        }
+                        first = false;
+                        Entry<String,IValue> e = iterator.next();
+                        append(e.getKey());
+                        append('=');
+                        return e.getValue();
                     }
+
+                    append(')');
+                    untab();
+                    return null;
                 }
-            }
+            });
 
-            append(')');
-            untab();
+            return o;
+        }
 
-            try {
-                stream.flush();
-            }
-            catch (IOException e) {
-                // flushing is just to make sure we get some intermediate output
+        private static Iterator<Entry<String, IValue>> keywordParameters(INode o) {
+            if (o.mayHaveKeywordParameters()) {
+                IWithKeywordParameters<? extends INode> wkw = o.asWithKeywordParameters();
+                if (wkw.hasParameters()) {
+                    return wkw.getParameters().entrySet().iterator();
+                }
             }
-
-            return o;
+            return Collections.emptyIterator();
         }
 
         private void indent() throws IOException {
@@ -286,18 +589,25 @@ public class StandardTextWriter implements IValueTextWriter {
             tab();
             indent(indent);
             Iterator<IValue> setIterator = o.iterator();
-            if(setIterator.hasNext()){
-                setIterator.next().accept(this);
+            push(new Frame() {
+                boolean first = true;
 
-                while(setIterator.hasNext()){
-                    append(",");
+                @Override
+                public @Nullable IValue next() throws IOException {
+                    if (setIterator.hasNext()) {
+                        if (!first) {
+                            append(",");
+                            indent(indent);
+                        }
+                        first = false;
+                        return setIterator.next();
+                    }
+                    untab(); 
                     indent(indent);
-                    setIterator.next().accept(this);
+                    append('}');
+                    return null;
                 }
-            }
-            untab(); 
-            indent(indent);
-            append('}');
+            });
             return o;
         }
 
@@ -479,27 +789,27 @@ public class StandardTextWriter implements IValueTextWriter {
 
             if (o.hasOffsetLength()) {
                 append('(');
-                append(Integer.toString(o.getOffset()));
+                appendInt(o.getOffset());
                 append(',');
-                append(Integer.toString(o.getLength()));
+                appendInt(o.getLength());
 
                 if (o.hasLineColumn()) {
                     append(',');
                     append('<');
-                    append(Integer.toString(o.getBeginLine()));
+                    appendInt(o.getBeginLine());
                     append(',');
-                    append(Integer.toString(o.getBeginColumn()));
+                    appendInt(o.getBeginColumn());
                     append('>');
                     append(',');
                     append('<');
-                    append(Integer.toString(o.getEndLine()));
+                    appendInt(o.getEndLine());
                     append(',');
-                    append(Integer.toString(o.getEndColumn()));
+                    appendInt(o.getEndColumn());
                     append('>');
                 }
                 append(')');
             }
-            return o;
+            return done(o);
         }
 
         @Override
@@ -508,68 +818,47 @@ public class StandardTextWriter implements IValueTextWriter {
             OfInt it = o.iterator();
             while (it.hasNext()) {
                 int ch = it.nextInt();
-                
-                switch (ch) {
-                    case '\"':
-                        append('\\');
-                        append('\"');
-                        break;
-                    case '>':
-                        append('\\');
-                        append('>');
-                        break;
-                    case '<':
-                        append('\\');
-                        append('<');
-                        break;
-                    case '\'':
-                        append('\\');
-                        append('\'');
-                        break;
-                    case '\\':
-                        append('\\');
-                        append('\\');
-                        break;
-                    case '\n':
-                        append('\\');
-                        append('n');
-                        break;
-                    case '\r':
-                        append('\\');
-                        append('r');
-                        break;
-                    case '\t':
-                        append('\\');
-                        append('t');
-                        break;
-                    case ' ':
-                        // needed because other space chars will be escaped in the default branch
-                        append(' ');
-                        break;
-                    default:
-                        if (Character.isSpaceChar(ch)
-                                || Character.isISOControl(ch)
-                                || Character.UnicodeBlock.SPECIALS.equals(Character.UnicodeBlock.of(ch))) {
-                            // these characters are invisible or otherwise unreadable and we escape them here
-                            // for clarity of the serialized string
-
-                            if (ch <= Byte.MAX_VALUE) {
-                                append("\\a" + String.format("%02x", ch));
-                            }
-                            else if (ch <= Character.MAX_VALUE) {
-                                append("\\u" + String.format("%04x", ch));
-                            }
-                            else {
-                                append("\\U" + String.format("%06x", ch));
-                            }
-                        }
-                        else {
-                            append(ch);
-                        }
+
+                if (pos + 8 > BUFFER_SIZE) {
+                    flushBuffer();
+                }
+
+                if (ch < 128) {
+                    char escape = ESCAPES[ch];
+                    if (escape != 0) {
+                        buffer[pos++] = '\\';
+                        buffer[pos++] = escape;
+                    }
+                    else if (ch < ' ' || ch == 127) {
+                        // control characters are invisible, we escape them for clarity of the serialized string
+                        appendHex('a', ch, 2);
+                    }
+                    else {
+                        buffer[pos++] = (char) ch;
+                    }
+                }
+                else if (Character.isSpaceChar(ch)
+                        || Character.isISOControl(ch)
+                        || Character.UnicodeBlock.SPECIALS.equals(Character.UnicodeBlock.of(ch))) {
+                    // these characters are invisible or otherwise unreadable and we escape them here
+                    // for clarity of the serialized string
+                    if (ch <= Character.MAX_VALUE) {
+                        appendHex('u', ch, 4);
+                    }
+                    else {
+                        appendHex('U', ch, 6);
+                    }
+                }
+                else if (Character.isBmpCodePoint(ch)) {
+                    buffer[pos++] = (char) ch;
+                }
+                else {
+                    buffer[pos++] = Character.highSurrogate(ch);
+                    buffer[pos++] = Character.lowSurrogate(ch);
                 }
             }
             append('\"');
-            return o;
+            return done(o);
         }
 
         @Override
@@ -577,16 +866,22 @@ public class StandardTextWriter implements IValueTextWriter {
             append('<');
 
             Iterator<IValue> it = o.iterator();
+            push(new Frame() {
+                boolean first = true;
 
-            if (it.hasNext()) {
-                it.next().accept(this);
-            }
-
-            while (it.hasNext()) {
-                append(',');
-                it.next().accept(this);
-            }
-            append('>');
+                @Override
+                public @Nullable IValue next() throws IOException {
+                    if (it.hasNext()) {
+                        if (!first) {
+                            append(',');
+                        }
+                        first = false;
+                        return it.next();
+                    }
+                    append('>');
+                    return null;
+                }
+            });
 
             return o;
         }
@@ -598,54 +893,46 @@ public class StandardTextWriter implements IValueTextWriter {
 
         @Override
         public IValue visitDateTime(IDateTime o) throws IOException {
-            append("$");
+            append('$');
             if (o.isDate()) {
-                append(String.format("%04d", o.getYear()));
-                append("-");
-                append(String.format("%02d", o.getMonthOfYear()));
-                append("-");
-                append(String.format("%02d", o.getDayOfMonth()));
+                appendDate(o);
             } else if (o.isTime()) {
-                append("T");
-                append(String.format("%02d", o.getHourOfDay()));
-                append(":");
-                append(String.format("%02d", o.getMinuteOfHour()));
-                append(":");
-                append(String.format("%02d", o.getSecondOfMinute()));
-                append(".");
-                append(String.format("%03d", o.getMillisecondsOfSecond()));
-                if (o.getTimezoneOffsetHours() < 0 || (o.getTimezoneOffsetHours() == 0 && o.getTimezoneOffsetMinutes() < 0))
-                    append("-");
-                else
-                    append("+");
-                append(String.format("%02d", Math.abs(o.getTimezoneOffsetHours())));
-                append(":");
-                append(String.format("%02d", Math.abs(o.getTimezoneOffsetMinutes())));
+                append('T');
+                appendTime(o);
             } else {
-                append(String.format("%04d", o.getYear()));
-                append("-");
-                append(String.format("%02d", o.getMonthOfYear()));
-                append("-");
-                append(String.format("%02d", o.getDayOfMonth()));
-
-                append("T");
-                append(String.format("%02d", o.getHourOfDay()));
-                append(":");
-                append(String.format("%02d", o.getMinuteOfHour()));
-                append(":");
-                append(String.format("%02d", o.getSecondOfMinute()));
-                append(".");
-                append(String.format("%03d", o.getMillisecondsOfSecond()));
-                if (o.getTimezoneOffsetHours() < 0 || (o.getTimezoneOffsetHours() == 0 && o.getTimezoneOffsetMinutes() < 0))
-                    append("-");
-                else
-                    append("+");
-                append(String.format("%02d", Math.abs(o.getTimezoneOffsetHours())));
-                append(":");
-                append(String.format("%02d", Math.abs(o.getTimezoneOffsetMinutes())));
-            }
-            append("$");
-            return o;
+                appendDate(o);
+                append('T');
+                appendTime(o);
+            }
+            append('$');
+            return done(o);
+        }
+
+        private void appendDate(IDateTime o) throws IOException {
+            appendPadded(o.getYear(), 4);
+            append('-');
+            appendPadded(o.getMonthOfYear(), 2);
+            append('-');
+            appendPadded(o.getDayOfMonth(), 2);
+        }
+
+        private void appendTime(IDateTime o) throws IOException {
+            appendPadded(o.getHourOfDay(), 2);
+            append(':');
+            appendPadded(o.getMinuteOfHour(), 2);
+            append(':');
+            appendPadded(o.getSecondOfMinute(), 2);
+            append('.');
+            appendPadded(o.getMillisecondsOfSecond(), 3);
+            if (o.getTimezoneOffsetHours() < 0 || (o.getTimezoneOffsetHours() == 0 && o.getTimezoneOffsetMinutes() < 0)) {
+                append('-');
+            }
+            else {
+                append('+');
+            }
+            appendPadded(Math.abs(o.getTimezoneOffsetHours()), 2);
+            append(':');
+            appendPadded(Math.abs(o.getTimezoneOffsetMinutes()), 2);
         }
 
         @Override
@@ -658,41 +945,37 @@ public class StandardTextWriter implements IValueTextWriter {
             tab();
             indent(indent);
             Iterator<IValue> it = o.iterator();
-            int k = 0;
-            while (it.hasNext()) {
-                it.next().accept(this);
-                if (it.hasNext()) {
-                    append(',');
-                    indent(indent);
-                }
-                k++;
-            }
+            Iterator<Entry<String,IValue>> kwIt = keywordParameters(o);
 
+            push(new Frame() {
+                boolean first = true;
 
-            if (o.mayHaveKeywordParameters()) {
-                IWithKeywordParameters<? extends INode> wkw = o.asWithKeywordParameters();
-                if (wkw.hasParameters()) {
-                    if (k > 0) {
-                        append(',');
+                @Override
+                public @Nullable IValue next() throws IOException {
+                    if (it.hasNext()) {
+                        if (!first) {
+                            append(',');
+                            indent(indent);
+                        }
+                        first = false;
+                        return it.next();
                     }
-
-                    Iterator<Entry<String,IValue>> kwIt = wkw.getParameters().entrySet().iterator();
-                    while (kwIt.hasNext()) {
+                    if (kwIt.hasNext()) {
+                        if (!first) {
+                            append(',');
+                        }
+                        first = false;
                         Entry<String, IValue> e = kwIt.next();
                         indent();
                         append(e.getKey());
                         append('=');
-                        e.getValue().accept(this);
-
-                        if (kwIt.hasNext()) {
-                            append(',');
-                        }
-
+                        return e.getValue();
                     }
+                    append(')');
+                    untab();
+                    return null;
                 }
-            }
-            append(')');
-            untab();
+            });
 
             return o;
         }
@@ -14,20 +14,24 @@ package io.usethesource.vallang.io;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.util.Objects;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
-import org.w3c.dom.DOMException;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
 
 import io.usethesource.vallang.IListWriter;
 import io.usethesource.vallang.IMapWriter;
@@ -65,328 +69,563 @@ import io.usethesource.vallang.type.TypeStore;
  * mismatch between the type system of pdb and the structure of XML.
  * 
  * Use this class to import many forms of XML data into PDB.
- * 
+ * <br />
+ * The reader processes the document as a stream of StAX events and keeps the elements that are still open on an explicit stack,
+ * so neither the size nor the depth of a document is limited by a DOM tree or the Java stack. The elements of a list, set,
+ * relation or map wrapper at the top of the document can also be read one by one, see {@link #readElements}.
+ * Whitespace between elements is ignored, as are comments and processing instructions.
  */
 public class XMLReader extends AbstractTextReader {
-    private static final DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
+    private static final XMLInputFactory xmlFactory = createFactory();
     private static final TypeFactory TF = TypeFactory.getInstance();
 
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
     public IValue read(IValueFactory factory, TypeStore store, Type type, Reader stream)
             throws FactTypeUseException, IOException {
 
         try {
-            Document doc = domFactory.newDocumentBuilder().parse(new InputSource(stream));
-            return new Parser(factory, store).parse(doc.getDocumentElement(), type);
-        } catch (SAXException se) {
+            XMLStreamReader xml = xmlFactory.createXMLStreamReader(stream);
+            try {
+                return new Parser(factory, store, xml).read(type);
+            }
+            finally {
+                xml.close();
+            }
+        } catch (XMLStreamException se) {
             throw new IOException("Parsing of value failed because XML was invalid: " + se.getMessage());
-        } catch (ParserConfigurationException pce) {
-            throw new IOException("Parsing of value failed because XML configuration is wrong: " + pce.getMessage());
-        } catch (DOMException de) {
-            throw new IOException("Parsing of value failed because of a XML document failure: " + de.getMessage());
         } catch (NumberFormatException nfe) {
             throw new FactParseError("Expected a number, got something different", nfe);
         }
     }
 
+    /**
+     * Reads the elements of the list, set, relation or map wrapper at the top of the document one by one, as the iterator is advanced.
+     * The elements of a map are returned as &lt;key, value&gt; tuples. <br />
+     * <br />
+     * Only the current element is kept in memory, so this can process documents that are too large to be read as a single value.
+     * <code>type</code> should be the abstract data type of the wrapper. Parse errors surface as {@link FactParseError}
+     * (or {@link UncheckedIOException} for invalid XML and errors of the reader) while iterating. The reader is not closed.
+     */
+    public Iterator<IValue> readElements(IValueFactory factory, TypeStore store, Type type, Reader stream) throws FactTypeUseException, IOException {
+        try {
+            return new Parser(factory, store, xmlFactory.createXMLStreamReader(stream)).elements(type);
+        } catch (XMLStreamException se) {
+            throw new IOException("Parsing of value failed because XML was invalid: " + se.getMessage());
+        }
+    }
+
+    /**
+     * A stream of the elements of the list, set, relation or map wrapper at the top of the document, which parses lazily.
+     * @see #readElements(IValueFactory, TypeStore, Type, Reader)
+     */
+    public Stream<IValue> streamElements(IValueFactory factory, TypeStore store, Type type, Reader stream) throws FactTypeUseException, IOException {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(readElements(factory, store, type, stream), Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
     private static class Parser {
         private final IValueFactory vf;
         private final TypeStore ts;
-        
-        public Parser(IValueFactory vf, TypeStore ts) {
+        private final XMLStreamReader xml;
+        private final Deque<ElementFrame> stack = new ArrayDeque<>();
+        private @Nullable IValue result = null;
+
+        public Parser(IValueFactory vf, TypeStore ts, XMLStreamReader xml) {
             this.vf = vf;
             this.ts = ts;
+            this.xml = xml;
         }
 
-        private IValue parse(@Nullable Node node, Type expected) {
-            if (node == null) {
-                throw new IllegalArgumentException();
+        private IValue read(Type expected) throws XMLStreamException {
+            toRootElement();
+
+            IValue value = startElement(expected);
+            if (value != null) {
+                return value;
             }
 
-            if (expected.isAbstractData()) {
-                Type sort = expected;
-                String name = node.getNodeName();
+            while (!step()) {
+                // the elements are converted while stepping through the events
+            }
+
+            value = result;
+            assert value != null : "@AssumeAssertion(nullness)";
+            return value;
+        }
+
+        private Iterator<IValue> elements(Type expected) throws XMLStreamException {
+            toRootElement();
 
-                if (isListWrapper(name,  sort)) {
-                    return parseList(node,  sort);
+            if (!expected.isAbstractData()) {
+                throw new UnsupportedTypeException("Only the elements of a list, set, relation or map wrapper can be streamed", expected);
+            }
+
+            Type nodeType = lookupConstructor(expected);
+            if (!(isListWrapper(nodeType) || isSetWrapper(nodeType) || isMapWrapper(nodeType))) {
+                throw new UnsupportedTypeException("Only the elements of a list, set, relation or map wrapper can be streamed", expected);
+            }
+
+            StreamFrame root = new StreamFrame(nodeType);
+            stack.push(root);
+
+            return new Iterator<IValue>() {
+                private boolean done = false;
+
+                @Override
+                public boolean hasNext() {
+                    try {
+                        while (root.ready.isEmpty() && !done) {
+                            done = step();
+                        }
+                        return !root.ready.isEmpty();
+                    }
+                    catch (XMLStreamException e) {
+                        throw new UncheckedIOException(new IOException("Parsing of value failed because XML was invalid: " + e.getMessage(), e));
+                    }
+                    catch (NumberFormatException nfe) {
+                        throw new FactParseError("Expected a number, got something different", nfe);
+                    }
                 }
-                else if (isSetWrapper(name, sort)) {
-                    return parseSet(node, sort);
+
+                @Override
+                public IValue next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return root.ready.remove();
                 }
-                else if (isRelationWrapper(name, sort)) {
-                    return parseRelation(node, sort);
+            };
+        }
+
+        private void toRootElement() throws XMLStreamException {
+            while (xml.hasNext()) {
+                if (xml.next() == XMLStreamConstants.START_ELEMENT) {
+                    return;
                 }
-                else if (isMapWrapper(name, sort)) {
-                    return parseMap(node, sort);
+            }
+            throw new FactParseError("Expected an element, but the document is empty", offset());
+        }
+
+        /**
+         * Processes the next event
+         * @return true when the outermost element has ended, of which the value is stored in {@link #result}
+         */
+        private boolean step() throws XMLStreamException {
+            ElementFrame top = stack.peek();
+            assert top != null : "@AssumeAssertion(nullness)";
+
+            switch (xml.next()) {
+                case XMLStreamConstants.START_ELEMENT: {
+                    Type expected = top.expected();
+                    if (expected == null) {
+                        // superfluous children are ignored
+                        skipElement();
+                    }
+                    else {
+                        IValue value = startElement(expected);
+                        if (value != null) {
+                            top.add(value);
+                        }
+                    }
+                    return false;
                 }
-                else {
-                    return parseTreeSort(node, sort);
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE: {
+                    Type expected = top.expected();
+                    if (expected == null) {
+                        return false;
+                    }
+                    if (xml.isWhiteSpace() && !(expected.isString() || expected.isExternalType())) {
+                        // formatting between elements
+                        return false;
+                    }
+                    top.add(parseText(xml.getText(), expected));
+                    return false;
                 }
+                case XMLStreamConstants.END_ELEMENT: {
+                    stack.pop();
+                    IValue value = top.done();
+                    ElementFrame parent = stack.peek();
+                    if (parent == null) {
+                        result = value;
+                        return true;
+                    }
+                    parent.add(value);
+                    return false;
+                }
+                default:
+                    // comments, processing instructions, etc.
+                    return false;
             }
-            else if (expected.equivalent(TF.stringType())) {
-                return parseString(node);
-            }
-            else if (expected.equivalent(TF.integerType())) {
-                return parseInt(node);
-            }
-            else if (expected.equivalent(TF.realType())) {
-                return parseDouble(node);
+        }
+
+        /**
+         * Starts converting the current element, by pushing a frame for its children.
+         * @return the value of the element if it was converted in one go
+         */
+        private @Nullable IValue startElement(Type expected) throws XMLStreamException {
+            if (expected.isAbstractData()) {
+                Type nodeType = lookupConstructor(expected);
+
+                if (isListWrapper(nodeType)) {
+                    stack.push(new ListFrame(nodeType));
+                }
+                else if (isSetWrapper(nodeType)) {
+                    stack.push(new SetFrame(nodeType));
+                }
+                else if (isMapWrapper(nodeType)) {
+                    stack.push(new MapFrame(nodeType));
+                }
+                else {
+                    stack.push(new TreeFrame(nodeType));
+                }
+                return null;
             }
-            else if (expected.equivalent(TF.rationalType())) {
-                return parseRational(node);
+            else if (expected.equivalent(TF.rationalType()) && xml.getLocalName().equals("rat")) {
+                // as written by the XMLWriter
+                String num = xml.getAttributeValue(null, "num");
+                String denom = xml.getAttributeValue(null, "denom");
+                if (num == null || denom == null) {
+                    throw new FactParseError("Expected num and denom attributes", offset());
+                }
+                skipElement();
+                return vf.rational(vf.integer(num.trim()), vf.integer(denom.trim()));
             }
-            else if (expected.isExternalType()) {
-                // external types default to string
-                return parseString(node);
+            else if (isText(expected)) {
+                throw new FactParseError("Expected text for a " + expected + ", but got element " + xml.getLocalName(), offset());
             }
 
             throw new UnsupportedTypeException(
                     "Outermost or nested tuples, lists, sets, relations or maps are not allowed.", expected);
         }
 
-        private boolean isListWrapper(String name, Type expected) {
-            Set<Type> nodeTypes = ts.lookupConstructor(expected, name);
-
-            if (nodeTypes.size() > 0) {
-                Type nodeType = nodeTypes.iterator().next();
-                return nodeType.getArity() == 1
-                        && nodeType.getFieldTypes().getFieldType(0).isSubtypeOf(TF.listType(TF.valueType()));
+        private void skipElement() throws XMLStreamException {
+            for (int depth = 1; depth > 0; ) {
+                switch (xml.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        depth++;
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        depth--;
+                        break;
+                    default:
+                        break;
+                }
             }
+        }
 
-            return false;
+        private int offset() {
+            return xml.getLocation().getCharacterOffset();
         }
 
-        private boolean isSetWrapper(String name, Type expected) {
+        private Type lookupConstructor(Type expected) {
+            String name = xml.getLocalName();
             Set<Type> nodeTypes = ts.lookupConstructor(expected, name);
-
-            if (nodeTypes.size() > 0) {
-                Type nodeType = nodeTypes.iterator().next();
-                return nodeType.getArity() == 1
-                        && nodeType.getFieldTypes().getFieldType(0).isSubtypeOf(TF.setType(TF.valueType()));
+            // TODO implement overloading
+            Iterator<Type> it = nodeTypes.iterator();
+            if (!it.hasNext()) {
+                throw new FactParseError(name + " is not a constructor of " + expected, offset());
             }
-
-            return false;
+            return it.next();
         }
 
-        private boolean isRelationWrapper(String name, Type expected) {
-            Set<Type> nodeTypes = ts.lookupConstructor(expected, name);
+        private boolean isText(Type expected) {
+            return expected.equivalent(TF.stringType())
+                || expected.equivalent(TF.integerType())
+                || expected.equivalent(TF.realType())
+                || expected.equivalent(TF.rationalType())
+                || expected.isExternalType();
+        }
 
-            if (nodeTypes.size() > 0) {
-                Type nodeType = nodeTypes.iterator().next();
-                return nodeType.getArity() == 1
-                        && nodeType.getFieldTypes().getFieldType(0).isSubtypeOf(TF.setType(TF.valueType()))
-                        && nodeType.getFieldTypes().getFieldType(0).getElementType().isFixedWidth();
-            }
+        private boolean isListWrapper(Type nodeType) {
+            return nodeType.getArity() == 1
+                    && nodeType.getFieldTypes().getFieldType(0).isSubtypeOf(TF.listType(TF.valueType()));
+        }
 
-            return false;
+        private boolean isSetWrapper(Type nodeType) {
+            // relations are sets of tuples, of which the fields are juxtapositioned
+            return nodeType.getArity() == 1
+                    && nodeType.getFieldTypes().getFieldType(0).isSubtypeOf(TF.setType(TF.valueType()));
         }
 
-        private boolean isMapWrapper(String name, Type expected) {
-            Set<Type> nodeTypes = ts.lookupConstructor(expected, name);
+        private boolean isMapWrapper(Type nodeType) {
+            return nodeType.getArity() == 1
+                    && nodeType.getFieldTypes().getFieldType(0).isMap();
+        }
 
-            if (nodeTypes.size() > 0) {
-                Type nodeType = nodeTypes.iterator().next();
-                return nodeType.getArity() == 1
-                        && nodeType.getFieldTypes().getFieldType(0).isMap();
+        private IValue parseText(String text, Type expected) {
+            if (expected.equivalent(TF.stringType())) {
+                return vf.string(text);
+            }
+            else if (expected.equivalent(TF.integerType())) {
+                return vf.integer(text.trim());
+            }
+            else if (expected.equivalent(TF.realType())) {
+                return vf.real(text.trim());
+            }
+            else if (expected.equivalent(TF.rationalType())) {
+                String contents = text.trim();
+                String[] parts = contents.split("r");
+                if (parts.length == 2) {
+                    return vf.rational(vf.integer(parts[0]), vf.integer(parts[1]));
+                }
+                throw new FactParseError(contents, offset());
+            }
+            else if (expected.isExternalType()) {
+                // external types default to string
+                return vf.string(text);
+            }
+            else if (expected.isAbstractData()) {
+                throw new FactParseError("Expected an element for a " + expected + ", but got text", offset());
             }
 
-            return false;
+            throw new UnsupportedTypeException(
+                    "Outermost or nested tuples, lists, sets, relations or maps are not allowed.", expected);
         }
 
-        private IValue parseRational(Node node) {
-            String contents = getSafeNodeValue(node).trim();
-            String[] parts = contents.split("r");
-            if (parts.length == 2) {
-                return vf.rational(vf.integer(Integer.parseInt(parts[0])), vf.integer(Integer.parseInt(parts[0])));
+        /**
+         * An element of which the children are being converted. Where a tuple is expected, the fields of the tuple
+         * are juxtapositioned as children of the element.
+         */
+        private abstract class ElementFrame {
+            private @Nullable Type tuple = null;
+            private @Nullable IValue[] tupleElements = new IValue[0];
+            private int tupleIndex = 0;
+
+            /**
+             * @return the type of the next field, or null when the element does not take more children
+             */
+            protected abstract @Nullable Type nextField();
+
+            protected abstract void addField(IValue value);
+
+            protected abstract IValue done();
+
+            /**
+             * @return the type of the next child, or null when the element does not take more children
+             */
+            final @Nullable Type expected() {
+                Type tuple = this.tuple;
+                if (tuple != null) {
+                    return tuple.getFieldType(tupleIndex);
+                }
+
+                Type field;
+                while ((field = nextField()) != null && field.isFixedWidth()) {
+                    if (field.getArity() > 0) {
+                        this.tuple = field;
+                        tupleElements = new IValue[field.getArity()];
+                        tupleIndex = 0;
+                        return field.getFieldType(0);
+                    }
+                    addField(vf.tuple());
+                }
+                return field;
             }
-            throw new FactParseError(contents, 0);
-        }
 
-        private IValue parseDouble(Node node) {
-            return vf.real(Double.parseDouble(getSafeNodeValue(node).trim()));
-        }
+            final void add(IValue value) {
+                Type tuple = this.tuple;
+                if (tuple == null) {
+                    addField(value);
+                    return;
+                }
 
-        private IValue parseInt(Node node) {
-            return vf.integer(Integer.parseInt(getSafeNodeValue(node).trim()));
-        }
+                tupleElements[tupleIndex++] = value;
+                if (tupleIndex == tuple.getArity()) {
+                    @SuppressWarnings("nullness")
+                    @NonNull IValue[] finalElements = tupleElements;
+                    this.tuple = null;
+                    addField(vf.tuple(finalElements));
+                }
+            }
 
-        private IValue parseString(Node node) {
-            return vf.string(getSafeNodeValue(node));
+            protected void checkComplete() {
+                Type tuple = this.tuple;
+                if (tuple != null && tupleIndex > 0) {
+                    throw new FactParseError("Expected " + tuple.getArity() + " elements for a " + tuple + ", got " + tupleIndex, offset());
+                }
+            }
         }
 
-        private String getSafeNodeValue(Node node) {
-            return Objects.requireNonNull(node.getNodeValue());
-        }
+        private class TreeFrame extends ElementFrame {
+            private final Type nodeType;
+            private final IValue[] values;
+            private int index = 0;
 
-        private IValue parseMap(Node node, Type expected) {
-            Set<Type> nodeTypes = ts.lookupConstructor(expected, node.getNodeName());
-            // TODO: implement overloading
-            Type nodeType = nodeTypes.iterator().next();
-            Type mapType = nodeType.getFieldType(0);
-            Type keyType = mapType.getKeyType();
-            Type valueType = mapType.getValueType();
-            NodeList children = node.getChildNodes();
-            IMapWriter writer = vf.mapWriter();
-
-            for (int i = 0; i + 1 < children.getLength(); ) {
-                IValue key, value;
-
-                if (keyType.isFixedWidth()) {
-                    Type tuple = keyType;
-                    @Nullable IValue [] elements = new IValue[tuple.getArity()];
-                    for (int j = 0; j < tuple.getArity(); j++) {
-                        elements[i] = parse(children.item(i++), tuple.getFieldType(j));
-                    }
+            TreeFrame(Type nodeType) {
+                this.nodeType = nodeType;
+                this.values = new IValue[nodeType.getArity()];
+            }
 
-                    @SuppressWarnings("nullness")
-                    @NonNull IValue[] finalElements = elements;
+            @Override
+            protected @Nullable Type nextField() {
+                return index < values.length ? nodeType.getFieldType(index) : null;
+            }
 
-                    key = vf.tuple(finalElements);
-                }
-                else {
-                    key = parse(children.item(i++), keyType);
-                }
+            @Override
+            protected void addField(IValue value) {
+                values[index++] = value;
+            }
 
-                if (valueType.isFixedWidth()) {
-                    Type tuple = keyType;
-                    IValue [] elements = new IValue[tuple.getArity()];
-                    for (int j = 0; j < tuple.getArity(); j++) {
-                        elements[i] = parse(children.item(i++), tuple.getFieldType(j));
-                    }
+            @Override
+            protected IValue done() {
+                checkComplete();
+                if (index < values.length) {
+                    throw new FactParseError("Expected " + values.length + " children for " + nodeType.getName() + ", got " + index, offset());
+                }
+                return vf.constructor(nodeType, values);
+            }
+        }
 
-                    @SuppressWarnings("nullness")
-                    @NonNull IValue[] finalElements = elements;
-                    value = vf.tuple(finalElements);
+        /**
+         * The children of a list, set, relation or map wrapper
+         */
+        private abstract class CollectionFrame extends ElementFrame {
+            protected final Type nodeType;
+            private final Type elementType;
+            private final @Nullable Type valueType;
+            private @Nullable IValue key = null;
+
+            CollectionFrame(Type nodeType) {
+                this.nodeType = nodeType;
+                Type collectionType = nodeType.getFieldType(0);
+                if (collectionType.isMap()) {
+                    this.elementType = collectionType.getKeyType();
+                    this.valueType = collectionType.getValueType();
                 }
                 else {
-                    value = parse(children.item(i++), valueType);
+                    this.elementType = collectionType.getElementType();
+                    this.valueType = null;
                 }
-
-                writer.put(key, value);
             }
 
+            protected abstract void element(IValue value);
 
-            return vf.constructor(nodeType, writer.done());
-        }
-
-        private IValue parseRelation(Node node, Type expected) {
-            Set<Type> nodeTypes = ts.lookupConstructor(expected, node.getNodeName());
-            // TODO implement overloading
-            Type nodeType = nodeTypes.iterator().next();
-            Type relType = nodeType.getFieldType(0);
-            Type fields = relType.getFieldTypes();
-            NodeList children = node.getChildNodes();
-            ISetWriter writer = vf.setWriter();
+            protected void entry(IValue key, IValue value) {
+                element(vf.tuple(key, value));
+            }
 
-            for (int i = 0; i < children.getLength(); ) {
-                IValue[] elements = new IValue[fields.getArity()];
+            @Override
+            protected @Nullable Type nextField() {
+                Type valueType = this.valueType;
+                return valueType != null && key != null ? valueType : elementType;
+            }
 
-                for (int j = 0; i < children.getLength() && j < fields.getArity(); j++) {
-                    elements[j] = parse(children.item(i++), fields.getFieldType(j));	
+            @Override
+            protected void addField(IValue value) {
+                if (valueType == null) {
+                    element(value);
+                    return;
                 }
 
-                @SuppressWarnings("nullness")
-                @NonNull IValue[] finalElements = elements;
-                writer.insert(vf.tuple(finalElements));
+                IValue key = this.key;
+                if (key == null) {
+                    this.key = value;
+                }
+                else {
+                    this.key = null;
+                    entry(key, value);
+                }
             }
 
-            return vf.constructor(nodeType, writer.done());
+            @Override
+            protected void checkComplete() {
+                super.checkComplete();
+                if (key != null) {
+                    throw new FactParseError("Expected a value for the last key of " + nodeType.getName(), offset());
+                }
+            }
         }
 
-        private IValue parseSet(Node node, Type expected) {
-            Set<Type> nodeTypes = ts.lookupConstructor(expected, node.getNodeName());
-            // TODO implement overloading
-            Type nodeType = nodeTypes.iterator().next();
-            Type setType = nodeType.getFieldType(0);
-            Type elementType = setType.getElementType();
-            NodeList children = node.getChildNodes();
-            ISetWriter writer = vf.setWriter();
-
-            if (!elementType.isFixedWidth()) {
-                for (int i = 0; i < children.getLength(); i++) {
-                    writer.insert(parse(children.item(i), elementType));
-                }
-            } else {
-                Type tuple = elementType;
-                for (int i = 0; i < children.getLength(); ) {
-                    IValue[] elements = new IValue[tuple.getArity()];
+        private class ListFrame extends CollectionFrame {
+            private final IListWriter writer = vf.listWriter();
 
-                    for (int j = 0; i < children.getLength() && j < tuple.getArity(); j++) {
-                        elements[j] = parse(children.item(i++), tuple.getFieldType(j));	
-                    }
+            ListFrame(Type nodeType) {
+                super(nodeType);
+            }
 
-                    @SuppressWarnings("nullness")
-                    @NonNull IValue[] finalElements = elements;
-                    writer.insert(vf.tuple(finalElements));
-                }
+            @Override
+            protected void element(IValue value) {
+                writer.append(value);
             }
 
-            return vf.constructor(nodeType, writer.done());
+            @Override
+            protected IValue done() {
+                checkComplete();
+                return vf.constructor(nodeType, writer.done());
+            }
         }
 
-        private IValue parseList(Node node, Type expected) {
-            Set<Type> nodeTypes = ts.lookupConstructor(expected, node.getNodeName());
-            // TODO implement overloading
-            Type nodeType = nodeTypes.iterator().next();
-            Type listType = nodeType.getFieldType(0);
-            Type elementType = listType.getElementType();
-            NodeList children = node.getChildNodes();
-            IListWriter writer = vf.listWriter();
-
-            if (!elementType.isFixedWidth()) {
-                for (int i = 0; i < children.getLength(); i++) {
-                    writer.append(parse(children.item(i), elementType));
-                }
-            } else {
-                Type tuple = elementType;
-                for (int i = 0; i < children.getLength(); ) {
-                    IValue[] elements = new IValue[tuple.getArity()];
+        private class SetFrame extends CollectionFrame {
+            private final ISetWriter writer = vf.setWriter();
 
-                    for (int j = 0; i < children.getLength() && j < tuple.getArity(); j++) {
-                        elements[j] = parse(children.item(i++), tuple.getFieldType(j));	
-                    }
+            SetFrame(Type nodeType) {
+                super(nodeType);
+            }
 
-                    @SuppressWarnings("nullness")
-                    @NonNull IValue[] finalElements = elements;
-                    writer.append(vf.tuple(finalElements));
-                }
+            @Override
+            protected void element(IValue value) {
+                writer.insert(value);
             }
 
-            return vf.constructor(nodeType, writer.done());
+            @Override
+            protected IValue done() {
+                checkComplete();
+                return vf.constructor(nodeType, writer.done());
+            }
         }
 
-        private IValue parseTreeSort(Node node, Type expected) {
-            // TODO deal with overloading
-            Type  nodeType = ts.lookupConstructor(expected, node.getNodeName()).iterator().next();
-            Type childrenTypes = nodeType.getFieldTypes();
-            NodeList children = node.getChildNodes();
+        private class MapFrame extends CollectionFrame {
+            private final IMapWriter writer = vf.mapWriter();
 
-            IValue[] values = new IValue[nodeType.getArity()];
+            MapFrame(Type nodeType) {
+                super(nodeType);
+            }
 
-            int sourceIndex = 0;
-            int targetIndex = 0;
+            @Override
+            protected void element(IValue value) {
+                throw new IllegalStateException("map elements are entries");
+            }
 
-            while(sourceIndex < children.getLength() && targetIndex < nodeType.getArity()) {
-                Type childType = childrenTypes.getFieldType(targetIndex);
+            @Override
+            protected void entry(IValue key, IValue value) {
+                writer.put(key, value);
+            }
 
-                if (childType.isFixedWidth()) {
-                    Type tuple = childType;
-                    IValue[] elements = new IValue[tuple.getArity()];
+            @Override
+            protected IValue done() {
+                checkComplete();
+                return vf.constructor(nodeType, writer.done());
+            }
+        }
 
-                    for (int tupleIndex = 0; tupleIndex < tuple.getArity() && sourceIndex < children.getLength(); tupleIndex++, sourceIndex++) {
-                        elements[tupleIndex] = parse(children.item(sourceIndex), tuple.getFieldType(tupleIndex));
-                    }
+        /**
+         * Hands out the elements of the outermost wrapper, instead of collecting them
+         */
+        private class StreamFrame extends CollectionFrame {
+            private final Deque<IValue> ready = new ArrayDeque<>();
 
-                    @SuppressWarnings("nullness")
-                    @NonNull IValue[] finalElements = elements;
+            StreamFrame(Type nodeType) {
+                super(nodeType);
+            }
 
-                    values[targetIndex++] = vf.tuple(finalElements);
-                }
-                else {
-                    values[targetIndex++] = parse(children.item(sourceIndex++), childType);
-                }
+            @Override
+            protected void element(IValue value) {
+                ready.add(value);
             }
 
-            return vf.constructor(nodeType, values);
+            @Override
+            protected IValue done() {
+                checkComplete();
+                // the elements have been handed out already
+                return vf.tuple();
+            }
         }
     }
 }
@@ -0,0 +1,385 @@
+package io.usethesource.vallang.io.binary.message;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import io.usethesource.vallang.IBool;
+import io.usethesource.vallang.IDateTime;
+import io.usethesource.vallang.IInteger;
+import io.usethesource.vallang.IRational;
+import io.usethesource.vallang.IReal;
+import io.usethesource.vallang.ISourceLocation;
+import io.usethesource.vallang.IString;
+import io.usethesource.vallang.IValue;
+import io.usethesource.vallang.IValueFactory;
+import io.usethesource.vallang.io.binary.util.TrackLastRead;
+import io.usethesource.vallang.io.binary.wire.IWireInputStream;
+import io.usethesource.vallang.type.Type;
+import io.usethesource.vallang.type.TypeFactory;
+import io.usethesource.vallang.type.TypeStore;
+
+/**
+ * A streaming (SAX-style) reader for values written by the {@link IValueWriter}, it reports the values as events to a {@link IValueEventVisitor} instead of building them. <br />
+ * <br />
+ * Only the atomic values (strings, numbers, locations, ...) and the types are constructed, so a value of any size can be processed in the memory needed for the type and source location windows.
+ * Skipped subtrees are still decoded (but not reported), since the windows have to stay in sync with the writer.
+ */
+public class IValueEventReader {
+    private static final Type VOID_TYPE = TypeFactory.getInstance().voidType();
+
+    /**
+     * Read a value from the wire reader and report it to the visitor.
+     */
+    public static <E extends Throwable> void read(IWireInputStream reader, IValueFactory vf, Supplier<TypeStore> typeStoreSupplier, IValueEventVisitor<E> visitor) throws IOException, E {
+        read(reader, vf, typeStoreSupplier, TypeDictionary.EMPTY, visitor);
+    }
+
+    /**
+     * Read a value from the wire reader using an externally supplied type dictionary, and report it to the visitor.
+     */
+    public static <E extends Throwable> void read(IWireInputStream reader, IValueFactory vf, Supplier<TypeStore> typeStoreSupplier, TypeDictionary dictionary, IValueEventVisitor<E> visitor) throws IOException, E {
+        read(reader, vf, typeStoreSupplier, dictionary, embedded -> {}, visitor);
+    }
+
+    /**
+     * Read a value from the wire reader using an externally supplied type dictionary, and report it to the visitor.
+     * A dictionary embedded in the stream is passed to <code>embeddedDictionary</code>, for reading the next values in the stream.
+     */
+    public static <E extends Throwable> void read(IWireInputStream reader, IValueFactory vf, Supplier<TypeStore> typeStoreSupplier, TypeDictionary dictionary, Consumer<TypeDictionary> embeddedDictionary, IValueEventVisitor<E> visitor) throws IOException, E {
+        int typeWindowSize = 0;
+        int valueWindowSize = 0;
+        int uriWindowSize = 0;
+        if (reader.next() != IWireInputStream.MESSAGE_START || reader.message() != IValueIDs.Header.ID) {
+            throw new IOException("Missing header at start of stream");
+        }
+        while (reader.next() != IWireInputStream.MESSAGE_END) {
+            switch (reader.field()) {
+                case IValueIDs.Header.TYPE_WINDOW: typeWindowSize = reader.getInteger();  break;
+                case IValueIDs.Header.VALUE_WINDOW: valueWindowSize = reader.getInteger();  break;
+                case IValueIDs.Header.SOURCE_LOCATION_WINDOW: uriWindowSize = reader.getInteger();  break;
+                case IValueIDs.Header.TYPE_DICTIONARY: 
+                    dictionary = IValueReader.readTypeDictionary(reader, vf, typeStoreSupplier); 
+                    embeddedDictionary.accept(dictionary);
+                    break;
+                case IValueIDs.Header.TYPE_DICTIONARY_ID: IValueReader.checkDictionary(reader.getInteger(), dictionary); break;
+                case IValueIDs.Header.VALUE: {
+                    IValueEventReader eventReader = new IValueEventReader(vf, typeStoreSupplier, dictionary, typeWindowSize, valueWindowSize, uriWindowSize);
+                    try {
+                        eventReader.readValue(reader, visitor, true);
+                        reader.skipMessage();
+                        return;
+                    } catch (UncheckedIOException e) {
+                        throw e.getCause();
+                    } finally {
+                        eventReader.atoms.done();
+                    }
+                }
+                default:
+                    reader.skipNestedField();
+                    break;
+            }
+        }
+        throw new IOException("Missing Value in the stream");
+    }
+
+    private final IValueReader atoms;
+    private final StreamedValues values;
+
+    private IValueEventReader(IValueFactory vf, Supplier<TypeStore> typeStoreSupplier, TypeDictionary dictionary, int typeWindowSize, int valueWindowSize, int uriWindowSize) {
+        values = new StreamedValues(valueWindowSize);
+        atoms = new IValueReader(vf, typeStoreSupplier, dictionary, typeWindowSize, values, uriWindowSize);
+    }
+
+    private long nextId(boolean backReference) {
+        return backReference ? values.skip() : -1;
+    }
+
+    /**
+     * The window of values that could be referenced back, the position of a value is its id. <br />
+     * <br />
+     * The nodes, constructors and containers of the streamed value are not built, so their positions stay empty.
+     * The atoms, and the values nested in the type symbols of external types, are kept, since the writer can refer back to them from within a type symbol.
+     */
+    private static final class StreamedValues implements TrackLastRead<IValue> {
+        private @Nullable IValue[] data;
+        private final int maxSize;
+        private long read = 0;
+
+        StreamedValues(int size) {
+            data = new IValue[Math.min(512, size)];
+            maxSize = size + 1;
+        }
+
+        long count() {
+            return read;
+        }
+
+        /**
+         * Register a value that was reported instead of built, and return its id
+         */
+        long skip() {
+            store(null);
+            return read - 1;
+        }
+
+        @Override
+        public void read(IValue obj) {
+            store(obj);
+        }
+
+        private void store(@Nullable IValue obj) {
+            if (read == data.length && data.length != maxSize) {
+                data = Arrays.copyOf(data, Math.min(Math.max(1, data.length * 2), maxSize));
+            }
+            data[(int) (read % data.length)] = obj;
+            read++;
+        }
+
+        @Override
+        public IValue lookBack(int howLongBack) {
+            @Nullable IValue result = null;
+            if (howLongBack < read && howLongBack < data.length) {
+                result = data[(int) ((read - 1 - howLongBack) % data.length)];
+            }
+            if (result == null) {
+                throw new UncheckedIOException(new IOException("Back reference to a value " + howLongBack + " back, which is not built while streaming or outside of the value window"));
+            }
+            return result;
+        }
+    }
+
+    private <E extends Throwable> void readValue(IWireInputStream reader, IValueEventVisitor<E> visitor, boolean report) throws IOException, E {
+        reader.next();
+        assert reader.current() == IWireInputStream.MESSAGE_START;
+        switch (reader.message()) {
+            case IValueIDs.ConstructorValue.ID: readConstructor(reader, visitor, report); break;
+            case IValueIDs.NodeValue.ID: readNode(reader, visitor, report); break;
+            case IValueIDs.ListValue.ID: 
+            case IValueIDs.SetValue.ID: 
+            case IValueIDs.MapValue.ID: 
+            case IValueIDs.TupleValue.ID: readContainer(reader, visitor, report); break;
+            case IValueIDs.PreviousValue.ID: readPreviousValue(reader, visitor, report); break;
+            default: {
+                int message = reader.message();
+                IValue atom = atoms.readAtom(reader);
+                if (report) {
+                    reportAtom(message, atom, visitor);
+                }
+                break;
+            }
+        }
+    }
+
+    private static <E extends Throwable> void reportAtom(int message, IValue atom, IValueEventVisitor<E> visitor) throws E {
+        switch (message) {
+            case IValueIDs.BoolValue.ID: visitor.visitBoolean((IBool) atom); break;
+            case IValueIDs.DateTimeValue.ID: visitor.visitDateTime((IDateTime) atom); break;
+            case IValueIDs.IntegerValue.ID: visitor.visitInteger((IInteger) atom); break;
+            case IValueIDs.SourceLocationValue.ID: visitor.visitSourceLocation((ISourceLocation) atom); break;
+            case IValueIDs.RationalValue.ID: visitor.visitRational((IRational) atom); break;
+            case IValueIDs.RealValue.ID: visitor.visitReal((IReal) atom); break;
+            case IValueIDs.StringValue.ID: visitor.visitString((IString) atom); break;
+            default:
+                throw new IllegalArgumentException("reportAtom: " + message);
+        }
+    }
+
+    private <E extends Throwable> void readPreviousValue(IWireInputStream reader, IValueEventVisitor<E> visitor, boolean report) throws IOException, E {
+        int n = -1;
+        while (reader.next() != IWireInputStream.MESSAGE_END) {
+            if (reader.field() == IValueIDs.PreviousValue.HOW_FAR_BACK) {
+                n = reader.getInteger();
+            }
+            else {
+                reader.skipNestedField();
+            }
+        }
+        if (n == -1 || n >= values.count()) {
+            throw new IOException("Missing or incorrect HOW_FAR_BACK field");
+        }
+        if (report) {
+            visitor.visitPreviousValue(values.count() - 1 - n);
+        }
+    }
+
+    private <E extends Throwable> void readContainer(IWireInputStream reader, IValueEventVisitor<E> visitor, boolean report) throws IOException, E {
+        final int message = reader.message();
+        boolean backReference = false;
+        boolean entered = false;
+        boolean descend = false;
+        while (reader.next() != IWireInputStream.MESSAGE_END) {
+            switch (reader.field()) {
+                case IValueIDs.Common.CAN_BE_BACK_REFERENCED:
+                    backReference = true;
+                    break;
+                case IValueIDs.ListValue.ELEMENTS: // same field id for all containers
+                    int size = reader.getRepeatedLength();
+                    descend = report && enterContainer(message, size, visitor);
+                    entered = true;
+                    for (int i = 0; i < size; i++) {
+                        readValue(reader, visitor, descend);
+                    }
+                    break;
+                default:
+                    reader.skipNestedField();
+                    break;
+            }
+        }
+        if (!entered) {
+            descend = report && enterContainer(message, 0, visitor);
+        }
+        long id = nextId(backReference);
+        if (descend) {
+            switch (message) {
+                case IValueIDs.ListValue.ID: visitor.leaveList(id); break;
+                case IValueIDs.SetValue.ID: visitor.leaveSet(id); break;
+                case IValueIDs.MapValue.ID: visitor.leaveMap(id); break;
+                default: visitor.leaveTuple(id); break;
+            }
+        }
+    }
+
+    private static <E extends Throwable> boolean enterContainer(int message, int size, IValueEventVisitor<E> visitor) throws E {
+        switch (message) {
+            case IValueIDs.ListValue.ID: return visitor.enterList(size);
+            case IValueIDs.SetValue.ID: return visitor.enterSet(size);
+            case IValueIDs.MapValue.ID: return visitor.enterMap(size / 2); // keys and values are written as a flat list
+            default: return visitor.enterTuple(size);
+        }
+    }
+
+    private <E extends Throwable> void readNode(IWireInputStream reader, IValueEventVisitor<E> visitor, boolean report) throws IOException, E {
+        String name = "";
+        boolean backReference = false;
+        boolean entered = false;
+        boolean descend = false;
+        boolean keywordParameters = false;
+        while (reader.next() != IWireInputStream.MESSAGE_END) {
+            switch (reader.field()) {
+                case IValueIDs.Common.CAN_BE_BACK_REFERENCED:
+                    backReference = true;
+                    break;
+                case IValueIDs.NodeValue.NAME:
+                    name = reader.getString();
+                    break;
+                case IValueIDs.NodeValue.PARAMS:
+                    int arity = reader.getRepeatedLength();
+                    descend = report && visitor.enterNode(name, arity);
+                    entered = true;
+                    for (int i = 0; i < arity; i++) {
+                        readValue(reader, visitor, descend);
+                    }
+                    break;
+                case IValueIDs.NodeValue.KWPARAMS:
+                case IValueIDs.NodeValue.ANNOS:
+                    if (!entered) {
+                        descend = report && visitor.enterNode(name, 0);
+                        entered = true;
+                    }
+                    if (descend && !keywordParameters) {
+                        visitor.enterNodeKeywordParameters();
+                    }
+                    keywordParameters = true;
+                    readNamedValues(reader, visitor, descend);
+                    break;
+                default:
+                    reader.skipNestedField();
+                    break;
+            }
+        }
+        if (!entered) {
+            descend = report && visitor.enterNode(name, 0);
+        }
+        long id = nextId(backReference);
+        if (descend) {
+            visitor.leaveNode(id);
+        }
+    }
+
+    private <E extends Throwable> void readConstructor(IWireInputStream reader, IValueEventVisitor<E> visitor, boolean report) throws IOException, E {
+        Type type = VOID_TYPE;
+        boolean backReference = false;
+        boolean entered = false;
+        boolean descend = false;
+        boolean keywordParameters = false;
+        while (reader.next() != IWireInputStream.MESSAGE_END) {
+            switch (reader.field()) {
+                case IValueIDs.Common.CAN_BE_BACK_REFERENCED:
+                    backReference = true;
+                    break;
+                case IValueIDs.ConstructorValue.TYPE:
+                    type = atoms.readType(reader);
+                    break;
+                case IValueIDs.ConstructorValue.PARAMS:
+                    int arity = reader.getRepeatedLength();
+                    descend = report && visitor.enterConstructor(checkType(type), arity);
+                    entered = true;
+                    for (int i = 0; i < arity; i++) {
+                        readValue(reader, visitor, descend);
+                    }
+                    break;
+                case IValueIDs.ConstructorValue.KWPARAMS:
+                case IValueIDs.ConstructorValue.ANNOS:
+                    if (!entered) {
+                        descend = report && visitor.enterConstructor(checkType(type), 0);
+                        entered = true;
+                    }
+                    if (descend && !keywordParameters) {
+                        visitor.enterConstructorKeywordParameters();
+                    }
+                    keywordParameters = true;
+                    readNamedValues(reader, visitor, descend);
+                    break;
+                default:
+                    reader.skipNestedField();
+                    break;
+            }
+        }
+        if (!entered) {
+            descend = report && visitor.enterConstructor(checkType(type), 0);
+        }
+        long id = nextId(backReference);
+        if (descend) {
+            visitor.leaveConstructor(id);
+        }
+    }
+
+    private static Type checkType(Type type) throws IOException {
+        if (type == VOID_TYPE) {
+            throw new IOException("Constructor was missing type");
+        }
+        return type;
+    }
+
+    private <E extends Throwable> void readNamedValues(IWireInputStream reader, IValueEventVisitor<E> visitor, boolean report) throws IOException, E {
+        String[] names = new String[0];
+        reader.next();
+        while (reader.next() != IWireInputStream.MESSAGE_END) {
+            switch (reader.field()) {
+                case IValueIDs.NamedValues.NAMES:
+                    names = reader.getStrings();
+                    break;
+                case IValueIDs.NamedValues.VALUES:
+                    int size = reader.getRepeatedLength();
+                    if (report) {
+                        visitor.enterNamedValues(names, size);
+                    }
+                    for (int i = 0; i < size; i++) {
+                        readValue(reader, visitor, report);
+                    }
+                    if (report) {
+                        visitor.leaveNamedValue();
+                    }
+                    break;
+                default:
+                    reader.skipNestedField();
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package io.usethesource.vallang.io.binary.message;
+
+import io.usethesource.vallang.IBool;
+import io.usethesource.vallang.IDateTime;
+import io.usethesource.vallang.IInteger;
+import io.usethesource.vallang.IRational;
+import io.usethesource.vallang.IReal;
+import io.usethesource.vallang.ISourceLocation;
+import io.usethesource.vallang.IString;
+import io.usethesource.vallang.type.Type;
+
+/**
+ * The events of the {@link IValueEventReader}, these mirror the {@link io.usethesource.vallang.io.binary.util.StructuredIValueVisitor} used by the {@link IValueWriter}. <br />
+ * <br />
+ * Returning false from an <code>enter</code> method skips the nested values, and the matching <code>leave</code> method is not called. <br />
+ * <br />
+ * Values that were already written before in the stream are reported using {@link #visitPreviousValue(long)}, 
+ * with the id that was passed to the <code>leave</code> method of the original value (even if that was skipped).
+ * Since the reader does not keep the values, a visitor that needs them has to keep track of them itself.
+ */
+public interface IValueEventVisitor<E extends Throwable> {
+
+    void enterNamedValues(String[] names, int numberOfNestedValues) throws E;
+    void leaveNamedValue() throws E;
+
+    boolean enterConstructor(Type constructorType, int children) throws E;
+    void enterConstructorKeywordParameters() throws E;
+    /**
+     * @param id a stable id in the stream, or -1 if the value cannot be referenced back
+     */
+    void leaveConstructor(long id) throws E;
+
+    boolean enterNode(String name, int children) throws E;
+    void enterNodeKeywordParameters() throws E;
+    void leaveNode(long id) throws E;
+
+    boolean enterList(int children) throws E;
+    void leaveList(long id) throws E;
+
+    boolean enterSet(int elements) throws E;
+    void leaveSet(long id) throws E;
+
+    boolean enterMap(int elements) throws E;
+    void leaveMap(long id) throws E;
+
+    boolean enterTuple(int arity) throws E;
+    void leaveTuple(long id) throws E;
+
+    void visitString(IString val) throws E;
+    void visitInteger(IInteger val) throws E;
+    void visitReal(IReal val) throws E;
+    void visitRational(IRational val) throws E;
+    void visitSourceLocation(ISourceLocation val) throws E;
+    void visitBoolean(IBool val) throws E;
+    void visitDateTime(IDateTime val) throws E;
+
+    void visitPreviousValue(long id) throws E;
+}
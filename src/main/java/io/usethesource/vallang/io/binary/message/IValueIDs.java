@@ -12,6 +12,11 @@
  */ 
 package io.usethesource.vallang.io.binary.message;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+
 /**
  * Constants for Rascal Serialization Format
  */
@@ -23,6 +28,7 @@ public class IValueIDs {
     private static final int HEADER_ID = 4242;  
     private static final int LAST_VALUE_ID = 4243; // a special marker to signal the end of the stream of values
     private static final int LAST_TYPE_ID = 4342; // a special marker to signal the end of the stream of types
+    private static final int TYPE_SCHEMA_ID = 4244; // a shared dictionary of types, written once and referenced from many streams
     
     public static final class Header {
         public static final int ID = HEADER_ID;
@@ -31,6 +37,8 @@ public class IValueIDs {
         public static final int SOURCE_LOCATION_WINDOW = 3;
         public static final int VALUE = 4;
         public static final int TYPE = 5;
+        public static final int TYPE_DICTIONARY = 6; // nested, the dictionary is embedded in the stream
+        public static final int TYPE_DICTIONARY_ID = 7; // the dictionary is supplied externally, only its id is stored
     }
     public static final class LastValue {
         public static final int ID = LAST_VALUE_ID;
@@ -38,6 +46,12 @@ public class IValueIDs {
     public static final class LastType {
         public static final int ID = LAST_TYPE_ID;
     }
+    public static final class TypeSchema {
+        public static final int ID = TYPE_SCHEMA_ID;
+        public static final int DICTIONARY_ID = 1;
+        public static final int TYPE_WINDOW = 2;
+        public static final int TYPES = 3;
+    }
     
     // Atomic values
     private static final int PREVIOUS_VALUE_ID = 1;
@@ -198,12 +212,18 @@ public class IValueIDs {
     private static final int PARAMETER_TYPE_ID = 120;
     private static final int ALIAS_TYPE_ID = 121;
     private static final int FUNCTION_TYPE_ID = 122;
+    private static final int DICTIONARY_TYPE_ID = 123;
     
     public static class PreviousType {
         public static final int ID = PREVIOUS_TYPE_ID_ID;
         public static final int HOW_LONG_AGO = 1;
     }
 
+    public static class DictionaryType {
+        public static final int ID = DICTIONARY_TYPE_ID;
+        public static final int INDEX = 1;
+    }
+
     public static class BoolType {
         public static final int ID = BOOL_TYPE_ID;
     }
@@ -297,6 +317,29 @@ public class IValueIDs {
 
         
         public static final int TYPES_MIN = PREVIOUS_TYPE_ID_ID;
-        public static final int TYPES_MAX = FUNCTION_TYPE_ID;
+        public static final int TYPES_MAX = DICTIONARY_TYPE_ID;
+    }
+
+    private static volatile @MonotonicNonNull Map<Integer, String> messageNames;
+
+    /**
+     * @return the name of the message with this id (the name of its class in {@link IValueIDs}), used for reporting {@link io.usethesource.vallang.io.binary.util.SerializationStatistics}
+     */
+    public static String messageName(int messageId) {
+        Map<Integer, String> names = messageNames;
+        if (names == null) {
+            names = new HashMap<>();
+            for (Class<?> message : IValueIDs.class.getDeclaredClasses()) {
+                try {
+                    names.putIfAbsent(message.getField("ID").getInt(null), message.getSimpleName());
+                }
+                catch (NoSuchFieldException | IllegalAccessException e) {
+                    // not a message (for example Common and Ranges)
+                }
+            }
+            messageNames = names;
+        }
+        String result = names.get(messageId);
+        return result == null ? "Unknown(" + messageId + ")" : result;
     }
 }
@@ -18,6 +18,7 @@ import java.math.BigInteger;
 import java.net.URISyntaxException;
 import java.util.Collections;
 import java.util.Map.Entry;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
@@ -35,6 +36,7 @@ import io.usethesource.vallang.ISetWriter;
 import io.usethesource.vallang.ISourceLocation;
 import io.usethesource.vallang.IValue;
 import io.usethesource.vallang.IValueFactory;
+import io.usethesource.vallang.io.SourceLocationCache;
 import io.usethesource.vallang.io.binary.stream.IValueInputStream;
 import io.usethesource.vallang.io.binary.util.TrackLastRead;
 import io.usethesource.vallang.io.binary.util.WindowCacheFactory;
@@ -57,6 +59,27 @@ public class IValueReader {
      * In most cases you want to use the {@linkplain IValueInputStream}!
      */
     public static IValue readValue(IWireInputStream reader, IValueFactory vf, Supplier<TypeStore> typeStoreSupplier) throws IOException {
+        return readValue(reader, vf, typeStoreSupplier, TypeDictionary.EMPTY);
+    }
+
+    /**
+     * Read a value from the wire reader, using a type dictionary that was supplied externally. 
+     * If the stream embeds its own dictionary, that one is used instead.<br/>
+     * <br/>
+     * In most cases you want to use the {@linkplain IValueInputStream}!
+     */
+    public static IValue readValue(IWireInputStream reader, IValueFactory vf, Supplier<TypeStore> typeStoreSupplier, TypeDictionary dictionary) throws IOException {
+        return readValue(reader, vf, typeStoreSupplier, dictionary, embedded -> {});
+    }
+
+    /**
+     * Read a value from the wire reader, using a type dictionary that was supplied externally. 
+     * If the stream embeds its own dictionary, that one is used instead, and passed to <code>embeddedDictionary</code>,
+     * such that the next values in the stream (which only refer to the id of the dictionary) can be read with it.<br/>
+     * <br/>
+     * In most cases you want to use the {@linkplain IValueInputStream}!
+     */
+    public static IValue readValue(IWireInputStream reader, IValueFactory vf, Supplier<TypeStore> typeStoreSupplier, TypeDictionary dictionary, Consumer<TypeDictionary> embeddedDictionary) throws IOException {
         int typeWindowSize = 0;
         int valueWindowSize = 0;
         int uriWindowSize = 0;
@@ -68,8 +91,13 @@ public class IValueReader {
                 case IValueIDs.Header.VALUE_WINDOW: valueWindowSize = reader.getInteger();  break;
                 case IValueIDs.Header.TYPE_WINDOW: typeWindowSize = reader.getInteger();  break;
                 case IValueIDs.Header.SOURCE_LOCATION_WINDOW: uriWindowSize = reader.getInteger();  break;
+                case IValueIDs.Header.TYPE_DICTIONARY: 
+                    dictionary = readTypeDictionary(reader, vf, typeStoreSupplier); 
+                    embeddedDictionary.accept(dictionary);
+                    break;
+                case IValueIDs.Header.TYPE_DICTIONARY_ID: checkDictionary(reader.getInteger(), dictionary); break;
                 case IValueIDs.Header.VALUE: {
-                    IValueReader valueReader = new IValueReader(vf, typeStoreSupplier, typeWindowSize, valueWindowSize, uriWindowSize);
+                    IValueReader valueReader = new IValueReader(vf, typeStoreSupplier, dictionary, typeWindowSize, valueWindowSize, uriWindowSize);
                     try {
                         IValue result = valueReader.readValue(reader);
                         reader.skipMessage();
@@ -102,7 +130,7 @@ public class IValueReader {
                 case IValueIDs.Header.TYPE_WINDOW: typeWindowSize = reader.getInteger();  break;
                 case IValueIDs.Header.SOURCE_LOCATION_WINDOW: uriWindowSize = reader.getInteger();  break;
                 case IValueIDs.Header.TYPE: {
-                    IValueReader valueReader = new IValueReader(vf, typeStoreSupplier, typeWindowSize, valueWindowSize, uriWindowSize);
+                    IValueReader valueReader = new IValueReader(vf, typeStoreSupplier, TypeDictionary.EMPTY, typeWindowSize, valueWindowSize, uriWindowSize);
                     try {
                         Type result = valueReader.readType(reader);
                         reader.skipMessage();
@@ -119,19 +147,67 @@ public class IValueReader {
         throw new IOException("Missing Type in the stream");
     }
 
-    private IValueReader(IValueFactory vf, Supplier<TypeStore> typeStoreSupplier, int typeWindowSize, int valueWindowSize, int uriWindowSize) {
+    /**
+     * Read a type dictionary (the schema section) written by {@link IValueWriter#writeTypeDictionary}. <br/>
+     * <br/>
+     * The types are declared in the store once, the resulting dictionary can be used for reading many streams that refer to it.
+     */
+    public static TypeDictionary readTypeDictionary(IWireInputStream reader, IValueFactory vf, Supplier<TypeStore> typeStoreSupplier) throws IOException {
+        if (reader.next() != IWireInputStream.MESSAGE_START || reader.message() != IValueIDs.TypeSchema.ID) {
+            throw new IOException("Missing type dictionary");
+        }
+        int id = 0;
+        int typeWindowSize = 0;
+        Type[] types = new Type[0];
+        while (reader.next() != IWireInputStream.MESSAGE_END) {
+            switch (reader.field()) {
+                case IValueIDs.TypeSchema.DICTIONARY_ID: id = reader.getInteger(); break;
+                case IValueIDs.TypeSchema.TYPE_WINDOW: typeWindowSize = reader.getInteger(); break;
+                case IValueIDs.TypeSchema.TYPES: {
+                    IValueReader typeReader = new IValueReader(vf, typeStoreSupplier, TypeDictionary.EMPTY, typeWindowSize, 0, 0);
+                    try {
+                        types = new Type[reader.getRepeatedLength()];
+                        for (int i = 0; i < types.length; i++) {
+                            types[i] = typeReader.readType(reader);
+                        }
+                    } finally {
+                        typeReader.done();
+                    }
+                    break;
+                }
+                default:
+                    reader.skipNestedField();
+                    break;
+            }
+        }
+        return new TypeDictionary(id, types);
+    }
+
+    /*package*/ static void checkDictionary(int expectedId, TypeDictionary dictionary) throws IOException {
+        if (dictionary.isEmpty() || dictionary.getId() != expectedId) {
+            throw new IOException("Stream refers to type dictionary " + expectedId + " which was not supplied (got: " + dictionary.getId() + ")");
+        }
+    }
+
+    private IValueReader(IValueFactory vf, Supplier<TypeStore> typeStoreSupplier, TypeDictionary dictionary, int typeWindowSize, int valueWindowSize, int uriWindowSize) {
+        this(vf, typeStoreSupplier, dictionary, typeWindowSize, WindowCacheFactory.getInstance().getTrackLastRead(valueWindowSize), uriWindowSize);
+    }
+
+    /*package*/ IValueReader(IValueFactory vf, Supplier<TypeStore> typeStoreSupplier, TypeDictionary dictionary, int typeWindowSize, TrackLastRead<IValue> valueWindow, int uriWindowSize) {
         WindowCacheFactory windowFactory = WindowCacheFactory.getInstance();
         typeWindow = windowFactory.getTrackLastRead(typeWindowSize);
-        valueWindow = windowFactory.getTrackLastRead(valueWindowSize);
+        this.valueWindow = valueWindow;
         uriWindow = windowFactory.getTrackLastRead(uriWindowSize);
 
+        this.dictionary = dictionary;
+        this.declaredFromDictionary = new boolean[dictionary.size()];
         this.typeStoreSupplier = typeStoreSupplier;
 
         this.vf = vf;
         this.store = typeStoreSupplier.get();
     }
 
-    private void done() {
+    /*package*/ void done() {
         WindowCacheFactory windowFactory = WindowCacheFactory.getInstance();
         windowFactory.returnTrackLastRead(typeWindow);
         windowFactory.returnTrackLastRead(valueWindow);
@@ -142,13 +218,15 @@ public class IValueReader {
 
     private final IValueFactory vf;
     private final TypeStore store;
+    private final TypeDictionary dictionary;
+    private final boolean[] declaredFromDictionary;
 
     private final TrackLastRead<Type> typeWindow;
     private final TrackLastRead<IValue> valueWindow;
     private final TrackLastRead<ISourceLocation> uriWindow;
     
     @SuppressWarnings("deprecation")
-    private Type readType(final IWireInputStream reader) throws IOException{
+    /*package*/ Type readType(final IWireInputStream reader) throws IOException{
         reader.next();
         switch (reader.message()) {
             case IValueIDs.BoolType.ID:  
@@ -415,6 +493,25 @@ public class IValueReader {
                 }
             }
 
+            case IValueIDs.DictionaryType.ID: {
+                int index = -1;
+                while (reader.next() != IWireInputStream.MESSAGE_END) {
+                    switch (reader.field()){ 
+                        case IValueIDs.DictionaryType.INDEX:
+                            index = reader.getInteger();
+                            break;
+                        default:
+                            reader.skipNestedField();
+                            break;
+                    }
+                }
+                if (index < 0 || index >= dictionary.size()) {
+                    throw new IOException("Missing or incorrect INDEX field in DictionaryType");
+                }
+
+                return fromDictionary(index);
+            }
+
             case IValueIDs.PreviousType.ID: {
                 int n = -1;
                 while (reader.next() != IWireInputStream.MESSAGE_END) {
@@ -438,6 +535,29 @@ public class IValueReader {
         }
     }
 
+    /**
+     * Data types from the dictionary are declared in the store of this reader, like the ones that are read inline.
+     * The dictionary could have been read into (or built from) another store.
+     */
+    private Type fromDictionary(int index) {
+        Type result = dictionary.get(index);
+        if (!declaredFromDictionary[index]) {
+            if (result.isAliased()) {
+                tf.aliasTypeFromTuple(store, result.getName(), result.getAliased(), result.getTypeParameters());
+            }
+            else if (result.isConstructor()) {
+                Type adt = result.getAbstractDataType();
+                tf.abstractDataTypeFromTuple(store, adt.getName(), adt.getTypeParameters());
+                tf.constructorFromTuple(store, adt, result.getName(), result.getFieldTypes());
+            }
+            else if (result.isAbstractData()) {
+                tf.abstractDataTypeFromTuple(store, result.getName(), result.getTypeParameters());
+            }
+            declaredFromDictionary[index] = true;
+        }
+        return result;
+    }
+
     private static <T extends @NonNull Object> T returnAndStore(boolean backReferenced, TrackLastRead<T> window, T value) {
         if (backReferenced) {
             window.read(value);
@@ -469,6 +589,23 @@ public class IValueReader {
         }
     }
 
+    /**
+     * Read a value without nested values, the start of the message has already been read.
+     */
+    /*package*/ IValue readAtom(final IWireInputStream reader) throws IOException {
+        switch (reader.message()) {
+            case IValueIDs.BoolValue.ID: return readBoolean(reader);
+            case IValueIDs.DateTimeValue.ID: return readDateTime(reader);
+            case IValueIDs.IntegerValue.ID: return readInteger(reader);
+            case IValueIDs.SourceLocationValue.ID: return readSourceLocation(reader);
+            case IValueIDs.RationalValue.ID: return readRational(reader);
+            case IValueIDs.RealValue.ID: return readReal(reader);
+            case IValueIDs.StringValue.ID: return readString(reader);
+            default:
+                throw new IllegalArgumentException("readAtom: " + reader.message());
+        }
+    }
+
     private IValue readPreviousValue(final IWireInputStream reader) throws IOException {
         int n = -1;
         while(reader.next() != IWireInputStream.MESSAGE_END){
@@ -886,7 +1023,7 @@ public class IValueReader {
         } 
         else {
             try {
-                loc = vf.sourceLocation(scheme, authority, path, query, fragment);
+                loc = SourceLocationCache.getShared().get(vf, scheme, authority, path, query, fragment);
             } catch (URISyntaxException e) {
                 throw new IOException(e);
             }
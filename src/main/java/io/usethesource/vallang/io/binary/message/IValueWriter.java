@@ -15,6 +15,8 @@ package io.usethesource.vallang.io.binary.message;
 import java.io.IOException;
 import java.util.HashSet;
 
+import org.checkerframework.checker.nullness.qual.NonNull;
+
 import io.usethesource.vallang.IBool;
 import io.usethesource.vallang.IConstructor;
 import io.usethesource.vallang.IDateTime;
@@ -31,13 +33,14 @@ import io.usethesource.vallang.ITuple;
 import io.usethesource.vallang.IValue;
 import io.usethesource.vallang.IValueFactory;
 import io.usethesource.vallang.io.binary.stream.IValueOutputStream;
+import io.usethesource.vallang.io.binary.util.SerializationStatistics;
+import io.usethesource.vallang.io.binary.util.SerializationStatistics.Window;
 import io.usethesource.vallang.io.binary.util.StacklessStructuredVisitor;
 import io.usethesource.vallang.io.binary.util.StructuredIValueVisitor;
 import io.usethesource.vallang.io.binary.util.TrackLastWritten;
 import io.usethesource.vallang.io.binary.util.WindowCacheFactory;
 import io.usethesource.vallang.io.binary.util.WindowSizes;
 import io.usethesource.vallang.io.binary.wire.IWireOutputStream;
-import io.usethesource.vallang.type.ITypeVisitor;
 import io.usethesource.vallang.type.Type;
 import io.usethesource.vallang.type.TypeStore;
 
@@ -57,14 +60,31 @@ public class IValueWriter {
      * @param value the value to write   @throws IOException
      */
     public static void write(IWireOutputStream writer, IValueFactory vf, WindowSizes size, IValue value) throws IOException {
+        write(writer, vf, size, TypeDictionary.EMPTY, false, value);
+    }
+
+    /**
+     * Write an IValue to an existing wire stream, types in the dictionary are written as a reference into the dictionary. <br />
+     * <br />
+     * In most cases you want to use the {@linkplain IValueOutputStream}.
+     *  
+     * @param writer the wire writer to use
+     * @param vf the value factory used to rewrite external value types
+     * @param size the window sizes to use
+     * @param dictionary the dictionary of types 
+     * @param embedDictionary write the dictionary into the stream, if false, only the id is written and the reader has to supply the same dictionary
+     * @param value the value to write   @throws IOException
+     */
+    public static void write(IWireOutputStream writer, IValueFactory vf, WindowSizes size, TypeDictionary dictionary, boolean embedDictionary, IValue value) throws IOException {
         final WindowCacheFactory windowFactory = WindowCacheFactory.getInstance();
         TrackLastWritten<Type> typeCache = windowFactory.getTrackLastWrittenReferenceEquality(size.typeWindow);
         TrackLastWritten<IValue> valueCache = windowFactory.getTrackLastWrittenReferenceEquality(size.valueWindow);
         TrackLastWritten<ISourceLocation> uriCache = windowFactory.getTrackLastWrittenReferenceEquality(size.uriWindow);
         try {
             writeHeader(writer, size.valueWindow, size.typeWindow, size.uriWindow);
+            writeDictionaryHeader(writer, vf, size, dictionary, embedDictionary);
             writer.writeNestedField(IValueIDs.Header.VALUE);
-            write(writer, vf, value, typeCache, valueCache, uriCache);
+            write(writer, vf, value, dictionary, track(writer, Window.TYPES, typeCache), track(writer, Window.VALUES, valueCache), track(writer, Window.SOURCE_LOCATIONS, uriCache));
             writer.endMessage();
         } finally {
             windowFactory.returnTrackLastWrittenReferenceEquality(typeCache);
@@ -90,7 +110,39 @@ public class IValueWriter {
         try {
             writeHeader(writer, size.valueWindow, size.typeWindow, size.uriWindow);
             writer.writeNestedField(IValueIDs.Header.TYPE);
-            write(writer, vf, type, typeCache, valueCache, uriCache);
+            write(writer, vf, type, TypeDictionary.EMPTY, track(writer, Window.TYPES, typeCache), track(writer, Window.VALUES, valueCache), track(writer, Window.SOURCE_LOCATIONS, uriCache));
+            writer.endMessage();
+        } finally {
+            windowFactory.returnTrackLastWrittenReferenceEquality(typeCache);
+            windowFactory.returnTrackLastWrittenReferenceEquality(valueCache);
+            windowFactory.returnTrackLastWrittenReferenceEquality(uriCache);
+        }
+    }
+
+    /**
+     * Write a type dictionary (the schema section) to an existing wire stream. 
+     * Use {@link IValueReader#readTypeDictionary} to read it back, the result can be shared between many value streams.
+     *  
+     * @param writer the wire writer to use
+     * @param vf the value factory used to rewrite external value types
+     * @param size the window sizes to use, only the type window is used
+     * @param dictionary the dictionary to write
+     * @throws IOException
+     */
+    public static void writeTypeDictionary(IWireOutputStream writer, IValueFactory vf, WindowSizes size, TypeDictionary dictionary) throws IOException {
+        final WindowCacheFactory windowFactory = WindowCacheFactory.getInstance();
+        TrackLastWritten<Type> typeCache = windowFactory.getTrackLastWrittenReferenceEquality(size.typeWindow);
+        TrackLastWritten<IValue> valueCache = windowFactory.getTrackLastWrittenReferenceEquality(0);
+        TrackLastWritten<ISourceLocation> uriCache = windowFactory.getTrackLastWrittenReferenceEquality(0);
+        try {
+            writer.startMessage(IValueIDs.TypeSchema.ID);
+            writer.writeField(IValueIDs.TypeSchema.DICTIONARY_ID, dictionary.getId());
+            writer.writeField(IValueIDs.TypeSchema.TYPE_WINDOW, size.typeWindow);
+            writer.writeRepeatedNestedField(IValueIDs.TypeSchema.TYPES, dictionary.size());
+            for (int i = 0; i < dictionary.size(); i++) {
+                // entries only refer to each other through the type window, the reader builds the dictionary while reading them
+                write(writer, vf, dictionary.get(i), TypeDictionary.EMPTY, track(writer, Window.TYPES, typeCache), valueCache, uriCache);
+            }
             writer.endMessage();
         } finally {
             windowFactory.returnTrackLastWrittenReferenceEquality(typeCache);
@@ -107,256 +159,174 @@ public class IValueWriter {
         writer.writeField(IValueIDs.Header.SOURCE_LOCATION_WINDOW, uriWindowSize);
     }
 
-    private static void write(final IWireOutputStream writer, IValueFactory vf, final Type type, final TrackLastWritten<Type> typeCache, final TrackLastWritten<IValue> valueCache, final TrackLastWritten<ISourceLocation> uriCache) throws IOException {
-        type.accept(new ITypeVisitor<Void, IOException>() {
+    private static void writeDictionaryHeader(IWireOutputStream writer, IValueFactory vf, WindowSizes size, TypeDictionary dictionary, boolean embedDictionary) throws IOException {
+        if (dictionary.isEmpty()) {
+            return;
+        }
+        if (embedDictionary) {
+            writer.writeNestedField(IValueIDs.Header.TYPE_DICTIONARY);
+            writeTypeDictionary(writer, vf, size, dictionary);
+        }
+        else {
+            writer.writeField(IValueIDs.Header.TYPE_DICTIONARY_ID, dictionary.getId());
+        }
+    }
 
-            private boolean writeFromCache(Type type) throws IOException {
-                int lastSeen = typeCache.howLongAgo(type); 
-                if (lastSeen != -1) { 
-                    writeSingleValueMessage(writer, IValueIDs.PreviousType.ID, IValueIDs.PreviousType.HOW_LONG_AGO, lastSeen);
-                    return true;
-                }
-                return false;
-            }
+    private static <T extends @NonNull Object> TrackLastWritten<T> track(IWireOutputStream writer, Window window, TrackLastWritten<T> cache) {
+        SerializationStatistics statistics = writer.getStatistics();
+        return statistics == null ? cache : statistics.track(window, cache);
+    }
 
-            @Override
-            public Void visitAbstractData(Type type) throws IOException {
-                if (writeFromCache(type)) {
-                    return null;
-                }
+    private static void write(final IWireOutputStream writer, IValueFactory vf, final Type type, final TypeDictionary dictionary, final TrackLastWritten<Type> typeCache, final TrackLastWritten<IValue> valueCache, final TrackLastWritten<ISourceLocation> uriCache) throws IOException {
+        // dispatch on the kind tag rather than an ITypeVisitor, which would be allocated for every (nested) type
+        switch (type.getKind()) {
+            case Type.KIND_BOOL:
+                writer.writeEmptyMessage(IValueIDs.BoolType.ID);
+                return;
+            case Type.KIND_DATE_TIME:
+                writer.writeEmptyMessage(IValueIDs.DateTimeType.ID);
+                return;
+            case Type.KIND_INTEGER:
+                writer.writeEmptyMessage(IValueIDs.IntegerType.ID);
+                return;
+            case Type.KIND_NODE:
+                writer.writeEmptyMessage(IValueIDs.NodeType.ID);
+                return;
+            case Type.KIND_NUMBER:
+                writer.writeEmptyMessage(IValueIDs.NumberType.ID);
+                return;
+            case Type.KIND_RATIONAL:
+                writer.writeEmptyMessage(IValueIDs.RationalType.ID);
+                return;
+            case Type.KIND_REAL:
+                writer.writeEmptyMessage(IValueIDs.RealType.ID);
+                return;
+            case Type.KIND_SOURCE_LOCATION:
+                writer.writeEmptyMessage(IValueIDs.SourceLocationType.ID);
+                return;
+            case Type.KIND_STRING:
+                writer.writeEmptyMessage(IValueIDs.StringType.ID);
+                return;
+            case Type.KIND_VALUE:
+                writer.writeEmptyMessage(IValueIDs.ValueType.ID);
+                return;
+            case Type.KIND_VOID:
+                writer.writeEmptyMessage(IValueIDs.VoidType.ID);
+                return;
+            case Type.KIND_FUNCTION:
+                // TODO: there are no function values yet to serialize
+                return;
+            default:
+                break;
+        }
+
+        if (writeFromCache(writer, type, dictionary, typeCache)) {
+            return;
+        }
+
+        switch (type.getKind()) {
+            case Type.KIND_ABSTRACT_DATA:
                 writer.startMessage(IValueIDs.ADTType.ID);
                 writeCanBeBackReferenced(writer);
                 writer.writeField(IValueIDs.ADTType.NAME, type.getName());
 
                 writer.writeNestedField(IValueIDs.ADTType.TYPE_PARAMS);
-                type.getTypeParameters().accept(this);
-
-                writer.endMessage();
-                typeCache.write(type);
-                return null;
-            }
-
-            @Override
-            public Void visitAlias(Type type) throws IOException {
-                if (writeFromCache(type)) {
-                    return null;
-                }
+                write(writer, vf, type.getTypeParameters(), dictionary, typeCache, valueCache, uriCache);
+                break;
+            case Type.KIND_ALIAS:
                 writer.startMessage(IValueIDs.AliasType.ID);
                 writeCanBeBackReferenced(writer);
                 writer.writeField(IValueIDs.AliasType.NAME, type.getName());
 
                 writer.writeNestedField(IValueIDs.AliasType.ALIASED);
-                type.getAliased().accept(this);
+                write(writer, vf, type.getAliased(), dictionary, typeCache, valueCache, uriCache);
 
                 writer.writeNestedField(IValueIDs.AliasType.TYPE_PARAMS);
-                type.getTypeParameters().accept(this);
-
-                writer.endMessage();
-                typeCache.write(type);
-                return null;
-            }
-
-            @Override
-            public Void visitConstructor(Type type) throws IOException {
-                if (writeFromCache(type)) {
-                    return null;
-                }
+                write(writer, vf, type.getTypeParameters(), dictionary, typeCache, valueCache, uriCache);
+                break;
+            case Type.KIND_CONSTRUCTOR:
                 writer.startMessage(IValueIDs.ConstructorType.ID);
                 writeCanBeBackReferenced(writer);
                 writer.writeField(IValueIDs.ConstructorType.NAME, type.getName());
 
                 writer.writeNestedField(IValueIDs.ConstructorType.ADT);
-                type.getAbstractDataType().accept(this);
+                write(writer, vf, type.getAbstractDataType(), dictionary, typeCache, valueCache, uriCache);
 
                 writer.writeNestedField(IValueIDs.ConstructorType.FIELD_TYPES);
-                type.getFieldTypes().accept(this);
-
-                writer.endMessage();
-                typeCache.write(type);
-                return null;
-            }
-
-            @Override
-            public Void visitExternal(Type type) throws IOException {
-                if (writeFromCache(type)) {
-                    return null;
-                }
+                write(writer, vf, type.getFieldTypes(), dictionary, typeCache, valueCache, uriCache);
+                break;
+            case Type.KIND_EXTERNAL:
                 writer.startMessage(IValueIDs.ExternalType.ID);
                 writeCanBeBackReferenced(writer);
 
                 writer.writeNestedField(IValueIDs.ExternalType.SYMBOL);
                 IConstructor symbol = type.asSymbol(vf, new TypeStore(), vf.setWriter(), new HashSet<>());
-                write(writer, vf, symbol, typeCache, valueCache, uriCache);
-
-                writer.endMessage();
-                typeCache.write(type);
-                return null;
-            }
-
-            @Override
-            public Void visitList(Type type) throws IOException {
-                if (writeFromCache(type)) {
-                    return null;
-                }
+                write(writer, vf, symbol, dictionary, typeCache, valueCache, uriCache);
+                break;
+            case Type.KIND_LIST:
                 writer.startMessage(IValueIDs.ListType.ID);
                 writeCanBeBackReferenced(writer);
 
                 writer.writeNestedField(IValueIDs.ListType.ELEMENT_TYPE);
-                type.getElementType().accept(this);
-
-                writer.endMessage();
-                typeCache.write(type);
-                return null;
-            }
-
-            @Override
-            public Void visitMap(Type type) throws IOException {
-                if (writeFromCache(type)) {
-                    return null;
-                }
-
+                write(writer, vf, type.getElementType(), dictionary, typeCache, valueCache, uriCache);
+                break;
+            case Type.KIND_MAP:
                 writer.startMessage(IValueIDs.MapType.ID);
                 writeCanBeBackReferenced(writer);
 
                 writer.writeNestedField(IValueIDs.MapType.KEY_TYPE);
-                type.getKeyType().accept(this);
+                write(writer, vf, type.getKeyType(), dictionary, typeCache, valueCache, uriCache);
                 writer.writeNestedField(IValueIDs.MapType.VALUE_TYPE);
-                type.getValueType().accept(this);
-
-                writer.endMessage();
-                typeCache.write(type);
-                return null;
-            }
-
-            @Override
-            public Void visitParameter(Type type) throws IOException {
-                if (writeFromCache(type)) {
-                    return null;
-                }
+                write(writer, vf, type.getValueType(), dictionary, typeCache, valueCache, uriCache);
+                break;
+            case Type.KIND_PARAMETER:
                 writer.startMessage(IValueIDs.ParameterType.ID);
                 writeCanBeBackReferenced(writer);
                 writer.writeField(IValueIDs.ParameterType.NAME, type.getName());
 
                 writer.writeNestedField(IValueIDs.ParameterType.BOUND);
-                type.getBound().accept(this);
-
-                writer.endMessage();
-                typeCache.write(type);
-                return null;
-            }
-
-            @Override
-            public Void visitSet(Type type) throws IOException {
-                if (writeFromCache(type)) {
-                    return null;
-                }
+                write(writer, vf, type.getBound(), dictionary, typeCache, valueCache, uriCache);
+                break;
+            case Type.KIND_SET:
                 writer.startMessage(IValueIDs.SetType.ID);
                 writeCanBeBackReferenced(writer);
 
                 writer.writeNestedField(IValueIDs.SetType.ELEMENT_TYPE);
-                type.getElementType().accept(this);
-
-                writer.endMessage();
-                typeCache.write(type);
-                return null;
-            }
-
-            @Override
-            public Void visitTuple(Type type) throws IOException {
-                if (writeFromCache(type)) {
-                    return null;
-                }
+                write(writer, vf, type.getElementType(), dictionary, typeCache, valueCache, uriCache);
+                break;
+            case Type.KIND_TUPLE:
                 writer.startMessage(IValueIDs.TupleType.ID);
                 writeCanBeBackReferenced(writer);
 
-
                 writer.writeRepeatedNestedField(IValueIDs.TupleType.TYPES, type.getArity());
-                for(int i = 0; i < type.getArity(); i++){
-                    type.getFieldType(i).accept(this);
+                for (int i = 0; i < type.getArity(); i++) {
+                    write(writer, vf, type.getFieldType(i), dictionary, typeCache, valueCache, uriCache);
                 }
 
-
-                if( type.hasFieldNames()){
+                if (type.hasFieldNames()) {
                     writer.writeField(IValueIDs.TupleType.NAMES, type.getFieldNames());
                 }
+                break;
+            default:
+                throw new IllegalArgumentException("Unexpected kind of type: " + type);
+        }
 
-                writer.endMessage();
-                typeCache.write(type);
-                return null;
-            }
-
-            @Override
-            public Void visitFunction(Type type) throws IOException {
-                // TODO: there are no function values yet to serialize
-                return null;
-            }
-
-            @Override
-            public Void visitBool(Type t) throws IOException {
-                writer.writeEmptyMessage(IValueIDs.BoolType.ID);
-                return null;
-            }
-
-            @Override
-            public Void visitDateTime(Type t) throws IOException {
-                writer.writeEmptyMessage(IValueIDs.DateTimeType.ID);
-                return null;
-            }
-
-            @Override
-            public Void visitInteger(Type t) throws IOException {
-                writer.writeEmptyMessage(IValueIDs.IntegerType.ID);
-                return null;
-            }
-
-            @Override
-            public Void visitNode(Type t) throws IOException {
-                writer.writeEmptyMessage(IValueIDs.NodeType.ID);
-                return null;
-            }
-
-            @Override
-            public Void visitNumber(Type t) throws IOException {
-                writer.writeEmptyMessage(IValueIDs.NumberType.ID);
-                return null;
-            }
-
-            @Override
-            public Void visitRational(Type t) throws IOException {
-                writer.writeEmptyMessage(IValueIDs.RationalType.ID);
-                return null;
-            }
-
-            @Override
-            public Void visitReal(Type t) throws IOException {
-                writer.writeEmptyMessage(IValueIDs.RealType.ID);
-                return null;
-            }
-
-            @Override
-            public Void visitSourceLocation(Type t) throws IOException {
-                writer.writeEmptyMessage(IValueIDs.SourceLocationType.ID);
-                return null;
-            }
-
-            @Override
-            public Void visitString(Type t) throws IOException {
-                writer.writeEmptyMessage(IValueIDs.StringType.ID);
-                return null;
-            }
-
-            @Override
-            public Void visitValue(Type t) throws IOException {
-                writer.writeEmptyMessage(IValueIDs.ValueType.ID);
-                return null;
-            }
+        writer.endMessage();
+        typeCache.write(type);
+    }
 
-            @Override
-            public Void visitVoid(Type t) throws IOException {
-                writer.writeEmptyMessage(IValueIDs.VoidType.ID);
-                return null;
-            }
-        });
+    private static boolean writeFromCache(final IWireOutputStream writer, Type type, final TypeDictionary dictionary, final TrackLastWritten<Type> typeCache) throws IOException {
+        int inDictionary = dictionary.indexOf(type);
+        if (inDictionary != -1) {
+            writeSingleValueMessage(writer, IValueIDs.DictionaryType.ID, IValueIDs.DictionaryType.INDEX, inDictionary);
+            return true;
+        }
+        int lastSeen = typeCache.howLongAgo(type); 
+        if (lastSeen != -1) { 
+            writeSingleValueMessage(writer, IValueIDs.PreviousType.ID, IValueIDs.PreviousType.HOW_LONG_AGO, lastSeen);
+            return true;
+        }
+        return false;
     }
     
     private static void writeSingleValueMessage(final IWireOutputStream writer, int messageID, int fieldId, int fieldValue) throws IOException {
@@ -374,7 +344,7 @@ public class IValueWriter {
         writer.writeField(IValueIDs.Common.CAN_BE_BACK_REFERENCED, 1);
     }
 
-    private static void write(final IWireOutputStream writer, IValueFactory vf, final IValue value, final TrackLastWritten<Type> typeCache, final TrackLastWritten<IValue> valueCache, final TrackLastWritten<ISourceLocation> uriCache) throws IOException {
+    private static void write(final IWireOutputStream writer, IValueFactory vf, final IValue value, final TypeDictionary dictionary, final TrackLastWritten<Type> typeCache, final TrackLastWritten<IValue> valueCache, final TrackLastWritten<ISourceLocation> uriCache) throws IOException {
         final IInteger MININT = vf.integer(Integer.MIN_VALUE);
         final IInteger MAXINT = vf.integer(Integer.MAX_VALUE);
 
@@ -398,7 +368,7 @@ public class IValueWriter {
                 writeCanBeBackReferenced(writer);
 
                 writer.writeNestedField(IValueIDs.ConstructorValue.TYPE);
-                write(writer, vf, cons.getUninstantiatedConstructorType(), typeCache, valueCache, uriCache);
+                write(writer, vf, cons.getUninstantiatedConstructorType(), dictionary, typeCache, valueCache, uriCache);
 
                 if (children > 0) {
                     writer.writeRepeatedNestedField(IValueIDs.ConstructorValue.PARAMS, children);
@@ -0,0 +1,92 @@
+package io.usethesource.vallang.io.binary.message;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import io.usethesource.vallang.type.Type;
+import io.usethesource.vallang.type.TypeStore;
+
+/**
+ * A table of types that is serialized once (the schema section) and referenced by index from value streams. <br />
+ * <br />
+ * Types are canonical (see {@link io.usethesource.vallang.type.TypeFactory}), so the lookup is based on reference equality.
+ * A dictionary can be shared between many streams: write it once using {@link IValueWriter#writeTypeDictionary}, read it once using
+ * {@link IValueReader#readTypeDictionary}, and pass the result to the writers and readers of the value streams.
+ * The id of the dictionary is stored in the header of every stream, so a reader can detect that it was given the wrong dictionary.
+ */
+public final class TypeDictionary {
+    public static final TypeDictionary EMPTY = new TypeDictionary(0, new Type[0]);
+
+    private final int id;
+    private final Type[] types;
+    private final Map<Type, Integer> index;
+
+    /**
+     * @param id an identifier stored in every stream that refers to this dictionary, choose a different one for every version of the dictionary
+     * @param types the types in the dictionary, their order defines their index
+     */
+    public TypeDictionary(int id, Collection<Type> types) {
+        this(id, types.toArray(new Type[0]));
+    }
+
+    /*package*/ TypeDictionary(int id, Type[] types) {
+        this.id = id;
+        this.types = types;
+        this.index = new IdentityHashMap<>(types.length);
+        for (int i = 0; i < types.length; i++) {
+            index.putIfAbsent(types[i], i);
+        }
+    }
+
+    /**
+     * Construct a dictionary of all the abstract data types, constructors and aliases declared in a store and in the stores it imports
+     * (as for the lookups of a store, the imports of imported stores are not included).
+     */
+    public static TypeDictionary fromStore(int id, TypeStore store) {
+        Set<Type> result = new LinkedHashSet<>();
+        addDeclarations(result, store);
+        for (TypeStore imported : store.getImports()) {
+            addDeclarations(result, imported);
+        }
+        return new TypeDictionary(id, result);
+    }
+
+    private static void addDeclarations(Set<Type> result, TypeStore store) {
+        result.addAll(store.getAbstractDataTypes());
+        result.addAll(store.getConstructors());
+        result.addAll(store.getAliases());
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int size() {
+        return types.length;
+    }
+
+    public boolean isEmpty() {
+        return types.length == 0;
+    }
+
+    /**
+     * @return the index of the type in the dictionary, or -1 if it is not in the dictionary
+     */
+    public int indexOf(Type type) {
+        Integer result = index.get(type);
+        return result == null ? -1 : result;
+    }
+
+    public Type get(int index) {
+        return types[index];
+    }
+
+    @Override
+    public String toString() {
+        return "TypeDictionary(" + id + ", " + Arrays.toString(types) + ")";
+    }
+}
@@ -30,6 +30,7 @@ import java.util.zip.GZIPInputStream;
 import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
 import org.apache.commons.compress.compressors.gzip.GzipParameters;
 import org.apache.commons.compress.compressors.xz.XZCompressorOutputStream;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.tukaani.xz.XZInputStream;
 
 import com.github.luben.zstd.ZstdInputStream;
@@ -69,7 +70,21 @@ import io.usethesource.vallang.io.binary.util.DirectZstdInputStream;
         }
     }
 
+    /**
+     * Compress with zstd using a dictionary, the caller has to write the {@link Header.Compression#ZSTD_DICTIONARY} header followed by the id of the dictionary
+     */
+    public static OutputStream wrapStream(OutputStream rawStream, ZstdDictionary dictionary, int level) throws IOException {
+        return new ZstdOutputStream(rawStream, level).setDict(dictionary.forCompression(level));
+    }
+
     public static InputStream wrapStream(InputStream raw, int algorithm) throws IOException {
+        return wrapStream(raw, algorithm, null);
+    }
+
+    /**
+     * @param dictionary the dictionary to use in case the stream was compressed with a zstd dictionary
+     */
+    public static InputStream wrapStream(InputStream raw, int algorithm, @Nullable ZstdDictionary dictionary) throws IOException {
         switch (algorithm) {
             case Header.Compression.NONE:
                 return raw;
@@ -87,8 +102,40 @@ import io.usethesource.vallang.io.binary.util.DirectZstdInputStream;
                 else {
                     throw new IOException("There is no native zstd library available for the current architecture.");
                 }
+            case Header.Compression.ZSTD_DICTIONARY: {
+                int id = readDictionaryId(raw);
+                if (dictionary == null || dictionary.getId() != id) {
+                    throw new IOException("Stream is compressed with zstd dictionary " + id + " which was not supplied");
+                }
+                if (!Compressor.zstdAvailable()) {
+                    throw new IOException("There is no native zstd library available for the current architecture.");
+                }
+                if (raw instanceof ByteBufferInputStream && ((ByteBufferInputStream)raw).getByteBuffer().isDirect()) {
+                    return new DirectZstdInputStream((ByteBufferInputStream) raw, dictionary.forDecompression());
+                }
+                return new ZstdInputStream(raw).setDict(dictionary.forDecompression());
+            }
             default:
                 throw new IOException("Unsupported compression format");
         }
     }
+
+    public static void writeDictionaryId(OutputStream out, int id) throws IOException {
+        out.write(id >>> 24);
+        out.write(id >>> 16);
+        out.write(id >>> 8);
+        out.write(id);
+    }
+
+    private static int readDictionaryId(InputStream in) throws IOException {
+        int result = 0;
+        for (int i = 0; i < 4; i++) {
+            int b = in.read();
+            if (b == -1) {
+                throw new IOException("Unexpected end of stream");
+            }
+            result = (result << 8) | b;
+        }
+        return result;
+    }
 }
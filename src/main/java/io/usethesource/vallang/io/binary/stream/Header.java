@@ -19,6 +19,7 @@ package io.usethesource.vallang.io.binary.stream;
         public static final byte GZIP = 1;
         public static final byte XZ = 2;
         public static final byte ZSTD = 3;
+        public static final byte ZSTD_DICTIONARY = 4; // followed by the 4 byte id of the dictionary
     }
 
 }
@@ -22,7 +22,10 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 
 import io.usethesource.vallang.IValue;
 import io.usethesource.vallang.IValueFactory;
+import io.usethesource.vallang.io.binary.message.IValueEventReader;
+import io.usethesource.vallang.io.binary.message.IValueEventVisitor;
 import io.usethesource.vallang.io.binary.message.IValueReader;
+import io.usethesource.vallang.io.binary.message.TypeDictionary;
 import io.usethesource.vallang.io.binary.util.FileChannelDirectInputStream;
 import io.usethesource.vallang.io.binary.wire.binary.BinaryWireInputStream;
 import io.usethesource.vallang.type.TypeStore;
@@ -37,13 +40,47 @@ public class IValueInputStream implements Closeable {
     private final @Nullable BinaryWireInputStream reader;
     private final IValueFactory vf;
     private final Supplier<TypeStore> typeStoreSupplier;
+    private TypeDictionary typeDictionary; // replaced by the dictionary embedded in the stream, which is only written with the first value
+
+    /**
+     * The optional settings of an {@link IValueInputStream}, they have to match the {@link IValueOutputStream.Options} the stream was written with, for example: <br />
+     * <code>new IValueInputStream(in, vf, () -> store, new Options().typeDictionary(dictionary))</code>
+     */
+    public static final class Options {
+        private TypeDictionary typeDictionary = TypeDictionary.EMPTY;
+        private @Nullable ZstdDictionary compressionDictionary = null;
+
+        /**
+         * @param typeDictionary the dictionary the stream was written with (in case it was not embedded in the stream)
+         */
+        public Options typeDictionary(TypeDictionary typeDictionary) {
+            this.typeDictionary = typeDictionary;
+            return this;
+        }
+
+        /**
+         * @param compressionDictionary the zstd dictionary the stream was compressed with
+         */
+        public Options compressionDictionary(ZstdDictionary compressionDictionary) {
+            this.compressionDictionary = compressionDictionary;
+            return this;
+        }
+    }
 
     /**
      * This will <strong>consume</strong> the whole stream (or at least more than needed due to buffering), don't use the InputStream afterwards!
      */
     public IValueInputStream(InputStream in, IValueFactory vf, Supplier<TypeStore> typeStoreSupplier) throws IOException {
+        this(in, vf, typeStoreSupplier, new Options());
+    }
+
+    /**
+     * This will <strong>consume</strong> the whole stream (or at least more than needed due to buffering), don't use the InputStream afterwards!
+     */
+    public IValueInputStream(InputStream in, IValueFactory vf, Supplier<TypeStore> typeStoreSupplier, Options options) throws IOException {
         this.vf = vf;
         this.typeStoreSupplier = typeStoreSupplier;
+        this.typeDictionary = options.typeDictionary;
         byte[] currentHeader = new byte[Header.MAIN.length];
         int read = 0;
         while (read < currentHeader.length) {
@@ -51,7 +88,7 @@ public class IValueInputStream implements Closeable {
         }
 
         int compression = in.read();
-        in = Compressor.wrapStream(in, compression);
+        in = Compressor.wrapStream(in, compression, options.compressionDictionary);
         reader = new BinaryWireInputStream(in);
     }
     
@@ -60,11 +97,25 @@ public class IValueInputStream implements Closeable {
         this(new FileChannelDirectInputStream(channel), vf, typeStoreSupplier);
     }
 
+    public IValueInputStream(FileChannel channel, IValueFactory vf, Supplier<TypeStore> typeStoreSupplier, Options options) throws IOException {
+        this(new FileChannelDirectInputStream(channel), vf, typeStoreSupplier, options);
+    }
+
     public IValue read() throws IOException {
         if (reader == null) {
             throw new IllegalStateException("Incorrect initialization");
         }
-        return IValueReader.readValue(reader, vf, typeStoreSupplier);
+        return IValueReader.readValue(reader, vf, typeStoreSupplier, typeDictionary, embedded -> typeDictionary = embedded);
+    }
+
+    /**
+     * Read the next value as a stream of events, without building it.
+     */
+    public <E extends Throwable> void read(IValueEventVisitor<E> visitor) throws IOException, E {
+        if (reader == null) {
+            throw new IllegalStateException("Incorrect initialization");
+        }
+        IValueEventReader.read(reader, vf, typeStoreSupplier, typeDictionary, embedded -> typeDictionary = embedded, visitor);
     }
     
     @Override
@@ -20,14 +20,18 @@ import java.io.OutputStream;
 import java.nio.channels.FileChannel;
 
 import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import io.usethesource.vallang.IValue;
 import io.usethesource.vallang.IValueFactory;
 import io.usethesource.vallang.io.binary.message.IValueWriter;
+import io.usethesource.vallang.io.binary.message.TypeDictionary;
 import io.usethesource.vallang.io.binary.util.ByteBufferOutputStream;
+import io.usethesource.vallang.io.binary.util.CountingOutputStream;
 import io.usethesource.vallang.io.binary.util.DelayedCompressionOutputStream;
 import io.usethesource.vallang.io.binary.util.DelayedZstdOutputStream;
 import io.usethesource.vallang.io.binary.util.FileChannelDirectOutputStream;
+import io.usethesource.vallang.io.binary.util.SerializationStatistics;
 import io.usethesource.vallang.io.binary.util.WindowSizes;
 import io.usethesource.vallang.io.binary.wire.IWireOutputStream;
 import io.usethesource.vallang.io.binary.wire.binary.BinaryWireOutputStream;
@@ -50,21 +54,27 @@ public class IValueOutputStream implements Closeable {
         /**
          * Use only for debugging!
          */
-        NoSharing(Header.Compression.NONE, 0),
-        None(Header.Compression.NONE, 0),
-        Light(Header.Compression.ZSTD, 1),
-        Normal(Header.Compression.ZSTD, 5),
-        Strong(Header.Compression.ZSTD, 13),
-        Extreme(Header.Compression.XZ, 6),
-        XML(Compression.NONE, 0)
+        NoSharing(Header.Compression.NONE, 0, WindowSizes.NO_WINDOW),
+        None(Header.Compression.NONE, 0, WindowSizes.NO_WINDOW),
+        Light(Header.Compression.ZSTD, 1, WindowSizes.NORMAL_WINDOW),
+        Normal(Header.Compression.ZSTD, 5, WindowSizes.NORMAL_WINDOW),
+        Strong(Header.Compression.ZSTD, 13, WindowSizes.LARGE_WINDOW),
+        Extreme(Header.Compression.XZ, 6, WindowSizes.LARGE_WINDOW),
+        /**
+         * Every shared value is written only once, and read back shared (a DAG stays a DAG), at the cost of memory proportional to the size of the value
+         */
+        ExactSharing(Header.Compression.ZSTD, 5, WindowSizes.EXACT_SHARING),
+        XML(Compression.NONE, 0, WindowSizes.NO_WINDOW)
         ;
 
         private final int compressionAlgorithm;
         private final int compressionLevel;
+        private final WindowSizes maxWindows; // the windows are sized per value (see WindowSizes.estimate), up to this maximum
 
-        CompressionRate(int compressionAlgorithm, int compressionLevel) {
+        CompressionRate(int compressionAlgorithm, int compressionLevel, WindowSizes maxWindows) {
             this.compressionLevel = compressionLevel;
             this.compressionAlgorithm = compressionAlgorithm;
+            this.maxWindows = maxWindows;
         } 
     }
     
@@ -75,6 +85,58 @@ public class IValueOutputStream implements Closeable {
     private OutputStream rawStream;
     private @MonotonicNonNull IWireOutputStream writer;
     private final IValueFactory vf;
+    private final TypeDictionary typeDictionary;
+    private boolean embedTypeDictionary; // only the first value embeds the dictionary, the next ones refer to its id
+    private final @Nullable SerializationStatistics statistics;
+    private final @Nullable ByteBufferOutputStream countedStream;
+    private final long countedOffset;
+    private final @Nullable ZstdDictionary compressionDictionary;
+
+    private static final int LATER_VALUES_WALK_LIMIT = WindowSizes.SMALL_WINDOW.valueWindow;
+
+    /**
+     * The optional settings of an {@link IValueOutputStream}, for example: <br />
+     * <code>new IValueOutputStream(out, vf, new Options().compression(CompressionRate.Strong).statistics(statistics))</code>
+     */
+    public static final class Options {
+        private CompressionRate compression = CompressionRate.Normal;
+        private TypeDictionary typeDictionary = TypeDictionary.EMPTY;
+        private boolean embedTypeDictionary = false;
+        private @Nullable SerializationStatistics statistics = null;
+        private @Nullable ZstdDictionary compressionDictionary = null;
+
+        public Options compression(CompressionRate compression) {
+            this.compression = compression;
+            return this;
+        }
+
+        /**
+         * @param typeDictionary types in this dictionary are written as a reference to their index in the dictionary
+         * @param embedTypeDictionary store the dictionary in the stream (with the first value), if false only its id is stored, and the {@link IValueInputStream} has to be supplied the same dictionary
+         */
+        public Options typeDictionary(TypeDictionary typeDictionary, boolean embedTypeDictionary) {
+            this.typeDictionary = typeDictionary;
+            this.embedTypeDictionary = embedTypeDictionary;
+            return this;
+        }
+
+        /**
+         * @param statistics the size of the messages, the effectiveness of the windows and the compression ratio are registered in this collector (after the stream is closed)
+         */
+        public Options statistics(SerializationStatistics statistics) {
+            this.statistics = statistics;
+            return this;
+        }
+
+        /**
+         * @param compressionDictionary zstd compressions use this dictionary, also for small values, the {@link IValueInputStream} has to be supplied the same dictionary.
+         * Only allowed for the compression rates that use zstd, if the native zstd library is not available (see {@link ZstdDictionary#isAvailable()}) the stream falls back to gzip without the dictionary.
+         */
+        public Options compressionDictionary(ZstdDictionary compressionDictionary) {
+            this.compressionDictionary = compressionDictionary;
+            return this;
+        }
+    }
 
     public IValueOutputStream(OutputStream out, IValueFactory vf) throws IOException {
         this(out, vf, CompressionRate.Normal);
@@ -86,10 +148,42 @@ public class IValueOutputStream implements Closeable {
 
     
     public IValueOutputStream(OutputStream out, IValueFactory vf, CompressionRate compression) throws IOException {
+        this(out, vf, new Options().compression(compression));
+    }
+
+    public IValueOutputStream(FileChannel channel, IValueFactory vf, Options options) throws IOException {
+        this(byteBufferedOutput(channel), vf, options);
+    }
+
+    public IValueOutputStream(OutputStream out, IValueFactory vf, Options options) throws IOException {
+        if (options.compressionDictionary != null && options.compression.compressionAlgorithm != Header.Compression.ZSTD) {
+            throw new IllegalArgumentException("A zstd dictionary can only be used with a compression rate that uses zstd, not with " + options.compression);
+        }
+        SerializationStatistics statistics = options.statistics;
+        if (statistics != null) {
+            if (out instanceof ByteBufferOutputStream) {
+                // keep the stream unwrapped, the direct zstd path needs access to its buffer
+                countedStream = (ByteBufferOutputStream) out;
+                countedOffset = countedStream.getBytesFlushed() + countedStream.getBuffer().position();
+            }
+            else {
+                countedStream = null;
+                countedOffset = 0;
+                out = new CountingOutputStream(out, statistics::compressedBytes);
+            }
+        }
+        else {
+            countedStream = null;
+            countedOffset = 0;
+        }
         out.write(Header.MAIN);
         this.rawStream = out;
-        this.compression = compression;
+        this.compression = options.compression;
         this.vf = vf;
+        this.typeDictionary = options.typeDictionary;
+        this.embedTypeDictionary = options.embedTypeDictionary;
+        this.statistics = statistics;
+        this.compressionDictionary = options.compressionDictionary;
     }
 
     private static OutputStream byteBufferedOutput(FileChannel channel) {
@@ -98,11 +192,22 @@ public class IValueOutputStream implements Closeable {
     
     
     public void write(IValue value) throws IOException {
-        WindowSizes sizes = compression.compressionLevel == 0 ? WindowSizes.NO_WINDOW : WindowSizes.NORMAL_WINDOW;
+        WindowSizes sizes;
+        if (compression.compressionLevel == 0) {
+            sizes = WindowSizes.NO_WINDOW;
+        }
+        else if (writer == null) {
+            sizes = WindowSizes.estimate(value, compression.maxWindows);
+        }
+        else {
+            // the stream is already set up, so the pre-pass only pays off for small values
+            sizes = WindowSizes.estimate(value, compression.maxWindows, LATER_VALUES_WALK_LIMIT);
+        }
         if (writer == null) {
             writer = initializeWriter(sizes);
         }
-        IValueWriter.write(writer, vf, sizes, value);
+        IValueWriter.write(writer, vf, sizes, typeDictionary, embedTypeDictionary, value);
+        embedTypeDictionary = false;
     }
 
 
@@ -118,11 +223,15 @@ public class IValueOutputStream implements Closeable {
         if (compression == CompressionRate.XML) {
             return new XMLWireOutputStream(rawStream);
         }
-        if (sizes == WindowSizes.NO_WINDOW || sizes == WindowSizes.TINY_WINDOW) {
-            compression = CompressionRate.None;
-        }
+        // the algorithm holds for the whole stream, even if the first value is tiny, the delayed streams do not compress tiny payloads
         int algorithm = fallbackIfNeeded(compression.compressionAlgorithm);
-        if (rawStream instanceof ByteBufferOutputStream && algorithm == Header.Compression.ZSTD && ((ByteBufferOutputStream)rawStream).getBuffer().isDirect()) {
+        if (compressionDictionary != null && algorithm == Header.Compression.ZSTD) {
+            // no delayed compression, with a dictionary even the smallest values compress well
+            rawStream.write(Header.Compression.ZSTD_DICTIONARY);
+            Compressor.writeDictionaryId(rawStream, compressionDictionary.getId());
+            rawStream = Compressor.wrapStream(rawStream, compressionDictionary, compression.compressionLevel);
+        }
+        else if (rawStream instanceof ByteBufferOutputStream && algorithm == Header.Compression.ZSTD && ((ByteBufferOutputStream)rawStream).getBuffer().isDirect()) {
             rawStream = new DelayedZstdOutputStream((ByteBufferOutputStream)rawStream, algorithm, compression.compressionLevel);
         }
         else {
@@ -130,17 +239,26 @@ public class IValueOutputStream implements Closeable {
                 Compressor.wrapStream(o, algorithm, compression.compressionLevel)
             );
         }
-        return new BinaryWireOutputStream(rawStream, sizes.stringsWindow);
+        // the strings window of the wire is shared by all values in the stream, so it cannot be sized by the first value
+        int stringsWindow = sizes == WindowSizes.NO_WINDOW ? sizes.stringsWindow : compression.maxWindows.stringsWindow;
+        return new BinaryWireOutputStream(rawStream, stringsWindow, 8*1024, statistics);
     }
 
 
     @Override
     public void close() throws IOException {
-        if (writer != null) {
-            writer.close();
+        try {
+            if (writer != null) {
+                writer.close();
+            }
+            else {
+                rawStream.close();
+            }
         }
-        else {
-            rawStream.close();
+        finally {
+            if (statistics != null && countedStream != null) {
+                statistics.compressedBytes(countedStream.getBytesFlushed() - countedOffset);
+            }
         }
     }
 }
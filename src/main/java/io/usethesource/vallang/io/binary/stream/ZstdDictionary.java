@@ -0,0 +1,76 @@
+package io.usethesource.vallang.io.binary.stream;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+
+/**
+ * A zstd dictionary, trained on a corpus of representative streams using the {@link ZstdDictionaryTrainer}. <br />
+ * <br />
+ * Small streams compress badly since the compressor has no history yet, a dictionary supplies this history.
+ * The id of the dictionary is stored in the header of every stream that is compressed with it,
+ * the {@link IValueInputStream} has to be given the same dictionary to read the stream.
+ * Store the result of {@link #getContent()} next to your data, and construct a new dictionary from it when needed.
+ */
+public final class ZstdDictionary {
+    private static final int MAGIC = 0xEC30A437;
+
+    private final byte[] content;
+    private final int id;
+    private final ConcurrentMap<Integer, ZstdDictCompress> compressors = new ConcurrentHashMap<>();
+    private volatile @MonotonicNonNull ZstdDictDecompress decompressor;
+
+    public ZstdDictionary(byte[] content) {
+        this.content = content.clone();
+        this.id = readId(content);
+    }
+
+    /**
+     * Reads the id from the dictionary header, so that no native code is needed until the dictionary is used.
+     * Content without the zstd dictionary magic number is a raw content dictionary, which has id 0.
+     */
+    private static int readId(byte[] content) {
+        if (content.length < 8 || readIntLE(content, 0) != MAGIC) {
+            return 0;
+        }
+        return readIntLE(content, 4);
+    }
+
+    private static int readIntLE(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF)
+            | (bytes[offset + 1] & 0xFF) << 8
+            | (bytes[offset + 2] & 0xFF) << 16
+            | (bytes[offset + 3] & 0xFF) << 24;
+    }
+
+    /**
+     * @return if the native zstd library could be loaded, otherwise streams are compressed with gzip and dictionaries are not used
+     */
+    public static boolean isAvailable() {
+        return Compressor.zstdAvailable();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public byte[] getContent() {
+        return content.clone();
+    }
+
+    /*package*/ ZstdDictCompress forCompression(int level) {
+        return compressors.computeIfAbsent(level, l -> new ZstdDictCompress(content, l));
+    }
+
+    /*package*/ ZstdDictDecompress forDecompression() {
+        ZstdDictDecompress result = decompressor;
+        if (result == null) {
+            decompressor = result = new ZstdDictDecompress(content);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,66 @@
+package io.usethesource.vallang.io.binary.stream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.github.luben.zstd.ZstdDictTrainer;
+
+/**
+ * Trains a {@link ZstdDictionary} from a sample corpus of streams written by the {@link IValueOutputStream}. <br />
+ * <br />
+ * The samples are decompressed first, since the dictionary is used on the serialized values before compression.
+ * For a useful dictionary add a few hundred samples that are representative for the values that will be written.
+ */
+public final class ZstdDictionaryTrainer {
+    private final ZstdDictTrainer trainer;
+
+    /**
+     * @param sampleBufferSize the maximum amount of bytes of all the samples together
+     * @param dictionarySize the maximum size of the dictionary, normally around 100KB
+     * @throws IllegalStateException if there is no native zstd library available, check {@link ZstdDictionary#isAvailable()} first
+     */
+    public ZstdDictionaryTrainer(int sampleBufferSize, int dictionarySize) {
+        if (!Compressor.zstdAvailable()) {
+            throw new IllegalStateException("There is no native zstd library available for the current architecture.");
+        }
+        trainer = new ZstdDictTrainer(sampleBufferSize, dictionarySize);
+    }
+
+    /**
+     * @param serialized the bytes written by an {@link IValueOutputStream}
+     * @return false if the sample buffer is full
+     */
+    public boolean addSample(byte[] serialized) throws IOException {
+        return addSample(new ByteArrayInputStream(serialized));
+    }
+
+    /**
+     * @param serialized a stream written by an {@link IValueOutputStream}, it is consumed but not closed
+     * @return false if the sample buffer is full
+     */
+    public boolean addSample(InputStream serialized) throws IOException {
+        for (int i = 0; i < Header.MAIN.length; i++) {
+            if (serialized.read() != Header.MAIN[i]) {
+                throw new IOException("Sample is not written by an IValueOutputStream");
+            }
+        }
+        int compression = serialized.read();
+        if (compression == Header.Compression.ZSTD_DICTIONARY) {
+            throw new IOException("Sample is already compressed with a dictionary");
+        }
+        InputStream payload = Compressor.wrapStream(serialized, compression);
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8*1024];
+        int read;
+        while ((read = payload.read(buffer)) != -1) {
+            result.write(buffer, 0, read);
+        }
+        return trainer.addSample(result.toByteArray());
+    }
+
+    public ZstdDictionary train() {
+        return new ZstdDictionary(trainer.trainSamples());
+    }
+}
@@ -8,6 +8,7 @@ public abstract class ByteBufferOutputStream extends OutputStream {
     
     protected ByteBuffer target;
     protected boolean closed = false;
+    protected long flushed = 0;
     public ByteBufferOutputStream(ByteBuffer target) {
         this.target = target;
     }
@@ -17,6 +18,13 @@ public abstract class ByteBufferOutputStream extends OutputStream {
     public ByteBuffer getBuffer() {
         return target;
     }
+
+    /**
+     * @return the amount of bytes flushed so far
+     */
+    public long getBytesFlushed() {
+        return flushed;
+    }
     
     /***
      * Flush the buffer (that has been flipped already) and return the same buffer (but cleared) or a new buffer for the next round. 
@@ -33,6 +41,7 @@ public abstract class ByteBufferOutputStream extends OutputStream {
         }
         target.flip();
         if (target.hasRemaining()) {
+            flushed += target.remaining();
             target = flush(target);
         }
     }
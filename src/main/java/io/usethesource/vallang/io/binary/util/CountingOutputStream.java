@@ -0,0 +1,30 @@
+package io.usethesource.vallang.io.binary.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.IntConsumer;
+
+/**
+ * Reports the amount of bytes that pass through it to a consumer.
+ */
+public class CountingOutputStream extends FilterOutputStream {
+    private final IntConsumer counter;
+
+    public CountingOutputStream(OutputStream out, IntConsumer counter) {
+        super(out);
+        this.counter = counter;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        counter.accept(1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        counter.accept(len);
+    }
+}
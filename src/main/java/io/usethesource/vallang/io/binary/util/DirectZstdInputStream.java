@@ -4,6 +4,7 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 
+import com.github.luben.zstd.ZstdDictDecompress;
 import com.github.luben.zstd.ZstdDirectBufferDecompressingStream;
 
 public class DirectZstdInputStream extends ByteBufferInputStream {
@@ -17,6 +18,14 @@ public class DirectZstdInputStream extends ByteBufferInputStream {
         this.orginalStream = originalStream;
         decompressor = new ZstdDirectBufferDecompressingStream(originalStream.getByteBuffer());
     }
+
+    /**
+     * @param dictionary the dictionary the stream was compressed with
+     */
+    public DirectZstdInputStream(ByteBufferInputStream originalStream, ZstdDictDecompress dictionary) throws IOException {
+        this(originalStream);
+        decompressor.setDict(dictionary);
+    }
     
     @Override
     protected ByteBuffer refill(ByteBuffer torefill) throws IOException {
@@ -57,6 +57,7 @@ public class FileChannelDirectOutputStream extends ByteBufferOutputStream {
                 // directly write the remaining buffer to the channel
                 // skipping our internal buffer
                 assert target.position() == 0;
+                flushed += buf.remaining();
                 channel.write(buf);
             }
         }
@@ -0,0 +1,261 @@
+package io.usethesource.vallang.io.binary.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.IntFunction;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * Collects statistics while serializing values, to find out which kind of messages take up the space in a stream,
+ * and how effective the back-reference windows are (which helps to choose the {@link WindowSizes}). <br />
+ * <br />
+ * Bytes are attributed to the innermost message they are written in, so the size of a message does not include the size of its nested messages.
+ * Pass the same collector to multiple streams to aggregate the statistics of a workload.
+ * A collector is not thread safe, streams sharing a collector should be written one after another.
+ * The counters can be monitored via JMX by registering the collector with an MBeanServer.
+ */
+public final class SerializationStatistics implements SerializationStatisticsMXBean {
+    public enum Window {
+        VALUES,
+        TYPES,
+        SOURCE_LOCATIONS,
+        STRINGS
+    }
+
+    private static final int DIRECT_MESSAGES = 128; // message ids below this are counted in arrays, above that in a map
+    private static final int OUTSIDE_MESSAGE = -1;
+
+    private final IntFunction<String> messageNames;
+
+    private final long[] messageCount = new long[DIRECT_MESSAGES];
+    private final long[] messageBytes = new long[DIRECT_MESSAGES];
+    private final Map<Integer, long[]> otherMessages = new HashMap<>();
+    private long bytesOutsideMessages;
+
+    private int[] openMessages = new int[64];
+    private int depth = 0;
+
+    private final long[] windowLookups = new long[Window.values().length];
+    private final long[] windowHits = new long[Window.values().length];
+
+    private long stringBytes;
+    private long uncompressedBytes;
+    private long compressedBytes;
+
+    public SerializationStatistics() {
+        this(String::valueOf);
+    }
+
+    /**
+     * @param messageNames translates message ids to readable names in reports, for example <code>IValueIDs::messageName</code>
+     */
+    public SerializationStatistics(IntFunction<String> messageNames) {
+        this.messageNames = messageNames;
+    }
+
+    public void enterMessage(int messageId) {
+        if (depth == openMessages.length) {
+            openMessages = Arrays.copyOf(openMessages, depth * 2);
+        }
+        openMessages[depth++] = messageId;
+        if (messageId >= 0 && messageId < DIRECT_MESSAGES) {
+            messageCount[messageId]++;
+        }
+        else {
+            otherMessages.computeIfAbsent(messageId, i -> new long[2])[0]++;
+        }
+    }
+
+    public void leaveMessage() {
+        assert depth > 0;
+        depth--;
+    }
+
+    /**
+     * Register bytes written by the wire format (so before compression)
+     */
+    public void wireBytes(int bytes) {
+        uncompressedBytes += bytes;
+        int current = depth == 0 ? OUTSIDE_MESSAGE : openMessages[depth - 1];
+        if (current == OUTSIDE_MESSAGE) {
+            bytesOutsideMessages += bytes;
+        }
+        else if (current >= 0 && current < DIRECT_MESSAGES) {
+            messageBytes[current] += bytes;
+        }
+        else {
+            otherMessages.computeIfAbsent(current, i -> new long[2])[1] += bytes;
+        }
+    }
+
+    /**
+     * Register bytes written to the final output (so after compression)
+     */
+    public void compressedBytes(long bytes) {
+        compressedBytes += bytes;
+    }
+
+    /**
+     * Register the size of a string that was written in full (so not shared via the strings window)
+     */
+    public void stringWritten(int bytes) {
+        stringBytes += bytes;
+    }
+
+    public void windowLookup(Window window, boolean hit) {
+        windowLookups[window.ordinal()]++;
+        if (hit) {
+            windowHits[window.ordinal()]++;
+        }
+    }
+
+    /**
+     * Wrap a window such that its lookups are counted.
+     */
+    public <T extends @NonNull Object> TrackLastWritten<T> track(Window window, TrackLastWritten<T> wrapped) {
+        return new TrackLastWritten<T>() {
+            @Override
+            public void write(T obj) {
+                wrapped.write(obj);
+            }
+
+            @Override
+            public int howLongAgo(T obj) {
+                int result = wrapped.howLongAgo(obj);
+                windowLookup(window, result != -1);
+                return result;
+            }
+        };
+    }
+
+    public long getMessageCount(int messageId) {
+        if (messageId >= 0 && messageId < DIRECT_MESSAGES) {
+            return messageCount[messageId];
+        }
+        long[] other = otherMessages.get(messageId);
+        return other == null ? 0 : other[0];
+    }
+
+    /**
+     * @return the bytes of all messages with this id, excluding the bytes of their nested messages
+     */
+    public long getMessageBytes(int messageId) {
+        if (messageId >= 0 && messageId < DIRECT_MESSAGES) {
+            return messageBytes[messageId];
+        }
+        long[] other = otherMessages.get(messageId);
+        return other == null ? 0 : other[1];
+    }
+
+    public long getWindowLookups(Window window) {
+        return windowLookups[window.ordinal()];
+    }
+
+    public long getWindowHits(Window window) {
+        return windowHits[window.ordinal()];
+    }
+
+    public double getWindowHitRate(Window window) {
+        long lookups = getWindowLookups(window);
+        return lookups == 0 ? 0.0 : (double) getWindowHits(window) / lookups;
+    }
+
+    @Override
+    public long getUncompressedBytes() {
+        return uncompressedBytes;
+    }
+
+    @Override
+    public long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    @Override
+    public double getCompressionRatio() {
+        return compressedBytes == 0 ? 0.0 : (double) uncompressedBytes / compressedBytes;
+    }
+
+    @Override
+    public long getStringBytes() {
+        return stringBytes;
+    }
+
+    @Override
+    public long getBytesOutsideMessages() {
+        return bytesOutsideMessages;
+    }
+
+    @Override
+    public Map<String, Long> getMessageBytes() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int id : messageIds()) {
+            result.put(messageNames.apply(id), getMessageBytes(id));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getMessageCounts() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int id : messageIds()) {
+            result.put(messageNames.apply(id), getMessageCount(id));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Double> getWindowHitRates() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (Window w : Window.values()) {
+            result.put(w.name(), getWindowHitRate(w));
+        }
+        return result;
+    }
+
+    private int[] messageIds() {
+        SortedSet<Integer> ids = new TreeSet<>(otherMessages.keySet());
+        for (int i = 0; i < DIRECT_MESSAGES; i++) {
+            if (messageCount[i] != 0) {
+                ids.add(i);
+            }
+        }
+        return ids.stream().mapToInt(i -> i).toArray();
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(messageCount, 0);
+        Arrays.fill(messageBytes, 0);
+        otherMessages.clear();
+        bytesOutsideMessages = 0;
+        depth = 0;
+        Arrays.fill(windowLookups, 0);
+        Arrays.fill(windowHits, 0);
+        stringBytes = 0;
+        uncompressedBytes = 0;
+        compressedBytes = 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append("Uncompressed: ").append(uncompressedBytes).append(" bytes, compressed: ").append(compressedBytes)
+            .append(" bytes (ratio: ").append(String.format("%.2f", getCompressionRatio())).append(")\n");
+        result.append("Messages (count, bytes excluding nested messages):\n");
+        for (int id : messageIds()) {
+            result.append(String.format("  %-20s %10d %12d\n", messageNames.apply(id), getMessageCount(id), getMessageBytes(id)));
+        }
+        result.append(String.format("  %-20s %10s %12d\n", "(outside messages)", "", bytesOutsideMessages));
+        result.append("Windows (lookups, hits, hit rate):\n");
+        for (Window w : Window.values()) {
+            result.append(String.format("  %-20s %10d %12d %6.2f\n", w.name(), getWindowLookups(w), getWindowHits(w), getWindowHitRate(w)));
+        }
+        result.append("Strings written in full: ").append(stringBytes).append(" bytes\n");
+        return result.toString();
+    }
+}
@@ -0,0 +1,20 @@
+package io.usethesource.vallang.io.binary.util;
+
+import java.util.Map;
+
+/**
+ * The JMX view on the {@link SerializationStatistics}
+ */
+public interface SerializationStatisticsMXBean {
+    long getUncompressedBytes();
+    long getCompressedBytes();
+    double getCompressionRatio();
+    long getStringBytes();
+    long getBytesOutsideMessages();
+
+    Map<String, Long> getMessageBytes();
+    Map<String, Long> getMessageCounts();
+    Map<String, Double> getWindowHitRates();
+
+    void reset();
+}
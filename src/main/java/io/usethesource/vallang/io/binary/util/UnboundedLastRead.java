@@ -0,0 +1,23 @@
+package io.usethesource.vallang.io.binary.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * The reading side of the {@link UnboundedLastWritten}, every object read stays available for back references.
+ */
+public class UnboundedLastRead<T extends @NonNull Object> implements TrackLastRead<T> {
+    private final List<T> read = new ArrayList<>();
+
+    @Override
+    public void read(T obj) {
+        read.add(obj);
+    }
+
+    @Override
+    public T lookBack(int howLongBack) {
+        return read.get(read.size() - howLongBack - 1);
+    }
+}
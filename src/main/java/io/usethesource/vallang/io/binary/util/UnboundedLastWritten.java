@@ -0,0 +1,47 @@
+package io.usethesource.vallang.io.binary.util;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A window that never forgets, so every object written can be referenced back, used for {@link WindowSizes#UNBOUNDED}. <br />
+ * <br />
+ * The position of an object in the window is a stable id for the whole write, so a DAG is written with every shared node only once.
+ * This window is not pooled, since its memory grows with the size of the graph.
+ */
+public class UnboundedLastWritten<T extends @NonNull Object> implements TrackLastWritten<T> {
+    private final Map<T, Integer> writtenAt;
+    private int written = 0;
+
+    private UnboundedLastWritten(Map<T, Integer> writtenAt) {
+        this.writtenAt = writtenAt;
+    }
+
+    public static <T extends @NonNull Object> UnboundedLastWritten<T> referenceEquality() {
+        return new UnboundedLastWritten<>(new IdentityHashMap<>());
+    }
+
+    public static <T extends @NonNull Object> UnboundedLastWritten<T> objectEquality() {
+        return new UnboundedLastWritten<>(new HashMap<>());
+    }
+
+    @Override
+    public int howLongAgo(T obj) {
+        Integer at = writtenAt.get(obj);
+        if (at != null) {
+            return written - at - 1;
+        }
+        return -1;
+    }
+
+    @Override
+    public void write(T obj) {
+        if (written == WindowSizes.UNBOUNDED) {
+            throw new IllegalStateException("Too many objects written to an unbounded window");
+        }
+        writtenAt.put(obj, written++);
+    }
+}
@@ -52,6 +52,9 @@ public class WindowCacheFactory {
         if (size == 0) {
             return (TrackLastRead<T>) disabledReadWindow;
         }
+        if (size == WindowSizes.UNBOUNDED) {
+            return (TrackLastRead<T>) new UnboundedLastRead<Object>();
+        }
         return (TrackLastRead<T>) lastReads.get(size, LinearCircularLookupWindow::new);
     }
 
@@ -60,6 +63,9 @@ public class WindowCacheFactory {
         if (size == 0) {
             return (TrackLastWritten<T>) disabledWriteWindow;
         }
+        if (size == WindowSizes.UNBOUNDED) {
+            return UnboundedLastWritten.referenceEquality();
+        }
         return (TrackLastWritten<T>) lastWrittenReference.get(size, OpenAddressingLastWritten::referenceEquality);
     }
     @SuppressWarnings("unchecked")
@@ -67,6 +73,9 @@ public class WindowCacheFactory {
         if (size == 0) {
             return (TrackLastWritten<T>) disabledWriteWindow;
         }
+        if (size == WindowSizes.UNBOUNDED) {
+            return UnboundedLastWritten.objectEquality();
+        }
         return (TrackLastWritten<T>) lastWrittenObject.get(size, OpenAddressingLastWritten::objectEquality);
     }
     
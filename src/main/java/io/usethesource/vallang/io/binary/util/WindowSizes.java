@@ -12,6 +12,25 @@
  */ 
 package io.usethesource.vallang.io.binary.util;
 
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import io.usethesource.vallang.IBool;
+import io.usethesource.vallang.IConstructor;
+import io.usethesource.vallang.IDateTime;
+import io.usethesource.vallang.IInteger;
+import io.usethesource.vallang.IList;
+import io.usethesource.vallang.IMap;
+import io.usethesource.vallang.INode;
+import io.usethesource.vallang.IRational;
+import io.usethesource.vallang.IReal;
+import io.usethesource.vallang.ISet;
+import io.usethesource.vallang.ISourceLocation;
+import io.usethesource.vallang.IString;
+import io.usethesource.vallang.ITuple;
+import io.usethesource.vallang.IValue;
+import io.usethesource.vallang.type.Type;
+
 public class WindowSizes {
     public final int uriWindow;
     public final int typeWindow;
@@ -39,8 +58,195 @@ public class WindowSizes {
         this.uriWindow = uriWindow;
         this.valueWindow = valueWindow;
     }
+    /**
+     * A window size that never forgets, all values are tracked for the whole write (exact sharing). 
+     * Readers keep every value that can be referenced back, so a DAG is read back with the same sharing as it was written.
+     * Since the size is stored in the header as any other window size, older readers are also able to read these streams.
+     */
+    public static final int UNBOUNDED = Integer.MAX_VALUE - 1;
+
     public static final WindowSizes NO_WINDOW = new WindowSizes(0, 0, 0, 0);
     public static final WindowSizes TINY_WINDOW = new WindowSizes(500, 200, 100, 500);
     public static final WindowSizes SMALL_WINDOW = new WindowSizes(10_000, 1_000, 800, 5_000);
     public static final WindowSizes NORMAL_WINDOW = new WindowSizes(200_000, 40_000, 5_000, 40_000);
+    public static final WindowSizes LARGE_WINDOW = new WindowSizes(2_000_000, 400_000, 20_000, 100_000);
+    public static final WindowSizes EXACT_SHARING = new WindowSizes(UNBOUNDED, UNBOUNDED, UNBOUNDED, 40_000);
+
+    /**
+     * Estimate the window sizes needed for a value, by a cheap pre-pass over the value. <br />
+     * <br />
+     * A window larger than the amount of values in the graph does not find more back references, but costs memory and time to allocate and clear.
+     * So for small values the windows are shrunk (but never below the {@link #TINY_WINDOW}), for big values the windows grow up to the <code>max</code> sizes.
+     * The sizes are rounded up to a power of two, such that the windows of similar values can be reused by the {@link WindowCacheFactory}.
+     * The pre-pass stops as soon as the value is known to be larger than the <code>max</code> value window, so its cost is bounded.
+     * Since the window sizes are stored in the header of every value, the readers do not have to know how they were chosen.
+     * 
+     * @param value the value that will be written
+     * @param max the upper bound for every window
+     */
+    public static WindowSizes estimate(IValue value, WindowSizes max) {
+        return estimate(value, max, max.valueWindow);
+    }
+
+    /**
+     * Like {@link #estimate(IValue, WindowSizes)}, but the pre-pass already stops after <code>walkLimit</code> values, 
+     * in which case the <code>max</code> sizes are used.
+     */
+    public static WindowSizes estimate(IValue value, WindowSizes max, int walkLimit) {
+        if (max.valueWindow == UNBOUNDED) {
+            return max; // with exact sharing we should not walk the value as a tree, a DAG could explode
+        }
+        int limit = Math.min(walkLimit, max.valueWindow);
+        GraphSizeEstimator estimator = new GraphSizeEstimator(limit);
+        StacklessStructuredVisitor.accept(value, estimator);
+        if (estimator.values > limit) {
+            return max;
+        }
+        WindowSizes result = new WindowSizes(
+            bucket(estimator.values, TINY_WINDOW.valueWindow, max.valueWindow),
+            bucket(estimator.locations, TINY_WINDOW.uriWindow, max.uriWindow),
+            bucket(estimator.types.size() * 2, TINY_WINDOW.typeWindow, max.typeWindow), // types also contain nested types
+            bucket(estimator.strings, TINY_WINDOW.stringsWindow, max.stringsWindow)
+        );
+        return result.sameSizes(TINY_WINDOW) ? TINY_WINDOW : result;
+    }
+
+    private static int bucket(long estimate, int min, int max) {
+        if (estimate <= min) {
+            return Math.min(min, max);
+        }
+        long nextPowerOfTwo = Long.highestOneBit(estimate - 1) << 1;
+        return (int) Math.min(nextPowerOfTwo, max);
+    }
+
+    private boolean sameSizes(WindowSizes other) {
+        return valueWindow == other.valueWindow && uriWindow == other.uriWindow && typeWindow == other.typeWindow && stringsWindow == other.stringsWindow;
+    }
+
+    /**
+     * Counts the values of the graph, a compound value counts its children when it is entered, 
+     * so it is only descended into when all of them fit in the limit.
+     */
+    private static final class GraphSizeEstimator implements StructuredIValueVisitor<RuntimeException> {
+        private final long limit;
+        private long values = 1; // the root
+        private long locations = 0;
+        private long strings = 0;
+        private final Map<Type, Boolean> types = new IdentityHashMap<>();
+
+        public GraphSizeEstimator(long limit) {
+            this.limit = limit;
+        }
+
+        private boolean compound(IValue val, long children) {
+            values += children;
+            types.putIfAbsent(val.getType(), Boolean.TRUE);
+            return values <= limit;
+        }
+
+        @Override
+        public void enterNamedValues(String[] names, int numberOfNestedValues) {
+            strings += names.length;
+            values += numberOfNestedValues;
+        }
+
+        @Override
+        public void leaveNamedValue() {
+        }
+
+        @Override
+        public boolean enterConstructor(IConstructor cons, int children) {
+            strings++;
+            return compound(cons, children);
+        }
+
+        @Override
+        public void enterConstructorKeywordParameters() {
+        }
+
+        @Override
+        public void leaveConstructor(IValue cons) {
+        }
+
+        @Override
+        public boolean enterNode(INode node, int children) {
+            strings++;
+            return compound(node, children);
+        }
+
+        @Override
+        public void enterNodeKeywordParameters() {
+        }
+
+        @Override
+        public void leaveNode(IValue node) {
+        }
+
+        @Override
+        public boolean enterList(IList lst, int children) {
+            return compound(lst, children);
+        }
+
+        @Override
+        public void leaveList(IValue lst) {
+        }
+
+        @Override
+        public boolean enterSet(ISet set, int elements) {
+            return compound(set, elements);
+        }
+
+        @Override
+        public void leaveSet(IValue set) {
+        }
+
+        @Override
+        public boolean enterMap(IMap map, int elements) {
+            return compound(map, 2L * elements);
+        }
+
+        @Override
+        public void leaveMap(IValue map) {
+        }
+
+        @Override
+        public boolean enterTuple(ITuple tuple, int arity) {
+            return compound(tuple, arity);
+        }
+
+        @Override
+        public void leaveTuple(IValue tuple) {
+        }
+
+        @Override
+        public void visitString(IString val) {
+            strings++;
+        }
+
+        @Override
+        public void visitInteger(IInteger val) {
+        }
+
+        @Override
+        public void visitReal(IReal val) {
+        }
+
+        @Override
+        public void visitRational(IRational val) {
+        }
+
+        @Override
+        public void visitSourceLocation(ISourceLocation val) {
+            locations++;
+            strings += 2; // scheme and path are written as strings 
+        }
+
+        @Override
+        public void visitBoolean(IBool val) {
+        }
+
+        @Override
+        public void visitDateTime(IDateTime val) {
+        }
+    }
 }
\ No newline at end of file
@@ -16,6 +16,9 @@ import java.io.Closeable;
 import java.io.Flushable;
 import java.io.IOException;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import io.usethesource.vallang.io.binary.util.SerializationStatistics;
 
 /**
  * a basic message writer for the IValue wire format
@@ -48,4 +51,11 @@ public interface IWireOutputStream extends Closeable, Flushable  {
         startMessage(messageId);
         endMessage();
     }
+
+    /**
+     * @return the collector that is registering the statistics of this stream, or null if no statistics are collected
+     */
+    default @Nullable SerializationStatistics getStatistics() {
+        return null;
+    }
 }
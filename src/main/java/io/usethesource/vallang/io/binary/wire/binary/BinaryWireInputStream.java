@@ -17,6 +17,7 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Objects;
@@ -33,7 +34,11 @@ import io.usethesource.vallang.io.binary.wire.IWireInputStream;
 
 public class BinaryWireInputStream implements IWireInputStream {
     private static final byte[] WIRE_VERSION = new byte[] { 1, 0, 0 };
+    private static final long ASCII_MASK = 0x8080808080808080L;
+    private static final int MAX_REUSED_STRING_BUFFER = 64 * 1024;
     private final InputStream __stream;
+    private final @Nullable ByteBufferInputStream direct;
+    private byte[] stringBuffer = new byte[64];
     private final TrackLastRead<String> stringsRead;
     private boolean closed = false;
     private int current;
@@ -59,6 +64,7 @@ public class BinaryWireInputStream implements IWireInputStream {
         else {
             this.__stream = new BufferedInputStream(stream, bufferSize);
         }
+        this.direct = __stream instanceof ByteBufferInputStream ? (ByteBufferInputStream) __stream : null;
         
         byte[] header = readBytes(stream, WIRE_VERSION.length);
         if (!Arrays.equals(WIRE_VERSION, header)) {
@@ -95,26 +101,75 @@ public class BinaryWireInputStream implements IWireInputStream {
 
     private static byte[] readBytes(InputStream stream, int len) throws IOException, EOFException {
         byte[] result = new byte[len];
-        
+        readBytes(stream, result, len);
+        return result;
+    }
+
+    private static void readBytes(InputStream stream, byte[] target, int len) throws IOException, EOFException {
         int pos = 0;        
         while (pos < len) {
-            int read = stream.read(result, pos, len - pos);
+            int read = stream.read(target, pos, len - pos);
             if (read == -1) {
                 throw new EOFException();
             }
             pos += read;
         }
-        
-        return result;
     }
     
     /*
      * LEB128 decoding (or actually LEB32) of positive and negative integers, negative integers always use 5 bytes, positive integers are compact.
      */
     private int decodeInteger()  throws IOException {
+        ByteBuffer buffer;
+        if (direct != null && (buffer = direct.getByteBuffer()).remaining() >= 5) {
+            return decodeInteger(buffer);
+        }
         return decodeInteger(__stream);
     }
-    
+
+    /*
+     * Fast path: the buffer has enough bytes for the largest integer, so we can skip the end of stream checks
+     * and the virtual call per byte, and only update the position of the buffer once.
+     */
+    private static int decodeInteger(ByteBuffer buffer) throws IOException {
+        int pos = buffer.position();
+        byte b = buffer.get(pos);
+        if ((b & 0x80) == 0) {
+            buffer.position(pos + 1);
+            return b;
+        }
+        int result = b & 0x7F;
+
+        b = buffer.get(pos + 1);
+        result ^= ((b & 0x7F) << 7);
+        if ((b & 0x80) == 0) {
+            buffer.position(pos + 2);
+            return result;
+        }
+
+        b = buffer.get(pos + 2);
+        result ^= ((b & 0x7F) << 14);
+        if ((b & 0x80) == 0) {
+            buffer.position(pos + 3);
+            return result;
+        }
+
+        b = buffer.get(pos + 3);
+        result ^= ((b & 0x7F) << 21);
+        if ((b & 0x80) == 0) {
+            buffer.position(pos + 4);
+            return result;
+        }
+
+        b = buffer.get(pos + 4);
+        result ^= ((b & 0x7F) << 28);
+        if ((b & 0x80) == 0) {
+            buffer.position(pos + 5);
+            return result;
+        }
+        throw new IOException("Incorrect integer");
+    }
+
     private static int decodeInteger(InputStream stream) throws IOException {
         try {
             // manually unrolling the loop was the fastest for reading, yet not for writing
@@ -156,13 +211,65 @@ public class BinaryWireInputStream implements IWireInputStream {
     }
 
     /*
-     * A string is encoded to UTF8 and stored with a prefix of the amount of bytes needed
+     * A string is encoded to UTF8 and stored with a prefix of the amount of bytes needed. <br />
+     * <br />
+     * The bytes are copied into a reused buffer (straight from the underlying byte buffer if possible),
+     * so the only allocation is the string itself, which is then shared via the strings window.
+     * Most strings are ASCII, for those we skip the UTF8 decoder.
      */
     private String decodeString() throws IOException {
         int len = decodeInteger();
-        byte[] bytes = readBytes(len);
-        // this is the fastest way, other paths to a string lead to an extra allocated char array
-        return new String(bytes, StandardCharsets.UTF_8);
+        if (len == 0) {
+            return "";
+        }
+        byte[] bytes = stringBuffer;
+        if (bytes.length < len) {
+            bytes = new byte[Math.max(len, bytes.length * 2)];
+            if (bytes.length <= MAX_REUSED_STRING_BUFFER) {
+                // we do not keep huge buffers around for the rare huge string
+                stringBuffer = bytes;
+            }
+        }
+        boolean ascii;
+        ByteBuffer buffer;
+        if (direct != null && (buffer = direct.getByteBuffer()).remaining() >= len) {
+            ascii = isAscii(buffer, len);
+            buffer.get(bytes, 0, len);
+        }
+        else {
+            readBytes(__stream, bytes, len);
+            ascii = isAscii(bytes, len);
+        }
+        // ISO_8859_1 is a plain copy of the bytes (and in Java 9+ directly becomes a compact string)
+        return new String(bytes, 0, len, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    }
+
+    /*
+     * check 8 bytes at a time if any of them has the high bit set
+     */
+    private static boolean isAscii(ByteBuffer buffer, int len) {
+        int pos = buffer.position();
+        int end = pos + len;
+        for (; pos + 8 <= end; pos += 8) {
+            if ((buffer.getLong(pos) & ASCII_MASK) != 0) {
+                return false;
+            }
+        }
+        for (; pos < end; pos++) {
+            if (buffer.get(pos) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAscii(byte[] bytes, int len) {
+        for (int i = 0; i < len; i++) {
+            if (bytes[i] < 0) {
+                return false;
+            }
+        }
+        return true;
     }
 
 
@@ -17,7 +17,11 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
 import io.usethesource.vallang.io.binary.util.ByteBufferOutputStream;
+import io.usethesource.vallang.io.binary.util.CountingOutputStream;
+import io.usethesource.vallang.io.binary.util.SerializationStatistics;
 import io.usethesource.vallang.io.binary.util.TaggedInt;
 import io.usethesource.vallang.io.binary.util.TrackLastWritten;
 import io.usethesource.vallang.io.binary.util.WindowCacheFactory;
@@ -30,24 +34,38 @@ public class BinaryWireOutputStream implements IWireOutputStream {
     private static final byte[] WIRE_VERSION = new byte[] { 1, 0, 0 };
     private boolean closed = false;
     private final OutputStream __stream;
+    private final TrackLastWritten<String> stringsWindow;
     private final TrackLastWritten<String> stringsWritten;
+    private final @Nullable SerializationStatistics statistics;
 
     public BinaryWireOutputStream(OutputStream stream, int stringSharingWindowSize) throws IOException {
         this(stream, stringSharingWindowSize, 8*1024);
     }
     public BinaryWireOutputStream(OutputStream stream, int stringSharingWindowSize, int bufferSize) throws IOException {
+        this(stream, stringSharingWindowSize, bufferSize, null);
+    }
+
+    /**
+     * @param statistics if not null, the bytes written per message and the hits in the string window are registered in this collector
+     */
+    public BinaryWireOutputStream(OutputStream stream, int stringSharingWindowSize, int bufferSize, @Nullable SerializationStatistics statistics) throws IOException {
         assert stringSharingWindowSize > 0;
-        if (stream instanceof BufferedOutputStream || stream instanceof ByteBufferOutputStream) {
-            __stream = stream;
-        }
-        else {
-            __stream = new BufferedOutputStream(stream, bufferSize);
+        if (!(stream instanceof BufferedOutputStream || stream instanceof ByteBufferOutputStream)) {
+            stream = new BufferedOutputStream(stream, bufferSize);
         }
+        this.statistics = statistics;
+        __stream = statistics == null ? stream : new CountingOutputStream(stream, statistics::wireBytes);
         __stream.write(WIRE_VERSION);
         encodeInteger(__stream, stringSharingWindowSize);
-        this.stringsWritten = WindowCacheFactory.getInstance().getTrackLastWrittenObjectEquality(stringSharingWindowSize);
+        this.stringsWindow = WindowCacheFactory.getInstance().getTrackLastWrittenObjectEquality(stringSharingWindowSize);
+        this.stringsWritten = statistics == null ? stringsWindow : statistics.track(SerializationStatistics.Window.STRINGS, stringsWindow);
     }
     
+    @Override
+    public @Nullable SerializationStatistics getStatistics() {
+        return statistics;
+    }
+
 
     @Override
     public void flush() throws IOException {
@@ -81,6 +99,9 @@ public class BinaryWireOutputStream implements IWireOutputStream {
         byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
         encodeInteger(bytes.length);
         writeBytes(bytes);
+        if (statistics != null) {
+            statistics.stringWritten(bytes.length);
+        }
     }
 
     @Override
@@ -91,7 +112,7 @@ public class BinaryWireOutputStream implements IWireOutputStream {
             }
             finally {
                 closed = true;
-                WindowCacheFactory.getInstance().returnTrackLastWrittenObjectEquality(stringsWritten);
+                WindowCacheFactory.getInstance().returnTrackLastWrittenObjectEquality(stringsWindow);
             }
         }
     }
@@ -109,6 +130,9 @@ public class BinaryWireOutputStream implements IWireOutputStream {
     @Override
     public void startMessage(int messageId) throws IOException {
         assertNotClosed();
+        if (statistics != null) {
+            statistics.enterMessage(messageId);
+        }
         writeFieldTag(messageId, 0);
     }
 
@@ -217,5 +241,8 @@ public class BinaryWireOutputStream implements IWireOutputStream {
     public void endMessage() throws IOException {
         assertNotClosed();
         writeFieldTag(0, 0);
+        if (statistics != null) {
+            statistics.leaveMessage();
+        }
     }
 }
@@ -182,27 +182,34 @@ import io.usethesource.vallang.type.TypeFactory.TypeReifier;
 
     @Override
     protected boolean isSupertypeOf(Type type) {
-        return type.isSubtypeOfAbstractData(this);
+        return TypeRelationCache.isSupertypeOf(this, type, (sup, sub) -> sub.isSubtypeOfAbstractData(sup));
     }
 
     @Override
     public boolean isOpen() {
-        return getTypeParameters().isOpen();
+        return hasFlag(OPEN);
+    }
+
+    @Override
+    /*package*/ int computeFlags() {
+        return (getTypeParameters().isOpen() ? OPEN : 0)
+            | (!fParameters.isBottom() ? PARAMETERIZED : 0)
+            | PRODUCTIONS;
     }
 
     @Override
     public Type lub(Type other) {
-        return other.lubWithAbstractData(this);
+        return TypeRelationCache.lub(this, other, (left, right) -> right.lubWithAbstractData(left));
     }
 
     @Override
     public Type glb(Type type) {
-        return type.glbWithAbstractData(this);
+        return TypeRelationCache.glb(this, type, (left, right) -> right.glbWithAbstractData(left));
     }
     
     @Override
     public boolean intersects(Type other) {
-        return other.intersectsWithAbstractData(this);
+        return TypeRelationCache.intersects(this, other, (left, right) -> right.intersectsWithAbstractData(left));
     }
     
     @Override
@@ -285,7 +292,7 @@ import io.usethesource.vallang.type.TypeFactory.TypeReifier;
 
     @Override
     public boolean isParameterized() {
-        return !fParameters.isBottom();
+        return hasFlag(PARAMETERIZED);
     }
 
     @Override
@@ -374,23 +381,19 @@ import io.usethesource.vallang.type.TypeFactory.TypeReifier;
 
     @Override
     public Type instantiate(Map<Type, Type> bindings) {
-        if (bindings.isEmpty()) {
+        if (bindings.isEmpty() || !isOpen()) {
             return this;
         }
 
-        Type[] params = new Type[0];
-        if (isParameterized()) {
-            params = new Type[fParameters.getArity()];
-            int i = 0;
-            for (Type p : fParameters) {
-                params[i++] = p.instantiate(bindings);
-            }
+        Type[] params = new Type[fParameters.getArity()];
+        int i = 0;
+        for (Type p : fParameters) {
+            params[i++] = p.instantiate(bindings);
         }
 
-        TypeStore store = new TypeStore();
-        store.declareAbstractDataType(this);
-
-        return TypeFactory.getInstance().abstractDataType(store, fName, params);
+        // instances are not declared in any store, so we go straight to the cache of the type factory
+        // instead of declaring this type in a temporary store first
+        return TF.getFromCache(new AbstractDataType(fName, TF.tupleType(params)));
     }
 
     @Override
@@ -415,6 +418,11 @@ import io.usethesource.vallang.type.TypeFactory.TypeReifier;
 
     @Override
     public boolean match(Type matched, Map<Type, Type> bindings) throws FactTypeUseException {
+        if (!isOpen()) {
+            // without type parameters there is nothing to bind
+            return matched.isSubtypeOf(this);
+        }
+
         if (!super.match(matched, bindings)) {
             return false;
         }
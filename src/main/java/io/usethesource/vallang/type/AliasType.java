@@ -116,12 +116,12 @@ import io.usethesource.vallang.type.TypeFactory.RandomTypesConfig;
 
 	@Override
 	public boolean isParameterized() {
-		return !fParameters.isBottom();
+		return hasFlag(PARAMETERIZED);
 	}
 
 	@Override
 	public boolean isOpen() {
-		return fParameters.isOpen() || fAliased.isOpen();
+		return hasFlag(OPEN);
 	}
 
 	@Override
@@ -131,7 +131,16 @@ import io.usethesource.vallang.type.TypeFactory.RandomTypesConfig;
 
 	@Override
 	public boolean isFixedWidth() {
-		return fAliased.isFixedWidth();
+		return hasFlag(FIXED_WIDTH);
+	}
+
+	@Override
+	/*package*/ int computeFlags() {
+		return (!fParameters.isBottom() ? PARAMETERIZED : 0)
+			| (fParameters.isOpen() || fAliased.isOpen() ? OPEN : 0)
+			| (fAliased.isFixedWidth() ? FIXED_WIDTH : 0)
+			| (fAliased.hasFieldNames() ? FIELD_NAMES : 0)
+			| (fAliased.hasFlag(PRODUCTIONS) || fParameters.hasFlag(PRODUCTIONS) ? PRODUCTIONS : 0);
 	}
 
 	/**
@@ -297,7 +306,7 @@ import io.usethesource.vallang.type.TypeFactory.RandomTypesConfig;
 
 	@Override
 	public boolean hasFieldNames() {
-		return fAliased.hasFieldNames();
+		return hasFlag(FIELD_NAMES);
 	}
 
 	@Override
@@ -307,7 +316,7 @@ import io.usethesource.vallang.type.TypeFactory.RandomTypesConfig;
 
 	@Override
 	public Type instantiate(Map<Type, Type> bindings) {
-		if (isParameterized()) {
+		if (isParameterized() && isOpen()) {
 		    // note how we do not declare the new alias anywhere.
 	        return TypeFactory.getInstance().getFromCache(new AliasType(fName, fAliased.instantiate(bindings), fParameters.instantiate(bindings)));
 		}
@@ -320,6 +329,11 @@ import io.usethesource.vallang.type.TypeFactory.RandomTypesConfig;
 
 	@Override
 	public boolean match(Type matched, Map<Type, Type> bindings) throws FactTypeUseException {
+		if (!isOpen()) {
+			// without type parameters there is nothing to bind
+			return matched.isSubtypeOf(this);
+		}
+
 		return super.match(matched, bindings) && fAliased.match(matched, bindings);
 	}
 
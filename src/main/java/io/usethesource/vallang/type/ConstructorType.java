@@ -306,7 +306,7 @@ import io.usethesource.vallang.type.TypeFactory.TypeReifier;
 
 	@Override
 	public boolean hasFieldNames() {
-		return fChildrenTypes.hasFieldNames();
+		return hasFlag(FIELD_NAMES);
 	}
 
 	@Override
@@ -316,17 +316,17 @@ import io.usethesource.vallang.type.TypeFactory.TypeReifier;
 
 	@Override
 	protected boolean isSupertypeOf(Type type) {
-		return type.isSubtypeOfConstructor(this);
+		return TypeRelationCache.isSupertypeOf(this, type, (sup, sub) -> sub.isSubtypeOfConstructor(sup));
 	}
 
 	@Override
 	public Type lub(Type type) {
-		return type.lubWithConstructor(this);
+		return TypeRelationCache.lub(this, type, (left, right) -> right.lubWithConstructor(left));
 	}
 
 	@Override
 	public Type glb(Type type) {
-		return type.glbWithConstructor(this);
+		return TypeRelationCache.glb(this, type, (left, right) -> right.glbWithConstructor(left));
 	}
 
 	@Override
@@ -383,6 +383,11 @@ import io.usethesource.vallang.type.TypeFactory.TypeReifier;
 	@Override
 	public boolean match(Type matched, Map<Type, Type> bindings)
 			throws FactTypeUseException {
+		if (!isOpen() && !fChildrenTypes.isOpen()) {
+			// without type parameters there is nothing to bind
+			return matched.isSubtypeOf(this);
+		}
+
 		return super.match(matched, bindings)
 				&& fADT.match(matched.getAbstractDataType(), bindings)
 				&& getFieldTypes().match(matched.getFieldTypes(), bindings);
@@ -390,22 +395,27 @@ import io.usethesource.vallang.type.TypeFactory.TypeReifier;
 
 	@Override
 	public Type instantiate(Map<Type, Type> bindings) {
-		if (bindings.isEmpty()) {
+		if (bindings.isEmpty() || (!isOpen() && !fChildrenTypes.isOpen())) {
 			return this;
 		}
 		Type adt = fADT.instantiate(bindings);
 		Type fields = getFieldTypes().instantiate(bindings);
 
-		TypeStore store = new TypeStore();
-		store.declareAbstractDataType(fADT);
-		store.declareConstructor(this);
-
-		return TypeFactory.getInstance().constructorFromTuple(store, adt, getName(), fields);
+		// like the instances of data-types, the instances of constructors are not declared in any store
+		return TF.getFromCache(new ConstructorType(getName(), fields, adt));
 	}
 
 	@Override
 	public boolean isParameterized() {
-		return fADT.isParameterized();
+		return hasFlag(PARAMETERIZED);
+	}
+
+	@Override
+	/*package*/ int computeFlags() {
+		return (getTypeParameters().isOpen() ? OPEN : 0)
+			| (fADT.isParameterized() ? PARAMETERIZED : 0)
+			| (fChildrenTypes.hasFieldNames() ? FIELD_NAMES : 0)
+			| PRODUCTIONS;
 	}
 	
 	@Override
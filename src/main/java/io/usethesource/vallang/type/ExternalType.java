@@ -42,6 +42,12 @@ public abstract class ExternalType extends DefaultSubtypeOfValue {
 		return true;
 	}
 
+	@Override
+	/*package*/ int computeFlags() {
+		// the reifiers of external types are not known, so their symbols are never cached
+		return PRODUCTIONS;
+	}
+
 	@Override
 	public final <T,E extends Throwable> T accept(ITypeVisitor<T,E> visitor) throws E {
 		return visitor.visitExternal(this);
@@ -15,7 +15,6 @@
 package io.usethesource.vallang.type;
 
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
@@ -218,22 +217,22 @@ public class FunctionType extends DefaultSubtypeOfValue {
 	
 	@Override
 	protected boolean isSupertypeOf(Type type) {
-	  return type.isSubtypeOfFunction(this);
+	  return TypeRelationCache.isSupertypeOf(this, type, (sup, sub) -> sub.isSubtypeOfFunction(sup));
 	}
 	
 	@Override
 	public Type lub(Type type) {
-	  return type.lubWithFunction(this);
+	  return TypeRelationCache.lub(this, type, (left, right) -> right.lubWithFunction(left));
 	}
 	
 	@Override
 	public Type glb(Type type) {
-		return type.glbWithFunction(this);
+		return TypeRelationCache.glb(this, type, (left, right) -> right.glbWithFunction(left));
 	}
 	
 	@Override
 	public boolean intersects(Type type) {
-	    return type.intersectsWithFunction(this);
+	    return TypeRelationCache.intersects(this, type, (left, right) -> right.intersectsWithFunction(left));
 	}
 
 	@Override
@@ -433,7 +432,13 @@ public class FunctionType extends DefaultSubtypeOfValue {
 	
 	@Override
 	public boolean isOpen() {
-		return returnType.isOpen() || argumentTypes.isOpen();
+		return hasFlag(OPEN);
+	}
+
+	@Override
+	/*package*/ int computeFlags() {
+		return (returnType.isOpen() || argumentTypes.isOpen() ? OPEN : 0)
+			| (returnType.hasFlag(PRODUCTIONS) || argumentTypes.hasFlag(PRODUCTIONS) || getKeywordParameterTypes().hasFlag(PRODUCTIONS) ? PRODUCTIONS : 0);
 	}
 
 	@Override
@@ -457,8 +462,7 @@ public class FunctionType extends DefaultSubtypeOfValue {
 				for (int i = argumentTypes.getArity() - 1; i >= 0; i--) {
 				    Type fieldType = argumentTypes.getFieldType(i);
                     Type otherFieldType = matchedFunction.getFieldTypes().getFieldType(i);
-                    Map<Type, Type> originalBindings = new HashMap<>();
-                    originalBindings.putAll(bindings);
+                    Map<Type, Type> originalBindings = new TypeBindings(bindings);
                     
                     if (!fieldType.match(otherFieldType, bindings)) {
                         bindings = originalBindings;
@@ -109,7 +109,7 @@ import io.usethesource.vallang.type.TypeFactory.TypeReifier;
 
 	@Override
 	public boolean hasFieldNames() {
-		return fEltType.hasFieldNames();
+		return hasFlag(FIELD_NAMES);
 	}
 
 	@Override
@@ -119,7 +119,7 @@ import io.usethesource.vallang.type.TypeFactory.TypeReifier;
 	
 	@Override
 	public boolean isListRelation() {
-	    return fEltType.isTuple() || fEltType.isBottom();
+	    return hasFlag(LIST_RELATION);
 	}
 	
 	@Override 
@@ -236,12 +236,20 @@ import io.usethesource.vallang.type.TypeFactory.TypeReifier;
 
 	@Override
 	public boolean isOpen() {
-		return fEltType.isOpen();
+		return hasFlag(OPEN);
+	}
+
+	@Override
+	/*package*/ int computeFlags() {
+		return (fEltType.isOpen() ? OPEN : 0)
+			| (fEltType.hasFieldNames() ? FIELD_NAMES : 0)
+			| (fEltType.isTuple() || fEltType.isBottom() ? LIST_RELATION : 0)
+			| (fEltType.hasFlag(PRODUCTIONS) ? PRODUCTIONS : 0);
 	}
 
 	@Override
 	public boolean intersects(Type other) {
-	    return other.intersectsWithList(this);
+	    return TypeRelationCache.intersects(this, other, (left, right) -> right.intersectsWithList(left));
 	}
 	
 	@Override
@@ -252,7 +260,7 @@ import io.usethesource.vallang.type.TypeFactory.TypeReifier;
 	
 	@Override
 	protected boolean isSupertypeOf(Type type) {
-		return type.isSubtypeOfList(this);
+		return TypeRelationCache.isSupertypeOf(this, type, (sup, sub) -> sub.isSubtypeOfList(sup));
 	}
 
 	@Override 
@@ -262,12 +270,12 @@ import io.usethesource.vallang.type.TypeFactory.TypeReifier;
 
 	@Override
 	public Type lub(Type other) {
-		return other.lubWithList(this);
+		return TypeRelationCache.lub(this, other, (left, right) -> right.lubWithList(left));
 	}
 
 	@Override
 	public Type glb(Type type) {
-		return type.glbWithList(this);
+		return TypeRelationCache.glb(this, type, (left, right) -> right.glbWithList(left));
 	}
 
 	@Override
@@ -283,6 +291,11 @@ import io.usethesource.vallang.type.TypeFactory.TypeReifier;
 	@Override
 	public boolean match(Type matched, Map<Type, Type> bindings)
 			throws FactTypeUseException {
+		if (!isOpen()) {
+			// without type parameters there is nothing to bind
+			return matched.isSubtypeOf(this);
+		}
+
 		if (!super.match(matched, bindings)) {
 			return false;
 		}
@@ -295,6 +308,10 @@ import io.usethesource.vallang.type.TypeFactory.TypeReifier;
 
 	@Override
 	public Type instantiate(Map<Type, Type> bindings) {
+		if (!isOpen()) {
+			return this;
+		}
+
 		return TypeFactory.getInstance().listType(getElementType().instantiate(bindings));
 	}
 	
@@ -188,7 +188,7 @@ import io.usethesource.vallang.type.TypeFactory.RandomTypesConfig;
 
     @Override
     public boolean intersects(Type other) {
-        return other.intersectsWithMap(this);
+        return TypeRelationCache.intersects(this, other, (left, right) -> right.intersectsWithMap(left));
     }
     
     @Override
@@ -199,17 +199,17 @@ import io.usethesource.vallang.type.TypeFactory.RandomTypesConfig;
     
     @Override
     protected boolean isSupertypeOf(Type type) {
-      return type.isSubtypeOfMap(this);
+      return TypeRelationCache.isSupertypeOf(this, type, (sup, sub) -> sub.isSubtypeOfMap(sup));
     }
     
     @Override
     public Type lub(Type other) {
-      return other.lubWithMap(this);
+      return TypeRelationCache.lub(this, other, (left, right) -> right.lubWithMap(left));
     }
     
     @Override
     public Type glb(Type type) {
-      return type.glbWithMap(this);
+      return TypeRelationCache.glb(this, type, (left, right) -> right.glbWithMap(left));
     }
     
     @Override
@@ -230,11 +230,22 @@ import io.usethesource.vallang.type.TypeFactory.RandomTypesConfig;
     
     @Override
     public boolean isOpen() {
-      return fKeyType.isOpen() || fValueType.isOpen();
+      return hasFlag(OPEN);
+    }
+
+    @Override
+    /*package*/ int computeFlags() {
+      return (fKeyType.isOpen() || fValueType.isOpen() ? OPEN : 0)
+          | (fKeyType.hasFlag(PRODUCTIONS) || fValueType.hasFlag(PRODUCTIONS) ? PRODUCTIONS : 0);
     }
     
 	@Override
 	public boolean match(Type matched, Map<Type, Type> bindings)throws FactTypeUseException {
+        if (!isOpen()) {
+          // without type parameters there is nothing to bind
+          return matched.isSubtypeOf(this);
+        }
+
         if (!super.match(matched, bindings)) {
           return false;
         }
@@ -249,6 +260,10 @@ import io.usethesource.vallang.type.TypeFactory.RandomTypesConfig;
 	
 	@Override
 	public Type instantiate(Map<Type, Type> bindings) {
+	    if (!isOpen()) {
+	        return this;
+	    }
+
 	    return TypeFactory.getInstance().mapType(getKeyType().instantiate(bindings), getValueType().instantiate(bindings));
 	}
 	
@@ -140,6 +140,10 @@ import io.usethesource.vallang.exceptions.UndeclaredFieldException;
     
 	@Override
 	public Type instantiate(Map<Type, Type> bindings) {
+	    if (!isOpen()) {
+	        return this;
+	    }
+
 	    return TypeFactory.getInstance().mapType(getKeyType().instantiate(bindings), fKeyLabel, getValueType().instantiate(bindings), fValueLabel);
 	}
 }
@@ -11,7 +11,6 @@
 
 package io.usethesource.vallang.type;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
@@ -421,7 +420,7 @@ import io.usethesource.vallang.type.TypeFactory.TypeReifier;
 			// on the current binding if there is recursive use of type parameters
 			// such as in self-application of higher-order functions like "curry"
 			Type lub = earlier;
-			Map<Type, Type> newBindings = new HashMap<>(bindings);
+			Map<Type, Type> newBindings = new TypeBindings(bindings);
 
 			if (matched.isOpen() && !matched.isParameter() && matched.match(earlier, newBindings)) {
 				if (newBindings.size() > bindings.size()) {
@@ -472,6 +471,11 @@ import io.usethesource.vallang.type.TypeFactory.TypeReifier;
 		return true;
 	}
 
+	@Override
+	/*package*/ int computeFlags() {
+		return getBound().hasFlag(PRODUCTIONS) ? PRODUCTIONS : 0;
+	}
+
 	@Override
 	public boolean isParameter() {
 		return true;
@@ -108,7 +108,7 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 
 	@Override
 	public boolean hasFieldNames() {
-		return fEltType.hasFieldNames();
+		return hasFlag(FIELD_NAMES);
 	}
 
 	@Override 
@@ -123,7 +123,7 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 
 	@Override
 	public boolean isRelation() {
-	    return fEltType.isTuple() || fEltType.isBottom();
+	    return hasFlag(RELATION);
 	}
 	
 	@Override
@@ -236,17 +236,17 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 
 	@Override
 	protected boolean isSupertypeOf(Type type) {
-		return type.isSubtypeOfSet(this);
+		return TypeRelationCache.isSupertypeOf(this, type, (sup, sub) -> sub.isSubtypeOfSet(sup));
 	}
 
 	@Override
 	public Type lub(Type other) {
-		return other.lubWithSet(this);
+		return TypeRelationCache.lub(this, other, (left, right) -> right.lubWithSet(left));
 	}
 
 	@Override
 	public Type glb(Type type) {
-		return type.glbWithSet(this);
+		return TypeRelationCache.glb(this, type, (left, right) -> right.glbWithSet(left));
 	}
 
 	@Override
@@ -261,7 +261,7 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 
 	@Override
 	public boolean intersects(Type other) {
-	    return other.intersectsWithSet(this);
+	    return TypeRelationCache.intersects(this, other, (left, right) -> right.intersectsWithSet(left));
 	}
 	
 	@Override
@@ -277,11 +277,24 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 
 	@Override
 	public boolean isOpen() {
-		return fEltType.isOpen();
+		return hasFlag(OPEN);
+	}
+
+	@Override
+	/*package*/ int computeFlags() {
+		return (fEltType.isOpen() ? OPEN : 0)
+			| (fEltType.hasFieldNames() ? FIELD_NAMES : 0)
+			| (fEltType.isTuple() || fEltType.isBottom() ? RELATION : 0)
+			| (fEltType.hasFlag(PRODUCTIONS) ? PRODUCTIONS : 0);
 	}
 
 	@Override
 	public boolean match(Type matched, Map<Type, Type> bindings) throws FactTypeUseException {
+		if (!isOpen()) {
+			// without type parameters there is nothing to bind
+			return matched.isSubtypeOf(this);
+		}
+
 		if (!super.match(matched, bindings)) {
 			return false;
 		}
@@ -294,6 +307,10 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 
 	@Override
 	public Type instantiate(Map<Type, Type> bindings) {
+		if (!isOpen()) {
+			return this;
+		}
+
 		return TypeFactory.getInstance().setType(getElementType().instantiate(bindings));
 	}
 	
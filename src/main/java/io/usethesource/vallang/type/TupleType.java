@@ -313,22 +313,22 @@ import io.usethesource.vallang.type.TypeFactory.RandomTypesConfig;
 
     @Override
     protected boolean isSupertypeOf(Type type) {
-        return type.isSubtypeOfTuple(this);
+        return TypeRelationCache.isSupertypeOf(this, type, (sup, sub) -> sub.isSubtypeOfTuple(sup));
     }
 
     @Override
     public Type lub(Type other) {
-        return other.lubWithTuple(this);
+        return TypeRelationCache.lub(this, other, (left, right) -> right.lubWithTuple(left));
     }
 
     @Override
     public Type glb(Type type) {
-        return type.glbWithTuple(this);
+        return TypeRelationCache.glb(this, type, (left, right) -> right.glbWithTuple(left));
     }
     
     @Override
     public boolean intersects(Type other) {
-        return other.intersectsWithTuple(this);
+        return TypeRelationCache.intersects(this, other, (left, right) -> right.intersectsWithTuple(left));
     }
     
     @Override
@@ -398,18 +398,29 @@ import io.usethesource.vallang.type.TypeFactory.RandomTypesConfig;
 
     @Override
     public boolean isOpen() {
+        return hasFlag(OPEN);
+    }
+
+    @Override
+    /*package*/ int computeFlags() {
+        int result = 0;
+
         for (Type arg : fFieldTypes) {
-            if (arg.isOpen()) {
-                return true;
-            }
+            result |= (arg.isOpen() ? OPEN : 0)
+                | (arg.hasFlag(PRODUCTIONS) ? PRODUCTIONS : 0);
         }
 
-        return false;
+        return result;
     }
 
     @Override
     public boolean match(Type matched, Map<Type, Type> bindings)
             throws FactTypeUseException {
+        if (!isOpen()) {
+            // without type parameters there is nothing to bind
+            return matched.isSubtypeOf(this);
+        }
+
         if (!super.match(matched, bindings)) {
             return false;
         }
@@ -427,6 +438,10 @@ import io.usethesource.vallang.type.TypeFactory.RandomTypesConfig;
 
     @Override
     public Type instantiate(Map<Type, Type> bindings) {
+        if (!isOpen()) {
+            return this;
+        }
+
         Type[] fChildren = new Type[getArity()];
         for (int i = fChildren.length - 1; i >= 0; i--) {
             fChildren[i] = getFieldType(i).instantiate(bindings);
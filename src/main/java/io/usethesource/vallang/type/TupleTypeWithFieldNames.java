@@ -305,6 +305,10 @@ import io.usethesource.vallang.exceptions.UndeclaredFieldException;
     @SuppressWarnings("deprecation")
     @Override
     public Type instantiate(Map<Type, Type> bindings) {
+        if (!isOpen()) {
+            return this;
+        }
+
         Type[] fTypes = new Type[getArity()];
         String[] fLabels = new String[getArity()];
 
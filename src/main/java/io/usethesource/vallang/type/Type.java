@@ -50,6 +50,109 @@ import io.usethesource.vallang.exceptions.IllegalOperationException;
  */
 public abstract class Type implements Iterable<Type>, Comparable<Type> {
   protected static final TypeFactory TF = TypeFactory.getInstance();
+
+  /*
+   * Kind tags, one for every method of ITypeVisitor, see getKind()
+   */
+  public static final int KIND_REAL = 1;
+  public static final int KIND_INTEGER = 2;
+  public static final int KIND_RATIONAL = 3;
+  public static final int KIND_LIST = 4;
+  public static final int KIND_MAP = 5;
+  public static final int KIND_NUMBER = 6;
+  public static final int KIND_ALIAS = 7;
+  public static final int KIND_SET = 8;
+  public static final int KIND_SOURCE_LOCATION = 9;
+  public static final int KIND_STRING = 10;
+  public static final int KIND_NODE = 11;
+  public static final int KIND_CONSTRUCTOR = 12;
+  public static final int KIND_ABSTRACT_DATA = 13;
+  public static final int KIND_TUPLE = 14;
+  public static final int KIND_VALUE = 15;
+  public static final int KIND_VOID = 16;
+  public static final int KIND_BOOL = 17;
+  public static final int KIND_PARAMETER = 18;
+  public static final int KIND_EXTERNAL = 19;
+  public static final int KIND_DATE_TIME = 20;
+  public static final int KIND_FUNCTION = 21;
+
+  /*
+   * Properties which composite types would otherwise compute on every call, often recursively.
+   * Since types are immutable they are computed only once, on first use rather than in the constructors,
+   * because most instances are only created to be looked up in the cache of the TypeFactory.
+   * The flags are written without synchronization, which is harmless since every thread computes the same value.
+   */
+  /*package*/ static final int OPEN = 1;
+  /*package*/ static final int RELATION = 1 << 1;
+  /*package*/ static final int LIST_RELATION = 1 << 2;
+  /*package*/ static final int FIELD_NAMES = 1 << 3;
+  /*package*/ static final int FIXED_WIDTH = 1 << 4;
+  /*package*/ static final int PARAMETERIZED = 1 << 5;
+  /*package*/ static final int PRODUCTIONS = 1 << 6; // contains data-types, constructors or external types, see asSymbol
+  private static final int KIND_SHIFT = 8;
+  private static final int COMPUTED = 1 << 31;
+
+  private int flags = 0;
+
+  /**
+   * @return the flags of this type, combined with bitwise or
+   */
+  /*package*/ int computeFlags() {
+    return 0;
+  }
+
+  private int flags() {
+    int result = flags;
+
+    if (result == 0) {
+      result = COMPUTED | computeFlags() | (accept(KindVisitor.INSTANCE) << KIND_SHIFT);
+      flags = result;
+    }
+
+    return result;
+  }
+
+  /*package*/ final boolean hasFlag(int flag) {
+    return (flags() & flag) != 0;
+  }
+
+  /**
+   * The kind of a type tells which method of an {@link ITypeVisitor} its <code>accept</code> method calls, 
+   * such that hot code can use a switch instead of allocating a visitor. <br />
+   * <br />
+   * Note that the kind of an alias is {@link #KIND_ALIAS}, not the kind of the aliased type.
+   * 
+   * @return one of the <code>KIND_</code> constants of this class
+   */
+  public final int getKind() {
+    return (flags() >>> KIND_SHIFT) & 0xff;
+  }
+
+  private static final class KindVisitor implements ITypeVisitor<Integer, RuntimeException> {
+    static final KindVisitor INSTANCE = new KindVisitor();
+
+    @Override public Integer visitReal(Type type) { return KIND_REAL; }
+    @Override public Integer visitInteger(Type type) { return KIND_INTEGER; }
+    @Override public Integer visitRational(Type type) { return KIND_RATIONAL; }
+    @Override public Integer visitList(Type type) { return KIND_LIST; }
+    @Override public Integer visitMap(Type type) { return KIND_MAP; }
+    @Override public Integer visitNumber(Type type) { return KIND_NUMBER; }
+    @Override public Integer visitAlias(Type type) { return KIND_ALIAS; }
+    @Override public Integer visitSet(Type type) { return KIND_SET; }
+    @Override public Integer visitSourceLocation(Type type) { return KIND_SOURCE_LOCATION; }
+    @Override public Integer visitString(Type type) { return KIND_STRING; }
+    @Override public Integer visitNode(Type type) { return KIND_NODE; }
+    @Override public Integer visitConstructor(Type type) { return KIND_CONSTRUCTOR; }
+    @Override public Integer visitAbstractData(Type type) { return KIND_ABSTRACT_DATA; }
+    @Override public Integer visitTuple(Type type) { return KIND_TUPLE; }
+    @Override public Integer visitValue(Type type) { return KIND_VALUE; }
+    @Override public Integer visitVoid(Type type) { return KIND_VOID; }
+    @Override public Integer visitBool(Type type) { return KIND_BOOL; }
+    @Override public Integer visitParameter(Type type) { return KIND_PARAMETER; }
+    @Override public Integer visitExternal(Type type) { return KIND_EXTERNAL; }
+    @Override public Integer visitDateTime(Type type) { return KIND_DATE_TIME; }
+    @Override public Integer visitFunction(Type type) { return KIND_FUNCTION; }
+  }
   
   public abstract TypeFactory.TypeReifier getTypeReifier();
   
@@ -246,7 +349,7 @@ public abstract class Type implements Iterable<Type>, Comparable<Type> {
    * @return a value to uniquely represent this type.
    */
   public IConstructor asSymbol(IValueFactory vf, TypeStore store, ISetWriter grammar, Set<IConstructor> done) {
-	  return getTypeReifier().toSymbol(this, vf, store, grammar, done);
+	  return TF.cachedTypeValues().toSymbol(this, vf, store, grammar, done);
   }
 
   /**
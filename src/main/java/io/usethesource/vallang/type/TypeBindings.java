@@ -0,0 +1,181 @@
+package io.usethesource.vallang.type;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A map from type parameters to the types they are bound to, for {@link Type#match(Type, Map)} and {@link Type#instantiate(Map)}. <br />
+ * <br />
+ * Since a type rarely has more than a handful of type parameters, the bindings are stored in two parallel arrays
+ * which are searched linearly, comparing the (canonical) parameter types by reference first.
+ * This avoids the hashing, entry objects and table of a {@link java.util.HashMap}, which dominate the cost of
+ * matching the field types of a parameterized constructor against the types of its children.
+ * Like a HashMap this map is not thread-safe; unlike a HashMap it does not support null keys or values.
+ */
+public final class TypeBindings extends AbstractMap<Type, Type> {
+    private static final int DEFAULT_CAPACITY = 4;
+
+    private @Nullable Type[] keys;
+    private @Nullable Type[] values;
+    private int size;
+
+    public TypeBindings() {
+        keys = new Type[DEFAULT_CAPACITY];
+        values = new Type[DEFAULT_CAPACITY];
+    }
+
+    public TypeBindings(Map<Type, Type> bindings) {
+        int capacity = Math.max(DEFAULT_CAPACITY, bindings.size());
+        keys = new Type[capacity];
+        values = new Type[capacity];
+
+        if (bindings instanceof TypeBindings) {
+            TypeBindings other = (TypeBindings) bindings;
+            System.arraycopy(other.keys, 0, keys, 0, other.size);
+            System.arraycopy(other.values, 0, values, 0, other.size);
+            size = other.size;
+        }
+        else {
+            putAll(bindings);
+        }
+    }
+
+    private int indexOf(@Nullable Object key) {
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+
+        if (key != null) {
+            for (int i = 0; i < size; i++) {
+                if (key.equals(keys[i])) {
+                    return i;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(@Nullable Object key) {
+        return indexOf(key) != -1;
+    }
+
+    @Override
+    public @Nullable Type get(@Nullable Object key) {
+        int i = indexOf(key);
+        return i == -1 ? null : values[i];
+    }
+
+    @Override
+    public @Nullable Type put(Type key, Type value) {
+        int i = indexOf(key);
+        if (i != -1) {
+            Type old = values[i];
+            values[i] = value;
+            return old;
+        }
+
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+
+        keys[size] = key;
+        values[size] = value;
+        size++;
+        return null;
+    }
+
+    @Override
+    public @Nullable Type remove(@Nullable Object key) {
+        int i = indexOf(key);
+        if (i == -1) {
+            return null;
+        }
+
+        Type old = values[i];
+        removeAt(i);
+        return old;
+    }
+
+    private void removeAt(int i) {
+        size--;
+        // the order of the bindings is irrelevant, so the last binding fills the gap
+        keys[i] = keys[size];
+        values[i] = values[size];
+        keys[size] = null;
+        values[size] = null;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+    }
+
+    @Override
+    public Set<Map.Entry<Type, Type>> entrySet() {
+        return new AbstractSet<Map.Entry<Type, Type>>() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Iterator<Map.Entry<Type, Type>> iterator() {
+                return new Iterator<Map.Entry<Type, Type>>() {
+                    private int next = 0;
+                    private boolean removable = false;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < size;
+                    }
+
+                    @Override
+                    public Map.Entry<Type, Type> next() {
+                        if (next >= size) {
+                            throw new NoSuchElementException();
+                        }
+
+                        removable = true;
+                        int i = next++;
+                        return new AbstractMap.SimpleImmutableEntry<>((Type) keys[i], (Type) values[i]);
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (!removable) {
+                            throw new IllegalStateException();
+                        }
+
+                        removable = false;
+                        // the last binding moves into the removed slot, so it is visited next
+                        removeAt(--next);
+                    }
+                };
+            }
+        };
+    }
+}
@@ -45,7 +45,7 @@ import io.usethesource.vallang.exceptions.IllegalFieldTypeException;
 import io.usethesource.vallang.exceptions.IllegalIdentifierException;
 import io.usethesource.vallang.exceptions.NullTypeException;
 import io.usethesource.vallang.util.HashConsingMap;
-import io.usethesource.vallang.util.WeakWriteLockingHashConsingMap;
+import io.usethesource.vallang.util.WeakConcurrentHashConsingMap;
 
 /**
  * Use this class to produce any kind of {@link Type}, after which the make
@@ -59,7 +59,7 @@ public class TypeFactory {
 	/**
 	 * Caches all types to implement canonicalization
 	 */
-	private final HashConsingMap<Type> fCache = new WeakWriteLockingHashConsingMap<>(8*1024);
+	private final HashConsingMap<Type> fCache = new WeakConcurrentHashConsingMap<>(8*1024);
     private @Nullable TypeValues typeValues;
     
 	private static class InstanceHolder {
@@ -939,6 +939,44 @@ public class TypeFactory {
 	
 		private final Map<Type, TypeReifier> symbolConstructorTypes = new HashMap<>();
 		
+		/*
+		 * Direct-mapped caches for both directions of reification, like the TypeRelationCache: a new entry
+		 * replaces the one it collides with, and the immutable entries are shared between threads without locking.
+		 * Types without data-types, constructors or external types (see Type.PRODUCTIONS) reify without side-effects
+		 * and independently of the store, so their symbols are cached regardless of the store. In the other direction
+		 * a type is only cached if reifying its symbol did not declare anything; unless it is closed as well, only
+		 * for the store it was resolved in and as long as no TypeStore changed.
+		 */
+		private static final int SYMBOL_CACHE_SIZE = 1 << 12;
+		private final @Nullable SymbolEntry[] symbolCache = new SymbolEntry[SYMBOL_CACHE_SIZE];
+		private final @Nullable TypeEntry[] typeCache = new TypeEntry[SYMBOL_CACHE_SIZE];
+		
+		private final class SymbolEntry {
+			final Type type;
+			final IValueFactory vf;
+			final IConstructor symbol;
+			
+			SymbolEntry(Type type, IValueFactory vf, IConstructor symbol) {
+				this.type = type;
+				this.vf = vf;
+				this.symbol = symbol;
+			}
+		}
+		
+		private final class TypeEntry {
+			final IConstructor symbol;
+			final @Nullable TypeStore store; // null if the type does not depend on the store
+			final int generation;
+			final Type type;
+			
+			TypeEntry(IConstructor symbol, @Nullable TypeStore store, int generation, Type type) {
+				this.symbol = symbol;
+				this.store = store;
+				this.generation = generation;
+				this.type = type;
+			}
+		}
+		
 		private TypeValues() { 	}
 		
 		public Type randomType(TypeStore store, RandomTypesConfig rnd) {
@@ -1089,15 +1127,54 @@ public class TypeFactory {
 		 * @return the type represented by the value
 		 */
 		public Type fromSymbol(IConstructor symbol, TypeStore store, Function<IConstructor,Set<IConstructor>> grammar) {
+			 int generation = TypeStore.currentGeneration();
+			 int index = symbol.hashCode() & (SYMBOL_CACHE_SIZE - 1);
+			 TypeEntry entry = typeCache[index];
+			 
+			 if (entry != null && (entry.store == null || (entry.store == store && entry.generation == generation)) && entry.symbol.equals(symbol)) {
+				 return entry.type;
+			 }
+			 
 			 TypeReifier reifier = symbolConstructorTypes.get(symbol.getConstructorType());
 			 
 			 if (reifier != null) {
-				 return reifier.fromSymbol(symbol, store, grammar);
+				 Type result = reifier.fromSymbol(symbol, store, grammar);
+				 
+				 if (TypeStore.currentGeneration() == generation) {
+					 // nothing was declared, so the next time the same store will produce the same type.
+					 // open types may contain aliases, which are looked up in the store as well
+					 boolean storeIndependent = !result.hasFlag(Type.PRODUCTIONS) && !result.isOpen();
+					 typeCache[index] = new TypeEntry(symbol, storeIndependent ? null : store, generation, result);
+				 }
+				 
+				 return result;
 			 }
 			 
 			 throw new IllegalArgumentException("trying to construct a type from an unsupported type symbol: " + symbol + ", with this representation: " + symbol.getConstructorType());
 		}
 
+		/**
+		 * Represents a type as a symbol, see {@link Type#asSymbol(IValueFactory, TypeStore, ISetWriter, Set)}
+		 */
+		/*package*/ IConstructor toSymbol(Type type, IValueFactory vf, TypeStore store, ISetWriter grammar, Set<IConstructor> done) {
+			if (type.hasFlag(Type.PRODUCTIONS)) {
+				// reifying data-types has the side-effect of adding their productions to the grammar
+				return type.getTypeReifier().toSymbol(type, vf, store, grammar, done);
+			}
+			
+			int h = System.identityHashCode(type);
+			int index = (h ^ (h >>> 16)) & (SYMBOL_CACHE_SIZE - 1);
+			SymbolEntry entry = symbolCache[index];
+			
+			if (entry != null && entry.type == type && entry.vf == vf) {
+				return entry.symbol;
+			}
+			
+			IConstructor result = type.getTypeReifier().toSymbol(type, vf, store, grammar, done);
+			symbolCache[index] = new SymbolEntry(type, vf, result);
+			return result;
+		}
+		
 		/**
 		 * Builds a tuple type from a list of reified type symbols (see fromSymbol)
 		 */
@@ -1137,7 +1214,7 @@ public class TypeFactory {
 		return cachedTypeValues().fromSymbol(symbol, new TypeStore(), x -> Collections.emptySet());
 	}
 
-	private TypeValues cachedTypeValues() {
+	/*package*/ TypeValues cachedTypeValues() {
 		if (typeValues == null) {
 			typeValues = getInstance().new TypeValues();
 			typeValues.initialize();
@@ -0,0 +1,191 @@
+package io.usethesource.vallang.type;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.BinaryOperator;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Memoizes the sub-type relation, <code>lub</code>, <code>glb</code> and <code>intersects</code> of composite types
+ * (lists, sets, maps, tuples, data types, constructors and functions), which otherwise recurse into their element and field types on every call. <br />
+ * <br />
+ * Since the {@link TypeFactory} canonicalizes types, the pairs of types are compared by reference.
+ * Every relation has a direct-mapped table of a fixed size, where a new pair replaces the pair with which it collides,
+ * so the memory is bounded and lookups do not allocate. The tables are shared between threads without locking:
+ * the entries are immutable, so a thread sees either a complete entry or an older one, which at worst costs a recomputation.
+ * The size of the tables can be configured with the system property <code>vallang.typeRelationCache.size</code>,
+ * and the hit rates can be monitored via JMX by registering the cache with an MBeanServer.
+ */
+public final class TypeRelationCache implements TypeRelationCacheMXBean {
+    public static final int DEFAULT_SIZE = 1 << 13;
+
+    private static final TypeRelationCache INSTANCE = new TypeRelationCache(Integer.getInteger("vallang.typeRelationCache.size", DEFAULT_SIZE));
+
+    public enum Relation {
+        SUPERTYPE,
+        LUB,
+        GLB,
+        INTERSECTS
+    }
+
+    private static final class Entry {
+        final Type left;
+        final Type right;
+        final Object result;
+
+        Entry(Type left, Type right, Object result) {
+            this.left = left;
+            this.right = right;
+            this.result = result;
+        }
+    }
+
+    private final int mask;
+    private final @Nullable Entry[][] tables;
+    private final LongAdder[] hits = new LongAdder[Relation.values().length];
+    private final LongAdder[] misses = new LongAdder[Relation.values().length];
+
+    private TypeRelationCache(int size) {
+        int tableSize = Integer.highestOneBit(Math.max(2, size - 1) << 1); // round up to a power of two
+        this.mask = tableSize - 1;
+        this.tables = new Entry[Relation.values().length][tableSize];
+        for (int i = 0; i < hits.length; i++) {
+            hits[i] = new LongAdder();
+            misses[i] = new LongAdder();
+        }
+    }
+
+    public static TypeRelationCache getInstance() {
+        return INSTANCE;
+    }
+
+    /*package*/ static boolean isSupertypeOf(Type sup, Type sub, BiPredicate<Type, Type> compute) {
+        return INSTANCE.test(Relation.SUPERTYPE, sup, sub, compute);
+    }
+
+    /*package*/ static boolean intersects(Type left, Type right, BiPredicate<Type, Type> compute) {
+        return INSTANCE.test(Relation.INTERSECTS, left, right, compute);
+    }
+
+    /*package*/ static Type lub(Type left, Type right, BinaryOperator<Type> compute) {
+        return INSTANCE.apply(Relation.LUB, left, right, compute);
+    }
+
+    /*package*/ static Type glb(Type left, Type right, BinaryOperator<Type> compute) {
+        return INSTANCE.apply(Relation.GLB, left, right, compute);
+    }
+
+    private boolean test(Relation relation, Type left, Type right, BiPredicate<Type, Type> compute) {
+        Object cached = lookup(relation, left, right);
+        if (cached != null) {
+            return (Boolean) cached;
+        }
+        boolean result = compute.test(left, right);
+        store(relation, left, right, result);
+        return result;
+    }
+
+    private Type apply(Relation relation, Type left, Type right, BinaryOperator<Type> compute) {
+        Object cached = lookup(relation, left, right);
+        if (cached != null) {
+            return (Type) cached;
+        }
+        Type result = compute.apply(left, right);
+        store(relation, left, right, result);
+        return result;
+    }
+
+    private int index(Type left, Type right) {
+        int h = System.identityHashCode(left) * 31 + System.identityHashCode(right);
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private @Nullable Object lookup(Relation relation, Type left, Type right) {
+        Entry entry = tables[relation.ordinal()][index(left, right)];
+        if (entry != null && entry.left == left && entry.right == right) {
+            hits[relation.ordinal()].increment();
+            return entry.result;
+        }
+        misses[relation.ordinal()].increment();
+        return null;
+    }
+
+    private void store(Relation relation, Type left, Type right, Object result) {
+        tables[relation.ordinal()][index(left, right)] = new Entry(left, right, result);
+    }
+
+    public long getHitCount(Relation relation) {
+        return hits[relation.ordinal()].sum();
+    }
+
+    public long getMissCount(Relation relation) {
+        return misses[relation.ordinal()].sum();
+    }
+
+    public double getHitRate(Relation relation) {
+        long hits = getHitCount(relation);
+        long lookups = hits + getMissCount(relation);
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public int getSize() {
+        return mask + 1;
+    }
+
+    @Override
+    public Map<String, Long> getHitCounts() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Relation r : Relation.values()) {
+            result.put(r.name(), getHitCount(r));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getMissCounts() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Relation r : Relation.values()) {
+            result.put(r.name(), getMissCount(r));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Double> getHitRates() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (Relation r : Relation.values()) {
+            result.put(r.name(), getHitRate(r));
+        }
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        for (@Nullable Entry[] table : tables) {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = null;
+            }
+        }
+    }
+
+    @Override
+    public void resetCounters() {
+        for (int i = 0; i < hits.length; i++) {
+            hits[i].reset();
+            misses[i].reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("TypeRelationCache(size: ").append(getSize());
+        for (Relation r : Relation.values()) {
+            result.append(", ").append(r.name().toLowerCase()).append(": ").append(getHitCount(r)).append(" hits, ").append(getMissCount(r)).append(" misses");
+        }
+        return result.append(")").toString();
+    }
+}
@@ -0,0 +1,16 @@
+package io.usethesource.vallang.type;
+
+import java.util.Map;
+
+/**
+ * The JMX view on the {@link TypeRelationCache}
+ */
+public interface TypeRelationCacheMXBean {
+    int getSize();
+    Map<String, Long> getHitCounts();
+    Map<String, Long> getMissCounts();
+    Map<String, Double> getHitRates();
+
+    void clear();
+    void resetCounters();
+}
@@ -18,8 +18,13 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import io.usethesource.vallang.IValueFactory;
@@ -39,16 +44,28 @@ import io.usethesource.vallang.exceptions.UndeclaredAbstractDataTypeException;
  * TypeStores can import others, but the imports are not transitive.
  * Cyclic imports are allowed.
  * <p>
+ * Lookups do not take locks: their answers are cached in an index, which is replaced after the store or one of its imports
+ * changed and then filled again as the lookups ask for them. Only declarations synchronize. The sets returned by the lookup methods can not be modified.
+ * <p>
  * @see {@link TypeFactory}, {@link Type} and {@link IValueFactory} for more information.
  */
 public class TypeStore {
 	private final TypeFactory factory = TypeFactory.getInstance();
 
-	private final Map<String, Type> fAliases= new HashMap<>();
-	private final Map<String, Type> fADTs= new HashMap<>();
-	private final Map<Type, Set<Type>> fConstructors = new HashMap<>();
-	private final Map<Type, Map<String, Type>> fkeywordParameters = new HashMap<>();
-	private final Set<TypeStore> fImports = new HashSet<>();
+	private final Map<String, Type> fAliases= new ConcurrentHashMap<>();
+	private final Map<String, Type> fADTs= new ConcurrentHashMap<>();
+	private final Map<Type, Set<Type>> fConstructors = new ConcurrentHashMap<>();
+	private final Map<Type, Map<String, Type>> fkeywordParameters = new ConcurrentHashMap<>();
+	private final Set<TypeStore> fImports = new CopyOnWriteArraySet<>();
+
+	/*
+	 * Declarations synchronize on this lock, after which they increase the version
+	 * of this store and the global generation, to invalidate the indexes that include this store.
+	 */
+	private final Object fLock = new Object();
+	private volatile int fVersion = 0;
+	private static final AtomicInteger generation = new AtomicInteger();
+	private volatile @Nullable Index fIndex;
 	
 	/*
 	 * The ADTs for which overloading checking is turned off
@@ -97,8 +114,8 @@ public class TypeStore {
 	 */
 	public Map<Type, Map<String, Type>> getKeywordParameters() {
 	  Map<Type, Map<String,Type>> unmodifiableMap = new HashMap<>();
-	  for (Type key : fkeywordParameters.keySet()) {
-	    unmodifiableMap.put(key, Collections.unmodifiableMap(fkeywordParameters.get(key)));
+	  for (Map.Entry<Type, Map<String, Type>> entry : fkeywordParameters.entrySet()) {
+	    unmodifiableMap.put(entry.getKey(), Collections.unmodifiableMap(entry.getValue()));
 	  }
 	  return unmodifiableMap;
 	}
@@ -130,9 +147,14 @@ public class TypeStore {
 	 * @param stores
 	 */
 	public void importStore(TypeStore... stores) {
-	  synchronized(fImports) {
-	    for (TypeStore s : stores) {
-	      doImport(s);
+	  synchronized (fLock) {
+	    try {
+	      for (TypeStore s : stores) {
+	        doImport(s);
+	      }
+	    }
+	    finally {
+	      modified();
 	    }
 	  }
 	}
@@ -144,8 +166,9 @@ public class TypeStore {
 	 * @param stores to be removed
 	 */
 	public final void unimportStores(TypeStore... stores) {
-	  synchronized (fImports) {
+	  synchronized (fLock) {
 	    fImports.removeAll(Arrays.asList(stores));
+	    modified();
 	  }
 	}
 
@@ -160,36 +183,36 @@ public class TypeStore {
 	 * Blindly copy all declaration of the other store into the receiver.
 	 */
 	public void extendStore(TypeStore other) {
-	  synchronized (fAliases) {
+	  synchronized (fLock) {
 	    fAliases.putAll(other.fAliases);
-	  }
-
-	  synchronized (fADTs) {
 	    fADTs.putAll(other.fADTs);
-	  }
 
-	  synchronized (fConstructors) {
-	    for (Type type : other.fConstructors.keySet()) {
-	      Set<Type> set = fConstructors.get(type);
-
-	      if (set == null) {
-	        set = new HashSet<>();
-	      }
-
-	      set.addAll(other.fConstructors.get(type));
-	      fConstructors.put(type, set);
+	    for (Map.Entry<Type, Set<Type>> entry : other.fConstructors.entrySet()) {
+	      fConstructors.computeIfAbsent(entry.getKey(), adt -> ConcurrentHashMap.newKeySet()).addAll(entry.getValue());
 	    }
-	  }
 
-	  synchronized (fkeywordParameters) {
-		  fkeywordParameters.putAll(other.fkeywordParameters);
-		  }
-
-	  synchronized (fImports) {
+	    fkeywordParameters.putAll(other.fkeywordParameters);
 	    fImports.addAll(other.fImports);
+	    modified();
 	  }
 	}
 
+	/**
+	 * Invalidates the indexes that include this store; must be called after every modification,
+	 * while holding the lock.
+	 */
+	private void modified() {
+	  fVersion++;
+	  generation.incrementAndGet();
+	}
+
+	/**
+	 * @return a number which changes whenever any TypeStore is modified
+	 */
+	/*package*/ static int currentGeneration() {
+	  return generation.get();
+	}
+
 	private void checkConstructorOverloading(TypeStore s) {
 	  for (Type type : fADTs.values()) {
 	    Type other = s.fADTs.get(type.getName());
@@ -219,12 +242,10 @@ public class TypeStore {
 	}
 
 	private void checkOverlappingAliases(TypeStore s) {
-	  synchronized (fAliases) {
-	    for (Type alias : fAliases.values()) {
-	      Type other = s.fAliases.get(alias.getName());
-	      if (other != null && !other.comparable(alias)) {
-	        throw new FactTypeRedeclaredException(alias.getName(), other);
-	      }
+	  for (Type alias : fAliases.values()) {
+	    Type other = s.fAliases.get(alias.getName());
+	    if (other != null && !other.comparable(alias)) {
+	      throw new FactTypeRedeclaredException(alias.getName(), other);
 	    }
 	  }
 	}
@@ -244,26 +265,25 @@ public class TypeStore {
 	 * @throws FactTypeRedeclaredException
 	 */
 	public void declareAlias(Type alias) throws FactTypeDeclarationException {
-	  synchronized (fADTs) {
-	    synchronized (fAliases) {
-	      String name = alias.getName();
-	      Type oldAdt = lookupAbstractDataType(name);
-	      if (oldAdt != null) {
-	        throw new FactTypeRedeclaredException(name, oldAdt);
-	      }
+	  synchronized (fLock) {
+	    String name = alias.getName();
+	    Type oldAdt = findAbstractDataType(name);
+	    if (oldAdt != null) {
+	      throw new FactTypeRedeclaredException(name, oldAdt);
+	    }
 
-	      Type oldAlias = lookupAlias(name);
+	    Type oldAlias = findAlias(name);
 
-	      if (oldAlias != null) {
-	        if (oldAlias == alias || (!alias.isOpen() && alias.isSubtypeOf(oldAlias))) {
-	          // instantiating can be ignored.
-	          return;
-	        }
-	        throw new FactTypeRedeclaredException(name, oldAlias);
+	    if (oldAlias != null) {
+	      if (oldAlias == alias || (!alias.isOpen() && alias.isSubtypeOf(oldAlias))) {
+	        // instantiating can be ignored.
+	        return;
 	      }
-
-	      fAliases.put(name, alias);
+	      throw new FactTypeRedeclaredException(name, oldAlias);
 	    }
+
+	    fAliases.put(name, alias);
+	    modified();
 	  }
 	}
 
@@ -277,32 +297,26 @@ public class TypeStore {
 	 */
 	public void declareAbstractDataType(Type adt)
 	    throws FactTypeDeclarationException {
-	  synchronized (fADTs) {
-	    synchronized (fAliases) {
-	      synchronized (fConstructors) {
-	        String name = adt.getName();
-	        Type oldAdt = lookupAbstractDataType(name);
-
-	        if (oldAdt != null) {
-	          if (adt.comparable(oldAdt) || oldAdt.isExternalType()) {
-	            return; // paramaterized ADT got instantiated, or a double declaration, so don't store.
-	          }
+	  synchronized (fLock) {
+	    String name = adt.getName();
+	    Type oldAdt = findAbstractDataType(name);
 
-	          throw new FactTypeRedeclaredException(name, oldAdt);
-	        }
-
-	        Type oldAlias = lookupAlias(name);
-	        if (oldAlias != null) {
-	          throw new FactTypeRedeclaredException(name, oldAlias);
-	        }
+	    if (oldAdt != null) {
+	      if (adt.comparable(oldAdt) || oldAdt.isExternalType()) {
+	        return; // paramaterized ADT got instantiated, or a double declaration, so don't store.
+	      }
 
-	        fADTs.put(name, adt);
+	      throw new FactTypeRedeclaredException(name, oldAdt);
+	    }
 
-	        if (fConstructors.get(adt) == null) {
-	          fConstructors.put(adt, new HashSet<Type>());
-	        }
-	      }
+	    Type oldAlias = findAlias(name);
+	    if (oldAlias != null) {
+	      throw new FactTypeRedeclaredException(name, oldAlias);
 	    }
+
+	    fADTs.put(name, adt);
+	    fConstructors.computeIfAbsent(adt, t -> ConcurrentHashMap.newKeySet());
+	    modified();
 	  }
 	}
 
@@ -314,47 +328,45 @@ public class TypeStore {
 	 * @throws UndeclaredAbstractDataTypeException, RedeclaredFieldNameException, RedeclaredConstructorException 
 	 */
 	public void declareConstructor(Type constructor) throws FactTypeDeclarationException {
-	  synchronized (fADTs) {
-	    synchronized(fConstructors) {
-	      Type adt = constructor.getAbstractDataType();
+	  synchronized (fLock) {
+	    Type adt = constructor.getAbstractDataType();
 
-	      Type other = lookupAbstractDataType(adt.getName());
-	      if (other == null) {
-	        throw new UndeclaredAbstractDataTypeException(adt);
-	      }
+	    Type other = findAbstractDataType(adt.getName());
+	    if (other == null) {
+	      throw new UndeclaredAbstractDataTypeException(adt);
+	    }
 
-	      Set<Type> signature = lookupAlternatives(adt);
-	      if (signature == null) {
-	        throw new UndeclaredAbstractDataTypeException(adt);
-	      }
+	    Set<Type> signature = findAlternatives(adt);
 	      
-		  Type constructor1 = expandAliases(constructor);
-		  if(!constructor.equals(constructor1)){
-			  constructor = constructor1;
-		  }
-		  if(!IGNORE_OVERLOADING_CHECKS.contains(adt.getName())){
-			  checkOverloading(signature, constructor.getName(), constructor.getFieldTypes());
-			  try {
-				  checkFieldNames(signature, constructor.getFieldTypes());
-			  }
-			  catch (RedeclaredFieldNameException e) {
-				  throw new RedeclaredFieldNameException(e.getFieldName(),
-						  e.getFirstType(), e.getSecondType(),
-						  adt);
-			  }
-		  }
-
-	      Set<Type> localSignature = fConstructors.get(adt);
-	      if (localSignature == null) {
-	        localSignature = new HashSet<>();
-	        fConstructors.put(adt, localSignature);
-
-	        if (!fADTs.containsKey(adt.getName())) {
-	          fADTs.put(adt.getName(), adt);
-	        }
+	    Type constructor1 = expandAliases(constructor);
+	    if(!constructor.equals(constructor1)){
+	      constructor = constructor1;
+	    }
+	    if(!IGNORE_OVERLOADING_CHECKS.contains(adt.getName())){
+	      checkOverloading(signature, constructor.getName(), constructor.getFieldTypes());
+	      try {
+	        checkFieldNames(signature, constructor.getFieldTypes());
 	      }
+	      catch (RedeclaredFieldNameException e) {
+	        throw new RedeclaredFieldNameException(e.getFieldName(),
+	            e.getFirstType(), e.getSecondType(),
+	            adt);
+	      }
+	    }
+
+	    Set<Type> localSignature = fConstructors.get(adt);
+	    if (localSignature == null) {
+	      localSignature = ConcurrentHashMap.newKeySet();
+	      fConstructors.put(adt, localSignature);
+
+	      if (!fADTs.containsKey(adt.getName())) {
+	        fADTs.put(adt.getName(), adt);
+	      }
+	    }
 
-	      localSignature.add(constructor);
+	    if (localSignature.add(constructor)) {
+	      // re-declaring a known constructor, e.g. while reifying a symbol again, does not invalidate anything
+	      modified();
 	    }
 	  }
 	}
@@ -395,63 +407,328 @@ public class TypeStore {
 	  }
 	}
 
-	/**
-	 * Lookup a AliasType that was declared before by name
-	 * @param name the name of the type to lookup
-	 * @return the AliasType
+	/*
+	 * The declarations use these direct searches through the store and its imports,
+	 * and the index uses them to answer a lookup the first time it is asked.
 	 */
-	public @Nullable Type lookupAlias(final String name) {
-	  synchronized (fAliases) {
-	    synchronized (fImports) {
-	      Type result = fAliases.get(name);
 
+	private @Nullable Type findAlias(String name) {
+	  Type result = fAliases.get(name);
+
+	  if (result == null) {
+	    for (TypeStore s : fImports) {
+	      result = s.fAliases.get(name);
+	      if (result != null) {
+	        return result;
+	      }
+	    }
+	  }
+
+	  return result;
+	}
+
+	private @Nullable Type findAbstractDataType(String name) {
+	  Type result = fADTs.get(name);
+
+	  if (result == null) {
+	    for (TypeStore s : fImports) {
+	      result = s.fADTs.get(name);
+	      if (result != null) {
+	        return result;
+	      }
+	    }
+	  }
+
+	  return result;
+	}
+
+	private Set<Type> findAlternatives(Type adt) {
+	  Set<Type> local = fConstructors.get(adt);
+	  Set<Type> result = null;
+
+	  for (TypeStore s : fImports) {
+	    Set<Type> imported = s.fConstructors.get(adt);
+	    if (imported != null && !imported.isEmpty()) {
 	      if (result == null) {
-	        for (TypeStore i : fImports) {
-	          result = i.fAliases.get(name);
-	          if (result != null) {
-	            return result;
-	          }
-	        }
+	        result = local == null ? new HashSet<>() : new HashSet<>(local);
 	      }
+	      result.addAll(imported);
+	    }
+	  }
+
+	  if (result != null) {
+	    return result;
+	  }
 
-	      return result;
+	  // only local alternatives, which the callers merely iterate over, so there is no need to copy them
+	  return local == null ? Collections.emptySet() : Collections.unmodifiableSet(local);
+	}
+
+	private @Nullable Type findKeywordParameter(Type onType, String key) {
+	  // later declarations win, like in the index
+	  Type result = findKeywordParameter(this, onType, key);
+
+	  for (TypeStore s : fImports) {
+	    Type imported = findKeywordParameter(s, onType, key);
+	    if (imported != null) {
+	      result = imported;
 	    }
 	  }
+
+	  return result;
+	}
+
+	private static @Nullable Type findKeywordParameter(TypeStore s, Type onType, String key) {
+	  Type result = null;
+	  Map<String, Type> here = s.fkeywordParameters.get(onType);
+
+	  if (here != null) {
+	    result = here.get(key);
+	  }
+
+	  if (onType.isConstructor()) {
+	    here = s.fkeywordParameters.get(onType.getAbstractDataType());
+	    if (here != null && here.containsKey(key)) {
+	      result = here.get(key);
+	    }
+	  }
+
+	  return result;
 	}
 
 	/**
-	 * Returns all alternative ways of constructing a certain abstract data type.
-	 * 
-	 * @param adt
-	 * @return all types that construct the given type
+	 * The answers to the lookups of a store, cached per key, so repeated lookups neither take locks nor search through the imports.
+	 * An answer is computed on first use by searching the store and its imports, so a new index is cheap to make after a declaration,
+	 * and interleaving declarations and lookups costs no more than searching every time.
+	 * An index is valid as long as the versions of the store and its imports are the ones it was built from. Since that
+	 * takes a walk over the imports, the index also remembers the global generation at which it was last known to be valid,
+	 * which gives a quick answer as long as no store was modified at all.
 	 */
-	public Set<Type> lookupAlternatives(Type adt) {
-	  synchronized (fConstructors) {
-	    synchronized (fImports) {
-	      while (adt.isAliased()) {
-	        adt = adt.getAliased();
+	private static final class Index {
+	  private volatile int validAt;
+	  private final TypeStore store;
+	  private final int version;
+	  private final TypeStore[] imports;
+	  private final int[] importVersions;
+
+	  // unknown names are cached as well, as empty optionals since a ConcurrentHashMap can not hold null
+	  private final Map<String, Optional<Type>> aliases = new ConcurrentHashMap<>();
+	  private final Map<String, Optional<Type>> adts = new ConcurrentHashMap<>();
+	  private final Map<Type, Set<Type>> alternatives = new ConcurrentHashMap<>();
+	  private final Map<String, Set<Type>> constructorsByName = new ConcurrentHashMap<>();
+	  private volatile @MonotonicNonNull Set<Type> allADTs;
+	  private final Map<Type, Map<String, Set<Type>>> constructorsByADT = new ConcurrentHashMap<>();
+	  private final Map<Type, Boolean> typesWithKeywordParameters = new ConcurrentHashMap<>();
+	  private final Map<Type, Map<String, Type>> keywordParametersByType = new ConcurrentHashMap<>();
+
+	  Index(TypeStore store, int generation) {
+	    // the versions are recorded before any declaration is read, so concurrent declarations make this index invalid
+	    this.validAt = generation;
+	    this.store = store;
+	    this.version = store.fVersion;
+	    this.imports = store.fImports.toArray(new TypeStore[0]);
+	    this.importVersions = new int[imports.length];
+	    for (int i = 0; i < imports.length; i++) {
+	      importVersions[i] = imports[i].fVersion;
+	    }
+	  }
+
+	  @Nullable Type alias(String name) {
+	    return aliases.computeIfAbsent(name, n -> Optional.ofNullable(store.findAlias(n))).orElse(null);
+	  }
+
+	  @Nullable Type abstractDataType(String name) {
+	    return adts.computeIfAbsent(name, n -> Optional.ofNullable(store.findAbstractDataType(n))).orElse(null);
+	  }
+
+	  Set<Type> alternatives(Type adt) {
+	    return alternatives.computeIfAbsent(adt, t -> Collections.unmodifiableSet(store.findAlternatives(t)));
+	  }
+
+	  Set<Type> constructors(String name) {
+	    return constructorsByName.computeIfAbsent(name, this::collectConstructors);
+	  }
+
+	  private Set<Type> collectConstructors(String name) {
+	    Set<Type> result = new HashSet<>();
+
+	    collectConstructors(result, store, name);
+	    for (TypeStore s : imports) {
+	      collectConstructors(result, s, name);
+	    }
+
+	    return result.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(result);
+	  }
+
+	  private static void collectConstructors(Set<Type> result, TypeStore s, String name) {
+	    for (Set<Type> alts : s.fConstructors.values()) {
+	      for (Type cand : alts) {
+	        if (cand.getName().equals(name)) {
+	          result.add(cand);
+	        }
+	      }
+	    }
+	  }
+
+	  Set<Type> allAbstractDataTypes() {
+	    Set<Type> result = allADTs;
+	    if (result == null) {
+	      result = new HashSet<>(store.fADTs.values());
+	      for (TypeStore s : imports) {
+	        result.addAll(s.fADTs.values());
 	      }
+	      allADTs = result;
+	    }
+	    return result;
+	  }
 
-	      Set<Type> result = fConstructors.get(adt);
+	  boolean hasKeywordParameters(Type onType) {
+	    return typesWithKeywordParameters.computeIfAbsent(onType, this::declaresKeywordParameters);
+	  }
 
-	      if (result == null) {
-	        result = new HashSet<>();
+	  private boolean declaresKeywordParameters(Type onType) {
+	    if (hasEntries(store.fkeywordParameters.get(onType))) {
+	      return true;
+	    }
+
+	    for (TypeStore s : imports) {
+	      if (hasEntries(s.fkeywordParameters.get(onType))) {
+	        return true;
 	      }
+	    }
 
-	      for (TypeStore s : fImports) {
-	        if (s != this) {
-	          Set<Type> imported = s.fConstructors.get(adt);
-	          if (imported != null) {
-	            result.addAll(imported);
-	          }
-	        }
+	    return false;
+	  }
+
+	  private static boolean hasEntries(@Nullable Map<String, Type> keywordParameters) {
+	    return keywordParameters != null && !keywordParameters.isEmpty();
+	  }
+
+	  private static <K> void freeze(Map<K, Set<Type>> map) {
+	    map.replaceAll((key, set) -> Collections.unmodifiableSet(set));
+	  }
+
+	  boolean isValid(int generation) {
+	    if (validAt == generation) {
+	      return true;
+	    }
+
+	    if (version != store.fVersion) {
+	      return false;
+	    }
+
+	    for (int i = 0; i < imports.length; i++) {
+	      if (importVersions[i] != imports[i].fVersion) {
+	        return false;
 	      }
+	    }
+
+	    validAt = generation;
+	    return true;
+	  }
 
-	      return result;
+	  /**
+	   * The constructors of an ADT, grouped by name. The local constructors are found via the declared
+	   * ADT with the same name (which may be parameterized), and the imported ones via the given ADT.
+	   */
+	  Map<String, Set<Type>> constructors(Type adt) {
+	    return constructorsByADT.computeIfAbsent(adt, this::groupConstructors);
+	  }
+
+	  private Map<String, Set<Type>> groupConstructors(Type adt) {
+	    Map<String, Set<Type>> result = new HashMap<>();
+	    Type parameterizedADT = store.fADTs.get(adt.getName());
+	    
+	    if (parameterizedADT != null) {
+	      group(result, store.fConstructors.get(parameterizedADT));
+	    }
+
+	    for (TypeStore s : imports) {
+	      group(result, s.fConstructors.get(adt));
+	    }
+
+	    freeze(result);
+	    return result;
+	  }
+
+	  /**
+	   * The keyword parameters of a constructor and its ADT, or of an ADT, keyed by the type as it was
+	   * asked for so the aliases are expanded only once. Later declarations and imports override earlier ones.
+	   */
+	  Map<String, Type> keywordParameters(Type onType) {
+	    return keywordParametersByType.computeIfAbsent(onType, this::collectKeywordParameters);
+	  }
+
+	  private Map<String, Type> collectKeywordParameters(Type onType) {
+	    Type expanded = store.expandAliases(onType);
+	    Map<String, Type> result = new HashMap<>();
+
+	    collect(result, store, expanded);
+	    for (TypeStore s : imports) {
+	      collect(result, s, expanded);
+	    }
+
+	    return result.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(result);
+	  }
+
+	  private static void collect(Map<String, Type> result, TypeStore s, Type onType) {
+	    Map<String, Type> here = s.fkeywordParameters.get(onType);
+	    if (here != null) {
+	      result.putAll(here);
+	    }
+
+	    if (onType.isConstructor()) {
+	      here = s.fkeywordParameters.get(onType.getAbstractDataType());
+	      if (here != null) {
+	        result.putAll(here);
+	      }
+	    }
+	  }
+
+	  private static void group(Map<String, Set<Type>> result, @Nullable Set<Type> constructors) {
+	    if (constructors != null) {
+	      for (Type cand : constructors) {
+	        result.computeIfAbsent(cand.getName(), name -> new HashSet<>()).add(cand);
+	      }
 	    }
 	  }
 	}
 
+	private Index index() {
+	  int current = generation.get();
+	  Index result = fIndex;
+
+	  if (result == null || !result.isValid(current)) {
+	    result = new Index(this, current);
+	    fIndex = result;
+	  }
+
+	  return result;
+	}
+
+	/**
+	 * Lookup a AliasType that was declared before by name
+	 * @param name the name of the type to lookup
+	 * @return the AliasType
+	 */
+	public @Nullable Type lookupAlias(final String name) {
+	  return index().alias(name);
+	}
+
+	/**
+	 * Returns all alternative ways of constructing a certain abstract data type.
+	 * 
+	 * @param adt
+	 * @return all types that construct the given type
+	 */
+	public Set<Type> lookupAlternatives(Type adt) {
+	  while (adt.isAliased()) {
+	    adt = adt.getAliased();
+	  }
+
+	  return index().alternatives(adt);
+	}
+
 	/**
 	 * Lookup a ConstructorType by name, and in the context of a certain AbstractDataType
 	 * @param adt             the AbstractDataType context
@@ -460,37 +737,11 @@ public class TypeStore {
 	 * @throws a FactTypeError if the type was not declared before
 	 */
 	public Set<Type> lookupConstructor(Type adt, String constructorName) throws FactTypeUseException {
-	  synchronized (fConstructors) {
-	    synchronized (fImports) {
-	      while (adt.isAliased()) {
-	        adt = adt.getAliased();
-	      }
-	      Type parameterizedADT = fADTs.get(adt.getName());
-	      Set<Type> local = parameterizedADT != null ? fConstructors.get(parameterizedADT) : null;
-	      Set<Type> result = new HashSet<>();
-
-	      if (local != null) {
-	        for (Type cand : local) {
-	          if (cand.getName().equals(constructorName)) {
-	            result.add(cand);
-	          }
-	        }
-	      }
-
-	      for (TypeStore i : fImports) {
-	        local = i.fConstructors.get(adt);
-	        if (local != null) {
-	          for (Type cand : local) {
-	            if (cand.getName().equals(constructorName)) {
-	              result.add(cand);
-	            }
-	          }
-	        }
-	      }
-
-	      return result;
-	    }
+	  while (adt.isAliased()) {
+	    adt = adt.getAliased();
 	  }
+
+	  return index().constructors(adt).getOrDefault(constructorName, Collections.emptySet());
 	}
 
 	/**
@@ -503,31 +754,21 @@ public class TypeStore {
 	 * @throws a FactTypeError if the type was not declared before
 	 */
 	public @Nullable Type lookupFirstConstructor(final String cons, final Type args) {
-	  Collection<Type> adts = allAbstractDataTypes();
+	  Index index = index();
 
-	  for (Type adt : adts) {
-	    Type cand = lookupConstructor(adt, cons, args);
-	    if (cand != null) {
-	      return cand;
-	    }
-	  }
+	  for (Type adt : index.allAbstractDataTypes()) {
+	    Set<Type> sig = index.constructors(adt).get(cons);
 
-	  return null;
-	}
-
-	private Set<Type> allAbstractDataTypes() {
-	  synchronized (fADTs) {
-	    synchronized (fImports) {
-	      Set<Type> result = new HashSet<>();
-	      result.addAll(fADTs.values());
-
-	      for (TypeStore s : fImports) {
-	        result.addAll(s.fADTs.values());
+	    if (sig != null) {
+	      for (Type cand : sig) {
+	        if (args.isSubtypeOf(cand.getFieldTypes())) {
+	          return cand;
+	        }
 	      }
-
-	      return result;
 	    }
 	  }
+
+	  return null;
 	}
 
 	/**
@@ -560,35 +801,7 @@ public class TypeStore {
 	 * @param constructName the name of the tree node
 	 */
 	public Set<Type> lookupConstructors(String constructorName) {
-	  synchronized (fConstructors) {
-	    synchronized (fImports) {
-	      Set<Type> result = new HashSet<>();
-
-	      for (Set<Type> adt : fConstructors.values()) {
-	        for (Type cand : adt) {
-	          String name = cand.getName();
-	          if (name.equals(constructorName)) {
-	            result.add(cand);
-	          }
-	        }
-	      }
-
-	      for (TypeStore i : fImports) {
-	        if (i != this) {
-	          for (Set<Type> adt : i.fConstructors.values()) {
-	            for (Type cand : adt) {
-	              String name = cand.getName();
-	              if (name.equals(constructorName)) {
-	                result.add(cand);
-	              }
-	            }
-	          }
-	        }
-	      }
-
-	      return result;
-	    }
-	  }
+	  return index().constructors(constructorName);
 	}
 
 	/**
@@ -597,25 +810,7 @@ public class TypeStore {
 	 * @return null if such type does not exist, or the type if it was declared earlier
 	 */
 	public @Nullable Type lookupAbstractDataType(String name) {
-	  synchronized (fADTs) {
-	    synchronized (fImports) {
-
-	      Type result = fADTs.get(name);
-
-	      if (result != null) {
-	        return result;
-	      }
-
-	      for (TypeStore s : fImports) {
-	        result = s.fADTs.get(name);
-	        if (result != null) {
-	          return result;
-	        }
-	      }
-
-	      return result;
-	    }
-	  }
+	  return index().abstractDataType(name);
 	}
 
 	/**
@@ -637,7 +832,7 @@ public class TypeStore {
 	  
 	  onType = expandAliases(onType);
 
-	  synchronized (fkeywordParameters) {
+	  synchronized (fLock) {
 	    Map<String, Type> kwParamsForType = fkeywordParameters.get(onType);
 
 	    if (!factory.isIdentifier(key)) {
@@ -645,17 +840,18 @@ public class TypeStore {
 	    }
 
 	    if (kwParamsForType == null) {
-	      kwParamsForType = new HashMap<>();
+	      kwParamsForType = new ConcurrentHashMap<>();
 	      fkeywordParameters.put(onType, kwParamsForType);
 	    }
 
-	    Map<String, Type> declaredEarlier = getKeywordParameters(onType);
+	    Type declaredEarlier = findKeywordParameter(onType, key);
 
-	    if (!declaredEarlier.containsKey(key)) {
+	    if (declaredEarlier == null) {
 	      kwParamsForType.put(key, valueType);
+	      modified();
 	    } 
-	    else if (!declaredEarlier.get(key).equivalent(valueType)) {
-	      throw new RedeclaredKeywordParameterException(key, declaredEarlier.get(key));
+	    else if (!declaredEarlier.equivalent(valueType)) {
+	      throw new RedeclaredKeywordParameterException(key, declaredEarlier);
 	    }
 	    // otherwise its a safe re-declaration and we do nothing
 	  }
@@ -819,54 +1015,18 @@ public class TypeStore {
 	}
 	
 	/**
-	 * Locates all declared keyword parameters for a constructor.
+	 * Locates all declared keyword parameters for a constructor. The table is computed once
+	 * and shared until a declaration changes this store or one of its imports.
 	 * 
 	 * @param onType 
-	 * @return a map of all keyword parameters declared for the onType constructor
+	 * @return an unmodifiable map of all keyword parameters declared for the onType constructor
 	 */
 	public Map<String, Type> getKeywordParameters(Type onType) {
 	  if (!onType.isConstructor() && !onType.isAbstractData()) {
 	    return Collections.<String,Type>emptyMap();
 	  }
 
-	  onType = expandAliases(onType);
-	  
-	  synchronized(fkeywordParameters) {
-	    synchronized (fImports) {
-	      Map<String, Type> result = new HashMap<>();
-
-	      Map<String, Type> local = fkeywordParameters.get(onType);
-	      if (local != null) {
-	    	  result.putAll(local); 
-	      }
-	      
-	      if (onType.isConstructor()) {
-	          local = fkeywordParameters.get(onType.getAbstractDataType());
-	          if (local != null) {
-	              result.putAll(local);
-	          }
-	      }
-
-	      for (TypeStore s : fImports) {
-	    	  if (s.fkeywordParameters == null) {
-	    		  continue;
-	    	  }
-	    	  Map<String, Type> here = s.fkeywordParameters.get(onType);
-	    	  if (here != null) {
-	    		  result.putAll(here);
-	    	  }
-	    	  
-	    	  if (onType.isConstructor()) {
-		    	  here = s.fkeywordParameters.get(onType.getAbstractDataType());
-		    	  if (here != null) {
-		    		  result.putAll(here);
-		    	  }
-		      }
-	      }
-
-	      return result;
-	    }
-	  }
+	  return index().keywordParameters(onType);
 	}
 
 	/**
@@ -878,96 +1038,19 @@ public class TypeStore {
 	 */
 	public @Nullable Type getKeywordParameterType(Type onType, String key) {
 		assert onType.isConstructor() || onType.isAbstractData();
-		Map<String, Type> kwParamsFor = getKeywordParameters(onType);
-		return kwParamsFor != null ? kwParamsFor.get(key) : null;
+		return getKeywordParameters(onType).get(key);
 	}
 	
 	public boolean hasKeywordParameters(Type onType) {
-		if (!onType.isConstructor()) {
-			return false;
-		}
-
-		synchronized(fkeywordParameters) {
-			synchronized (fImports) {
-				Map<String, Type> local = fkeywordParameters.get(onType);
-				if (local != null && local.size() > 0) {
-					return true; 
-				}
-
-				for (TypeStore s : fImports) {
-					if (s.fkeywordParameters == null) {
-						continue;
-					}
-					
-					Map<String, Type> here = s.fkeywordParameters.get(onType);
-					if (here != null && here.size() > 0) {
-						return true;
-					}
-				}
-
-				return false;
-			}
-		}
+		// note that this only looks at the constructor itself, not at its ADT
+		return onType.isConstructor() && index().hasKeywordParameters(onType);
 	}
 	
 	public boolean hasKeywordParameter(Type onType, String label) {
-        if (!onType.isConstructor()) {
-            return false;
-        }
-        
-        onType = expandAliases(onType);
-
-        synchronized(fkeywordParameters) {
-            synchronized (fImports) {
-                Map<String, Type> local = fkeywordParameters.get(onType);
-                if (local != null && local.containsKey(label)) {
-                    return true;
-                }
-                
-                local = fkeywordParameters.get(onType.getAbstractDataType());
-                if (local != null && local.containsKey(label)) {
-                    return true;
-                }
-                
-                for (TypeStore s : fImports) {
-                    if (s.fkeywordParameters == null) {
-                        continue;
-                    }
-                    
-                    Map<String, Type> here = s.fkeywordParameters.get(onType);
-                    if (here != null && here.containsKey(label)) {
-                        return true;
-                    }
-                    
-                    here = s.fkeywordParameters.get(onType.getAbstractDataType());
-                    if (here != null && here.containsKey(label)) {
-                        return true;
-                    }
-                }
-
-                return false;
-            }
-        }
+        return onType.isConstructor() && getKeywordParameters(onType).containsKey(label);
     }
 
 	public @Nullable Type getAlias(String name) {
-	  synchronized (fAliases) {
-	    synchronized (fImports) {
-	      Type result = fAliases.get(name);
-
-	      if (result != null) {
-	        return result;
-	      }
-
-	      for (TypeStore s : fImports) {
-	        result = s.fAliases.get(name);
-	        if (result != null) {
-	          return result;
-	        }
-	      }
-
-	      return null;
-	    }
-	  }
+	  return lookupAlias(name);
 	}
 }
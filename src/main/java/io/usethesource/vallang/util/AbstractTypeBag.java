@@ -13,6 +13,7 @@ package io.usethesource.vallang.util;
 
 import static io.usethesource.capsule.util.stream.CapsuleCollectors.UNORDERED;
 
+import java.util.HashMap;
 import java.util.Map.Entry;
 import java.util.function.BiConsumer;
 import java.util.function.BinaryOperator;
@@ -49,6 +50,11 @@ public abstract class AbstractTypeBag implements Cloneable {
 
     public abstract int size();
 
+    /**
+     * @return a mutable copy of this bag, to efficiently add or remove many types at once
+     */
+    public abstract Transient asTransient();
+
     /**
      * Implementation of <@link AbstractTypeBag/> that cached the current least upper bound.
      */
@@ -92,8 +98,9 @@ public abstract class AbstractTypeBag implements Cloneable {
                     return new TypeBag(newCountMap, newCachedLub);
                 }
             } else {
+                // update and increase count; lub stays the same
                 newCountMap = countMap.__put(t, oldCount + 1);
-                return new TypeBag(newCountMap);
+                return cachedLub != null ? new TypeBag(newCountMap, cachedLub) : new TypeBag(newCountMap);
             }
         }
 
@@ -142,6 +149,15 @@ public abstract class AbstractTypeBag implements Cloneable {
             return new TypeBag(countMap);
         }
 
+        @Override
+        public Transient asTransient() {
+            final HashMap<Type, int[]> counts = new HashMap<>(countMap.size() * 2);
+            for (Entry<Type, Integer> entry : countMap.entrySet()) {
+                counts.put(entry.getKey(), new int[] { entry.getValue() });
+            }
+            return new Transient(counts, cachedLub);
+        }
+
         @Override
         public String toString() {
             return String.format("PreciseType(members=%s)", countMap.toString());
@@ -173,6 +189,107 @@ public abstract class AbstractTypeBag implements Cloneable {
         }
     }
 
+    /**
+     * A mutable type bag for writers and bulk operations, which updates the counts in place instead of
+     * allocating a new bag per element. The least upper bound is maintained while types are added, and only
+     * recomputed (once, when asked for) after a type has been removed completely. Use {@link #freeze()} to obtain
+     * the immutable bag when the collection is finished.
+     */
+    public static final class Transient {
+        private final HashMap<Type, int[]> counts;
+        private @Nullable Type lub;
+        private int sum;
+
+        private Transient(HashMap<Type, int[]> counts, @Nullable Type lub) {
+            this.counts = counts;
+            this.lub = lub;
+
+            for (int[] count : counts.values()) {
+                sum += count[0];
+            }
+        }
+
+        public static Transient of() {
+            return new Transient(new HashMap<>(), TypeFactory.getInstance().voidType());
+        }
+
+        public void increase(Type t) {
+            final int[] count = counts.get(t);
+
+            if (count == null) {
+                counts.put(t, new int[] { 1 });
+
+                if (lub != null) {
+                    lub = lub.lub(t);
+                }
+            } else {
+                count[0]++;
+            }
+
+            sum++;
+        }
+
+        public void decrease(Type t) {
+            final int[] count = counts.get(t);
+
+            if (count == null) {
+                throw new IllegalStateException(String.format("Type '%s' was not present.", t));
+            }
+
+            if (--count[0] == 0) {
+                counts.remove(t);
+                lub = null;
+            }
+
+            sum--;
+        }
+
+        public Type lub() {
+            if (lub == null) {
+                Type inferredLubType = TypeFactory.getInstance().voidType();
+                for (Type t : counts.keySet()) {
+                    inferredLubType = inferredLubType.lub(t);
+                }
+                lub = inferredLubType;
+            }
+            return lub;
+        }
+
+        public int sum() {
+            return sum;
+        }
+
+        public int size() {
+            return counts.size();
+        }
+
+        /**
+         * @return an immutable bag with the current contents; this bag can still be modified afterwards
+         */
+        public AbstractTypeBag freeze() {
+            final Map.Transient<Type, Integer> countMap = Map.Transient.of();
+            for (Entry<Type, int[]> entry : counts.entrySet()) {
+                countMap.__put(entry.getKey(), entry.getValue()[0]);
+            }
+
+            return lub != null ? new TypeBag(countMap.freeze(), lub) : new TypeBag(countMap.freeze());
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder b = new StringBuilder("TransientType(members={");
+            boolean first = true;
+            for (Entry<Type, int[]> entry : counts.entrySet()) {
+                if (!first) {
+                    b.append(", ");
+                }
+                first = false;
+                b.append(entry.getKey()).append('=').append(entry.getValue()[0]);
+            }
+            return b.append("})").toString();
+        }
+    }
+
     @SuppressWarnings("unchecked")
     public static <M extends Map.Transient<Type, Integer>> Collector<Type, ?, ? extends AbstractTypeBag> toTypeBag() {
         final BiConsumer<M, Type> accumulator = (countMap, type0) -> countMap.compute(type0,
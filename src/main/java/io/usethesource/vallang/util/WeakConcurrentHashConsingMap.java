@@ -0,0 +1,89 @@
+/** 
+ * Copyright (c) 2017, Davy Landman, SWAT.engineering
+ * All rights reserved. 
+ *  
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met: 
+ *  
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer. 
+ *  
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution. 
+ *  
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */ 
+package io.usethesource.vallang.util;
+
+import java.lang.ref.ReferenceQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import io.usethesource.vallang.util.WeakHashConsing.LookupWrapper;
+import io.usethesource.vallang.util.WeakHashConsing.WeakReferenceWrap;
+
+/**
+ * <p>
+ * A Hash Consing implementation that never takes a lock on the whole container, not even for inserts.
+ * It is backed by a {@link ConcurrentHashMap}, so lookups do not block, and inserts only contend with other inserts in the same bin.
+ * Like the {@link WeakWriteLockingHashConsingMap} it will always return the same reference, even in a race between multiple threads.
+ * </p>
+ *
+ * <p>
+ * It keeps the key inside a weak-reference, so the entries are cleared as soon as there are no more strong references to it.
+ * The cleared entries are removed by the same background thread as the ones of the {@link WeakWriteLockingHashConsingMap}.
+ * </p>
+ */
+public class WeakConcurrentHashConsingMap<T extends @NonNull Object> implements HashConsingMap<T>, CleanableHashConsingMap {
+    private final ConcurrentHashMap<WeakReferenceWrap<T>, WeakReferenceWrap<T>> data;
+    private final ReferenceQueue<T> cleared = new ReferenceQueue<>();
+
+    public WeakConcurrentHashConsingMap() {
+        this(16);
+    }
+
+    public WeakConcurrentHashConsingMap(int size) {
+        data = new ConcurrentHashMap<>(size);
+        WeakHashConsing.Cleanup.Instance.register(this);
+    }
+
+    @Override
+    public T get(T key) {
+        // first we try to get the value without building a weak reference
+        LookupWrapper<T> keyLookup = new LookupWrapper<>(key.hashCode(), key);
+        @SuppressWarnings("unlikely-arg-type")
+        WeakReferenceWrap<T> result = data.get(keyLookup);
+        if (result != null) {
+            T actualResult = result.get();
+            if (actualResult != null) {
+                return actualResult;
+            }
+        }
+
+        WeakReferenceWrap<T> keyPut = new WeakReferenceWrap<>(keyLookup.hashCode(), key, cleared);
+        // inserting is atomic per key, so we only race against the garbage collector clearing weak references
+        while (true) {
+            result = data.putIfAbsent(keyPut, keyPut);
+            if (result == null) {
+                return key;
+            }
+
+            // another thread inserted the same object first
+            T actualResult = result.get();
+            if (actualResult != null) {
+                keyPut.clear(); // avoid getting a cleared reference in the queue
+                return actualResult;
+            }
+
+            // the entry got cleared since it matched, so we remove it rather than wait for the cleanup
+            data.remove(result, result);
+        }
+    }
+
+    @Override
+    public void cleanup() {
+        Object c;
+        while ((c = cleared.poll()) != null) {
+            // cleared references are only equal to themselves, so this removes exactly the stale entry
+            data.remove(c);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/** 
+ * Copyright (c) 2017, Davy Landman, SWAT.engineering
+ * All rights reserved. 
+ *  
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met: 
+ *  
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer. 
+ *  
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution. 
+ *  
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */ 
+package io.usethesource.vallang.util;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.checkerframework.checker.initialization.qual.UnknownInitialization;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The weak references and the cleanup thread shared by the {@link WeakWriteLockingHashConsingMap} and the {@link WeakConcurrentHashConsingMap}.
+ */
+/*package*/ final class WeakHashConsing {
+    private WeakHashConsing() {
+    }
+
+    /**
+    * Class that adds the hash-code-equals contract on top of a weak reference
+    */
+    static class WeakReferenceWrap<T extends @NonNull Object> extends WeakReference<T> {
+        private final int hash;
+        
+        public WeakReferenceWrap(int hash, T referent, ReferenceQueue<? super T> q) {
+            super(referent, q);
+            this.hash = hash;
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+        
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (obj instanceof WeakReferenceWrap) {
+                WeakReferenceWrap<?> wrappedObj = (WeakReferenceWrap<?>) obj;
+                if (wrappedObj.hash == hash) {
+                    Object self = get();
+                    if (self == null) {
+                        return false;
+                    }
+                    Object other = wrappedObj.get();
+                    return other != null && self.equals(other);
+                }
+            }
+            return false;
+}
+    }
+    
+    /**
+    * Special wrapper that is used for lookup, so that we don't have to create a weak-reference when we don't need it.
+    * It would have been nicer if we could use the normal equals method of the target object, but that won't be able to work together with the WeakReferenceWrap.
+    */
+    static final class LookupWrapper<T extends @NonNull Object> {
+        private final int hash;
+        private final T ref;
+        public LookupWrapper(int hash, T ref) {
+            this.hash = hash;
+            this.ref = ref;
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+        
+        @Override
+        public boolean equals(@Nullable Object obj) {
+    // only internal use of this class
+
+            if (obj instanceof WeakReferenceWrap) {
+                WeakReferenceWrap<?> wrappedObj = (WeakReferenceWrap<?>) obj;
+                if (wrappedObj.hash == hash) {
+                    Object other = wrappedObj.get();
+                    return other != null && ref.equals(other);
+                }
+            }
+            return false;
+}
+    }
+
+    /**
+     * Cleanup singleton that wraps {@linkplain CleanupThread}
+     */
+    static enum Cleanup {
+        Instance;
+        private final CleanupThread thread;
+        private Cleanup() {
+            thread = new CleanupThread();
+            thread.start();
+        }
+        public void register(@UnknownInitialization CleanableHashConsingMap cache) {
+            thread.register(cache);
+        }
+
+    }
+
+    /**
+    * A special thread that tries to cleanup the containers once every second
+    * 
+    * This way, a get is never blocked for a long time, just to cleanup some old references.
+    */
+    private static class CleanupThread extends Thread {
+        private final ConcurrentLinkedQueue<WeakReference<CleanableHashConsingMap>> caches = new ConcurrentLinkedQueue<>();
+        
+        private CleanupThread() { 
+        }
+
+        @Override
+        public synchronized void start() {
+            setDaemon(true);
+            setName("Cleanup Thread for weak hash-consing maps");
+            super.start();
+        }
+
+        @SuppressWarnings("initialization")
+        public void register(@UnknownInitialization CleanableHashConsingMap cache) {
+            caches.add(new WeakReference<>(cache));
+        }
+        
+        @Override
+        public void run() {
+            while (true) {
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                try {
+                    Iterator<WeakReference<CleanableHashConsingMap>> it = caches.iterator();
+                    while (it.hasNext()) {
+                        CleanableHashConsingMap cur = it.next().get();
+                        if (cur == null) {
+                            it.remove();
+                        }
+                        else {
+                            cur.cleanup();
+                        }
+                    }
+                }
+                catch (Throwable e) {
+                    System.err.println("Cleanup thread failed with: " + e.getMessage());
+                    e.printStackTrace(System.err);
+                }
+            }
+        }
+    }
+}
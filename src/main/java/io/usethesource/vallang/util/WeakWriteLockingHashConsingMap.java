@@ -13,15 +13,13 @@
 package io.usethesource.vallang.util;
 
 import java.lang.ref.ReferenceQueue;
-import java.lang.ref.WeakReference;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
-import java.util.concurrent.ConcurrentLinkedQueue;
 
-import org.checkerframework.checker.initialization.qual.UnknownInitialization;
 import org.checkerframework.checker.nullness.qual.NonNull;
-import org.checkerframework.checker.nullness.qual.Nullable;
+
+import io.usethesource.vallang.util.WeakHashConsing.LookupWrapper;
+import io.usethesource.vallang.util.WeakHashConsing.WeakReferenceWrap;
 
 /**
 * <p>
@@ -34,73 +32,7 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 * </p>
 * @author Davy Landman
 */
-public class WeakWriteLockingHashConsingMap<T extends @NonNull Object> implements HashConsingMap<T> {
-    /**
-    * Class that adds the hash-code-equals contract on top of a weak reference
-    */
-    private static class WeakReferenceWrap<T extends @NonNull Object> extends WeakReference<T> {
-        private final int hash;
-        
-        public WeakReferenceWrap(int hash, T referent, ReferenceQueue<? super T> q) {
-            super(referent, q);
-            this.hash = hash;
-        }
-        
-        @Override
-        public int hashCode() {
-            return hash;
-        }
-        
-        @Override
-        public boolean equals(@Nullable Object obj) {
-            if (obj instanceof WeakReferenceWrap) {
-                WeakReferenceWrap<?> wrappedObj = (WeakReferenceWrap<?>) obj;
-                if (wrappedObj.hash == hash) {
-                    Object self = get();
-                    if (self == null) {
-                        return false;
-                    }
-                    Object other = wrappedObj.get();
-                    return other != null && self.equals(other);
-                }
-            }
-            return false;
-}
-    }
-    
-    /**
-    * Special wrapper that is used for lookup, so that we don't have to create a weak-reference when we don't need it.
-    * It would have been nicer if we could use the normal equals method of the target object, but that won't be able to work together with the WeakReferenceWrap.
-    */
-    private static final class LookupWrapper<T extends @NonNull Object> {
-        private final int hash;
-        private final T ref;
-        public LookupWrapper(int hash, T ref) {
-            this.hash = hash;
-            this.ref = ref;
-        }
-        
-        @Override
-        public int hashCode() {
-            return hash;
-        }
-        
-        @Override
-        public boolean equals(@Nullable Object obj) {
-    // only internal use of this class
-
-            if (obj instanceof WeakReferenceWrap) {
-                WeakReferenceWrap<?> wrappedObj = (WeakReferenceWrap<?>) obj;
-                if (wrappedObj.hash == hash) {
-                    Object other = wrappedObj.get();
-                    return other != null && ref.equals(other);
-                }
-            }
-            return false;
-}
-    }
-    
-    
+public class WeakWriteLockingHashConsingMap<T extends @NonNull Object> implements HashConsingMap<T>, CleanableHashConsingMap {
     private final Map<WeakReferenceWrap<T>,WeakReferenceWrap<T>> data;
     private final ReferenceQueue<T> cleared = new ReferenceQueue<>();
     
@@ -111,7 +43,7 @@ public class WeakWriteLockingHashConsingMap<T extends @NonNull Object> implement
     
     public WeakWriteLockingHashConsingMap(int size) {
         data = new HashMap<>(size);
-        Cleanup.Instance.register(this);
+        WeakHashConsing.Cleanup.Instance.register(this);
     }
     
     
@@ -130,7 +62,7 @@ public class WeakWriteLockingHashConsingMap<T extends @NonNull Object> implement
         }
         // now that we know that we most likely have to insert a new mapping, we acquire a write lock
         synchronized (this) {
-            WeakReferenceWrap<T> keyPut = new WeakReferenceWrap<>(keyLookup.hash, key, cleared);
+            WeakReferenceWrap<T> keyPut = new WeakReferenceWrap<>(keyLookup.hashCode(), key, cleared);
             // we race against the garbage collector clearing weakreferences, not other threads
             while (true) {
                 result = data.merge(keyPut, keyPut, (oldValue, newValue) -> oldValue.get() == null ? newValue : oldValue);
@@ -151,7 +83,8 @@ public class WeakWriteLockingHashConsingMap<T extends @NonNull Object> implement
         }
     }
     
-    private void cleanup() {
+    @Override
+    public void cleanup() {
         // do a cheap poll
         WeakReferenceWrap<? extends @NonNull Object> c = (WeakReferenceWrap<? extends @NonNull Object>) cleared.poll();
         if (c != null) {
@@ -164,71 +97,4 @@ public class WeakWriteLockingHashConsingMap<T extends @NonNull Object> implement
             }
         }
     }
-
-    /**
-     * Cleanup singleton that wraps {@linkplain CleanupThread}
-     */
-    private static enum Cleanup {
-        Instance;
-        private final CleanupThread thread;
-        private Cleanup() {
-            thread = new CleanupThread();
-            thread.start();
-        }
-        public void register(@UnknownInitialization WeakWriteLockingHashConsingMap<?> cache) {
-            thread.register(cache);
-        }
-
-    }
-
-    /**
-    * A special thread that tries to cleanup the containers once every second
-    * 
-    * This way, a get is never blocked for a long time, just to cleanup some old references.
-    */
-    private static class CleanupThread extends Thread {
-        private final ConcurrentLinkedQueue<WeakReference<WeakWriteLockingHashConsingMap<?>>> caches = new ConcurrentLinkedQueue<>();
-        
-        private CleanupThread() { 
-        }
-
-        @Override
-        public synchronized void start() {
-            setDaemon(true);
-            setName("Cleanup Thread for " + WeakWriteLockingHashConsingMap.class.getName());
-            super.start();
-        }
-
-        @SuppressWarnings("initialization")
-        public void register(@UnknownInitialization WeakWriteLockingHashConsingMap<?> cache) {
-            caches.add(new WeakReference<>(cache));
-        }
-        
-        @Override
-        public void run() {
-            while (true) {
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    return;
-                }
-                try {
-                    Iterator<WeakReference<WeakWriteLockingHashConsingMap<?>>> it = caches.iterator();
-                    while (it.hasNext()) {
-                        WeakWriteLockingHashConsingMap<?> cur = it.next().get();
-                        if (cur == null) {
-                            it.remove();
-                        }
-                        else {
-                            cur.cleanup();
-                        }
-                    }
-                }
-                catch (Throwable e) {
-                    System.err.println("Cleanup thread failed with: " + e.getMessage());
-                    e.printStackTrace(System.err);
-                }
-            }
-        }
-    }
 }
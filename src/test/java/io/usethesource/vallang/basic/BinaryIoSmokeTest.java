@@ -10,7 +10,11 @@
  *******************************************************************************/
 package io.usethesource.vallang.basic;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -34,14 +38,21 @@ import io.usethesource.vallang.GivenValue;
 import io.usethesource.vallang.IConstructor;
 import io.usethesource.vallang.IDateTime;
 import io.usethesource.vallang.IList;
+import io.usethesource.vallang.IListWriter;
+import io.usethesource.vallang.ITuple;
 import io.usethesource.vallang.IValue;
 import io.usethesource.vallang.IValueFactory;
 import io.usethesource.vallang.ValueProvider;
 import io.usethesource.vallang.exceptions.FactTypeUseException;
+import io.usethesource.vallang.io.binary.message.IValueIDs;
 import io.usethesource.vallang.io.binary.message.IValueReader;
 import io.usethesource.vallang.io.binary.message.IValueWriter;
+import io.usethesource.vallang.io.binary.message.TypeDictionary;
 import io.usethesource.vallang.io.binary.stream.IValueInputStream;
 import io.usethesource.vallang.io.binary.stream.IValueOutputStream;
+import io.usethesource.vallang.io.binary.stream.ZstdDictionary;
+import io.usethesource.vallang.io.binary.stream.ZstdDictionaryTrainer;
+import io.usethesource.vallang.io.binary.util.SerializationStatistics;
 import io.usethesource.vallang.io.binary.util.WindowSizes;
 import io.usethesource.vallang.io.binary.wire.IWireInputStream;
 import io.usethesource.vallang.io.binary.wire.IWireOutputStream;
@@ -159,6 +170,28 @@ public final class BinaryIoSmokeTest extends BooleanStoreProvider {
         }
     }
 
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testEveryKindOfTypeIO(IValueFactory vf, TypeFactory tf, TypeStore ts) throws IOException {
+        Type adt = tf.abstractDataType(ts, "A", tf.parameterType("T"));
+        Type cons = tf.constructor(ts, adt, "b", tf.parameterType("T"), "tje");
+        Type alias = tf.aliasType(ts, "XX", tf.listType(tf.parameterType("T", tf.numberType())), tf.parameterType("T", tf.numberType()));
+        Type[] types = {
+            tf.boolType(), tf.dateTimeType(), tf.integerType(), tf.nodeType(), tf.numberType(), tf.rationalType(),
+            tf.realType(), tf.sourceLocationType(), tf.stringType(), tf.valueType(),
+            tf.listType(tf.integerType()), tf.setType(tf.stringType()), tf.mapType(tf.integerType(), tf.stringType()),
+            tf.tupleType(new Type[] { tf.integerType(), tf.stringType() }, new String[] { "a", "b" }), tf.tupleEmpty(),
+            tf.relType(tf.integerType(), tf.integerType()), tf.lrelType(tf.realType(), tf.boolType()),
+            tf.parameterType("T", tf.numberType()), alias, adt, cons
+        };
+
+        iopRoundTrip(vf, ts, tf.voidType());
+        for (Type tp : types) {
+            iopRoundTrip(vf, ts, tp);
+        }
+        // a tuple with a void field would be void, and the repeated nested types are written as back references
+        iopRoundTrip(vf, ts, tf.tupleType(types));
+    }
+
     @ParameterizedTest @ArgumentsSource(ValueProvider.class)
     public void testConstructorWithParameterized1(IValueFactory vf, TypeFactory tf, TypeStore ts) throws IOException {
         Type adt = tf.abstractDataType(ts, "A", tf.parameterType("T"));
@@ -185,6 +218,198 @@ public final class BinaryIoSmokeTest extends BooleanStoreProvider {
         ioRoundTrip(vf, ts, vf.constructor(cons, vf.tuple(vf.integer(1), vf.string("a"))));
     }
 
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class) @ArgumentsMaxDepth(6) @ArgumentsMaxWidth(6)
+    public void testSharedTypeDictionaryIO(IValueFactory vf, TypeStore ts, IValue value) throws IOException {
+        ioRoundTripDictionary(vf, ts, value, false);
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class) @ArgumentsMaxDepth(6) @ArgumentsMaxWidth(6)
+    public void testEmbeddedTypeDictionaryIO(IValueFactory vf, TypeStore ts, IValue value) throws IOException {
+        ioRoundTripDictionary(vf, ts, value, true);
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testTypeDictionaryIncludesImports(TypeFactory tf) {
+        TypeStore imported = new TypeStore();
+        Type adt = tf.abstractDataType(imported, "Imported");
+        Type cons = tf.constructor(imported, adt, "imported");
+        TypeStore store = new TypeStore(imported);
+        Type local = tf.abstractDataType(store, "Local");
+
+        TypeDictionary dictionary = TypeDictionary.fromStore(42, store);
+        assertEquals(3, dictionary.size());
+        assertTrue(dictionary.indexOf(local) != -1);
+        assertTrue(dictionary.indexOf(adt) != -1);
+        assertTrue(dictionary.indexOf(cons) != -1);
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testTypeDictionaryDeclaresAliases(IValueFactory vf, TypeFactory tf, TypeStore ts) throws IOException {
+        Type aliased = tf.aliasType(ts, "XX", tf.integerType());
+        Type adt = tf.abstractDataType(ts, "A");
+        Type cons = tf.constructor(ts, adt, "b", tf.tupleType(aliased, tf.stringType()));
+        IValue value = vf.constructor(cons, vf.tuple(vf.integer(1), vf.string("a")));
+        TypeDictionary dictionary = TypeDictionary.fromStore(42, ts);
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (IValueOutputStream w = new IValueOutputStream(buffer, vf, new IValueOutputStream.Options().typeDictionary(dictionary, false))) {
+            w.write(value);
+        }
+        TypeStore fresh = new TypeStore();
+        try (IValueInputStream read = new IValueInputStream(new ByteArrayInputStream(buffer.toByteArray()), vf, () -> fresh, new IValueInputStream.Options().typeDictionary(dictionary))) {
+            assertEquals(value, read.read());
+        }
+        // as when the types are read inline, the aliases are declared in the store of the reader
+        assertSame(aliased, fresh.lookupAlias("XX"));
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class) @ArgumentsMaxDepth(6) @ArgumentsMaxWidth(6)
+    public void testSerializationStatistics(IValueFactory vf, TypeStore ts, IValue value) throws IOException {
+        SerializationStatistics statistics = new SerializationStatistics(IValueIDs::messageName);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (IValueOutputStream w = new IValueOutputStream(buffer, vf, new IValueOutputStream.Options().statistics(statistics))) {
+            w.write(value);
+        }
+        assertEquals(buffer.size(), statistics.getCompressedBytes());
+        long messageBytes = statistics.getMessageBytes().values().stream().mapToLong(l -> l).sum();
+        assertEquals(statistics.getUncompressedBytes(), messageBytes + statistics.getBytesOutsideMessages());
+        assertEquals(1, statistics.getMessageCount(IValueIDs.Header.ID));
+
+        try (IValueInputStream read = new IValueInputStream(new ByteArrayInputStream(buffer.toByteArray()), vf, () -> ts)) {
+            assertEquals(value, read.read());
+        }
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testTinyFirstValueKeepsCompression(IValueFactory vf, TypeStore ts) throws IOException {
+        IListWriter large = vf.listWriter();
+        for (int i = 0; i < 10_000; i++) {
+            large.append(smallValue(vf, i));
+        }
+        IValue value = large.done();
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (IValueOutputStream w = new IValueOutputStream(buffer, vf, IValueOutputStream.CompressionRate.Normal)) {
+            w.write(vf.integer(1));
+            w.write(value);
+        }
+        // the byte after the main header is the compression algorithm of the stream
+        assertTrue(buffer.toByteArray()[5] != 0, "the stream should be compressed");
+        try (IValueInputStream read = new IValueInputStream(new ByteArrayInputStream(buffer.toByteArray()), vf, () -> ts)) {
+            assertEquals(vf.integer(1), read.read());
+            assertEquals(value, read.read());
+        }
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class) @ArgumentsMaxDepth(6) @ArgumentsMaxWidth(6)
+    public void testEstimatedWindowSizes(IValueFactory vf, TypeStore ts, IValue value) throws IOException {
+        WindowSizes sizes = WindowSizes.estimate(value, WindowSizes.SMALL_WINDOW);
+        assertTrue(sizes.valueWindow >= WindowSizes.TINY_WINDOW.valueWindow && sizes.valueWindow <= WindowSizes.SMALL_WINDOW.valueWindow);
+        assertTrue(sizes.typeWindow >= WindowSizes.TINY_WINDOW.typeWindow && sizes.typeWindow <= WindowSizes.SMALL_WINDOW.typeWindow);
+        assertTrue(sizes.uriWindow >= WindowSizes.TINY_WINDOW.uriWindow && sizes.uriWindow <= WindowSizes.SMALL_WINDOW.uriWindow);
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (IValueOutputStream w = new IValueOutputStream(buffer, vf, IValueOutputStream.CompressionRate.Strong)) {
+            w.write(value);
+            w.write(value);
+        }
+        try (IValueInputStream read = new IValueInputStream(new ByteArrayInputStream(buffer.toByteArray()), vf, () -> ts)) {
+            assertEquals(value, read.read());
+            assertEquals(value, read.read());
+        }
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testExactSharingKeepsDAG(IValueFactory vf, TypeStore ts) throws IOException {
+        // a DAG of 40 nodes, which is a tree of 2^40 nodes
+        IValue dag = vf.integer(42);
+        for (int i = 0; i < 40; i++) {
+            dag = vf.tuple(dag, vf.string("level" + i), dag);
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (IValueOutputStream w = new IValueOutputStream(buffer, vf, IValueOutputStream.CompressionRate.ExactSharing)) {
+            w.write(dag);
+        }
+        try (IValueInputStream read = new IValueInputStream(new ByteArrayInputStream(buffer.toByteArray()), vf, () -> ts)) {
+            IValue result = read.read();
+            for (int i = 0; i < 40; i++) {
+                ITuple level = (ITuple) result;
+                assertSame(level.get(0), level.get(2));
+                result = level.get(0);
+            }
+            assertEquals(vf.integer(42), result);
+        }
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testZstdDictionaryIO(IValueFactory vf, TypeStore ts) throws IOException {
+        assumeTrue(ZstdDictionary.isAvailable());
+        ZstdDictionaryTrainer trainer = new ZstdDictionaryTrainer(1024 * 1024, 16 * 1024);
+        for (int i = 0; i < 1000; i++) {
+            ByteArrayOutputStream sample = new ByteArrayOutputStream();
+            try (IValueOutputStream w = new IValueOutputStream(sample, vf, IValueOutputStream.CompressionRate.Normal)) {
+                w.write(smallValue(vf, i));
+            }
+            trainer.addSample(sample.toByteArray());
+        }
+        ZstdDictionary dictionary = trainer.train();
+
+        IValue value = smallValue(vf, 4242);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (IValueOutputStream w = new IValueOutputStream(buffer, vf, new IValueOutputStream.Options().compressionDictionary(dictionary))) {
+            w.write(value);
+        }
+        try (IValueInputStream read = new IValueInputStream(new ByteArrayInputStream(buffer.toByteArray()), vf, () -> ts, new IValueInputStream.Options().compressionDictionary(new ZstdDictionary(dictionary.getContent())))) {
+            assertEquals(value, read.read());
+        }
+        try (IValueInputStream read = new IValueInputStream(new ByteArrayInputStream(buffer.toByteArray()), vf, () -> ts)) {
+            read.read();
+            fail("Reading without the dictionary should fail");
+        }
+        catch (IOException e) {
+            // expected
+        }
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testZstdDictionaryRequiresZstd(IValueFactory vf) throws IOException {
+        assumeTrue(ZstdDictionary.isAvailable());
+        ZstdDictionary dictionary = new ZstdDictionary(new byte[0]);
+        try (IValueOutputStream w = new IValueOutputStream(new ByteArrayOutputStream(), vf, new IValueOutputStream.Options().compression(IValueOutputStream.CompressionRate.Extreme).compressionDictionary(dictionary))) {
+            fail("A zstd dictionary should not be accepted for xz compression");
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testStringDecoding(IValueFactory vf, TypeStore ts) throws IOException {
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            large.append((char) ('a' + (i % 26)));
+            if (i % 1000 == 0) {
+                large.append("\u00e9\u4e2d\uD83D\uDE00");
+            }
+        }
+        IListWriter strings = vf.listWriter();
+        for (int i = 0; i < 2000; i++) {
+            strings.append(vf.string("ascii" + i));
+            strings.append(vf.string("caf\u00e9 " + i));
+            strings.append(vf.string(i % 7 == 0 ? "" : "12345678".substring(i % 8)));
+        }
+        strings.append(vf.string(large.toString()));
+        strings.append(vf.string(large.toString().replaceAll("[^a-z]", "")));
+        IValue value = strings.done();
+        ioRoundTrip(vf, ts, value);
+        ioRoundTripFile(vf, ts, value);
+    }
+
+    private static IValue smallValue(IValueFactory vf, int i) {
+        return vf.list(vf.string("module" + (i % 17)), vf.integer(i), vf.tuple(vf.string("a common name"), vf.bool(i % 2 == 0)), vf.string("some documentation that is repeated for every value " + i));
+    }
+
     @ParameterizedTest @ArgumentsSource(ValueProvider.class)
     public void iopRoundTrip(IValueFactory vf, TypeStore ts, Type tp) throws IOException {
         ByteArrayOutputStream buffer = new ByteArrayOutputStream();
@@ -238,6 +463,51 @@ public final class BinaryIoSmokeTest extends BooleanStoreProvider {
         }
     }
 
+    private void ioRoundTripDictionary(IValueFactory vf, TypeStore ts, IValue value, boolean embed) throws IOException {
+        TypeDictionary dictionary = TypeDictionary.fromStore(42, ts);
+
+        ByteArrayOutputStream schema = new ByteArrayOutputStream();
+        try (IWireOutputStream w = new BinaryWireOutputStream(schema, 1000)) {
+            IValueWriter.writeTypeDictionary(w, vf, WindowSizes.SMALL_WINDOW, dictionary);
+        }
+
+        TypeDictionary shared;
+        try (IWireInputStream read = new BinaryWireInputStream(new ByteArrayInputStream(schema.toByteArray()))) {
+            shared = IValueReader.readTypeDictionary(read, vf, () -> ts);
+        }
+        assertEquals(dictionary.size(), shared.size());
+        for (int i = 0; i < dictionary.size(); i++) {
+            assertSame(dictionary.get(i), shared.get(i));
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (IValueOutputStream w = new IValueOutputStream(buffer, vf, new IValueOutputStream.Options().typeDictionary(dictionary, embed))) {
+            w.write(value);
+            w.write(value); // only the first value embeds the dictionary
+        }
+        try (IValueInputStream read = new IValueInputStream(new ByteArrayInputStream(buffer.toByteArray()), vf, () -> ts, new IValueInputStream.Options().typeDictionary(embed ? TypeDictionary.EMPTY : shared))) {
+            for (int i = 0; i < 2; i++) {
+                IValue result = read.read();
+                if (!value.equals(result)) {
+                    String message = "Not equal: \n\t" + value + " : " + value.getType()
+                    + "\n\t" + result + " : " + result.getType();
+                    System.err.println(message);
+                    fail(message);
+                }
+            }
+        }
+
+        // the constructors from the dictionary are declared in the store of the reader
+        TypeStore fresh = new TypeStore();
+        try (IValueInputStream read = new IValueInputStream(new ByteArrayInputStream(buffer.toByteArray()), vf, () -> fresh, new IValueInputStream.Options().typeDictionary(embed ? TypeDictionary.EMPTY : shared))) {
+            IValue result = read.read();
+            if (result.getType().isAbstractData()) {
+                Type cons = ((IConstructor) result).getConstructorType();
+                assertTrue(fresh.lookupConstructor(cons.getAbstractDataType(), cons.getName()).contains(cons));
+            }
+        }
+    }
+
     private void ioRoundTripFile(IValueFactory vf, TypeStore ts, IValue value) throws IOException {
         long fileSize = 0;
         File target = File.createTempFile("valllang-test-file", "something");
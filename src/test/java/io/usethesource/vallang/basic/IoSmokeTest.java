@@ -13,19 +13,39 @@
 package io.usethesource.vallang.basic;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.net.URISyntaxException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ArgumentsSource;
 
 import io.usethesource.vallang.IConstructor;
+import io.usethesource.vallang.IList;
+import io.usethesource.vallang.IListWriter;
+import io.usethesource.vallang.ISourceLocation;
 import io.usethesource.vallang.IValue;
 import io.usethesource.vallang.IValueFactory;
 import io.usethesource.vallang.ValueProvider;
+import io.usethesource.vallang.exceptions.FactParseError;
 import io.usethesource.vallang.exceptions.FactTypeUseException;
+import io.usethesource.vallang.exceptions.UnexpectedTypeException;
+import io.usethesource.vallang.io.ATermReader;
+import io.usethesource.vallang.io.ATermWriter;
+import io.usethesource.vallang.io.JSONReader;
+import io.usethesource.vallang.io.JSONWriter;
+import io.usethesource.vallang.io.SourceLocationCache;
 import io.usethesource.vallang.io.StandardTextReader;
 import io.usethesource.vallang.io.StandardTextWriter;
 import io.usethesource.vallang.type.Type;
@@ -121,4 +141,219 @@ public class IoSmokeTest extends BooleanStoreProvider {
         
         assertEquals(s.asWithKeywordParameters().getParameter("anno"), vf.integer(2));
     }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testLargeTextInput(IValueFactory vf) throws FactTypeUseException, IOException {
+        // larger than the buffer of the reader, so tokens cross buffer boundaries
+        IListWriter w = vf.listWriter();
+        for (int i = 0; i < 20_000; i++) {
+            w.append(vf.tuple(vf.string("str\\ing " + i + " \"quoted\"\n"), vf.integer(i * 1_000_003L), vf.real(i + 0.5), vf.node("n" + i, vf.integer(-i))));
+        }
+        IValue list = w.done();
+
+        StringWriter out = new StringWriter();
+        new StandardTextWriter().write(list, out);
+        IValue result = new StandardTextReader().read(vf, new StringReader(out.toString()));
+        assertEquals(list, result);
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testTextReaderErrorOffset(IValueFactory vf) {
+        FactParseError e = assertThrows(FactParseError.class, () -> new StandardTextReader().read(vf, new StringReader("[1, 2,  ,]")));
+        assertEquals(9, e.getOffset());
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testTextReaderConstructorLookup(IValueFactory vf, TypeFactory tf, TypeStore store) throws FactTypeUseException, IOException {
+        Type A = tf.abstractDataType(store, "A");
+        Type f = tf.constructor(store, A, "f", tf.integerType(), "x");
+        Type g = tf.constructor(store, A, "g", tf.stringType(), "y");
+
+        // the same constructors are resolved repeatedly, with and without an expected type
+        IValue expected = vf.list(vf.constructor(f, vf.integer(1)), vf.constructor(g, vf.string("a")), vf.constructor(f, vf.integer(2)), vf.node("f", vf.string("b")));
+        assertEquals(expected, new StandardTextReader().read(vf, store, tf.valueType(), new StringReader("[f(1),g(\"a\"),f(2),f(\"b\")]")));
+        assertEquals(vf.list(vf.constructor(f, vf.integer(1)), vf.constructor(f, vf.integer(2))),
+            new StandardTextReader().read(vf, store, tf.listType(A), new StringReader("[f(1),f(2)]")));
+
+        // remembered type checks do not hide type errors
+        assertThrows(UnexpectedTypeException.class, () -> new StandardTextReader().read(vf, store, tf.listType(A), new StringReader("[f(1),f(\"b\")]")));
+        assertThrows(UnexpectedTypeException.class, () -> new StandardTextReader().read(vf, store, tf.listType(tf.listType(tf.integerType())), new StringReader("[[1],[2],[\"c\"]]")));
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testDeepTextIO(IValueFactory vf, TypeFactory tf, TypeStore store) throws FactTypeUseException, IOException {
+        Type L = tf.abstractDataType(store, "L");
+        Type cons = tf.constructor(store, L, "cons", tf.integerType(), "head", L, "tail");
+        Type nil = tf.constructor(store, L, "nil");
+
+        // deep enough to overflow the stack of a recursive reader or writer
+        IValue list = vf.constructor(nil);
+        IValue node = vf.node("leaf");
+        for (int i = 0; i < 100_000; i++) {
+            list = vf.constructor(cons, vf.integer(i), list);
+            node = vf.node("n", vf.list(node));
+        }
+
+        // the values are compared via their text, since equals is recursive
+        String listText = StandardTextWriter.valueToString(list);
+        assertEquals(listText, StandardTextWriter.valueToString(new StandardTextReader().read(vf, store, L, new StringReader(listText))));
+
+        String nodeText = StandardTextWriter.valueToString(node);
+        assertEquals(nodeText, StandardTextWriter.valueToString(new StandardTextReader().read(vf, new StringReader(nodeText))));
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testParallelTextReader(IValueFactory vf, TypeFactory tf, TypeStore store) throws FactTypeUseException, IOException {
+        Type A = tf.abstractDataType(store, "A");
+        Type f = tf.constructor(store, A, "f", tf.integerType(), "i", tf.stringType(), "s", tf.listType(tf.integerType()), "l");
+
+        // large enough to be split in chunks, with commas and brackets in strings and nested values
+        IListWriter w = vf.listWriter();
+        for (int i = 0; i < 50_000; i++) {
+            w.append(vf.constructor(f, vf.integer(i), vf.string("a, \"[b\" " + i), vf.list(vf.integer(i), vf.integer(i + 1))));
+        }
+        IValue list = w.done();
+        String listText = list.toString();
+        String setText = "{" + listText.substring(1, listText.length() - 1) + ",}";
+
+        StandardTextReader reader = new StandardTextReader();
+        assertEquals(list, reader.readParallel(vf, store, tf.listType(A), new StringReader(listText)));
+        assertEquals(reader.read(vf, store, tf.setType(A), new StringReader(setText)), reader.readParallel(vf, store, tf.setType(A), new StringReader(setText)));
+
+        String broken = listText.replace("),f(25000,", "),,f(25000,");
+        assertThrows(FactParseError.class, () -> reader.readParallel(vf, store, tf.listType(A), new StringReader(broken)));
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testStreamingTextElements(IValueFactory vf, TypeFactory tf, TypeStore store) throws FactTypeUseException, IOException {
+        StandardTextReader reader = new StandardTextReader();
+
+        Iterator<IValue> it = reader.readElements(vf, store, tf.listType(tf.integerType()), new StringReader("[1, 2, 3]"));
+        assertEquals(vf.integer(1), it.next());
+        assertEquals(vf.integer(2), it.next());
+        assertEquals(vf.integer(3), it.next());
+        assertFalse(it.hasNext());
+
+        assertEquals(vf.set(vf.string("a"), vf.string("b")),
+            reader.streamElements(vf, store, tf.valueType(), new StringReader("{\"a\",\"b\",}")).collect(vf.setWriter()));
+        assertEquals(vf.list(vf.tuple(vf.integer(1), vf.string("a")), vf.tuple(vf.integer(2), vf.string("b"))),
+            reader.streamElements(vf, store, tf.mapType(tf.integerType(), tf.stringType()), new StringReader("(1:\"a\",2:\"b\")")).collect(vf.listWriter()));
+        assertEquals(0, reader.streamElements(vf, store, tf.valueType(), new StringReader("[]")).count());
+
+        Iterator<IValue> wrong = reader.readElements(vf, store, tf.listType(tf.integerType()), new StringReader("[1,\"a\"]"));
+        assertEquals(vf.integer(1), wrong.next());
+        assertThrows(UnexpectedTypeException.class, () -> wrong.next());
+        assertThrows(FactParseError.class, () -> reader.streamElements(vf, store, tf.valueType(), new StringReader("[1,2")).count());
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testSourceLocationCache(IValueFactory vf, TypeFactory tf, TypeStore store) throws FactTypeUseException, IOException, URISyntaxException {
+        SourceLocationCache locations = new SourceLocationCache(100);
+        StandardTextReader reader = new StandardTextReader(locations);
+
+        IList result = (IList) reader.read(vf, store, tf.listType(tf.sourceLocationType()), new StringReader("[|file:///a.txt|(1,2), |file:///a.txt|, |file:///b.txt|(3,4)]"));
+        assertEquals(vf.sourceLocation(vf.sourceLocation("file", "", "/a.txt"), 1, 2), result.get(0));
+        assertSame(((ISourceLocation) result.get(0)).top(), ((ISourceLocation) result.get(1)).top());
+        assertEquals(1, locations.getHitCount());
+        assertEquals(2, locations.getMissCount());
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testSourceLocationCachePerFactory(IValueFactory vf) throws URISyntaxException {
+        IValueFactory reference = io.usethesource.vallang.impl.reference.ValueFactory.getInstance();
+        IValueFactory other = vf == reference ? io.usethesource.vallang.impl.persistent.ValueFactory.getInstance() : reference;
+        SourceLocationCache locations = new SourceLocationCache(100);
+
+        assertSame(locations.get(vf, "file:///a.txt"), locations.get(vf, "file:///a.txt"));
+        locations.get(other, "file:///a.txt");
+        locations.get(vf, "file", "", "/b.txt", null, null);
+        locations.get(other, "file", "", "/b.txt", null, null);
+        assertEquals(1, locations.getHitCount());
+        assertEquals(4, locations.getMissCount());
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testTextWriterUtf8Output(IValueFactory vf) throws FactTypeUseException, IOException {
+        IValue value = vf.list(vf.string("a\"b\\c\n\u0001\u00e9\u20ac\ud83d\ude00\u2028"), vf.integer(Integer.MIN_VALUE), vf.integer("123456789012345678901234567890"),
+            vf.real(1.5), vf.datetime(2017, 1, 2, 3, 4, 5, 6, -1, 0), vf.node("n", vf.integer(-42)));
+
+        StringWriter expected = new StringWriter();
+        StandardTextWriter writer = new StandardTextWriter(true);
+        writer.write(value, expected);
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        writer.write(value, stream);
+        assertEquals(expected.toString(), new String(stream.toByteArray(), StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream channel = new ByteArrayOutputStream();
+        writer.write(value, Channels.newChannel(channel));
+        assertEquals(expected.toString(), new String(channel.toByteArray(), StandardCharsets.UTF_8));
+
+        assertEquals(value, new StandardTextReader().read(vf, value.getType(), new StringReader(expected.toString())));
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testJSONIO(IValueFactory vf, TypeFactory tf, TypeStore store) throws FactTypeUseException, IOException, URISyntaxException {
+        Type A = tf.abstractDataType(store, "A");
+        Type f = tf.constructor(store, A, "f", tf.integerType(), "x", tf.sourceLocationType(), "y");
+        Type g = tf.constructor(store, A, "g", tf.mapType(tf.integerType(), A), "z");
+        store.declareKeywordParameter(A, "when", tf.dateTimeType());
+
+        ISourceLocation loc = vf.sourceLocation("file", "", "/a.txt");
+        IValue f1 = vf.constructor(f, vf.integer(1), vf.sourceLocation(loc, 1, 2, 3, 4, 5, 6));
+        IValue f2 = vf.constructor(f, vf.integer(2), loc).asWithKeywordParameters().setParameter("when", vf.datetime(2017, 1, 2, 3, 4, 5, 6, -1, 0));
+        IValue value = vf.tuple(
+            vf.constructor(g, vf.map().put(vf.integer(1), f1).put(vf.integer(2), f2)),
+            vf.set(vf.string("a\"b\n\u00e9"), vf.string("")),
+            vf.map().put(vf.string("key"), vf.list(vf.real(1.5), vf.real("2."), vf.rational(1, 3))),
+            vf.node("n", vf.integer(-42), vf.bool(true)),
+            vf.list(vf.date(2017, 1, 2), vf.time(3, 4, 5, 6)));
+
+        StringWriter json = new StringWriter();
+        new JSONWriter().write(value, json);
+        assertEquals(value, new JSONReader().read(vf, store, value.getType(), new StringReader(json.toString())));
+
+        assertEquals(vf.map().put(vf.string("a"), vf.list(vf.integer(1), vf.real("2.5"), vf.string("x\u00e9"), vf.bool(true), vf.node("n", vf.integer(1)), f1)),
+            new JSONReader().read(vf, store, tf.valueType(), new StringReader(" {\"a\": [1, 2.5, \"x\\u00e9\", true, {\"_node\": \"n\", \"_args\": [1]}, "
+                + "{\"_constructor\": \"f\", \"y\": {\"uri\": \"file:///a.txt\", \"offset\": 1, \"length\": 2, \"begin\": [3, 5], \"end\": [4, 6]}, \"x\": 1}]} ")));
+
+        assertThrows(UnexpectedTypeException.class, () -> new JSONReader().read(vf, store, tf.listType(tf.integerType()), new StringReader("[1, \"a\"]")));
+        assertThrows(FactParseError.class, () -> new JSONReader().read(vf, store, A, new StringReader("{\"_constructor\": \"f\", \"x\": 1}")));
+        assertThrows(FactParseError.class, () -> new JSONReader().read(vf, store, tf.valueType(), new StringReader("[1, 2")));
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testATermIO(IValueFactory vf, TypeFactory tf, TypeStore store) throws FactTypeUseException, IOException {
+        Type A = tf.abstractDataType(store, "A");
+        Type f = tf.constructor(store, A, "f", tf.integerType(), "x", tf.stringType(), "y");
+        Type g = tf.constructor(store, A, "g", A, "l", A, "r");
+        store.declareKeywordParameter(A, "z", tf.listType(tf.integerType()));
+
+        IValue f1 = vf.constructor(f, vf.integer(1), vf.string("a\"b\\c\n\u00e9\uD83D\uDE00"));
+        IValue f2 = vf.constructor(f, vf.integer(-2), vf.string("")).asWithKeywordParameters().setParameter("z", vf.list(vf.integer(3)));
+        IValue value = vf.tuple(
+            vf.list(f1, f2, f1),
+            vf.set(vf.string("abc"), vf.string("def")),
+            vf.map().put(vf.string("abc"), vf.list(vf.real(1.5), vf.real("2."))).put(vf.string("x"), vf.list()),
+            vf.integer("123456789012345678901234567890"));
+        Type type = tf.tupleType(tf.listType(A), tf.setType(tf.stringType()), tf.mapType(tf.stringType(), tf.listType(tf.realType())), tf.integerType());
+
+        for (boolean sharing : new boolean[] { false, true }) {
+            StringWriter aterm = new StringWriter();
+            new ATermWriter(sharing).write(value, aterm);
+            assertEquals(value, new ATermReader().read(vf, store, type, new ByteArrayInputStream(aterm.toString().getBytes(StandardCharsets.UTF_8))));
+        }
+
+        // a value of exponential size is written in linear size when the sharing is kept
+        IValue dag = vf.constructor(f, vf.integer(0), vf.string("leaf"));
+        for (int i = 0; i < 16; i++) {
+            dag = vf.constructor(g, dag, dag);
+        }
+        StringWriter shared = new StringWriter();
+        new ATermWriter(true).write(dag, shared);
+        assertTrue(shared.toString().startsWith("!"));
+        assertTrue(shared.toString().length() < 500);
+        IValue read = new ATermReader().read(vf, store, A, new ByteArrayInputStream(shared.toString().getBytes(StandardCharsets.UTF_8)));
+        assertEquals(dag, read);
+    }
 }
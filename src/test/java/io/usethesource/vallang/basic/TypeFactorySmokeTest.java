@@ -12,6 +12,8 @@
 
 package io.usethesource.vallang.basic;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -21,10 +23,17 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ArgumentsSource;
 
+import io.usethesource.vallang.IConstructor;
+import io.usethesource.vallang.ISet;
+import io.usethesource.vallang.ISetWriter;
+import io.usethesource.vallang.ITuple;
 import io.usethesource.vallang.IValue;
 import io.usethesource.vallang.IValueFactory;
 import io.usethesource.vallang.ValueProvider;
@@ -552,4 +561,96 @@ public final class TypeFactorySmokeTest {
 
         assertTrue(labeled.instantiate(bindings).getElementType().hasFieldNames());
     }
+
+    @ParameterizedTest
+    @ArgumentsSource(ValueProvider.class)
+    public void testStoreLookupsSeeLaterDeclarationsInImports(TypeFactory tf) {
+        TypeStore lib = new TypeStore();
+        TypeStore main = new TypeStore(lib);
+        Type adt = tf.abstractDataType(lib, "LookupADT");
+        Type f = tf.constructor(lib, adt, "f", tf.integerType());
+
+        assertTrue(main.lookupAbstractDataType("LookupADT") == adt);
+        assertTrue(main.lookupAlternatives(adt).size() == 1);
+
+        // after the lookups above, new declarations in the imported store must still become visible
+        Type g = tf.constructor(lib, adt, "g", tf.stringType());
+        tf.aliasType(lib, "LookupAlias", adt);
+
+        assertTrue(main.lookupAlternatives(adt).contains(g));
+        assertTrue(main.lookupConstructor(adt, "g").contains(g));
+        assertTrue(main.lookupConstructors("f").contains(f));
+        assertTrue(main.lookupAlias("LookupAlias") != null);
+
+        main.unimportStores(lib);
+        assertTrue(main.lookupAbstractDataType("LookupADT") == null);
+        assertTrue(main.lookupAlternatives(adt).isEmpty());
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(ValueProvider.class)
+    public void testKeywordParameterTablesSeeLaterDeclarations(TypeFactory tf) {
+        TypeStore lib = new TypeStore();
+        TypeStore main = new TypeStore(lib);
+        Type adt = tf.abstractDataType(lib, "KeywordADT");
+        Type f = tf.constructor(lib, adt, "f", tf.integerType());
+
+        assertTrue(main.getKeywordParameters(f).isEmpty());
+        assertFalse(main.hasKeywordParameters(f));
+
+        // after the lookups above, new declarations must still become visible, also from imported stores
+        lib.declareKeywordParameter(adt, "onADT", tf.integerType());
+        main.declareKeywordParameter(f, "onCons", tf.stringType());
+
+        assertEquals(2, main.getKeywordParameters(f).size());
+        assertTrue(main.getKeywordParameterType(f, "onADT") == tf.integerType());
+        assertTrue(main.hasKeywordParameter(f, "onCons"));
+        assertTrue(main.hasKeywordParameters(f));
+        assertFalse(lib.hasKeywordParameter(f, "onCons"));
+
+        try {
+            main.getKeywordParameters(f).put("other", tf.realType());
+            fail("keyword parameter tables are shared, so they must be unmodifiable");
+        }
+        catch (UnsupportedOperationException e) {
+            // expected
+        }
+
+        main.unimportStores(lib);
+        assertTrue(main.getKeywordParameterType(f, "onADT") == null);
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(ValueProvider.class)
+    public void testRepeatedReificationRoundTrips(IValueFactory vf, TypeFactory tf) {
+        TypeStore store = new TypeStore();
+        Type adt = tf.abstractDataType(store, "ReifiedADT");
+        tf.constructor(store, adt, "leaf", tf.integerType(), "i");
+        Type closed = tf.mapType(tf.stringType(), tf.listType(tf.integerType()));
+        Type withData = tf.setType(tf.tupleType(adt, closed));
+
+        assertTrue(tf.asSymbol(closed, vf, store, vf.setWriter()) == tf.asSymbol(closed, vf, store, vf.setWriter()));
+
+        // data-types must add their productions to the grammar, every time
+        ISetWriter first = vf.setWriter();
+        ISetWriter second = vf.setWriter();
+        IConstructor symbol = tf.asSymbol(withData, vf, store, first);
+        assertEquals(symbol, tf.asSymbol(withData, vf, store, second));
+        ISet grammar = first.done();
+        assertEquals(1, grammar.size());
+        assertEquals(grammar, second.done());
+
+        Function<IConstructor, Set<IConstructor>> definitions = sym -> grammar.stream()
+                .map(t -> (ITuple) t)
+                .filter(t -> t.get(0).equals(sym))
+                .map(t -> (IConstructor) t.get(1))
+                .collect(Collectors.toSet());
+
+        for (int i = 0; i < 3; i++) {
+            TypeStore target = new TypeStore();
+            assertEquals(withData, tf.fromSymbol(symbol, target, definitions));
+            assertEquals(withData, tf.fromSymbol(symbol, target, definitions));
+            assertEquals(1, target.lookupAlternatives(adt).size());
+        }
+    }
 }
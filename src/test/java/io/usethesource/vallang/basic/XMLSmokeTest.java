@@ -13,10 +13,12 @@
 package io.usethesource.vallang.basic;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.Iterator;
 
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -28,6 +30,7 @@ import io.usethesource.vallang.IValue;
 import io.usethesource.vallang.IValueFactory;
 import io.usethesource.vallang.ValueProvider;
 import io.usethesource.vallang.exceptions.UnsupportedTypeException;
+import io.usethesource.vallang.io.StandardTextWriter;
 import io.usethesource.vallang.io.XMLReader;
 import io.usethesource.vallang.io.XMLWriter;
 import io.usethesource.vallang.type.TypeStore;
@@ -51,4 +54,44 @@ public class XMLSmokeTest extends BooleanStoreProvider {
         }
     }
 
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testXMLReader(IValueFactory vf) throws IOException {
+        IValue t = vf.constructor(True);
+        IValue f = vf.constructor(False);
+        String twotups = "<?xml version=\"1.0\"?>\n<!-- tuples are juxtapositioned -->\n<twotups>\n  <true/><false/>\n  <and><true/><false/></and><not><true/></not>\n</twotups>";
+        assertEquals(vf.constructor(TwoTups, vf.tuple(t, f), vf.tuple(vf.constructor(And, t, f), vf.constructor(Not, t))),
+            new XMLReader().read(vf, store, Boolean, new StringReader(twotups)));
+
+        String couples = "<couples>\n  <name>a</name><name>b</name>\n  <name>c</name><name><![CDATA[<d>]]></name>\n</couples>";
+        assertEquals(vf.constructor(Couples, vf.list(vf.tuple(vf.constructor(NameNode, vf.string("a")), vf.constructor(NameNode, vf.string("b"))),
+            vf.tuple(vf.constructor(NameNode, vf.string("c")), vf.constructor(NameNode, vf.string("<d>"))))),
+            new XMLReader().read(vf, store, Boolean, new StringReader(couples)));
+
+        // deep documents do not overflow the stack
+        StringBuilder deep = new StringBuilder();
+        IValue expected = t;
+        for (int i = 0; i < 100000; i++) {
+            deep.append("<not>");
+            expected = vf.constructor(Not, expected);
+        }
+        deep.append("<true/>");
+        for (int i = 0; i < 100000; i++) {
+            deep.append("</not>");
+        }
+        // the values are compared via their text, since equals is recursive
+        IValue read = new XMLReader().read(vf, store, Boolean, new StringReader(deep.toString()));
+        assertEquals(StandardTextWriter.valueToString(expected), StandardTextWriter.valueToString(read));
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testStreamingXMLElements(IValueFactory vf) throws IOException {
+        String friends = "<friends><name>a</name><name>b</name><name>c</name></friends>";
+        Iterator<IValue> it = new XMLReader().readElements(vf, store, Boolean, new StringReader(friends));
+        assertEquals(vf.constructor(NameNode, vf.string("a")), it.next());
+        assertEquals(vf.constructor(NameNode, vf.string("b")), it.next());
+        assertEquals(vf.constructor(NameNode, vf.string("c")), it.next());
+        assertFalse(it.hasNext());
+
+        assertEquals(2, new XMLReader().streamElements(vf, store, Boolean, new StringReader("<couples><name>a</name><name>b</name><name>c</name><name>d</name></couples>")).count());
+    }
 }
@@ -0,0 +1,385 @@
+package io.usethesource.vallang.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+
+import io.usethesource.vallang.ArgumentsMaxDepth;
+import io.usethesource.vallang.ArgumentsMaxWidth;
+import io.usethesource.vallang.IBool;
+import io.usethesource.vallang.IDateTime;
+import io.usethesource.vallang.IInteger;
+import io.usethesource.vallang.IMapWriter;
+import io.usethesource.vallang.IRational;
+import io.usethesource.vallang.IReal;
+import io.usethesource.vallang.ISetWriter;
+import io.usethesource.vallang.ISourceLocation;
+import io.usethesource.vallang.IString;
+import io.usethesource.vallang.IValue;
+import io.usethesource.vallang.IValueFactory;
+import io.usethesource.vallang.ValueProvider;
+import io.usethesource.vallang.io.binary.message.IValueEventVisitor;
+import io.usethesource.vallang.io.binary.stream.IValueInputStream;
+import io.usethesource.vallang.io.binary.stream.IValueOutputStream;
+import io.usethesource.vallang.io.binary.stream.IValueOutputStream.CompressionRate;
+import io.usethesource.vallang.type.Type;
+import io.usethesource.vallang.type.TypeStore;
+
+public class IValueEventReaderTest {
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class) @ArgumentsMaxDepth(8) @ArgumentsMaxWidth(8)
+    public void rebuildFromEvents(IValueFactory vf, TypeStore ts, IValue value) throws IOException {
+        byte[] serialized = write(vf, value);
+        Rebuild rebuild = new Rebuild(vf);
+        try (IValueInputStream in = new IValueInputStream(new ByteArrayInputStream(serialized), vf, () -> ts)) {
+            in.read(rebuild);
+        }
+        assertEquals(value, rebuild.result);
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class) @ArgumentsMaxDepth(8) @ArgumentsMaxWidth(8)
+    public void skippingKeepsIdsStable(IValueFactory vf, TypeStore ts, IValue value) throws IOException {
+        byte[] serialized = write(vf, value);
+        Ids full = new Ids(false);
+        Ids skipping = new Ids(true);
+        try (IValueInputStream in = new IValueInputStream(new ByteArrayInputStream(serialized), vf, () -> ts)) {
+            in.read(full);
+        }
+        try (IValueInputStream in = new IValueInputStream(new ByteArrayInputStream(serialized), vf, () -> ts)) {
+            in.read(skipping);
+        }
+        for (Map.Entry<Long, String> e : skipping.kinds.entrySet()) {
+            assertEquals(full.kinds.get(e.getKey()), e.getValue());
+        }
+        for (long id : skipping.previous) {
+            assertTrue(full.kinds.containsKey(id));
+        }
+    }
+
+    private static byte[] write(IValueFactory vf, IValue value) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (IValueOutputStream out = new IValueOutputStream(result, vf, CompressionRate.Normal)) {
+            out.write(value);
+        }
+        return result.toByteArray();
+    }
+
+    /**
+     * Registers the kind of every value by its id, optionally skipping the content of lists
+     */
+    private static class Ids implements IValueEventVisitor<RuntimeException> {
+        private final boolean skipLists;
+        private final Map<Long, String> kinds = new HashMap<>();
+        private final List<Long> previous = new ArrayList<>();
+
+        public Ids(boolean skipLists) {
+            this.skipLists = skipLists;
+        }
+
+        private void register(long id, String kind) {
+            if (id != -1) {
+                kinds.put(id, kind);
+            }
+        }
+
+        @Override
+        public void enterNamedValues(String[] names, int numberOfNestedValues) {
+        }
+
+        @Override
+        public void leaveNamedValue() {
+        }
+
+        @Override
+        public boolean enterConstructor(Type constructorType, int children) {
+            return true;
+        }
+
+        @Override
+        public void enterConstructorKeywordParameters() {
+        }
+
+        @Override
+        public void leaveConstructor(long id) {
+            register(id, "constructor");
+        }
+
+        @Override
+        public boolean enterNode(String name, int children) {
+            return true;
+        }
+
+        @Override
+        public void enterNodeKeywordParameters() {
+        }
+
+        @Override
+        public void leaveNode(long id) {
+            register(id, "node");
+        }
+
+        @Override
+        public boolean enterList(int children) {
+            return !skipLists;
+        }
+
+        @Override
+        public void leaveList(long id) {
+            register(id, "list");
+        }
+
+        @Override
+        public boolean enterSet(int elements) {
+            return true;
+        }
+
+        @Override
+        public void leaveSet(long id) {
+            register(id, "set");
+        }
+
+        @Override
+        public boolean enterMap(int elements) {
+            return true;
+        }
+
+        @Override
+        public void leaveMap(long id) {
+            register(id, "map");
+        }
+
+        @Override
+        public boolean enterTuple(int arity) {
+            return true;
+        }
+
+        @Override
+        public void leaveTuple(long id) {
+            register(id, "tuple");
+        }
+
+        @Override
+        public void visitString(IString val) {
+        }
+
+        @Override
+        public void visitInteger(IInteger val) {
+        }
+
+        @Override
+        public void visitReal(IReal val) {
+        }
+
+        @Override
+        public void visitRational(IRational val) {
+        }
+
+        @Override
+        public void visitSourceLocation(ISourceLocation val) {
+        }
+
+        @Override
+        public void visitBoolean(IBool val) {
+        }
+
+        @Override
+        public void visitDateTime(IDateTime val) {
+        }
+
+        @Override
+        public void visitPreviousValue(long id) {
+            previous.add(id);
+        }
+    }
+
+    /**
+     * Builds the value again from the events
+     */
+    private static class Rebuild implements IValueEventVisitor<RuntimeException> {
+        private final IValueFactory vf;
+        private final Deque<Frame> stack = new ArrayDeque<>();
+        private final Map<Long, IValue> values = new HashMap<>();
+        private IValue result;
+
+        private static final class Frame {
+            final Type type;
+            final String name;
+            final String[] names;
+            final List<IValue> children = new ArrayList<>();
+            final Map<String, IValue> keywordParameters = new HashMap<>();
+
+            Frame(Type type, String name, String[] names) {
+                this.type = type;
+                this.name = name;
+                this.names = names;
+            }
+        }
+
+        public Rebuild(IValueFactory vf) {
+            this.vf = vf;
+        }
+
+        private void add(IValue v) {
+            if (stack.isEmpty()) {
+                result = v;
+            }
+            else {
+                stack.peek().children.add(v);
+            }
+        }
+
+        private void add(long id, IValue v) {
+            if (id != -1) {
+                values.put(id, v);
+            }
+            add(v);
+        }
+
+        private boolean push(Type type, String name) {
+            stack.push(new Frame(type, name, new String[0]));
+            return true;
+        }
+
+        @Override
+        public void enterNamedValues(String[] names, int numberOfNestedValues) {
+            stack.push(new Frame(null, null, names));
+        }
+
+        @Override
+        public void leaveNamedValue() {
+            Frame named = stack.pop();
+            for (int i = 0; i < named.names.length; i++) {
+                stack.peek().keywordParameters.put(named.names[i], named.children.get(i));
+            }
+        }
+
+        @Override
+        public boolean enterConstructor(Type constructorType, int children) {
+            return push(constructorType, null);
+        }
+
+        @Override
+        public void enterConstructorKeywordParameters() {
+        }
+
+        @Override
+        public void leaveConstructor(long id) {
+            Frame f = stack.pop();
+            add(id, vf.constructor(f.type, f.children.toArray(new IValue[0]), f.keywordParameters));
+        }
+
+        @Override
+        public boolean enterNode(String name, int children) {
+            return push(null, name);
+        }
+
+        @Override
+        public void enterNodeKeywordParameters() {
+        }
+
+        @Override
+        public void leaveNode(long id) {
+            Frame f = stack.pop();
+            add(id, vf.node(f.name, f.children.toArray(new IValue[0]), f.keywordParameters));
+        }
+
+        @Override
+        public boolean enterList(int children) {
+            return push(null, null);
+        }
+
+        @Override
+        public void leaveList(long id) {
+            add(id, vf.list(stack.pop().children.toArray(new IValue[0])));
+        }
+
+        @Override
+        public boolean enterSet(int elements) {
+            return push(null, null);
+        }
+
+        @Override
+        public void leaveSet(long id) {
+            ISetWriter w = vf.setWriter();
+            w.insertAll(stack.pop().children);
+            add(id, w.done());
+        }
+
+        @Override
+        public boolean enterMap(int elements) {
+            return push(null, null);
+        }
+
+        @Override
+        public void leaveMap(long id) {
+            List<IValue> kvs = stack.pop().children;
+            IMapWriter w = vf.mapWriter();
+            for (int i = 0; i < kvs.size(); i += 2) {
+                w.put(kvs.get(i), kvs.get(i + 1));
+            }
+            add(id, w.done());
+        }
+
+        @Override
+        public boolean enterTuple(int arity) {
+            return push(null, null);
+        }
+
+        @Override
+        public void leaveTuple(long id) {
+            add(id, vf.tuple(stack.pop().children.toArray(new IValue[0])));
+        }
+
+        @Override
+        public void visitString(IString val) {
+            add(val);
+        }
+
+        @Override
+        public void visitInteger(IInteger val) {
+            add(val);
+        }
+
+        @Override
+        public void visitReal(IReal val) {
+            add(val);
+        }
+
+        @Override
+        public void visitRational(IRational val) {
+            add(val);
+        }
+
+        @Override
+        public void visitSourceLocation(ISourceLocation val) {
+            add(val);
+        }
+
+        @Override
+        public void visitBoolean(IBool val) {
+            add(val);
+        }
+
+        @Override
+        public void visitDateTime(IDateTime val) {
+            add(val);
+        }
+
+        @Override
+        public void visitPreviousValue(long id) {
+            add(values.get(id));
+        }
+    }
+}
@@ -15,6 +15,8 @@ import io.usethesource.vallang.ISet;
 import io.usethesource.vallang.ISourceLocation;
 import io.usethesource.vallang.IValue;
 import io.usethesource.vallang.ValueProvider;
+import io.usethesource.vallang.type.Type;
+import io.usethesource.vallang.type.TypeFactory;
 
 public class SetTests {
 
@@ -56,4 +58,15 @@ public class SetTests {
         assertEquals(smaller.size() + 1, set.size());
         assertTrue(!smaller.contains(elem));
     }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void bulkOperationsKeepPreciseType(TypeFactory tf, ISet a, ISet b) {
+        for (ISet result : new ISet[] { a.union(b), a.intersect(b), a.subtract(b), a.union(b).subtract(b) }) {
+            Type lub = tf.voidType();
+            for (IValue elem : result) {
+                lub = lub.lub(elem.getType());
+            }
+            assertEquals(tf.setType(lub), result.getType());
+        }
+    }
 }
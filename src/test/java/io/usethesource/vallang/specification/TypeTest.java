@@ -1,6 +1,8 @@
 package io.usethesource.vallang.specification;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -23,6 +25,7 @@ import io.usethesource.vallang.TypeConfig.Option;
 import io.usethesource.vallang.ValueProvider;
 import io.usethesource.vallang.exceptions.FactTypeDeclarationException;
 import io.usethesource.vallang.type.Type;
+import io.usethesource.vallang.type.TypeBindings;
 import io.usethesource.vallang.type.TypeFactory;
 import io.usethesource.vallang.type.TypeStore;
 
@@ -465,6 +468,102 @@ public class TypeTest {
         assertTrue(tf.mapType(t, u).intersects(tf.mapType(u, t)));
     }
 
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void memoizedRelationsAreStable(TypeFactory tf, Type t, Type u) {
+        Type lt = tf.listType(tf.tupleType(t, u));
+        Type lu = tf.listType(tf.tupleType(u, t));
+
+        boolean sub = lt.isSubtypeOf(lu);
+        boolean intersects = lt.intersects(lu);
+        Type lub = lt.lub(lu);
+        Type glb = lt.glb(lu);
+
+        // the second time around the answers come from the cache, and must be the same
+        assertEquals(sub, lt.isSubtypeOf(lu));
+        assertEquals(intersects, lt.intersects(lu));
+        assertSame(lub, lt.lub(lu));
+        assertSame(glb, lt.glb(lu));
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void precomputedFlagsFollowTheirDefinitions(TypeFactory tf, Type t, Type u) {
+        Type tuple = tf.tupleType(t, u);
+
+        // a tuple with a void field is void itself
+        assertEquals(!tuple.isBottom() && (t.isOpen() || u.isOpen()), tuple.isOpen());
+        assertEquals(t.isOpen() || u.isOpen(), tf.mapType(t, u).isOpen());
+        assertEquals(t.isOpen(), tf.functionType(t, tf.tupleEmpty(), tf.tupleEmpty()).isOpen());
+        assertEquals(t.isOpen(), tf.setType(t).isOpen());
+        assertEquals(t.hasFieldNames(), tf.listType(t).hasFieldNames());
+        assertEquals(t.isTuple() || t.isBottom(), tf.setType(t).isRelation());
+        assertEquals(t.isTuple() || t.isBottom(), tf.listType(t).isListRelation());
+        assertTrue(tf.setType(tuple).isRelation());
+        assertTrue(tf.listType(tuple).isListRelation());
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void kindOfEveryType(TypeFactory tf, TypeStore store) {
+        Type adt = tf.abstractDataType(store, "KindOfEveryType");
+
+        assertEquals(Type.KIND_BOOL, tf.boolType().getKind());
+        assertEquals(Type.KIND_DATE_TIME, tf.dateTimeType().getKind());
+        assertEquals(Type.KIND_INTEGER, tf.integerType().getKind());
+        assertEquals(Type.KIND_NODE, tf.nodeType().getKind());
+        assertEquals(Type.KIND_NUMBER, tf.numberType().getKind());
+        assertEquals(Type.KIND_RATIONAL, tf.rationalType().getKind());
+        assertEquals(Type.KIND_REAL, tf.realType().getKind());
+        assertEquals(Type.KIND_SOURCE_LOCATION, tf.sourceLocationType().getKind());
+        assertEquals(Type.KIND_STRING, tf.stringType().getKind());
+        assertEquals(Type.KIND_VALUE, tf.valueType().getKind());
+        assertEquals(Type.KIND_VOID, tf.voidType().getKind());
+        assertEquals(Type.KIND_LIST, tf.listType(tf.integerType()).getKind());
+        assertEquals(Type.KIND_LIST, tf.lrelType(tf.integerType(), tf.stringType()).getKind());
+        assertEquals(Type.KIND_SET, tf.setType(tf.integerType()).getKind());
+        assertEquals(Type.KIND_SET, tf.relType(tf.integerType(), tf.stringType()).getKind());
+        assertEquals(Type.KIND_MAP, tf.mapType(tf.integerType(), tf.stringType()).getKind());
+        assertEquals(Type.KIND_TUPLE, tf.tupleType(tf.integerType(), tf.stringType()).getKind());
+        assertEquals(Type.KIND_TUPLE, tf.tupleEmpty().getKind());
+        assertEquals(Type.KIND_FUNCTION, tf.functionType(tf.integerType(), tf.tupleEmpty(), tf.tupleEmpty()).getKind());
+        assertEquals(Type.KIND_PARAMETER, tf.parameterType("T").getKind());
+        assertEquals(Type.KIND_ALIAS, tf.aliasType(store, "KindOfEveryTypeAlias", tf.integerType()).getKind());
+        assertEquals(Type.KIND_ABSTRACT_DATA, adt.getKind());
+        assertEquals(Type.KIND_CONSTRUCTOR, tf.constructor(store, adt, "kindOfEveryType", tf.integerType(), "i").getKind());
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void closedTypesMatchTheirSubtypes(TypeFactory tf, Type t, Type u) {
+        Type closed = tf.setType(tf.tupleType(t, u));
+
+        if (!closed.isOpen()) {
+            Map<Type, Type> bindings = new HashMap<>();
+            assertEquals(t.isSubtypeOf(closed), closed.match(t, bindings));
+            assertTrue(closed.match(tf.setType(tf.tupleType(t, u)), bindings));
+            assertTrue(bindings.isEmpty());
+            assertSame(closed, closed.instantiate(Collections.singletonMap(tf.parameterType("T"), tf.integerType())));
+        }
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void typeBindingsInstantiateLikeHashMaps(TypeFactory tf, TypeStore store, Type t, Type u) {
+        Type T = tf.parameterType("First");
+        Type U = tf.parameterType("Second");
+        Type adt = tf.abstractDataType(store, "Pair", T, U);
+        Type pair = tf.constructor(store, adt, "pair", T, "first", U, "second");
+        Type actual = tf.tupleType(t, u);
+
+        Map<Type, Type> expected = new HashMap<>();
+        Map<Type, Type> compact = new TypeBindings();
+        assertEquals(pair.getFieldTypes().match(actual, expected), pair.getFieldTypes().match(actual, compact));
+        assertEquals(expected, compact);
+        assertEquals(compact, expected);
+        assertSame(pair.instantiate(expected), pair.instantiate(compact));
+        assertSame(adt.instantiate(expected), adt.instantiate(compact));
+
+        compact.remove(T);
+        expected.remove(T);
+        assertEquals(expected, compact);
+    }
+
     @ParameterizedTest @ArgumentsSource(ValueProvider.class)
     public void openTypeParametersAlwaysMatch(TypeFactory tf, Type matched) {
         assertTrue(tf.parameterType("Free").match(matched, new HashMap<>()));